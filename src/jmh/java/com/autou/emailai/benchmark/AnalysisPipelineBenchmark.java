@@ -0,0 +1,145 @@
+package com.autou.emailai.benchmark;
+
+import com.autou.emailai.application.EmailAnalysisService;
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.AnalysisHistoryStore;
+import com.autou.emailai.application.ports.out.PreClassifier;
+import com.autou.emailai.application.ports.out.SimilarAnalysisIndex;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.infrastructure.ai.OpenAiClient;
+import com.autou.emailai.infrastructure.ai.OpenAiRateLimiter;
+import com.autou.emailai.infrastructure.ai.OpenAiResponsesCodec;
+import com.autou.emailai.infrastructure.config.OpenAiConfig;
+import com.autou.emailai.infrastructure.file.FileExtractorRegistry;
+import com.autou.emailai.infrastructure.file.PdfTextExtractor;
+import com.autou.emailai.infrastructure.file.TxtTextExtractor;
+import com.autou.emailai.infrastructure.http.AsyncHttpEndpoint;
+import com.autou.emailai.support.EmailTextPreprocessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full analyzeText / analyzeFile path. backend=memory answers in-process and
+ * isolates the local stages; backend=stub goes through OpenAiClient and the
+ * real HTTP transport against {@link StubResponsesServer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisPipelineBenchmark {
+
+    private static final AiAnalysisResponse FIXED_RESPONSE = new AiAnalysisResponse(
+            "PRODUTIVO", 0.91, "Solicitacao de suporte.", "Ola! Recebemos sua mensagem e retornaremos em breve.", "memory");
+    private static final int CHARS_PER_PDF_PAGE = 500;
+
+    @Param({"curto", "medio", "longo"})
+    public String email;
+
+    @Param({"memory", "stub"})
+    public String backend;
+
+    @Param({"20"})
+    public int latencyMs;
+
+    private EmailAnalysisService service;
+    private PdfTextExtractor pdfExtractor;
+    private StubResponsesServer stub;
+    private ExecutorService httpExecutor;
+    private HttpClient httpClient;
+    private String text;
+    private byte[] txt;
+    private byte[] pdf;
+
+    @Setup
+    public void setup() throws IOException {
+        text = BenchmarkCorpus.text(email);
+        txt = text.getBytes(StandardCharsets.UTF_8);
+        pdf = BenchmarkCorpus.pdf(text, Math.max(1, text.length() / CHARS_PER_PDF_PAGE));
+
+        AiClient aiClient = "stub".equals(backend) ? stubClient() : cleanedText -> FIXED_RESPONSE;
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("aiClient", aiClient);
+
+        pdfExtractor = new PdfTextExtractor(50, 20_000, DataSize.ofMegabytes(8), 1, 16);
+        service = new EmailAnalysisService(
+                new FileExtractorRegistry(List.of(new TxtTextExtractor(20_000), pdfExtractor)),
+                beans.getBeanProvider(AiClient.class),
+                beans.getBeanProvider(PreClassifier.class),
+                new EmailTextPreprocessor(20_000, true, true, 2000, 0.7),
+                beans.getBeanProvider(AnalysisHistoryStore.class),
+                beans.getBeanProvider(SimilarAnalysisIndex.class),
+                new SimpleMeterRegistry(),
+                0.95,
+                Runnable::run
+        );
+    }
+
+    @TearDown
+    public void tearDown() {
+        pdfExtractor.shutdown();
+        if (stub != null) {
+            httpClient.close();
+            httpExecutor.close();
+            stub.close();
+        }
+    }
+
+    @Benchmark
+    public EmailAnalysisResult analyzeText() {
+        return service.analyzeText(text);
+    }
+
+    @Benchmark
+    public EmailAnalysisResult analyzeTxtFile() {
+        return service.analyzeFile(txt, "email.txt", "text/plain");
+    }
+
+    @Benchmark
+    public EmailAnalysisResult analyzePdfFile() {
+        return service.analyzeFile(pdf, "email.pdf", "application/pdf");
+    }
+
+    private AiClient stubClient() throws IOException {
+        stub = StubResponsesServer.start(Duration.ofMillis(latencyMs));
+
+        OpenAiConfig config = new OpenAiConfig();
+        httpExecutor = config.openAiHttpExecutor();
+        httpClient = config.openAiHttpClient(httpExecutor, HttpClient.Version.HTTP_1_1, Duration.ofSeconds(5));
+        RestClient restClient = config.openAiRestClient(httpClient, httpExecutor, stub.baseUrl(), "benchmark",
+                Duration.ofSeconds(60), Duration.ofSeconds(90), DataSize.ofMegabytes(1));
+
+        AsyncHttpEndpoint asyncEndpoint = config.openAiAsyncEndpoint(httpClient, httpExecutor, stub.baseUrl(), "benchmark",
+                Duration.ofSeconds(90), DataSize.ofMegabytes(1));
+
+        OpenAiRateLimiter rateLimiter = new OpenAiRateLimiter(64, 1, 256, 0, 0, Duration.ofSeconds(30));
+        return new OpenAiClient(restClient, asyncEndpoint, new ObjectMapper(), rateLimiter, new SimpleMeterRegistry(), "openai", "gpt-4o-mini", "benchmark",
+                20, 6000, 1, Duration.ofMillis(500), Duration.ofSeconds(20), OpenAiResponsesCodec.PROMPT_CACHE_KEY_AUTO);
+    }
+}
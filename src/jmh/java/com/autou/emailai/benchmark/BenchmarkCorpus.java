@@ -0,0 +1,83 @@
+package com.autou.emailai.benchmark;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sample emails under src/jmh/resources/corpus. PDFs are rendered from the same
+ * text at setup time so the corpus stays diffable.
+ */
+final class BenchmarkCorpus {
+
+    private static final int LINES_PER_PAGE = 48;
+    private static final int MAX_LINE_CHARS = 90;
+
+    private BenchmarkCorpus() {
+    }
+
+    static String text(String name) {
+        String resource = "/corpus/" + name + ".txt";
+        try (InputStream input = BenchmarkCorpus.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalArgumentException("Corpus nao encontrado: " + resource);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] pdf(String text, int pages) {
+        List<String> lines = wrap(text);
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            int next = 0;
+            for (int page = 0; page < pages; page++) {
+                PDPage pdPage = new PDPage(PDRectangle.A4);
+                document.addPage(pdPage);
+                try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(14);
+                    content.newLineAtOffset(50, 780);
+                    for (int line = 0; line < LINES_PER_PAGE; line++) {
+                        content.showText(lines.get(next));
+                        content.newLine();
+                        next = (next + 1) % lines.size();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> wrap(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            String printable = line.replace('\t', ' ');
+            while (printable.length() > MAX_LINE_CHARS) {
+                lines.add(printable.substring(0, MAX_LINE_CHARS));
+                printable = printable.substring(MAX_LINE_CHARS);
+            }
+            lines.add(printable);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,66 @@
+package com.autou.emailai.benchmark;
+
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs each benchmark body once so a broken fixture fails the build instead
+ * of producing numbers for the wrong code path. Only compiled with -Pbenchmark.
+ */
+class BenchmarkFixturesTest {
+
+    @Test
+    void pipelineAnswersThroughTheStubServer() throws IOException {
+        AnalysisPipelineBenchmark benchmark = new AnalysisPipelineBenchmark();
+        benchmark.email = "medio";
+        benchmark.backend = "stub";
+        benchmark.latencyMs = 0;
+        benchmark.setup();
+        try {
+            EmailAnalysisResult fromText = benchmark.analyzeText();
+            EmailAnalysisResult fromPdf = benchmark.analyzePdfFile();
+
+            assertThat(fromText.category()).isEqualTo(EmailCategory.PRODUTIVO);
+            assertThat(fromText.model()).isEqualTo("openai");
+            assertThat(fromPdf.category()).isEqualTo(EmailCategory.PRODUTIVO);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    void everyCorpusEmailRendersToAReadablePdf() {
+        for (String email : new String[] {"curto", "medio", "longo"}) {
+            PdfExtractionBenchmark benchmark = new PdfExtractionBenchmark();
+            benchmark.email = email;
+            benchmark.pages = 3;
+            benchmark.threads = 1;
+            benchmark.setup();
+            try {
+                assertThat(benchmark.extract()).isNotBlank();
+            } finally {
+                benchmark.tearDown();
+            }
+        }
+    }
+
+    @Test
+    void legacyAndCodecDecodeTheSameAnalysis() throws IOException {
+        OpenAiCodecBenchmark benchmark = new OpenAiCodecBenchmark();
+        benchmark.emailChars = 300;
+        benchmark.setup();
+
+        AiAnalysisResponse legacy = benchmark.decodeLegacy();
+        AiAnalysisResponse codec = benchmark.decodeCodec();
+
+        assertThat(codec.category()).isEqualTo(legacy.category());
+        assertThat(codec.confidence()).isEqualTo(legacy.confidence());
+        assertThat(codec.suggestedReply()).isEqualTo(legacy.suggestedReply());
+    }
+}
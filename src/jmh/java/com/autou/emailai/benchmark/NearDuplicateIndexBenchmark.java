@@ -0,0 +1,115 @@
+package com.autou.emailai.benchmark;
+
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import com.autou.emailai.infrastructure.similarity.MinHashAnalysisIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency of {@link MinHashAnalysisIndex} with the index filled to
+ * {@code entries}. Hits are stored texts with a name and a number changed;
+ * misses are unrelated texts. Setup prints the index's own memory estimate
+ * and the measured heap growth per entry, which is what sizes max-memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class NearDuplicateIndexBenchmark {
+
+    private static final int WORDS_PER_EMAIL = 60;
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 4096;
+    private static final String REASON = "Solicitacao de suporte sobre um chamado em andamento.";
+    private static final String REPLY = "Ola! Recebemos sua mensagem sobre o chamado e retornaremos em breve com uma atualizacao.";
+
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    private MinHashAnalysisIndex index;
+    private String[] hits;
+    private String[] misses;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+
+        index = new MinHashAnalysisIndex(new SimpleMeterRegistry(), 0.85, 16, 4, entries, DataSize.ofGigabytes(2), REPLY, REPLY);
+        hits = new String[QUERIES];
+        for (int i = 0; i < entries; i++) {
+            long seed = random.nextLong();
+            index.add(email(seed, false), new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, REASON, REPLY, "openai"));
+            if (i < QUERIES) {
+                hits[i] = email(seed, true);
+            }
+        }
+        misses = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            misses[i] = email(random.nextLong(), false);
+        }
+
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        MinHashAnalysisIndex.IndexStats stats = index.stats();
+        System.out.printf("%nentries=%d estimate=%d MB (%d B/entry) heap=%d MB (%d B/entry)%n",
+                stats.size(), stats.memoryBytes() >> 20, stats.memoryBytes() / stats.size(),
+                (after - before) >> 20, (after - before) / stats.size());
+    }
+
+    @Benchmark
+    public Optional<EmailAnalysisResult> lookupHit() {
+        return index.findSimilar(hits[cursor++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public Optional<EmailAnalysisResult> lookupMiss() {
+        return index.findSimilar(misses[cursor++ & (QUERIES - 1)]);
+    }
+
+    /**
+     * A templated e-mail: words drawn from {@code seed}, then a greeting name
+     * and a ticket number that vary between copies of the same template.
+     */
+    private static String email(long seed, boolean variant) {
+        SplittableRandom words = new SplittableRandom(seed);
+        StringBuilder text = new StringBuilder(WORDS_PER_EMAIL * 8);
+        text.append("Ola ").append(variant ? "Mariana" : "Joaquim").append(", sobre o chamado ")
+                .append(variant ? 48213 : 10077).append(": ");
+        for (int i = 0; i < WORDS_PER_EMAIL; i++) {
+            appendWord(text, words.nextInt(VOCABULARY));
+            text.append(' ');
+        }
+        return text.toString();
+    }
+
+    // Letters only: words with digits are folded together by the index.
+    private static void appendWord(StringBuilder text, int word) {
+        do {
+            text.append((char) ('a' + word % 26));
+            word /= 26;
+        } while (word > 0);
+    }
+}
@@ -0,0 +1,139 @@
+package com.autou.emailai.benchmark;
+
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.infrastructure.ai.OpenAiResponsesCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Map-based request building and tree-based response parsing that
+ * OpenAiClient used before with {@link OpenAiResponsesCodec}. Run with -prof gc
+ * and compare gc.alloc.rate.norm (bytes per call).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenAiCodecBenchmark {
+
+    private static final String MODEL = "gpt-4o-mini";
+    private static final String PROMPT_SYSTEM = """
+            Voce e um classificador de emails.
+            Classifique o email como PRODUTIVO ou IMPRODUTIVO.
+            Retorne JSON valido com:
+            category, confidence (0 a 1), reason (curto), suggestedReply (PT-BR).
+            """;
+
+    @Param({"300", "3000"})
+    public int emailChars;
+
+    private ObjectMapper objectMapper;
+    private OpenAiResponsesCodec codec;
+    private String emailText;
+    private byte[] responseBody;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper();
+        codec = new OpenAiResponsesCodec(objectMapper, MODEL, OpenAiResponsesCodec.PROMPT_CACHE_KEY_AUTO);
+
+        String sentence = "Ola, preciso do status do chamado 4521 aberto na semana passada, \"urgente\". ";
+        StringBuilder text = new StringBuilder(emailChars + sentence.length());
+        while (text.length() < emailChars) {
+            text.append(sentence);
+        }
+        emailText = text.substring(0, emailChars);
+
+        String analysis = objectMapper.writeValueAsString(Map.of(
+                "category", "PRODUTIVO",
+                "confidence", 0.93,
+                "reason", "Pedido de status de chamado.",
+                "suggestedReply", "Ola! Vamos verificar o chamado e retornamos em breve."
+        ));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", "resp_123");
+        response.put("object", "response");
+        response.put("model", MODEL);
+        response.put("output", List.of(Map.of(
+                "type", "message",
+                "role", "assistant",
+                "content", List.of(Map.of("type", "output_text", "text", analysis, "annotations", List.of()))
+        )));
+        response.put("usage", Map.of("input_tokens", 180, "output_tokens", 60, "total_tokens", 240));
+        responseBody = objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encodeLegacy() throws IOException {
+        return objectMapper.writeValueAsBytes(legacyRequest(emailText));
+    }
+
+    @Benchmark
+    public byte[] encodeCodec() {
+        return codec.encodeRequest(emailText);
+    }
+
+    @Benchmark
+    public AiAnalysisResponse decodeLegacy() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(responseBody, StandardCharsets.UTF_8));
+        String outputText = root.path("output").path(0).path("content").path(0).path("text").asText();
+        return objectMapper.readValue(outputText, AiAnalysisResponse.class);
+    }
+
+    @Benchmark
+    public AiAnalysisResponse decodeCodec() throws IOException {
+        return codec.decodeAnalysis(codec.decodeResponse(responseBody).outputText());
+    }
+
+    private Map<String, Object> legacyRequest(String userText) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("additionalProperties", false);
+        schema.put("properties", Map.of(
+                "category", Map.of("type", "string", "enum", List.of("PRODUTIVO", "IMPRODUTIVO")),
+                "confidence", Map.of("type", "number", "minimum", 0, "maximum", 1),
+                "reason", Map.of("type", "string"),
+                "suggestedReply", Map.of("type", "string")
+        ));
+        schema.put("required", List.of("category", "confidence", "reason", "suggestedReply"));
+
+        Map<String, Object> textFormat = Map.of(
+                "format", Map.of("type", "json_schema", "strict", true, "name", "email_analysis", "schema", schema)
+        );
+        Map<String, Object> systemMessage = Map.of(
+                "role", "system",
+                "content", List.of(Map.of("type", "input_text", "text", PROMPT_SYSTEM))
+        );
+        Map<String, Object> userMessage = Map.of(
+                "role", "user",
+                "content", List.of(Map.of("type", "input_text", "text", userText))
+        );
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("model", MODEL);
+        request.put("input", List.of(systemMessage, userMessage));
+        request.put("text", textFormat);
+        request.put("temperature", 0.2);
+        return request;
+    }
+}
@@ -0,0 +1,55 @@
+package com.autou.emailai.benchmark;
+
+import com.autou.emailai.infrastructure.file.PdfTextExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+    @Param({"medio"})
+    public String email;
+
+    @Param({"1", "10", "50"})
+    public int pages;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private PdfTextExtractor extractor;
+    private byte[] pdf;
+
+    @Setup
+    public void setup() {
+        extractor = new PdfTextExtractor(50, 20_000, DataSize.ofMegabytes(8), threads, 16);
+        pdf = BenchmarkCorpus.pdf(BenchmarkCorpus.text(email), pages);
+    }
+
+    @TearDown
+    public void tearDown() {
+        extractor.shutdown();
+    }
+
+    @Benchmark
+    public String extract() {
+        return extractor.extract(pdf);
+    }
+}
@@ -0,0 +1,70 @@
+package com.autou.emailai.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the OpenAI {@code /responses} endpoint. Answers every
+ * request with a fixed analysis after the configured latency.
+ */
+final class StubResponsesServer implements AutoCloseable {
+
+    private static final byte[] RESPONSE = """
+            {"id":"resp_stub","object":"response","status":"completed",\
+            "output":[{"type":"message","role":"assistant","content":[{"type":"output_text",\
+            "text":"{\\"category\\":\\"PRODUTIVO\\",\\"confidence\\":0.91,\\"reason\\":\\"Solicitacao de suporte.\\",\
+            \\"suggestedReply\\":\\"Ola! Recebemos sua mensagem e retornaremos em breve.\\"}","annotations":[]}]}],\
+            "usage":{"input_tokens":220,"output_tokens":48,"total_tokens":268}}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private StubResponsesServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static StubResponsesServer start(Duration latency) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/responses", exchange -> respond(exchange, latency));
+        server.start();
+        return new StubResponsesServer(server, executor);
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private static void respond(HttpExchange exchange, Duration latency) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            exchange.getResponseBody().write(RESPONSE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.autou.emailai.benchmark;
+
+import com.autou.emailai.support.EmailTextPreprocessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.Normalizer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former NFKC + regex cleanup in EmailAnalysisService with
+ * {@link EmailTextPreprocessor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextPreprocessorBenchmark {
+
+    @Param({"curto", "medio", "longo"})
+    public String email;
+
+    private EmailTextPreprocessor preprocessor;
+    private String text;
+
+    @Setup
+    public void setup() {
+        preprocessor = new EmailTextPreprocessor(20_000, true, true, 0, 0.7);
+        text = BenchmarkCorpus.text(email);
+    }
+
+    @Benchmark
+    public String legacy() {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return normalized.replaceAll("[\\p{C}&&[^\\n\\r\\t]]", "").strip();
+    }
+
+    @Benchmark
+    public String preprocessor() {
+        return preprocessor.preprocess(text);
+    }
+}
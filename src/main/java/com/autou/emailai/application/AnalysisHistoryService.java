@@ -0,0 +1,61 @@
+package com.autou.emailai.application;
+
+import com.autou.emailai.application.ports.in.AnalysisHistoryUseCase;
+import com.autou.emailai.application.ports.out.AnalysisHistoryStore;
+import com.autou.emailai.domain.AnalysisHistoryPage;
+import com.autou.emailai.domain.EmailCategory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+public class AnalysisHistoryService implements AnalysisHistoryUseCase {
+
+    private static final String MSG_INVALID_CATEGORY = "Categoria invalida. Use PRODUTIVO ou IMPRODUTIVO.";
+    private static final String MSG_INVALID_PAGE = "Pagina deve ser zero ou positiva.";
+    private static final String MSG_INVALID_RANGE = "Periodo invalido: 'from' deve ser anterior a 'to'.";
+
+    private final AnalysisHistoryStore historyStore;
+    private final int maxPageSize;
+
+    public AnalysisHistoryService(
+            ObjectProvider<AnalysisHistoryStore> historyStoreProvider,
+            @Value("${analysis.history.max-page-size:100}") int maxPageSize
+    ) {
+        this.historyStore = historyStoreProvider.getIfAvailable();
+        this.maxPageSize = Math.max(1, maxPageSize);
+    }
+
+    @Override
+    public AnalysisHistoryPage list(String category, Instant from, Instant to, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException(MSG_INVALID_PAGE);
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Tamanho de pagina deve estar entre 1 e " + maxPageSize + ".");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException(MSG_INVALID_RANGE);
+        }
+        EmailCategory filter = resolveCategory(category);
+        if (historyStore == null) {
+            return new AnalysisHistoryPage(List.of(), page, size, 0);
+        }
+        return historyStore.query(filter, from, to, page, size);
+    }
+
+    private EmailCategory resolveCategory(String category) {
+        if (category == null || category.isBlank()) {
+            return null;
+        }
+        try {
+            return EmailCategory.valueOf(category.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(MSG_INVALID_CATEGORY, ex);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.autou.emailai.application;
+
+import com.autou.emailai.application.exception.AiNotConfiguredException;
+import com.autou.emailai.application.exception.AiQuotaException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.exception.JobQueueFullException;
+import com.autou.emailai.application.ports.in.AnalysisJobUseCase;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.dto.FileInput;
+import com.autou.emailai.application.ports.out.AnalysisJobStore;
+import com.autou.emailai.domain.AnalysisJob;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.support.TempFiles;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Service
+public class AnalysisJobService implements AnalysisJobUseCase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisJobService.class);
+    private static final String MSG_QUEUE_FULL = "Fila de analises cheia. Tente novamente em instantes.";
+    private static final String MSG_UNEXPECTED = "Erro inesperado. Tente novamente.";
+
+    private final EmailAnalysisUseCase emailAnalysisUseCase;
+    private final AnalysisJobStore jobStore;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<AnalysisJob>> completions = new ConcurrentHashMap<>();
+
+    public AnalysisJobService(
+            EmailAnalysisUseCase emailAnalysisUseCase,
+            AnalysisJobStore jobStore,
+            MeterRegistry meterRegistry,
+            @Value("${analysis.jobs.workers:8}") int workers,
+            @Value("${analysis.jobs.queue-capacity:200}") int queueCapacity
+    ) {
+        this.emailAnalysisUseCase = emailAnalysisUseCase;
+        this.jobStore = jobStore;
+        this.executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                workerThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        Gauge.builder("analysis.jobs.queued", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("analysis.jobs.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public AnalysisJob submitText(String rawText) {
+        return submit(() -> emailAnalysisUseCase.analyzeText(rawText));
+    }
+
+    @Override
+    public AnalysisJob submitFile(FileInput file) {
+        try {
+            return submit(() -> {
+                try {
+                    return emailAnalysisUseCase.analyzeFile(file.path(), file.filename(), file.contentType());
+                } finally {
+                    TempFiles.deleteQuietly(file.path());
+                }
+            });
+        } catch (RuntimeException ex) {
+            TempFiles.deleteQuietly(file.path());
+            throw ex;
+        }
+    }
+
+    @Override
+    public Optional<AnalysisJob> find(String jobId) {
+        return jobStore.find(jobId);
+    }
+
+    @Override
+    public CompletableFuture<Optional<AnalysisJob>> await(String jobId, Duration timeout) {
+        CompletableFuture<AnalysisJob> completion = completions.get(jobId);
+        if (completion == null || timeout.isZero() || timeout.isNegative()) {
+            return CompletableFuture.completedFuture(find(jobId));
+        }
+        return completion.copy()
+                .completeOnTimeout(null, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(job -> (job != null) ? Optional.of(job) : find(jobId));
+    }
+
+    private AnalysisJob submit(Supplier<EmailAnalysisResult> task) {
+        AnalysisJob job = AnalysisJob.pending(UUID.randomUUID().toString(), Instant.now());
+        if (!jobStore.add(job)) {
+            throw new JobQueueFullException(MSG_QUEUE_FULL);
+        }
+        CompletableFuture<AnalysisJob> completion = new CompletableFuture<>();
+        completions.put(job.id(), completion);
+
+        try {
+            executor.execute(() -> run(job, task, completion));
+        } catch (RejectedExecutionException ex) {
+            completions.remove(job.id());
+            jobStore.remove(job.id());
+            throw new JobQueueFullException(MSG_QUEUE_FULL);
+        }
+        return job;
+    }
+
+    private void run(AnalysisJob job, Supplier<EmailAnalysisResult> task, CompletableFuture<AnalysisJob> completion) {
+        AnalysisJob running = job.running(Instant.now());
+        jobStore.save(running);
+
+        AnalysisJob finished;
+        try {
+            finished = running.succeeded(task.get(), Instant.now());
+        } catch (AiNotConfiguredException | AiQuotaException | AiRequestFailedException
+                 | InvalidAiResponseException | InvalidFileException | IllegalArgumentException ex) {
+            finished = running.failed(ex.getMessage(), Instant.now());
+        } catch (RuntimeException ex) {
+            LOGGER.error("Unexpected error in analysis job id={}", job.id(), ex);
+            finished = running.failed(MSG_UNEXPECTED, Instant.now());
+        }
+
+        jobStore.save(finished);
+        completions.remove(job.id());
+        completion.complete(finished);
+    }
+
+    private ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "analysis-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
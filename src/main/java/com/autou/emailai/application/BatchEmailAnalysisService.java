@@ -0,0 +1,227 @@
+package com.autou.emailai.application;
+
+import com.autou.emailai.application.exception.AiNotConfiguredException;
+import com.autou.emailai.application.exception.AiQuotaException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.in.BatchEmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.dto.BatchItemResult;
+import com.autou.emailai.application.ports.in.dto.FileInput;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+@Service
+public class BatchEmailAnalysisService implements BatchEmailAnalysisUseCase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchEmailAnalysisService.class);
+    private static final String MSG_BATCH_REQUIRED = "Envie ao menos um item para analise em lote.";
+    private static final String MSG_BATCH_TOO_LARGE = "Lote excede o limite de %d itens.";
+    private static final String MSG_UNEXPECTED = "Erro inesperado. Tente novamente.";
+    private static final String MSG_INTERRUPTED = "Analise interrompida.";
+
+    private final EmailAnalysisUseCase emailAnalysisUseCase;
+    private final Semaphore inFlight;
+    private final int maxItems;
+    private final int packSize;
+
+    public BatchEmailAnalysisService(
+            EmailAnalysisUseCase emailAnalysisUseCase,
+            MeterRegistry meterRegistry,
+            @Value("${analysis.batch.max-concurrency:16}") int maxConcurrency,
+            @Value("${analysis.batch.max-items:500}") int maxItems,
+            @Value("${analysis.batch.pack-size:1}") int packSize
+    ) {
+        this.emailAnalysisUseCase = emailAnalysisUseCase;
+        int permits = Math.max(1, maxConcurrency);
+        this.inFlight = new Semaphore(permits, true);
+        Gauge.builder("analysis.batch.inflight", inFlight, semaphore -> permits - semaphore.availablePermits())
+                .register(meterRegistry);
+        this.maxItems = maxItems;
+        this.packSize = Math.max(1, packSize);
+    }
+
+    @Override
+    public List<BatchItemResult> analyzeTexts(List<String> rawTexts) {
+        validateSize(rawTexts);
+        if (packSize > 1) {
+            return analyzeTextsPacked(rawTexts);
+        }
+        List<Supplier<EmailAnalysisResult>> tasks = new ArrayList<>(rawTexts.size());
+        for (String rawText : rawTexts) {
+            tasks.add(() -> emailAnalysisUseCase.analyzeText(rawText));
+        }
+        return runAll(tasks);
+    }
+
+    @Override
+    public List<BatchItemResult> analyzeFiles(List<FileInput> files) {
+        validateSize(files);
+        List<Supplier<EmailAnalysisResult>> tasks = new ArrayList<>(files.size());
+        for (FileInput file : files) {
+            tasks.add(() -> emailAnalysisUseCase.analyzeFile(file.path(), file.filename(), file.contentType()));
+        }
+        return runAll(tasks);
+    }
+
+    private void validateSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException(MSG_BATCH_REQUIRED);
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException(MSG_BATCH_TOO_LARGE.formatted(maxItems));
+        }
+    }
+
+    private List<BatchItemResult> analyzeTextsPacked(List<String> rawTexts) {
+        BatchItemResult[] results = new BatchItemResult[rawTexts.size()];
+        List<int[]> groups = new ArrayList<>();
+        List<Integer> current = new ArrayList<>(packSize);
+
+        for (int i = 0; i < rawTexts.size(); i++) {
+            current.add(i);
+            if (current.size() == packSize) {
+                groups.add(toArray(current));
+                current.clear();
+            }
+        }
+        if (!current.isEmpty()) {
+            groups.add(toArray(current));
+        }
+
+        List<Future<?>> futures = new ArrayList<>(groups.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int[] group : groups) {
+                futures.add(executor.submit(() -> runGroupLimited(group, rawTexts, results)));
+            }
+        }
+        for (int g = 0; g < futures.size(); g++) {
+            awaitGroup(groups.get(g), futures.get(g), results);
+        }
+        return List.of(results);
+    }
+
+    private void runGroupLimited(int[] group, List<String> rawTexts, BatchItemResult[] results) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fill(group, results, MSG_INTERRUPTED);
+            return;
+        }
+        try {
+            List<String> texts = new ArrayList<>(group.length);
+            for (int index : group) {
+                texts.add(rawTexts.get(index));
+            }
+            // Empty items and emails the AI left unanswered fail on their own; the rest keep their answers.
+            List<BatchItemResult> analyzed = emailAnalysisUseCase.analyzeTexts(texts);
+            for (int i = 0; i < group.length; i++) {
+                BatchItemResult item = analyzed.get(i);
+                results[group[i]] = item.isSuccess()
+                        ? BatchItemResult.success(group[i], item.result())
+                        : BatchItemResult.failure(group[i], item.errorMessage());
+            }
+        } catch (AiNotConfiguredException | AiQuotaException | AiRequestFailedException
+                 | InvalidAiResponseException | IllegalArgumentException ex) {
+            fill(group, results, ex.getMessage());
+        } catch (RuntimeException ex) {
+            LOGGER.error("Unexpected error in packed batch group size={}", group.length, ex);
+            fill(group, results, MSG_UNEXPECTED);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void awaitGroup(int[] group, Future<?> future, BatchItemResult[] results) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fill(group, results, MSG_INTERRUPTED);
+        } catch (ExecutionException e) {
+            LOGGER.error("Unexpected error in packed batch group size={}", group.length, e.getCause());
+            fill(group, results, MSG_UNEXPECTED);
+        }
+    }
+
+    private void fill(int[] group, BatchItemResult[] results, String errorMessage) {
+        for (int index : group) {
+            results[index] = BatchItemResult.failure(index, errorMessage);
+        }
+    }
+
+    private int[] toArray(List<Integer> indexes) {
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private List<BatchItemResult> runAll(List<Supplier<EmailAnalysisResult>> tasks) {
+        List<Future<BatchItemResult>> futures = new ArrayList<>(tasks.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < tasks.size(); i++) {
+                int index = i;
+                Supplier<EmailAnalysisResult> task = tasks.get(i);
+                futures.add(executor.submit(() -> runLimited(index, task)));
+            }
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(await(i, futures.get(i)));
+        }
+        return results;
+    }
+
+    private BatchItemResult runLimited(int index, Supplier<EmailAnalysisResult> task) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BatchItemResult.failure(index, MSG_INTERRUPTED);
+        }
+        try {
+            return analyzeItem(index, task);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private BatchItemResult analyzeItem(int index, Supplier<EmailAnalysisResult> task) {
+        try {
+            return BatchItemResult.success(index, task.get());
+        } catch (AiNotConfiguredException | AiQuotaException | AiRequestFailedException
+                 | InvalidAiResponseException | InvalidFileException | IllegalArgumentException ex) {
+            return BatchItemResult.failure(index, ex.getMessage());
+        } catch (RuntimeException ex) {
+            LOGGER.error("Unexpected error in batch item index={}", index, ex);
+            return BatchItemResult.failure(index, MSG_UNEXPECTED);
+        }
+    }
+
+    private BatchItemResult await(int index, Future<BatchItemResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BatchItemResult.failure(index, MSG_INTERRUPTED);
+        } catch (ExecutionException e) {
+            LOGGER.error("Unexpected error in batch item index={}", index, e.getCause());
+            return BatchItemResult.failure(index, MSG_UNEXPECTED);
+        }
+    }
+}
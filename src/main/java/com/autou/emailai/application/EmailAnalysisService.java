@@ -1,83 +1,279 @@
 package com.autou.emailai.application;
 
+import com.autou.emailai.application.ports.in.AnalysisProgressListener;
 import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.dto.BatchItemResult;
 import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.AiStreamListener;
+import com.autou.emailai.application.ports.out.AnalysisHistoryStore;
 import com.autou.emailai.application.ports.out.FileTextExtractor;
+import com.autou.emailai.application.ports.out.FileTextExtractorResolver;
+import com.autou.emailai.application.ports.out.PreClassifier;
+import com.autou.emailai.application.ports.out.SimilarAnalysisIndex;
 import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
 import com.autou.emailai.application.exception.AiNotConfiguredException;
 import com.autou.emailai.application.exception.AiQuotaException;
 import com.autou.emailai.application.exception.AiRequestFailedException;
 import com.autou.emailai.application.exception.InvalidAiResponseException;
 import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.exception.JobQueueFullException;
+import com.autou.emailai.domain.AnalysisRecord;
 import com.autou.emailai.domain.EmailAnalysisResult;
 import com.autou.emailai.domain.EmailCategory;
+import com.autou.emailai.support.ContentHash;
+import com.autou.emailai.support.TextPreprocessor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.text.Normalizer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class EmailAnalysisService implements EmailAnalysisUseCase {
 
     private static final String MSG_TEXT_REQUIRED = "Cole um texto de e-mail para analise.";
-    private static final String MSG_FILE_REQUIRED = "Selecione um arquivo .txt ou .pdf para analise.";
-    private static final String MSG_UNSUPPORTED_FILE = "Formato nao suportado. Use .txt ou .pdf.";
+    private static final String MSG_FILE_REQUIRED = "Selecione um arquivo .txt, .pdf, .eml, .html ou .docx para analise.";
     private static final String MSG_EXTRACTION_FAILED = "Falha ao extrair texto do arquivo.";
     private static final String MSG_EMPTY_TEXT = "Nao foi possivel extrair texto do arquivo (PDF pode ser escaneado/imagem).";
     private static final String MSG_AI_NOT_CONFIGURED = "Chave de IA nao configurada.";
     private static final String MSG_AI_FAILURE = "Falha ao consultar a IA. Tente novamente.";
     private static final String MSG_AI_INVALID = "Resposta da IA invalida. Tente novamente.";
     private static final String MSG_AI_INVALID_CATEGORY = "Categoria retornada pela IA e invalida.";
+    private static final String MSG_QUEUE_FULL = "Fila de analises cheia. Tente novamente em instantes.";
 
-    private final List<FileTextExtractor> extractors;
+    private static final String DEFAULT_MODEL = "openai";
+    private static final String LOCAL_MODEL = AiAnalysisResponse.LOCAL_MODEL;
+    private static final String METRIC_STAGE = "email.analysis.stage";
+    private static final String METRIC_EXTRACTION = "email.analysis.extraction";
+    private static final String METRIC_INPUT_SIZE = "email.analysis.input.size";
+    private static final String METRIC_ERRORS = "email.analysis.errors";
+
+    private final FileTextExtractorResolver extractorResolver;
     private final AiClient aiClient;
+    private final PreClassifier preClassifier;
+    private final double preClassifierMinConfidence;
+    private final TextPreprocessor textPreprocessor;
+    private final AnalysisHistoryStore historyStore;
+    private final SimilarAnalysisIndex similarIndex;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer extractorSelectTimer;
+    private final Timer normalizationTimer;
+    private final Map<FileTextExtractor, Timer> extractionTimers = new ConcurrentHashMap<>();
+    private final DistributionSummary textInputSize;
+    private final DistributionSummary fileInputSize;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Only preprocessing, extraction and lookups run here; the AI wait holds no thread.
+    private final Executor cpuExecutor;
 
     public EmailAnalysisService(
-            List<FileTextExtractor> extractors,
-            ObjectProvider<AiClient> aiClientProvider
+            FileTextExtractorResolver extractorResolver,
+            ObjectProvider<AiClient> aiClientProvider,
+            ObjectProvider<PreClassifier> preClassifierProvider,
+            TextPreprocessor textPreprocessor,
+            ObjectProvider<AnalysisHistoryStore> historyStoreProvider,
+            ObjectProvider<SimilarAnalysisIndex> similarIndexProvider,
+            MeterRegistry meterRegistry,
+            @Value("${analysis.pre-classifier.min-confidence:0.95}") double preClassifierMinConfidence,
+            Executor analysisCpuExecutor
     ) {
-        this.extractors = extractors;
+        this.extractorResolver = extractorResolver;
         this.aiClient = aiClientProvider.getIfAvailable();
+        this.preClassifier = preClassifierProvider.getIfAvailable();
+        this.preClassifierMinConfidence = preClassifierMinConfidence;
+        this.textPreprocessor = textPreprocessor;
+        this.historyStore = historyStoreProvider.getIfAvailable();
+        this.similarIndex = similarIndexProvider.getIfAvailable();
+        this.cpuExecutor = analysisCpuExecutor;
+
+        this.meterRegistry = meterRegistry;
+        this.extractorSelectTimer = meterRegistry.timer(METRIC_STAGE, "stage", "extractor_select");
+        this.normalizationTimer = meterRegistry.timer(METRIC_STAGE, "stage", "preprocess");
+        this.textInputSize = DistributionSummary.builder(METRIC_INPUT_SIZE)
+                .baseUnit("chars")
+                .tag("source", "text")
+                .register(meterRegistry);
+        this.fileInputSize = DistributionSummary.builder(METRIC_INPUT_SIZE)
+                .baseUnit("bytes")
+                .tag("source", "file")
+                .register(meterRegistry);
+        Gauge.builder("email.analysis.inflight", inFlight, AtomicInteger::get).register(meterRegistry);
     }
 
     @Override
     public EmailAnalysisResult analyzeText(String rawText) {
-        String cleaned = (rawText == null) ? "" : rawText.strip();
+        return observe(() -> analyzeWithAi(cleanText(rawText)));
+    }
+
+    @Override
+    public CompletableFuture<EmailAnalysisResult> analyzeTextAsync(String rawText) {
+        return observeAsync(() -> analyzeWithAiAsync(() -> cleanText(rawText)));
+    }
+
+    @Override
+    public EmailAnalysisResult analyzeTextStreaming(String rawText, AnalysisProgressListener listener) {
+        return observe(() -> streamWithAi(cleanText(rawText), listener));
+    }
+
+    @Override
+    public List<BatchItemResult> analyzeTexts(List<String> rawTexts) {
+        return observe(() -> {
+            BatchItemResult[] results = new BatchItemResult[rawTexts.size()];
+            List<String> cleanedTexts = new ArrayList<>(rawTexts.size());
+            List<Integer> cleanedIndexes = new ArrayList<>(rawTexts.size());
+            for (int i = 0; i < results.length; i++) {
+                try {
+                    cleanedTexts.add(cleanText(rawTexts.get(i)));
+                    cleanedIndexes.add(i);
+                } catch (IllegalArgumentException ex) {
+                    results[i] = BatchItemResult.failure(i, ex.getMessage());
+                }
+            }
+
+            List<EmailAnalysisResult> analyzed = analyzeAllWithAi(cleanedTexts);
+            for (int i = 0; i < analyzed.size(); i++) {
+                int index = cleanedIndexes.get(i);
+                EmailAnalysisResult result = analyzed.get(i);
+                results[index] = (result != null)
+                        ? BatchItemResult.success(index, result)
+                        : BatchItemResult.failure(index, MSG_AI_INVALID);
+            }
+            return List.of(results);
+        });
+    }
+
+    @Override
+    public EmailAnalysisResult analyzeFile(byte[] bytes, String filename, String contentType) {
+        return observe(() -> {
+            if (bytes == null || bytes.length == 0) {
+                throw new InvalidFileException(MSG_FILE_REQUIRED);
+            }
+            fileInputSize.record(bytes.length);
+
+            byte[] head = (bytes.length <= FileTextExtractorResolver.SNIFF_BYTES)
+                    ? bytes
+                    : Arrays.copyOf(bytes, FileTextExtractorResolver.SNIFF_BYTES);
+            FileTextExtractor extractor = selectExtractor(filename, contentType, head);
+            return analyzeWithAi(cleanExtracted(extract(extractor, () -> extractor.extract(bytes))));
+        });
+    }
+
+    @Override
+    public EmailAnalysisResult analyzeFile(Path file, String filename, String contentType) {
+        return observe(() -> analyzeWithAi(extractFile(file, filename, contentType)));
+    }
+
+    @Override
+    public CompletableFuture<EmailAnalysisResult> analyzeFileAsync(Path file, String filename, String contentType) {
+        return observeAsync(() -> analyzeWithAiAsync(() -> extractFile(file, filename, contentType)));
+    }
+
+    private String cleanText(String rawText) {
+        String cleaned = preprocess(rawText);
         if (cleaned.isEmpty()) {
             throw new IllegalArgumentException(MSG_TEXT_REQUIRED);
         }
-        return analyzeWithAi(cleaned);
+        textInputSize.record(rawText.length());
+        return cleaned;
     }
 
-    @Override
-    public EmailAnalysisResult analyzeFile(byte[] bytes, String filename, String contentType) {
-        if (bytes == null || bytes.length == 0) {
+    private String extractFile(Path file, String filename, String contentType) {
+        long size;
+        try {
+            size = (file == null) ? 0 : Files.size(file);
+        } catch (IOException e) {
+            throw new InvalidFileException(MSG_FILE_REQUIRED, e);
+        }
+        if (size == 0) {
             throw new InvalidFileException(MSG_FILE_REQUIRED);
         }
+        fileInputSize.record(size);
 
-        FileTextExtractor extractor = extractors.stream()
-                .filter(e -> e.supports(filename, contentType))
-                .findFirst()
-                .orElse(null);
+        FileTextExtractor extractor = selectExtractor(filename, contentType, readHead(file));
+        return cleanExtracted(extract(extractor, () -> extractor.extract(file)));
+    }
+
+    private FileTextExtractor selectExtractor(String filename, String contentType, byte[] head) {
+        return extractorSelectTimer.record(() -> extractorResolver.resolve(filename, contentType, head));
+    }
 
-        if (extractor == null) {
-            throw new InvalidFileException(MSG_UNSUPPORTED_FILE);
+    private static byte[] readHead(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(FileTextExtractorResolver.SNIFF_BYTES);
+        } catch (IOException e) {
+            throw new InvalidFileException(MSG_FILE_REQUIRED, e);
         }
+    }
 
-        String extracted;
+    private String extract(FileTextExtractor extractor, Supplier<String> extraction) {
+        Timer timer = extractionTimers.computeIfAbsent(extractor,
+                e -> meterRegistry.timer(METRIC_EXTRACTION, "extractor", e.getClass().getSimpleName()));
         try {
-            extracted = extractor.extract(bytes);
+            return timer.record(extraction);
         } catch (RuntimeException e) {
             throw new InvalidFileException(MSG_EXTRACTION_FAILED, e);
         }
+    }
 
-        String cleaned = normalizeUnicode(extracted).strip();
+    private String cleanExtracted(String extracted) {
+        String cleaned = preprocess(extracted);
         if (cleaned.isEmpty()) {
             throw new InvalidFileException(MSG_EMPTY_TEXT);
         }
-        return analyzeWithAi(cleaned);
+        return cleaned;
+    }
+
+    private <T> T observe(Supplier<T> analysis) {
+        inFlight.incrementAndGet();
+        try {
+            return analysis.get();
+        } catch (RuntimeException ex) {
+            meterRegistry.counter(METRIC_ERRORS, "exception", ex.getClass().getSimpleName()).increment();
+            throw ex;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private <T> CompletableFuture<T> observeAsync(Supplier<CompletableFuture<T>> analysis) {
+        inFlight.incrementAndGet();
+        CompletableFuture<T> result;
+        try {
+            result = analysis.get();
+        } catch (RuntimeException ex) {
+            result = CompletableFuture.failedFuture(ex);
+        }
+        return result.whenComplete((value, error) -> {
+            inFlight.decrementAndGet();
+            if (error != null) {
+                meterRegistry.counter(METRIC_ERRORS, "exception", unwrap(error).getClass().getSimpleName()).increment();
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
     }
 
     private EmailAnalysisResult toDomain(AiAnalysisResponse response) {
@@ -92,7 +288,7 @@ public class EmailAnalysisService implements EmailAnalysisUseCase {
                 response.confidence(),
                 response.reason(),
                 response.suggestedReply(),
-                "openai"
+                (response.model() != null) ? response.model() : DEFAULT_MODEL
         );
     }
 
@@ -107,13 +303,90 @@ public class EmailAnalysisService implements EmailAnalysisUseCase {
         }
     }
 
+    private EmailAnalysisResult preClassify(String cleaned) {
+        if (preClassifier == null) {
+            return null;
+        }
+        return preClassifier.classify(cleaned)
+                .filter(pre -> pre.confidence() >= preClassifierMinConfidence)
+                .map(pre -> new EmailAnalysisResult(
+                        pre.category(),
+                        pre.confidence(),
+                        pre.reason(),
+                        pre.suggestedReply(),
+                        LOCAL_MODEL
+                ))
+                .orElse(null);
+    }
+
+    private String contentHash(String cleaned) {
+        return (historyStore != null) ? ContentHash.sha256(cleaned) : null;
+    }
+
+    private EmailAnalysisResult findStored(String contentHash) {
+        if (contentHash == null) {
+            return null;
+        }
+        return historyStore.findByContentHash(contentHash)
+                .map(AnalysisRecord::result)
+                .orElse(null);
+    }
+
+    private EmailAnalysisResult remember(String contentHash, EmailAnalysisResult result) {
+        if (contentHash != null) {
+            historyStore.append(new AnalysisRecord(contentHash, result, Instant.now()));
+        }
+        return result;
+    }
+
+    /**
+     * Answers from what is already known: the exact text in the history, a
+     * near-duplicate of an earlier AI answer, or a confident local guess.
+     * A near-duplicate is not stored under this text's hash: it is a guess
+     * about this email, not an analysis of it.
+     */
+    private EmailAnalysisResult findKnown(String contentHash, String cleaned) {
+        EmailAnalysisResult known = findStored(contentHash);
+        if (known != null) {
+            return known;
+        }
+        if (similarIndex != null) {
+            known = similarIndex.findSimilar(cleaned).orElse(null);
+            if (known != null) {
+                return known;
+            }
+        }
+        known = preClassify(cleaned);
+        return (known != null) ? remember(contentHash, known) : null;
+    }
+
+    /**
+     * Keeps an AI answer for later lookups. A local stand-in from a degraded
+     * AI client is returned as is: remembering it would keep answering the
+     * email locally long after the AI is back.
+     */
+    private EmailAnalysisResult rememberAnswer(String contentHash, String cleaned, EmailAnalysisResult result) {
+        if (LOCAL_MODEL.equals(result.model())) {
+            return result;
+        }
+        if (similarIndex != null) {
+            similarIndex.add(cleaned, result);
+        }
+        return remember(contentHash, result);
+    }
+
     private EmailAnalysisResult analyzeWithAi(String cleaned) {
+        String contentHash = contentHash(cleaned);
+        EmailAnalysisResult known = findKnown(contentHash, cleaned);
+        if (known != null) {
+            return known;
+        }
         if (aiClient == null) {
             throw new AiNotConfiguredException(MSG_AI_NOT_CONFIGURED);
         }
         try {
             AiAnalysisResponse response = aiClient.analyze(cleaned);
-            return toDomain(response);
+            return rememberAnswer(contentHash, cleaned, toDomain(response));
         } catch (AiNotConfiguredException | AiQuotaException | AiRequestFailedException | InvalidAiResponseException ex) {
             throw ex;
         } catch (RuntimeException ex) {
@@ -121,11 +394,157 @@ public class EmailAnalysisService implements EmailAnalysisUseCase {
         }
     }
 
-    private String normalizeUnicode(String text) {
-        if (text == null) {
-            return "";
+    /**
+     * Prepares the text and checks what is already known on the bounded CPU
+     * pool, then waits for the AI without holding a thread: the answer is
+     * mapped on the thread that completes the HTTP exchange.
+     */
+    private CompletableFuture<EmailAnalysisResult> analyzeWithAiAsync(Supplier<String> cleanedText) {
+        CompletableFuture<PendingAnalysis> prepared;
+        try {
+            prepared = CompletableFuture.supplyAsync(() -> {
+                String cleaned = cleanedText.get();
+                String contentHash = contentHash(cleaned);
+                return new PendingAnalysis(cleaned, contentHash, findKnown(contentHash, cleaned));
+            }, cpuExecutor);
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(new JobQueueFullException(MSG_QUEUE_FULL));
+        }
+
+        return prepared.thenCompose(pending -> {
+            if (pending.known() != null) {
+                return CompletableFuture.completedFuture(pending.known());
+            }
+            if (aiClient == null) {
+                return CompletableFuture.failedFuture(new AiNotConfiguredException(MSG_AI_NOT_CONFIGURED));
+            }
+            CompletableFuture<AiAnalysisResponse> response;
+            try {
+                response = aiClient.analyzeAsync(pending.cleaned());
+            } catch (RuntimeException ex) {
+                response = CompletableFuture.failedFuture(ex);
+            }
+            return response.handle((answer, error) -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof AiNotConfiguredException || cause instanceof AiQuotaException
+                            || cause instanceof AiRequestFailedException || cause instanceof InvalidAiResponseException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new AiRequestFailedException(MSG_AI_FAILURE, cause);
+                }
+                return rememberAnswer(pending.contentHash(), pending.cleaned(), toDomain(answer));
+            });
+        });
+    }
+
+    private EmailAnalysisResult streamWithAi(String cleaned, AnalysisProgressListener listener) {
+        String contentHash = contentHash(cleaned);
+        EmailAnalysisResult known = findKnown(contentHash, cleaned);
+        if (known != null) {
+            listener.onClassification(known.category(), known.confidence());
+            listener.onReplyDelta(known.suggestedReply());
+            return known;
+        }
+        if (aiClient == null) {
+            throw new AiNotConfiguredException(MSG_AI_NOT_CONFIGURED);
+        }
+        try {
+            AiAnalysisResponse response = aiClient.analyzeStreaming(cleaned, new AiStreamListener() {
+                @Override
+                public void onClassification(String category, double confidence) {
+                    listener.onClassification(resolveCategory(category), confidence);
+                }
+
+                @Override
+                public void onReplyDelta(String delta) {
+                    listener.onReplyDelta(delta);
+                }
+            });
+            return rememberAnswer(contentHash, cleaned, toDomain(response));
+        } catch (AiNotConfiguredException | AiQuotaException | AiRequestFailedException | InvalidAiResponseException ex) {
+            throw ex;
+        } catch (UncheckedIOException ex) {
+            // The listener could not deliver (the client went away): not an AI failure.
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
         }
-        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
-        return normalized.replaceAll("[\\p{C}&&[^\\n\\r\\t]]", "");
+    }
+
+    /**
+     * Packs the texts into as few AI calls as the client allows. Emails the
+     * packed answer left out are retried once on their own; those still
+     * unanswered come back as null.
+     */
+    private List<EmailAnalysisResult> analyzeAllWithAi(List<String> cleanedTexts) {
+        EmailAnalysisResult[] results = new EmailAnalysisResult[cleanedTexts.size()];
+        String[] contentHashes = new String[results.length];
+        List<String> remoteTexts = new ArrayList<>();
+        List<Integer> remoteIndexes = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            contentHashes[i] = contentHash(cleanedTexts.get(i));
+            results[i] = findKnown(contentHashes[i], cleanedTexts.get(i));
+            if (results[i] == null) {
+                remoteTexts.add(cleanedTexts.get(i));
+                remoteIndexes.add(i);
+            }
+        }
+        if (remoteTexts.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        if (aiClient == null) {
+            throw new AiNotConfiguredException(MSG_AI_NOT_CONFIGURED);
+        }
+        try {
+            List<AiAnalysisResponse> responses = aiClient.analyzeAll(remoteTexts);
+            if (responses == null || responses.size() != remoteTexts.size()) {
+                throw new InvalidAiResponseException(MSG_AI_INVALID);
+            }
+            List<Integer> unanswered = new ArrayList<>();
+            for (int i = 0; i < responses.size(); i++) {
+                int index = remoteIndexes.get(i);
+                results[index] = rememberAnswerOrNull(contentHashes[index], cleanedTexts.get(index), responses.get(i));
+                if (results[index] == null) {
+                    unanswered.add(index);
+                }
+            }
+            for (int index : unanswered) {
+                results[index] = rememberAnswerOrNull(contentHashes[index], cleanedTexts.get(index),
+                        analyzeOrNull(cleanedTexts.get(index)));
+            }
+            return Arrays.asList(results);
+        } catch (AiNotConfiguredException | AiQuotaException | AiRequestFailedException | InvalidAiResponseException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
+        }
+    }
+
+    private AiAnalysisResponse analyzeOrNull(String cleaned) {
+        try {
+            return aiClient.analyze(cleaned);
+        } catch (InvalidAiResponseException ex) {
+            return null;
+        }
+    }
+
+    private EmailAnalysisResult rememberAnswerOrNull(String contentHash, String cleaned, AiAnalysisResponse response) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            return rememberAnswer(contentHash, cleaned, toDomain(response));
+        } catch (InvalidAiResponseException ex) {
+            return null;
+        }
+    }
+
+    private String preprocess(String text) {
+        return normalizationTimer.record(() -> textPreprocessor.preprocess(text));
+    }
+
+    private record PendingAnalysis(String cleaned, String contentHash, EmailAnalysisResult known) {
     }
 }
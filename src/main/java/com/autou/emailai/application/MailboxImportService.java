@@ -0,0 +1,169 @@
+package com.autou.emailai.application;
+
+import com.autou.emailai.application.exception.AiNotConfiguredException;
+import com.autou.emailai.application.exception.AiQuotaException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.MailboxImportListener;
+import com.autou.emailai.application.ports.in.MailboxImportUseCase;
+import com.autou.emailai.application.ports.in.dto.MailboxImportSummary;
+import com.autou.emailai.application.ports.in.dto.MailboxItemResult;
+import com.autou.emailai.application.ports.out.MailboxReader;
+import com.autou.emailai.application.ports.out.dto.MailboxMessage;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Classifies every message of a mailbox archive while it is still being
+ * read. Per import, at most {@code max-concurrency} messages and
+ * {@code max-in-flight-bytes} of message content are in flight; the reader
+ * blocks until enough finish, so memory stays bounded whatever the archive
+ * size: about {@code max-in-flight-bytes} plus the message being read
+ * (up to {@code max-message-size}). A single message larger than the budget
+ * runs alone. Results go to the listener as they complete.
+ */
+@Service
+public class MailboxImportService implements MailboxImportUseCase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MailboxImportService.class);
+    private static final String MSG_EMPTY_MAILBOX = "Nenhuma mensagem encontrada no arquivo.";
+    private static final String MSG_UNEXPECTED = "Erro inesperado. Tente novamente.";
+    private static final String MSG_INTERRUPTED = "Importacao interrompida.";
+    private static final String MESSAGE_FILENAME = "mensagem.eml";
+    private static final String MESSAGE_CONTENT_TYPE = "message/rfc822";
+
+    private final EmailAnalysisUseCase emailAnalysisUseCase;
+    private final MailboxReader mailboxReader;
+    private final int maxConcurrency;
+    private final int maxInFlightKilobytes;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+
+    public MailboxImportService(
+            EmailAnalysisUseCase emailAnalysisUseCase,
+            MailboxReader mailboxReader,
+            MeterRegistry meterRegistry,
+            @Value("${analysis.import.max-concurrency:16}") int maxConcurrency,
+            @Value("${analysis.import.max-in-flight-bytes:64MB}") DataSize maxInFlightBytes
+    ) {
+        this.emailAnalysisUseCase = emailAnalysisUseCase;
+        this.mailboxReader = mailboxReader;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxInFlightKilobytes = (int) Math.clamp(maxInFlightBytes.toKilobytes(), 1, Integer.MAX_VALUE);
+        Gauge.builder("analysis.import.inflight", inFlight, AtomicInteger::get).register(meterRegistry);
+        this.succeededCounter = meterRegistry.counter("analysis.import.messages", "result", "success");
+        this.failedCounter = meterRegistry.counter("analysis.import.messages", "result", "failure");
+    }
+
+    @Override
+    public MailboxImportSummary importMailbox(InputStream mailbox, MailboxImportListener listener) {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        Semaphore kilobytes = new Semaphore(maxInFlightKilobytes);
+        ReentrantLock listenerLock = new ReentrantLock();
+        AtomicReference<RuntimeException> aborted = new AtomicReference<>();
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            mailboxReader.read(mailbox, message -> {
+                RuntimeException failure = aborted.get();
+                if (failure != null) {
+                    throw failure;
+                }
+                int messageKilobytes = kilobytes(message);
+                acquire(permits, 1);
+                try {
+                    acquire(kilobytes, messageKilobytes);
+                } catch (RuntimeException ex) {
+                    permits.release();
+                    throw ex;
+                }
+                total.incrementAndGet();
+                executor.submit(() -> {
+                    inFlight.incrementAndGet();
+                    try {
+                        MailboxItemResult item = analyze(message);
+                        if (item.isSuccess()) {
+                            succeeded.incrementAndGet();
+                        }
+                        listenerLock.lock();
+                        try {
+                            listener.onItem(item);
+                        } finally {
+                            listenerLock.unlock();
+                        }
+                    } catch (RuntimeException ex) {
+                        // The listener failed (e.g. the client went away): stop reading.
+                        aborted.compareAndSet(null, ex);
+                    } finally {
+                        inFlight.decrementAndGet();
+                        kilobytes.release(messageKilobytes);
+                        permits.release();
+                    }
+                });
+            });
+        }
+
+        if (aborted.get() != null) {
+            throw aborted.get();
+        }
+        if (total.get() == 0) {
+            throw new InvalidFileException(MSG_EMPTY_MAILBOX);
+        }
+        MailboxImportSummary summary = new MailboxImportSummary(total.get(), succeeded.get(), total.get() - succeeded.get());
+        LOGGER.info("Mailbox import finished total={} succeeded={} failed={}", summary.total(), summary.succeeded(), summary.failed());
+        return summary;
+    }
+
+    private int kilobytes(MailboxMessage message) {
+        long size = (message.content() != null) ? message.content().length : 0;
+        return (int) Math.clamp((size + 1023) / 1024, 1, maxInFlightKilobytes);
+    }
+
+    private void acquire(Semaphore semaphore, int count) {
+        try {
+            semaphore.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(MSG_INTERRUPTED, e);
+        }
+    }
+
+    private MailboxItemResult analyze(MailboxMessage message) {
+        EmailAnalysisResult result = null;
+        String errorMessage = null;
+        try {
+            result = emailAnalysisUseCase.analyzeFile(message.content(), MESSAGE_FILENAME, MESSAGE_CONTENT_TYPE);
+        } catch (AiNotConfiguredException | AiQuotaException | AiRequestFailedException
+                 | InvalidAiResponseException | InvalidFileException | IllegalArgumentException ex) {
+            errorMessage = ex.getMessage();
+        } catch (RuntimeException ex) {
+            LOGGER.error("Unexpected error in mailbox message index={}", message.index(), ex);
+            errorMessage = MSG_UNEXPECTED;
+        }
+        if (result != null) {
+            succeededCounter.increment();
+        } else {
+            failedCounter.increment();
+        }
+        return new MailboxItemResult(message.index(), message.messageId(), message.from(), message.subject(), result, errorMessage);
+    }
+}
@@ -0,0 +1,14 @@
+package com.autou.emailai.application.exception;
+
+/**
+ * The request never left this instance: the local rate limiter had no room
+ * for it. Says nothing about the health of the AI backend.
+ */
+public class AiBusyException extends AiUnavailableException {
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    public AiBusyException(String message) {
+        super(message, RETRY_AFTER_SECONDS);
+    }
+}
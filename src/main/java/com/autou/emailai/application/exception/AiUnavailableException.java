@@ -0,0 +1,15 @@
+package com.autou.emailai.application.exception;
+
+public class AiUnavailableException extends AiRequestFailedException {
+
+    private final long retryAfterSeconds;
+
+    public AiUnavailableException(String message, long retryAfterSeconds) {
+        super(message, null);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
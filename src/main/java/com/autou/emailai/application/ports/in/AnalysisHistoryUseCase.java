@@ -0,0 +1,10 @@
+package com.autou.emailai.application.ports.in;
+
+import com.autou.emailai.domain.AnalysisHistoryPage;
+
+import java.time.Instant;
+
+public interface AnalysisHistoryUseCase {
+
+    AnalysisHistoryPage list(String category, Instant from, Instant to, int page, int size);
+}
@@ -0,0 +1,23 @@
+package com.autou.emailai.application.ports.in;
+
+import com.autou.emailai.application.ports.in.dto.FileInput;
+import com.autou.emailai.domain.AnalysisJob;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface AnalysisJobUseCase {
+
+    AnalysisJob submitText(String rawText);
+
+    /**
+     * Queues the analysis of {@code file}. The job takes ownership of the
+     * file and deletes it once it has run, or right away if it is rejected.
+     */
+    AnalysisJob submitFile(FileInput file);
+
+    Optional<AnalysisJob> find(String jobId);
+
+    CompletableFuture<Optional<AnalysisJob>> await(String jobId, Duration timeout);
+}
@@ -0,0 +1,10 @@
+package com.autou.emailai.application.ports.in;
+
+import com.autou.emailai.domain.EmailCategory;
+
+public interface AnalysisProgressListener {
+
+    void onClassification(EmailCategory category, double confidence);
+
+    void onReplyDelta(String delta);
+}
@@ -0,0 +1,13 @@
+package com.autou.emailai.application.ports.in;
+
+import com.autou.emailai.application.ports.in.dto.BatchItemResult;
+import com.autou.emailai.application.ports.in.dto.FileInput;
+
+import java.util.List;
+
+public interface BatchEmailAnalysisUseCase {
+
+    List<BatchItemResult> analyzeTexts(List<String> rawTexts);
+
+    List<BatchItemResult> analyzeFiles(List<FileInput> files);
+}
@@ -1,10 +1,39 @@
 package com.autou.emailai.application.ports.in;
 
+import com.autou.emailai.application.ports.in.dto.BatchItemResult;
 import com.autou.emailai.domain.EmailAnalysisResult;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface EmailAnalysisUseCase {
 
     EmailAnalysisResult analyzeText(String rawText);
 
+    /**
+     * Same as {@link #analyzeText(String)}, completing when the AI answers
+     * instead of blocking the caller.
+     */
+    CompletableFuture<EmailAnalysisResult> analyzeTextAsync(String rawText);
+
+    EmailAnalysisResult analyzeTextStreaming(String rawText, AnalysisProgressListener listener);
+
+    /**
+     * Analyzes several pasted emails in as few AI calls as the client allows.
+     * Each entry succeeds or fails on its own: text that is empty after
+     * preprocessing and emails the AI left unanswered fail only their entry.
+     * Errors that affect the whole call are thrown.
+     */
+    List<BatchItemResult> analyzeTexts(List<String> rawTexts);
+
     EmailAnalysisResult analyzeFile(byte[] bytes, String filename, String contentType);
+
+    /**
+     * Same as {@link #analyzeFile(byte[], String, String)}, reading the file in
+     * place instead of from a heap copy.
+     */
+    EmailAnalysisResult analyzeFile(Path file, String filename, String contentType);
+
+    CompletableFuture<EmailAnalysisResult> analyzeFileAsync(Path file, String filename, String contentType);
 }
@@ -0,0 +1,11 @@
+package com.autou.emailai.application.ports.in;
+
+import com.autou.emailai.application.ports.in.dto.MailboxItemResult;
+
+public interface MailboxImportListener {
+
+    /**
+     * Called once per message, in completion order and never concurrently.
+     */
+    void onItem(MailboxItemResult item);
+}
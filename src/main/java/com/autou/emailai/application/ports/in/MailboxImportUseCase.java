@@ -0,0 +1,10 @@
+package com.autou.emailai.application.ports.in;
+
+import com.autou.emailai.application.ports.in.dto.MailboxImportSummary;
+
+import java.io.InputStream;
+
+public interface MailboxImportUseCase {
+
+    MailboxImportSummary importMailbox(InputStream mailbox, MailboxImportListener listener);
+}
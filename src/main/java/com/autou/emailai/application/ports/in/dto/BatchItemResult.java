@@ -0,0 +1,22 @@
+package com.autou.emailai.application.ports.in.dto;
+
+import com.autou.emailai.domain.EmailAnalysisResult;
+
+public record BatchItemResult(
+        int index,
+        EmailAnalysisResult result,
+        String errorMessage
+) {
+
+    public static BatchItemResult success(int index, EmailAnalysisResult result) {
+        return new BatchItemResult(index, result, null);
+    }
+
+    public static BatchItemResult failure(int index, String errorMessage) {
+        return new BatchItemResult(index, null, errorMessage);
+    }
+
+    public boolean isSuccess() {
+        return result != null;
+    }
+}
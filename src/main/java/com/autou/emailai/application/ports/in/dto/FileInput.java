@@ -0,0 +1,14 @@
+package com.autou.emailai.application.ports.in.dto;
+
+import java.nio.file.Path;
+
+/**
+ * An uploaded file already written to disk. The caller owns {@code path}
+ * unless the use case receiving it says otherwise.
+ */
+public record FileInput(
+        Path path,
+        String filename,
+        String contentType
+) {
+}
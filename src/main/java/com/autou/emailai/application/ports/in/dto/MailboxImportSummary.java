@@ -0,0 +1,8 @@
+package com.autou.emailai.application.ports.in.dto;
+
+public record MailboxImportSummary(
+        int total,
+        int succeeded,
+        int failed
+) {
+}
@@ -0,0 +1,17 @@
+package com.autou.emailai.application.ports.in.dto;
+
+import com.autou.emailai.domain.EmailAnalysisResult;
+
+public record MailboxItemResult(
+        int index,
+        String messageId,
+        String from,
+        String subject,
+        EmailAnalysisResult result,
+        String errorMessage
+) {
+
+    public boolean isSuccess() {
+        return result != null;
+    }
+}
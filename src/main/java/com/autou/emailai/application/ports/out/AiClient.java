@@ -1,8 +1,52 @@
 package com.autou.emailai.application.ports.out;
 
+import com.autou.emailai.application.exception.InvalidAiResponseException;
 import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface AiClient {
 
     AiAnalysisResponse analyze(String cleanedEmailText);
+
+    /**
+     * Non-blocking {@link #analyze(String)}. The default runs the blocking call
+     * on the caller's thread; implementations backed by an async transport
+     * override it so no thread waits on the network.
+     */
+    default CompletableFuture<AiAnalysisResponse> analyzeAsync(String cleanedEmailText) {
+        try {
+            return CompletableFuture.completedFuture(analyze(cleanedEmailText));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * One response per text, in order. An element is null when the AI gave no
+     * valid answer for that email; the others are still returned. Errors that
+     * affect the whole call (quota, configuration, transport) are thrown.
+     */
+    default List<AiAnalysisResponse> analyzeAll(List<String> cleanedEmailTexts) {
+        List<AiAnalysisResponse> responses = new ArrayList<>(cleanedEmailTexts.size());
+        for (String text : cleanedEmailTexts) {
+            try {
+                responses.add(analyze(text));
+            } catch (InvalidAiResponseException ex) {
+                responses.add(null);
+            }
+        }
+        return responses;
+    }
+
+    default AiAnalysisResponse analyzeStreaming(String cleanedEmailText, AiStreamListener listener) {
+        AiAnalysisResponse response = analyze(cleanedEmailText);
+        if (response != null) {
+            listener.onClassification(response.category(), response.confidence());
+            listener.onReplyDelta(response.suggestedReply());
+        }
+        return response;
+    }
 }
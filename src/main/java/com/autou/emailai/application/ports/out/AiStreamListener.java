@@ -0,0 +1,8 @@
+package com.autou.emailai.application.ports.out;
+
+public interface AiStreamListener {
+
+    void onClassification(String category, double confidence);
+
+    void onReplyDelta(String delta);
+}
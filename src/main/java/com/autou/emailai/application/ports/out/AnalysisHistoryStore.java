@@ -0,0 +1,24 @@
+package com.autou.emailai.application.ports.out;
+
+import com.autou.emailai.domain.AnalysisHistoryPage;
+import com.autou.emailai.domain.AnalysisRecord;
+import com.autou.emailai.domain.EmailCategory;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface AnalysisHistoryStore {
+
+    /**
+     * Queues the record for a later batched write; never blocks on I/O.
+     * Records whose content hash is already stored are ignored.
+     */
+    void append(AnalysisRecord record);
+
+    Optional<AnalysisRecord> findByContentHash(String contentHash);
+
+    /**
+     * Newest first. Null filters match everything; {@code to} is exclusive.
+     */
+    AnalysisHistoryPage query(EmailCategory category, Instant from, Instant to, int page, int size);
+}
@@ -0,0 +1,23 @@
+package com.autou.emailai.application.ports.out;
+
+import com.autou.emailai.domain.AnalysisJob;
+
+import java.util.Optional;
+
+public interface AnalysisJobStore {
+
+    /**
+     * Stores a new job. Returns false when the store is full of jobs that are
+     * still queued or running, which are never evicted.
+     */
+    boolean add(AnalysisJob job);
+
+    void save(AnalysisJob job);
+
+    /**
+     * Drops a job that was added but never handed to a worker.
+     */
+    void remove(String jobId);
+
+    Optional<AnalysisJob> find(String jobId);
+}
@@ -1,8 +1,35 @@
 package com.autou.emailai.application.ports.out;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 public interface FileTextExtractor {
 
-    boolean supports(String filename, String contentType);
+    /**
+     * Media types handled, lowercase and without parameters; the first one is
+     * the canonical type for the extensions below.
+     */
+    List<String> mediaTypes();
+
+    /**
+     * File extensions handled, lowercase and without the dot.
+     */
+    List<String> extensions();
 
     String extract(byte[] bytes);
+
+    /**
+     * Extracts straight from a file, such as an upload already spooled to disk.
+     * Implementations should read it incrementally instead of loading it whole.
+     */
+    default String extract(Path file) {
+        try {
+            return extract(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,16 @@
+package com.autou.emailai.application.ports.out;
+
+public interface FileTextExtractorResolver {
+
+    /**
+     * How many leading bytes {@link #resolve} looks at.
+     */
+    int SNIFF_BYTES = 512;
+
+    /**
+     * Picks the extractor from the file name, the declared content type and
+     * the first bytes of the content. Throws InvalidFileException when the
+     * format is unsupported or the content does not match the declared one.
+     */
+    FileTextExtractor resolve(String filename, String contentType, byte[] head);
+}
@@ -0,0 +1,16 @@
+package com.autou.emailai.application.ports.out;
+
+import com.autou.emailai.application.ports.out.dto.MailboxMessage;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface MailboxReader {
+
+    /**
+     * Splits a mailbox archive (mbox, or a single .eml) into messages and
+     * hands each one to {@code consumer} as soon as it has been read, on the
+     * calling thread. A consumer that blocks slows the reading down.
+     */
+    void read(InputStream mailbox, Consumer<MailboxMessage> consumer);
+}
@@ -0,0 +1,10 @@
+package com.autou.emailai.application.ports.out;
+
+import com.autou.emailai.application.ports.out.dto.PreClassification;
+
+import java.util.Optional;
+
+public interface PreClassifier {
+
+    Optional<PreClassification> classify(String cleanedEmailText);
+}
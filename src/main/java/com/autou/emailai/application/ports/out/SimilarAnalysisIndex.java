@@ -0,0 +1,21 @@
+package com.autou.emailai.application.ports.out;
+
+import com.autou.emailai.domain.EmailAnalysisResult;
+
+import java.util.Optional;
+
+public interface SimilarAnalysisIndex {
+
+    /** Model of a result that came from a near-duplicate instead of the AI. */
+    String SIMILAR_MODEL = "similar";
+
+    /**
+     * The classification of a previously analyzed text similar enough to this
+     * one, e.g. the same template with another name, ticket number or date.
+     * Its reason and suggested reply are generic, never the ones written for
+     * the other text, and its model is {@link #SIMILAR_MODEL}.
+     */
+    Optional<EmailAnalysisResult> findSimilar(String cleanedText);
+
+    void add(String cleanedText, EmailAnalysisResult result);
+}
@@ -1,9 +1,25 @@
 package com.autou.emailai.application.ports.out.dto;
 
+/**
+ * One analysis as returned by an AiClient. {@code model} names who answered;
+ * {@link #LOCAL_MODEL} marks a local stand-in given while the AI was
+ * unavailable, which is never worth keeping.
+ */
 public record AiAnalysisResponse(
         String category,
         double confidence,
         String reason,
-        String suggestedReply
+        String suggestedReply,
+        String model
 ) {
+
+    public static final String LOCAL_MODEL = "local";
+
+    public boolean isLocal() {
+        return LOCAL_MODEL.equals(model);
+    }
+
+    public AiAnalysisResponse withModel(String answeredBy) {
+        return new AiAnalysisResponse(category, confidence, reason, suggestedReply, answeredBy);
+    }
 }
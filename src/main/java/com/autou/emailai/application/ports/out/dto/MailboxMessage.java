@@ -0,0 +1,10 @@
+package com.autou.emailai.application.ports.out.dto;
+
+public record MailboxMessage(
+        int index,
+        String messageId,
+        String from,
+        String subject,
+        byte[] content
+) {
+}
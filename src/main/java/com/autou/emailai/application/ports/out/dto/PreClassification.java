@@ -0,0 +1,11 @@
+package com.autou.emailai.application.ports.out.dto;
+
+import com.autou.emailai.domain.EmailCategory;
+
+public record PreClassification(
+        EmailCategory category,
+        double confidence,
+        String reason,
+        String suggestedReply
+) {
+}
@@ -0,0 +1,11 @@
+package com.autou.emailai.domain;
+
+import java.util.List;
+
+public record AnalysisHistoryPage(
+        List<AnalysisRecord> items,
+        int page,
+        int size,
+        long total
+) {
+}
@@ -0,0 +1,29 @@
+package com.autou.emailai.domain;
+
+import java.time.Instant;
+
+public record AnalysisJob(
+        String id,
+        JobStatus status,
+        EmailAnalysisResult result,
+        String errorMessage,
+        Instant createdAt,
+        Instant updatedAt
+) {
+
+    public static AnalysisJob pending(String id, Instant now) {
+        return new AnalysisJob(id, JobStatus.PENDING, null, null, now, now);
+    }
+
+    public AnalysisJob running(Instant now) {
+        return new AnalysisJob(id, JobStatus.RUNNING, null, null, createdAt, now);
+    }
+
+    public AnalysisJob succeeded(EmailAnalysisResult analysisResult, Instant now) {
+        return new AnalysisJob(id, JobStatus.SUCCEEDED, analysisResult, null, createdAt, now);
+    }
+
+    public AnalysisJob failed(String message, Instant now) {
+        return new AnalysisJob(id, JobStatus.FAILED, null, message, createdAt, now);
+    }
+}
@@ -0,0 +1,10 @@
+package com.autou.emailai.domain;
+
+import java.time.Instant;
+
+public record AnalysisRecord(
+        String contentHash,
+        EmailAnalysisResult result,
+        Instant analyzedAt
+) {
+}
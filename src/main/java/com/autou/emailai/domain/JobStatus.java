@@ -0,0 +1,12 @@
+package com.autou.emailai.domain;
+
+public enum JobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,224 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.AiStreamListener;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.support.ContentHash;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TTL/LRU cache of analyses keyed by the normalized email text and a model
+ * scope. Behind the router any configured backend may answer a call, so the
+ * scope lists every backend and model and answers are shared between them on
+ * purpose; changing any backend or model starts a fresh key space. The
+ * cached response keeps the {@code model} of the backend that produced it.
+ * Local stand-ins given while the AI was unavailable are passed through but
+ * never cached, so the real answer is fetched once the AI is back.
+ */
+public class CachingAiClient implements AiClient {
+
+    private final AiClient delegate;
+    private final String modelScope;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingAiClient(AiClient delegate, String modelScope, int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries deve ser positivo.");
+        }
+        this.delegate = delegate;
+        this.modelScope = modelScope;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public AiAnalysisResponse analyze(String cleanedEmailText) {
+        String key = cacheKey(cleanedEmailText);
+
+        AiAnalysisResponse cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        AiAnalysisResponse response = delegate.analyze(cleanedEmailText);
+        if (response != null) {
+            store(key, response);
+        }
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<AiAnalysisResponse> analyzeAsync(String cleanedEmailText) {
+        String key = cacheKey(cleanedEmailText);
+
+        AiAnalysisResponse cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        misses.incrementAndGet();
+        return delegate.analyzeAsync(cleanedEmailText).thenApply(response -> {
+            if (response != null) {
+                store(key, response);
+            }
+            return response;
+        });
+    }
+
+    @Override
+    public AiAnalysisResponse analyzeStreaming(String cleanedEmailText, AiStreamListener listener) {
+        String key = cacheKey(cleanedEmailText);
+
+        AiAnalysisResponse cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            listener.onClassification(cached.category(), cached.confidence());
+            listener.onReplyDelta(cached.suggestedReply());
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        AiAnalysisResponse response = delegate.analyzeStreaming(cleanedEmailText, listener);
+        if (response != null) {
+            store(key, response);
+        }
+        return response;
+    }
+
+    @Override
+    public List<AiAnalysisResponse> analyzeAll(List<String> cleanedEmailTexts) {
+        AiAnalysisResponse[] responses = new AiAnalysisResponse[cleanedEmailTexts.size()];
+        String[] keys = new String[responses.length];
+        List<String> missingTexts = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+
+        for (int i = 0; i < responses.length; i++) {
+            keys[i] = cacheKey(cleanedEmailTexts.get(i));
+            responses[i] = lookup(keys[i]);
+            if (responses[i] != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+                missingTexts.add(cleanedEmailTexts.get(i));
+                missingIndexes.add(i);
+            }
+        }
+
+        if (!missingTexts.isEmpty()) {
+            List<AiAnalysisResponse> fetched = delegate.analyzeAll(missingTexts);
+            for (int i = 0; i < fetched.size(); i++) {
+                int index = missingIndexes.get(i);
+                responses[index] = fetched.get(i);
+                if (responses[index] != null) {
+                    store(keys[index], responses[index]);
+                }
+            }
+        }
+        return Arrays.asList(responses);
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    private AiAnalysisResponse lookup(String key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return entry.response();
+        }
+    }
+
+    private void store(String key, AiAnalysisResponse response) {
+        if (response.isLocal()) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.put(key, new CacheEntry(response, now + ttlNanos));
+            if (entries.size() > maxEntries) {
+                purgeExpired(now);
+            }
+            Iterator<CacheEntry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private String cacheKey(String text) {
+        return ContentHash.sha256(modelScope + '\0' + normalizeForKey(text));
+    }
+
+    private String normalizeForKey(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private record CacheEntry(AiAnalysisResponse response, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+    }
+}
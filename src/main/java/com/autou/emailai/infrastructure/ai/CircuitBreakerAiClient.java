@@ -0,0 +1,363 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.exception.AiBusyException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.exception.AiUnavailableException;
+import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.AiStreamListener;
+import com.autou.emailai.application.ports.out.PreClassifier;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.application.ports.out.dto.PreClassification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker plus bulkhead in front of the upstream AiClient. Only
+ * upstream failures (AiRequestFailedException, InvalidAiResponseException)
+ * and slow calls count; quota and configuration errors and rejections by the
+ * local rate limiter (AiBusyException) pass through. Slowness is judged on
+ * the time spent upstream, not on time queued in the limiter.
+ * Rejected calls fail fast or, when a fallback classifier is set, are
+ * answered locally.
+ */
+public class CircuitBreakerAiClient implements AiClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakerAiClient.class);
+    private static final String MSG_UNAVAILABLE = "IA indisponivel no momento. Tente novamente em instantes.";
+    private static final String DEGRADED_REASON = "Classificacao local: IA indisponivel no momento.";
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private enum Permission {
+        REJECTED,
+        CALL,
+        PROBE
+    }
+
+    private final AiClient delegate;
+    private final PreClassifier fallback;
+    private final Settings settings;
+    private final Semaphore bulkhead;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final byte[] window;
+    private int windowNext;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlow;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    private final AtomicLong rejectedOpen = new AtomicLong();
+    private final AtomicLong rejectedBulkhead = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public CircuitBreakerAiClient(AiClient delegate, PreClassifier fallback, Settings settings) {
+        if (settings.windowSize() <= 0 || settings.bulkheadMaxConcurrent() <= 0) {
+            throw new IllegalArgumentException("windowSize e bulkheadMaxConcurrent devem ser positivos.");
+        }
+        this.delegate = delegate;
+        this.fallback = fallback;
+        this.settings = settings;
+        this.bulkhead = new Semaphore(settings.bulkheadMaxConcurrent());
+        this.window = new byte[settings.windowSize()];
+    }
+
+    @Override
+    public AiAnalysisResponse analyze(String cleanedEmailText) {
+        return call(() -> delegate.analyze(cleanedEmailText), () -> degrade(cleanedEmailText));
+    }
+
+    @Override
+    public CompletableFuture<AiAnalysisResponse> analyzeAsync(String cleanedEmailText) {
+        Permission permission = acquirePermission();
+        if (permission == Permission.REJECTED) {
+            rejectedOpen.incrementAndGet();
+            return degradeAsync(cleanedEmailText);
+        }
+        // Waiting for a slot would block the caller, so the async path only takes a free one.
+        if (!bulkhead.tryAcquire()) {
+            release(permission);
+            rejectedBulkhead.incrementAndGet();
+            return degradeAsync(cleanedEmailText);
+        }
+
+        UpstreamClock clock = new UpstreamClock();
+        long start = System.nanoTime();
+        CompletableFuture<AiAnalysisResponse> upstream;
+        try {
+            upstream = UpstreamClock.runWith(clock, () -> delegate.analyzeAsync(cleanedEmailText));
+        } catch (RuntimeException ex) {
+            upstream = CompletableFuture.failedFuture(ex);
+        }
+        return upstream.whenComplete((response, error) -> {
+            try {
+                Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+                if (cause instanceof AiBusyException) {
+                    release(permission);
+                } else if (cause == null || cause instanceof AiRequestFailedException || cause instanceof InvalidAiResponseException) {
+                    record(permission, cause != null, clock.elapsedNanos(start));
+                } else {
+                    release(permission);
+                }
+            } finally {
+                bulkhead.release();
+            }
+        });
+    }
+
+    @Override
+    public List<AiAnalysisResponse> analyzeAll(List<String> cleanedEmailTexts) {
+        return call(() -> delegate.analyzeAll(cleanedEmailTexts), () -> {
+            List<AiAnalysisResponse> responses = new ArrayList<>(cleanedEmailTexts.size());
+            for (String text : cleanedEmailTexts) {
+                responses.add(degrade(text));
+            }
+            return responses;
+        });
+    }
+
+    @Override
+    public AiAnalysisResponse analyzeStreaming(String cleanedEmailText, AiStreamListener listener) {
+        return call(() -> delegate.analyzeStreaming(cleanedEmailText, listener), () -> {
+            AiAnalysisResponse response = degrade(cleanedEmailText);
+            listener.onClassification(response.category(), response.confidence());
+            listener.onReplyDelta(response.suggestedReply());
+            return response;
+        });
+    }
+
+    public BreakerStats stats() {
+        lock.lock();
+        try {
+            return new BreakerStats(
+                    currentState(System.nanoTime()),
+                    settings.bulkheadMaxConcurrent() - bulkhead.availablePermits(),
+                    rejectedOpen.get(),
+                    rejectedBulkhead.get(),
+                    fallbacks.get()
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T call(Supplier<T> upstream, Supplier<T> degraded) {
+        Permission permission = acquirePermission();
+        if (permission == Permission.REJECTED) {
+            rejectedOpen.incrementAndGet();
+            return degraded.get();
+        }
+        if (!acquireBulkhead()) {
+            release(permission);
+            rejectedBulkhead.incrementAndGet();
+            return degraded.get();
+        }
+
+        UpstreamClock clock = new UpstreamClock();
+        long start = System.nanoTime();
+        try {
+            T result = UpstreamClock.runWith(clock, upstream);
+            record(permission, false, clock.elapsedNanos(start));
+            return result;
+        } catch (AiBusyException ex) {
+            release(permission);
+            throw ex;
+        } catch (AiRequestFailedException | InvalidAiResponseException ex) {
+            record(permission, true, clock.elapsedNanos(start));
+            throw ex;
+        } catch (RuntimeException ex) {
+            release(permission);
+            throw ex;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(settings.bulkheadMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private CompletableFuture<AiAnalysisResponse> degradeAsync(String text) {
+        try {
+            return CompletableFuture.completedFuture(degrade(text));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private AiAnalysisResponse degrade(String text) {
+        if (fallback != null) {
+            Optional<PreClassification> local = fallback.classify(text);
+            if (local.isPresent()) {
+                fallbacks.incrementAndGet();
+                PreClassification pre = local.get();
+                return new AiAnalysisResponse(pre.category().name(), pre.confidence(), DEGRADED_REASON, pre.suggestedReply(), AiAnalysisResponse.LOCAL_MODEL);
+            }
+        }
+        throw new AiUnavailableException(MSG_UNAVAILABLE, retryAfterSeconds());
+    }
+
+    private long retryAfterSeconds() {
+        lock.lock();
+        try {
+            if (state != State.OPEN) {
+                return 1;
+            }
+            long remaining = settings.openDuration().toNanos() - (System.nanoTime() - openedAt);
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining) + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permission acquirePermission() {
+        lock.lock();
+        try {
+            State current = currentState(System.nanoTime());
+            if (current == State.CLOSED) {
+                return Permission.CALL;
+            }
+            if (current == State.OPEN) {
+                return Permission.REJECTED;
+            }
+            if (state == State.OPEN) {
+                state = State.HALF_OPEN;
+                probesInFlight = 0;
+                probesSucceeded = 0;
+                LOGGER.info("AI circuit half-open, probing with {} calls", settings.halfOpenProbes());
+            }
+            if (probesInFlight + probesSucceeded >= settings.halfOpenProbes()) {
+                return Permission.REJECTED;
+            }
+            probesInFlight++;
+            return Permission.PROBE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private State currentState(long now) {
+        if (state == State.OPEN && now - openedAt >= settings.openDuration().toNanos()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private void release(Permission permission) {
+        if (permission != Permission.PROBE) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                probesInFlight--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(Permission permission, boolean failed, long elapsedNanos) {
+        boolean slow = elapsedNanos >= settings.slowCallDuration().toNanos();
+        lock.lock();
+        try {
+            if (permission == Permission.PROBE) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                probesInFlight--;
+                if (failed || slow) {
+                    open(failed ? "probe failed" : "probe slow");
+                } else if (++probesSucceeded >= settings.halfOpenProbes()) {
+                    close();
+                }
+                return;
+            }
+            if (state != State.CLOSED) {
+                return;
+            }
+            addToWindow((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+            if (windowCount >= settings.minimumCalls()) {
+                double failureRate = (double) windowFailures / windowCount;
+                double slowRate = (double) windowSlow / windowCount;
+                if (failureRate >= settings.failureRateThreshold() || slowRate >= settings.slowCallRateThreshold()) {
+                    open(String.format("failureRate=%.2f slowRate=%.2f", failureRate, slowRate));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void addToWindow(byte outcome) {
+        if (windowCount == window.length) {
+            byte evicted = window[windowNext];
+            windowFailures -= evicted & FAILED;
+            windowSlow -= (evicted & SLOW) >> 1;
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = outcome;
+        windowFailures += outcome & FAILED;
+        windowSlow += (outcome & SLOW) >> 1;
+        windowNext = (windowNext + 1) % window.length;
+    }
+
+    private void open(String cause) {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        LOGGER.warn("AI circuit opened ({}), rejecting calls for {}", cause, settings.openDuration());
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowNext = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        windowSlow = 0;
+        LOGGER.info("AI circuit closed");
+    }
+
+    public record Settings(
+            int windowSize,
+            int minimumCalls,
+            double failureRateThreshold,
+            Duration slowCallDuration,
+            double slowCallRateThreshold,
+            Duration openDuration,
+            int halfOpenProbes,
+            int bulkheadMaxConcurrent,
+            Duration bulkheadMaxWait
+    ) {
+    }
+
+    public record BreakerStats(State state, int bulkheadInFlight, long rejectedOpen, long rejectedBulkhead, long fallbacks) {
+    }
+}
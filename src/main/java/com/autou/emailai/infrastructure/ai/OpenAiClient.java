@@ -1,26 +1,52 @@
 package com.autou.emailai.infrastructure.ai;
 
 import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.AiStreamListener;
 import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.application.exception.AiBusyException;
 import com.autou.emailai.application.exception.AiNotConfiguredException;
 import com.autou.emailai.application.exception.AiQuotaException;
 import com.autou.emailai.application.exception.AiRequestFailedException;
 import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.infrastructure.http.AsyncHttpEndpoint;
+import com.autou.emailai.support.TokenEstimator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.LinkedHashMap;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 public class OpenAiClient implements AiClient {
@@ -30,141 +56,647 @@ public class OpenAiClient implements AiClient {
     private static final String MSG_AI_FAILURE = "Falha ao consultar a IA. Tente novamente.";
     private static final String MSG_AI_INVALID = "Resposta da IA invalida. Tente novamente.";
     private static final String MSG_AI_QUOTA = "Sem cota na OpenAI. Verifique seu plano.";
+    private static final String MSG_AI_BUSY = "IA sobrecarregada no momento. Tente novamente.";
     private static final String QUOTA_CODE = "insufficient_quota";
-    private static final String PROMPT_SYSTEM = """
-            Voce e um classificador de emails.
-            Classifique o email como PRODUTIVO ou IMPRODUTIVO.
-            Retorne JSON valido com:
-            category, confidence (0 a 1), reason (curto), suggestedReply (PT-BR).
-            """;
+    private static final String HEADER_RETRY_AFTER_MS = "retry-after-ms";
+    private static final int PACKED_ITEM_OVERHEAD_TOKENS = 16;
+    private static final int OUTPUT_TOKENS_PER_EMAIL = 150;
+    private static final String METRIC_STAGE = "openai.stage";
+    private static final String METRIC_USAGE = "openai.usage.tokens";
+    private static final String SSE_DATA = "data:";
+    private static final String SSE_DONE = "[DONE]";
 
     private final RestClient restClient;
+    private final AsyncHttpEndpoint asyncEndpoint;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String name;
     private final String model;
+    private final String promptCacheKey;
+    private final OpenAiResponsesCodec codec;
     private final String apiKey;
+    private final int packMaxItems;
+    private final int packMaxInputTokens;
+    private final OpenAiRateLimiter rateLimiter;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private final Timer serializeTimer;
+    private final Timer roundTripTimer;
+    private final Timer parseResponseTimer;
+    private final Timer parseAnalysisTimer;
+    private final Timer validateTimer;
+    private final Timer firstDeltaTimer;
+    private final Map<String, UsageMeters> usageByModel = new ConcurrentHashMap<>();
 
     public OpenAiClient(
             RestClient openAiRestClient,
+            AsyncHttpEndpoint openAiAsyncEndpoint,
             ObjectMapper objectMapper,
+            OpenAiRateLimiter rateLimiter,
+            MeterRegistry meterRegistry,
+            @Value("${openai.name:openai}") String name,
             @Value("${openai.model}") String model,
-            @Value("${openai.api-key:}") String apiKey
+            @Value("${openai.api-key:}") String apiKey,
+            @Value("${openai.packing.max-items:20}") int packMaxItems,
+            @Value("${openai.packing.max-input-tokens:6000}") int packMaxInputTokens,
+            @Value("${openai.retry.max-attempts:3}") int maxAttempts,
+            @Value("${openai.retry.initial-backoff:PT0.5S}") Duration initialBackoff,
+            @Value("${openai.retry.max-backoff:PT20S}") Duration maxBackoff,
+            @Value("${openai.prompt-cache.key:auto}") String promptCacheKey
     ) {
         this.restClient = openAiRestClient;
+        this.asyncEndpoint = openAiAsyncEndpoint;
         this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.name = name;
         this.model = model;
+        this.promptCacheKey = promptCacheKey;
+        this.codec = new OpenAiResponsesCodec(objectMapper, model, promptCacheKey);
         this.apiKey = apiKey;
+        this.packMaxItems = Math.max(1, packMaxItems);
+        this.packMaxInputTokens = packMaxInputTokens;
+        this.rateLimiter = rateLimiter;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+
+        this.serializeTimer = meterRegistry.timer(METRIC_STAGE, "stage", "serialize", "backend", name);
+        this.roundTripTimer = meterRegistry.timer(METRIC_STAGE, "stage", "roundtrip", "backend", name);
+        this.parseResponseTimer = meterRegistry.timer(METRIC_STAGE, "stage", "parse_response", "backend", name);
+        this.parseAnalysisTimer = meterRegistry.timer(METRIC_STAGE, "stage", "parse_analysis", "backend", name);
+        this.validateTimer = meterRegistry.timer(METRIC_STAGE, "stage", "validate", "backend", name);
+        this.firstDeltaTimer = meterRegistry.timer(METRIC_STAGE, "stage", "first_delta", "backend", name);
+        Gauge.builder("openai.requests.inflight", rateLimiter, limiter -> limiter.stats().inFlight())
+                .tag("backend", name)
+                .register(meterRegistry);
+        Gauge.builder("openai.limiter.limit", rateLimiter, limiter -> limiter.stats().limit())
+                .tag("backend", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Another OpenAI-compatible backend sharing this client's packing and
+     * retry settings, for the router.
+     */
+    public OpenAiClient forBackend(String backendName, RestClient backendRestClient, AsyncHttpEndpoint backendAsyncEndpoint,
+                                   OpenAiRateLimiter backendRateLimiter, String backendModel, String backendApiKey) {
+        return new OpenAiClient(backendRestClient, backendAsyncEndpoint, objectMapper, backendRateLimiter, meterRegistry, backendName,
+                backendModel, backendApiKey, packMaxItems, packMaxInputTokens, maxAttempts, initialBackoff, maxBackoff, promptCacheKey);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String model() {
+        return model;
     }
 
     @Override
     public AiAnalysisResponse analyze(String cleanedEmailText) {
+        ensureConfigured();
+
+        int estimatedTokens = estimateTokens(cleanedEmailText) + codec.promptTokens() + OUTPUT_TOKENS_PER_EMAIL;
+        byte[] payload = serializeTimer.record(() -> codec.encodeRequest(cleanedEmailText));
+        return toAnalysis(requestOutputText(payload, estimatedTokens));
+    }
+
+    /**
+     * Same exchange as {@link #analyze(String)} over {@link AsyncHttpEndpoint}:
+     * limiter admission, retries and backoff are chained on the future, so
+     * nothing blocks while the request is queued or in flight.
+     */
+    @Override
+    public CompletableFuture<AiAnalysisResponse> analyzeAsync(String cleanedEmailText) {
+        try {
+            ensureConfigured();
+            int estimatedTokens = estimateTokens(cleanedEmailText) + codec.promptTokens() + OUTPUT_TOKENS_PER_EMAIL;
+            byte[] payload = serializeTimer.record(() -> codec.encodeRequest(cleanedEmailText));
+            AtomicReference<CompletableFuture<?>> current = new AtomicReference<>();
+            UpstreamClock clock = UpstreamClock.current();
+            CompletableFuture<AiAnalysisResponse> result = requestOutputTextAsync(payload, estimatedTokens, 1, current, clock)
+                    .thenApply(this::toAnalysis);
+            result.whenComplete((response, error) -> {
+                CompletableFuture<?> stage = current.get();
+                if (result.isCancelled() && stage != null) {
+                    stage.cancel(true);
+                }
+            });
+            return result;
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private AiAnalysisResponse toAnalysis(String outputText) {
+        Timer.Sample parse = Timer.start();
+        try {
+            AiAnalysisResponse response = codec.decodeAnalysis(outputText);
+            parse.stop(parseAnalysisTimer);
+            validateTimer.record(() -> validateResponse(response));
+            return response.withModel(name);
+        } catch (IOException ex) {
+            LOGGER.warn("OpenAI response parse failed", ex);
+            throw new InvalidAiResponseException(MSG_AI_INVALID, ex);
+        }
+    }
+
+    @Override
+    public AiAnalysisResponse analyzeStreaming(String cleanedEmailText, AiStreamListener listener) {
+        ensureConfigured();
+
+        int estimatedTokens = estimateTokens(cleanedEmailText) + codec.promptTokens() + OUTPUT_TOKENS_PER_EMAIL;
+        byte[] payload = serializeTimer.record(() -> codec.encodeStreamingRequest(cleanedEmailText));
+        AiAnalysisResponse response = execute(estimatedTokens, attempt -> streamAnalysis(payload, listener, attempt));
+        validateTimer.record(() -> validateResponse(response));
+        return response.withModel(name);
+    }
+
+    @Override
+    public List<AiAnalysisResponse> analyzeAll(List<String> cleanedEmailTexts) {
+        if (cleanedEmailTexts.size() <= 1) {
+            return AiClient.super.analyzeAll(cleanedEmailTexts);
+        }
+        ensureConfigured();
+
+        List<AiAnalysisResponse> responses = new ArrayList<>(cleanedEmailTexts.size());
+        for (List<String> pack : planPacks(cleanedEmailTexts)) {
+            responses.addAll(analyzePack(pack));
+        }
+        return responses;
+    }
+
+    private void ensureConfigured() {
         if (apiKey == null || apiKey.isBlank()) {
             throw new AiNotConfiguredException(MSG_NO_API_KEY);
         }
+    }
+
+    private String requestOutputText(byte[] payload, int estimatedTokens) {
+        return execute(estimatedTokens, attempt -> {
+            ResponseEntity<byte[]> response;
+            Timer.Sample roundTrip = Timer.start();
+            try {
+                response = restClient.post()
+                        .uri("/responses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(payload)
+                        .retrieve()
+                        .toEntity(byte[].class);
+            } finally {
+                roundTrip.stop(roundTripTimer);
+            }
+            return readOutputText(response, attempt);
+        });
+    }
+
+    private CompletableFuture<String> requestOutputTextAsync(byte[] payload, int estimatedTokens, int attemptNumber,
+                                                             AtomicReference<CompletableFuture<?>> current, UpstreamClock clock) {
+        CompletableFuture<OpenAiRateLimiter.Permit> admission = rateLimiter.acquireAsync(estimatedTokens);
+        current.set(admission);
+        return admission.thenCompose(permit -> {
+            if (permit == null) {
+                throw new AiBusyException(MSG_AI_BUSY);
+            }
+            Attempt attempt = new Attempt(permit);
+            Timer.Sample roundTrip = Timer.start();
+            long start = System.nanoTime();
+            CompletableFuture<ResponseEntity<byte[]>> exchange = asyncEndpoint.postJson("/responses", payload);
+            current.set(exchange);
+            return exchange.handle((response, error) -> {
+                roundTrip.stop(roundTripTimer);
+                UpstreamClock.add(clock, System.nanoTime() - start);
+                Duration retryDelay;
+                try {
+                    if (error != null) {
+                        RuntimeException cause = unwrap(error);
+                        if (cause instanceof CancellationException) {
+                            // Cancelled by the caller (e.g. a hedge that lost): says nothing about the backend.
+                            attempt.outcome = OpenAiRateLimiter.Outcome.NEUTRAL;
+                        }
+                        throw cause;
+                    }
+                    return CompletableFuture.completedFuture(readOutputText(response, attempt));
+                } catch (RestClientException ex) {
+                    retryDelay = retryOrThrow(ex, attemptNumber, attempt);
+                } finally {
+                    releasePermit(attempt);
+                }
+                CompletableFuture<Void> backoff = CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(retryDelay.toNanos(), TimeUnit.NANOSECONDS, asyncEndpoint.executor()));
+                current.set(backoff);
+                return backoff.thenCompose(ignored -> requestOutputTextAsync(payload, estimatedTokens, attemptNumber + 1, current, clock));
+            }).thenCompose(next -> next);
+        });
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new AiRequestFailedException(MSG_AI_FAILURE, cause);
+    }
 
-        Map<String, Object> payload = buildRequest(cleanedEmailText);
+    private String readOutputText(ResponseEntity<byte[]> response, Attempt attempt) {
+        attempt.responded(response.getHeaders());
 
+        OpenAiResponsesCodec.DecodedResponse decoded;
+        Timer.Sample parse = Timer.start();
         try {
-            String responseBody = restClient.post()
+            decoded = codec.decodeResponse(response.getBody());
+        } catch (IOException ex) {
+            LOGGER.warn("OpenAI response parse failed", ex);
+            throw new InvalidAiResponseException(MSG_AI_INVALID, ex);
+        }
+        parse.stop(parseResponseTimer);
+        recordUsage(decoded.usage());
+
+        String outputText = decoded.outputText();
+        if (outputText == null || outputText.isBlank()) {
+            throw new InvalidAiResponseException(MSG_AI_INVALID);
+        }
+        return outputText;
+    }
+
+    private AiAnalysisResponse streamAnalysis(byte[] payload, AiStreamListener listener, Attempt attempt) {
+        Timer.Sample roundTrip = Timer.start();
+        try {
+            return restClient.post()
                     .uri("/responses")
                     .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
                     .body(payload)
-                    .retrieve()
-                    .body(String.class);
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode().isError()) {
+                            throw new RestClientResponseException("OpenAI streaming error", response.getStatusCode(),
+                                    response.getStatusText(), response.getHeaders(), response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                        }
+                        attempt.responded(response.getHeaders());
+                        return readEventStream(response.getBody(), listener, attempt, roundTrip);
+                    });
+        } finally {
+            roundTrip.stop(roundTripTimer);
+        }
+    }
 
-            String outputText = extractOutputText(responseBody);
-            if (outputText == null || outputText.isBlank()) {
-                throw new InvalidAiResponseException(MSG_AI_INVALID);
+    private AiAnalysisResponse readEventStream(InputStream body, AiStreamListener listener, Attempt attempt, Timer.Sample started) throws IOException {
+        StreamingAnalysisParser parser = new StreamingAnalysisParser(listener);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        StringBuilder data = new StringBuilder();
+        boolean completed = false;
+        String line;
+        while (!completed && (line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                completed = dispatchEvent(data, parser, attempt, started);
+                data.setLength(0);
+            } else if (line.startsWith(SSE_DATA)) {
+                if (!data.isEmpty()) {
+                    data.append('\n');
+                }
+                int from = SSE_DATA.length();
+                data.append(line, (line.length() > from && line.charAt(from) == ' ') ? from + 1 : from, line.length());
+            }
+        }
+        if (!completed && !dispatchEvent(data, parser, attempt, started)) {
+            LOGGER.warn("OpenAI stream ended before response.completed");
+            throw new InvalidAiResponseException(MSG_AI_INVALID);
+        }
+        try {
+            return parser.result();
+        } catch (IOException ex) {
+            LOGGER.warn("OpenAI streamed output parse failed", ex);
+            throw new InvalidAiResponseException(MSG_AI_INVALID, ex);
+        }
+    }
+
+    private boolean dispatchEvent(CharSequence data, StreamingAnalysisParser parser, Attempt attempt, Timer.Sample started) {
+        if (data.isEmpty() || SSE_DONE.contentEquals(data)) {
+            return false;
+        }
+        try {
+            OpenAiResponsesCodec.StreamEvent event = codec.decodeStreamEvent(data.toString());
+            String type = (event.type() == null) ? "" : event.type();
+            switch (type) {
+                case "response.output_text.delta" -> {
+                    if (!attempt.streamed && event.delta() != null && !event.delta().isEmpty()) {
+                        attempt.streamed = true;
+                        started.stop(firstDeltaTimer);
+                    }
+                    if (event.delta() != null) {
+                        parser.feed(event.delta());
+                    }
+                }
+                case "response.completed" -> {
+                    recordUsage(event.usage());
+                    return true;
+                }
+                case "response.incomplete" -> {
+                    LOGGER.warn("OpenAI stream incomplete");
+                    throw new InvalidAiResponseException(MSG_AI_INVALID);
+                }
+                case "response.failed", "error" -> {
+                    LOGGER.warn("OpenAI stream failed message={}", event.errorMessage());
+                    throw new AiRequestFailedException(MSG_AI_FAILURE, null);
+                }
+                default -> {
+                }
             }
+            return false;
+        } catch (IOException ex) {
+            LOGGER.warn("OpenAI stream event parse failed", ex);
+            throw new InvalidAiResponseException(MSG_AI_INVALID, ex);
+        }
+    }
+
+    private <T> T execute(int estimatedTokens, Exchange<T> exchange) {
+        UpstreamClock clock = UpstreamClock.current();
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            Attempt attempt = new Attempt(acquirePermit(estimatedTokens));
+
+            Duration retryDelay;
+            long start = System.nanoTime();
+            try {
+                return exchange.execute(attempt);
+            } catch (RestClientException ex) {
+                retryDelay = retryOrThrow(ex, attemptNumber, attempt);
+            } finally {
+                UpstreamClock.add(clock, System.nanoTime() - start);
+                releasePermit(attempt);
+            }
+
+            sleep(retryDelay);
+        }
+    }
 
-            AiAnalysisResponse response = objectMapper.readValue(outputText, AiAnalysisResponse.class);
-            validateResponse(response);
-            return response;
-        } catch (RestClientResponseException ex) {
-            LOGGER.warn("OpenAI error status={} bodyLength={}", ex.getRawStatusCode(), safeLength(ex.getResponseBodyAsString()), ex);
-            if (ex.getRawStatusCode() == 429 && hasQuotaError(ex.getResponseBodyAsString())) {
+    /**
+     * Classifies a failed attempt for the limiter and either throws the error
+     * for the caller or returns how long to back off before the next attempt.
+     */
+    private Duration retryOrThrow(RestClientException ex, int attemptNumber, Attempt attempt) {
+        if (ex instanceof RestClientResponseException responseEx) {
+            LOGGER.warn("OpenAI error status={} bodyLength={} attempt={}", responseEx.getStatusCode().value(),
+                    safeLength(responseEx.getResponseBodyAsString()), attemptNumber, ex);
+            attempt.errorHeaders = responseEx.getResponseHeaders();
+            int status = responseEx.getStatusCode().value();
+            if (status == 429 && hasQuotaError(responseEx.getResponseBodyAsString())) {
+                attempt.outcome = OpenAiRateLimiter.Outcome.NEUTRAL;
                 throw new AiQuotaException(MSG_AI_QUOTA);
             }
+            boolean retryable = status == 429 || status >= 500;
+            attempt.outcome = (status == 429) ? OpenAiRateLimiter.Outcome.THROTTLED
+                    : retryable ? OpenAiRateLimiter.Outcome.FAILED : OpenAiRateLimiter.Outcome.NEUTRAL;
+            if (!retryable || attemptNumber >= maxAttempts) {
+                throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
+            }
+            return retryDelay(attemptNumber, attempt.errorHeaders);
+        }
+        if (interrupted(ex)) {
+            // Cancelled by the caller (e.g. a hedge that lost): says nothing about the backend.
+            attempt.outcome = OpenAiRateLimiter.Outcome.NEUTRAL;
             throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
-        } catch (RestClientException ex) {
-            LOGGER.warn("OpenAI request failed", ex);
+        }
+        LOGGER.warn("OpenAI request failed attempt={}", attemptNumber, ex);
+        attempt.outcome = OpenAiRateLimiter.Outcome.FAILED;
+        // Part of the reply already reached the caller; a retry would repeat it.
+        if (attemptNumber >= maxAttempts || attempt.streamed) {
             throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
-        } catch (IOException ex) {
-            LOGGER.warn("OpenAI response parse failed", ex);
-            throw new InvalidAiResponseException(MSG_AI_INVALID, ex);
         }
+        return retryDelay(attemptNumber, null);
     }
 
-    private Map<String, Object> buildRequest(String cleanedEmailText) {
-        Map<String, Object> schema = new LinkedHashMap<>();
-        schema.put("type", "object");
-        schema.put("additionalProperties", false);
-        schema.put("properties", Map.of(
-                "category", Map.of("type", "string", "enum", List.of("PRODUTIVO", "IMPRODUTIVO")),
-                "confidence", Map.of("type", "number", "minimum", 0, "maximum", 1),
-                "reason", Map.of("type", "string"),
-                "suggestedReply", Map.of("type", "string")
-        ));
-        schema.put("required", List.of("category", "confidence", "reason", "suggestedReply"));
-
-        Map<String, Object> textFormat = Map.of(
-                "format", Map.of(
-                        "type", "json_schema",
-                        "strict", true,
-                        "name", "email_analysis",
-                        "schema", schema
-                )
-        );
+    private static boolean interrupted(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof ClosedByInterruptException
+                    || cause instanceof CancellationException
+                    || (cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException))) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        Map<String, Object> systemMessage = Map.of(
-                "role", "system",
-                "content", List.of(Map.of("type", "input_text", "text", PROMPT_SYSTEM))
-        );
-        Map<String, Object> userMessage = Map.of(
-                "role", "user",
-                "content", List.of(Map.of("type", "input_text", "text", cleanedEmailText))
+    private void releasePermit(Attempt attempt) {
+        OpenAiRateLimiter.Outcome outcome = attempt.outcome;
+        if (outcome == null) {
+            outcome = attempt.headers != null ? OpenAiRateLimiter.Outcome.SUCCESS : OpenAiRateLimiter.Outcome.FAILED;
+        }
+        rateLimiter.release(attempt.permit, outcome, (attempt.errorHeaders != null) ? attempt.errorHeaders : attempt.headers);
+    }
+
+    private void recordUsage(OpenAiUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        String answeredBy = (usage.model() != null && !usage.model().isBlank()) ? usage.model() : model;
+        UsageMeters meters = usageByModel.computeIfAbsent(answeredBy, this::usageMeters);
+        meters.input().record(usage.inputTokens());
+        meters.output().record(usage.outputTokens());
+        meters.cachedInput().record(usage.cachedInputTokens());
+    }
+
+    private UsageMeters usageMeters(String answeredBy) {
+        return new UsageMeters(
+                usageSummary("input", answeredBy),
+                usageSummary("output", answeredBy),
+                usageSummary("cached_input", answeredBy)
         );
+    }
 
-        Map<String, Object> request = new LinkedHashMap<>();
-        request.put("model", model);
-        request.put("input", List.of(systemMessage, userMessage));
-        request.put("text", textFormat);
-        request.put("temperature", 0.2);
-        return request;
+    private DistributionSummary usageSummary(String type, String answeredBy) {
+        return DistributionSummary.builder(METRIC_USAGE)
+                .baseUnit("tokens")
+                .tag("type", type)
+                .tag("backend", name)
+                .tag("model", answeredBy)
+                .register(meterRegistry);
     }
 
-    private String extractOutputText(String responseBody) throws IOException {
-        if (responseBody == null || responseBody.isBlank()) {
-            return null;
+    private OpenAiRateLimiter.Permit acquirePermit(int estimatedTokens) {
+        try {
+            OpenAiRateLimiter.Permit permit = rateLimiter.acquire(estimatedTokens);
+            if (permit == null) {
+                throw new AiBusyException(MSG_AI_BUSY);
+            }
+            return permit;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
         }
+    }
 
-        JsonNode root = objectMapper.readTree(responseBody);
+    private Duration retryDelay(int attempt, HttpHeaders headers) {
+        long exponential = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        long jittered = exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+        long retryAfter = retryAfterMillis(headers);
+        return Duration.ofMillis(Math.min(maxBackoff.toMillis(), Math.max(jittered, retryAfter)));
+    }
 
-        JsonNode outputText = root.get("output_text");
-        if (outputText != null) {
-            if (outputText.isTextual()) {
-                return outputText.asText();
+    private long retryAfterMillis(HttpHeaders headers) {
+        if (headers == null) {
+            return 0;
+        }
+        try {
+            String retryAfterMs = headers.getFirst(HEADER_RETRY_AFTER_MS);
+            if (retryAfterMs != null) {
+                return (long) Double.parseDouble(retryAfterMs.trim());
             }
-            if (outputText.isArray() && outputText.size() > 0) {
-                return outputText.get(0).asText();
+            String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) {
+                return (long) (Double.parseDouble(retryAfter.trim()) * 1000);
             }
+        } catch (NumberFormatException ex) {
+            return 0;
         }
+        return 0;
+    }
 
-        JsonNode output = root.get("output");
-        if (output != null && output.isArray()) {
-            for (JsonNode item : output) {
-                JsonNode content = item.get("content");
-                if (content != null && content.isArray()) {
-                    for (JsonNode contentItem : content) {
-                        JsonNode text = contentItem.get("text");
-                        if (text != null && text.isTextual()) {
-                            return text.asText();
-                        }
-                    }
+    private void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
+        }
+    }
+
+    private List<List<String>> planPacks(List<String> texts) {
+        List<List<String>> packs = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (String text : texts) {
+            int tokens = estimateTokens(text) + PACKED_ITEM_OVERHEAD_TOKENS;
+            boolean full = current.size() >= packMaxItems || currentTokens + tokens > packMaxInputTokens;
+            if (!current.isEmpty() && full) {
+                packs.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(text);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            packs.add(current);
+        }
+        return packs;
+    }
+
+    /**
+     * Answers a pack in one call and keeps every valid item. Ids the answer
+     * left out or got wrong are packed again for as long as each round makes
+     * progress and more than one is left; whatever is still missing comes
+     * back as null, for the caller to retry on its own.
+     */
+    private List<AiAnalysisResponse> analyzePack(List<String> pack) {
+        AiAnalysisResponse[] responses = new AiAnalysisResponse[pack.size()];
+        List<Integer> missing = new ArrayList<>(pack.size());
+        for (int i = 0; i < pack.size(); i++) {
+            missing.add(i);
+        }
+
+        do {
+            List<String> texts = new ArrayList<>(missing.size());
+            for (int index : missing) {
+                texts.add(pack.get(index));
+            }
+            AiAnalysisResponse[] answered = requestPack(texts);
+            List<Integer> stillMissing = new ArrayList<>();
+            for (int i = 0; i < answered.length; i++) {
+                if (answered[i] == null) {
+                    stillMissing.add(missing.get(i));
+                } else {
+                    responses[missing.get(i)] = answered[i];
+                }
+            }
+            if (stillMissing.size() == missing.size()) {
+                break;
+            }
+            if (!stillMissing.isEmpty()) {
+                LOGGER.warn("OpenAI packed response left {} of {} items unanswered, re-packing them",
+                        stillMissing.size(), missing.size());
+            }
+            missing = stillMissing;
+        } while (missing.size() > 1);
+        return Arrays.asList(responses);
+    }
+
+    private AiAnalysisResponse[] requestPack(List<String> pack) {
+        int estimatedTokens = codec.packedPromptTokens();
+        for (String text : pack) {
+            estimatedTokens += estimateTokens(text) + PACKED_ITEM_OVERHEAD_TOKENS + OUTPUT_TOKENS_PER_EMAIL;
+        }
+        byte[] payload = serializeTimer.record(() -> encodePackedRequest(pack));
+        try {
+            String outputText = requestOutputText(payload, estimatedTokens);
+            return parseAnalysisTimer.record(() -> parsePackedOutput(outputText, pack.size()));
+        } catch (InvalidAiResponseException ex) {
+            LOGGER.warn("OpenAI packed response invalid size={}", pack.size());
+            return new AiAnalysisResponse[pack.size()];
+        }
+    }
+
+    /**
+     * Valid items by id. Items with an unknown, repeated or unparseable id, or
+     * that fail validation, leave their slot null.
+     */
+    private AiAnalysisResponse[] parsePackedOutput(String outputText, int expectedSize) {
+        AiAnalysisResponse[] byId = new AiAnalysisResponse[expectedSize];
+        boolean[] seen = new boolean[expectedSize];
+        JsonNode items;
+        try {
+            items = objectMapper.readTree(outputText).get("items");
+        } catch (IOException ex) {
+            throw new InvalidAiResponseException(MSG_AI_INVALID, ex);
+        }
+        if (items == null || !items.isArray()) {
+            throw new InvalidAiResponseException(MSG_AI_INVALID);
+        }
+        for (JsonNode item : items) {
+            try {
+                PackedItem packedItem = objectMapper.treeToValue(item, PackedItem.class);
+                int id = parsePackedId(packedItem.id(), expectedSize);
+                if (seen[id]) {
+                    byId[id] = null;
+                    continue;
                 }
+                seen[id] = true;
+                AiAnalysisResponse response = packedItem.toResponse(name);
+                validateResponse(response);
+                byId[id] = response;
+            } catch (IOException | InvalidAiResponseException ex) {
+                LOGGER.debug("OpenAI packed item rejected", ex);
             }
         }
+        return byId;
+    }
+
+    private int parsePackedId(String rawId, int expectedSize) {
+        try {
+            int id = Integer.parseInt(rawId == null ? "" : rawId.trim());
+            if (id < 0 || id >= expectedSize) {
+                throw new InvalidAiResponseException(MSG_AI_INVALID);
+            }
+            return id;
+        } catch (NumberFormatException ex) {
+            throw new InvalidAiResponseException(MSG_AI_INVALID, ex);
+        }
+    }
+
+    private byte[] encodePackedRequest(List<String> pack) {
+        try {
+            return codec.encodePackedRequest(pack);
+        } catch (IOException ex) {
+            throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
+        }
+    }
 
-        return null;
+    private int estimateTokens(String text) {
+        return TokenEstimator.estimate(text);
     }
 
     private void validateResponse(AiAnalysisResponse response) {
@@ -190,6 +722,50 @@ public class OpenAiClient implements AiClient {
         if (responseBody == null || responseBody.isBlank()) {
             return false;
         }
+        try {
+            JsonNode error = objectMapper.readTree(responseBody).path("error");
+            if (error.isObject()) {
+                return QUOTA_CODE.equals(error.path("code").asText()) || QUOTA_CODE.equals(error.path("type").asText());
+            }
+        } catch (IOException ex) {
+            LOGGER.debug("OpenAI error body is not JSON", ex);
+        }
         return responseBody.contains(QUOTA_CODE);
     }
+
+    @FunctionalInterface
+    private interface Exchange<T> {
+        T execute(Attempt attempt);
+    }
+
+    private static final class Attempt {
+        private final OpenAiRateLimiter.Permit permit;
+        private HttpHeaders headers;
+        private HttpHeaders errorHeaders;
+        private OpenAiRateLimiter.Outcome outcome;
+        private boolean streamed;
+
+        private Attempt(OpenAiRateLimiter.Permit permit) {
+            this.permit = permit;
+        }
+
+        private void responded(HttpHeaders responseHeaders) {
+            this.headers = responseHeaders;
+        }
+    }
+
+    private record UsageMeters(DistributionSummary input, DistributionSummary output, DistributionSummary cachedInput) {
+    }
+
+    private record PackedItem(
+            String id,
+            String category,
+            double confidence,
+            String reason,
+            String suggestedReply
+    ) {
+        AiAnalysisResponse toResponse(String answeredBy) {
+            return new AiAnalysisResponse(category, confidence, reason, suggestedReply, answeredBy);
+        }
+    }
 }
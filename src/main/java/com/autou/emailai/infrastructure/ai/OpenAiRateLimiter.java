@@ -0,0 +1,326 @@
+package com.autou.emailai.infrastructure.ai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class OpenAiRateLimiter {
+
+    private static final String HEADER_REMAINING_REQUESTS = "x-ratelimit-remaining-requests";
+    private static final String HEADER_REMAINING_TOKENS = "x-ratelimit-remaining-tokens";
+    private static final String HEADER_RESET_REQUESTS = "x-ratelimit-reset-requests";
+    private static final String HEADER_RESET_TOKENS = "x-ratelimit-reset-tokens";
+    private static final Pattern RESET_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final double DECREASE_RATIO = 0.5;
+
+    public enum Outcome {
+        SUCCESS,
+        THROTTLED,
+        FAILED,
+        NEUTRAL
+    }
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition changed = lock.newCondition();
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final long requestsPerMinute;
+    private final long tokensPerMinute;
+    private final long maxQueueWaitNanos;
+
+    private double limit;
+    private long decreases;
+    private int inFlight;
+    private long windowStart = System.nanoTime();
+    private long windowRequests;
+    private long windowTokens;
+    private long remainingRequests = -1;
+    private long remainingTokens = -1;
+    private long requestsResetAt;
+    private long tokensResetAt;
+    private final ArrayDeque<AsyncWaiter> asyncWaiters = new ArrayDeque<>();
+    private boolean recheckPending;
+    private long recheckAt;
+    private long recheckGeneration;
+
+    public OpenAiRateLimiter(
+            @Value("${openai.limiter.initial-concurrency:8}") int initialConcurrency,
+            @Value("${openai.limiter.min-concurrency:1}") int minConcurrency,
+            @Value("${openai.limiter.max-concurrency:64}") int maxConcurrency,
+            @Value("${openai.limiter.requests-per-minute:0}") long requestsPerMinute,
+            @Value("${openai.limiter.tokens-per-minute:0}") long tokensPerMinute,
+            @Value("${openai.limiter.max-queue-wait:PT30S}") Duration maxQueueWait
+    ) {
+        this.minLimit = Math.max(1, minConcurrency);
+        this.maxLimit = Math.max(this.minLimit, maxConcurrency);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialConcurrency));
+        this.requestsPerMinute = requestsPerMinute;
+        this.tokensPerMinute = tokensPerMinute;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+    }
+
+    /**
+     * Waits for a permit, or returns null after {@code max-queue-wait}. Async
+     * callers already queued go first.
+     */
+    public Permit acquire(int estimatedTokens) throws InterruptedException {
+        long deadline = System.nanoTime() + maxQueueWaitNanos;
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                rollWindow(now);
+                long waitNanos = asyncWaiters.isEmpty() ? admissionDelay(now, estimatedTokens) : WINDOW_NANOS;
+                if (waitNanos == 0) {
+                    return admit(estimatedTokens);
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    return null;
+                }
+                changed.awaitNanos(Math.min(waitNanos, remaining));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Non-blocking {@link #acquire(int)}: the future completes with the permit
+     * once admitted, or null after {@code max-queue-wait}. Waiters are admitted
+     * in arrival order when a permit is released or a window resets, so no
+     * thread is parked while queued.
+     */
+    public CompletableFuture<Permit> acquireAsync(int estimatedTokens) {
+        CompletableFuture<Permit> admitted = new CompletableFuture<>();
+        lock.lock();
+        try {
+            asyncWaiters.add(new AsyncWaiter(estimatedTokens, System.nanoTime() + maxQueueWaitNanos, admitted));
+        } finally {
+            lock.unlock();
+        }
+        drainAsyncWaiters(-1);
+        return admitted;
+    }
+
+    /**
+     * Returns a permit. A throttled or failed call halves the limit only if
+     * it was admitted after the last decrease: the calls already in flight
+     * then were sent under the old limit, so a burst of their failures counts
+     * as one signal.
+     */
+    public void release(Permit permit, Outcome outcome, HttpHeaders headers) {
+        lock.lock();
+        try {
+            inFlight--;
+            switch (outcome) {
+                case SUCCESS -> limit = Math.min(maxLimit, limit + 1.0 / limit);
+                case THROTTLED, FAILED -> {
+                    if (permit.decreases() == decreases) {
+                        limit = Math.max(minLimit, limit * DECREASE_RATIO);
+                        decreases++;
+                    }
+                }
+                case NEUTRAL -> {
+                }
+            }
+            if (headers != null) {
+                updateFromHeaders(headers, System.nanoTime());
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        drainAsyncWaiters(-1);
+    }
+
+    public LimiterStats stats() {
+        lock.lock();
+        try {
+            return new LimiterStats(limit, inFlight, remainingRequests, remainingTokens);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drainAsyncWaiters(long generation) {
+        List<Admission> admitted = new ArrayList<>();
+        List<CompletableFuture<Permit>> expired = new ArrayList<>();
+        long recheckIn = 0;
+        long scheduledGeneration = 0;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (generation == recheckGeneration) {
+                recheckPending = false;
+            }
+            rollWindow(now);
+            while (!asyncWaiters.isEmpty()) {
+                AsyncWaiter head = asyncWaiters.peek();
+                long remaining = head.deadline() - now;
+                if (remaining <= 0) {
+                    asyncWaiters.poll();
+                    expired.add(head.admitted());
+                    continue;
+                }
+                long waitNanos = admissionDelay(now, head.estimatedTokens());
+                if (waitNanos > 0) {
+                    // Releases drain the queue too; the timer only covers window resets and deadlines.
+                    long at = now + Math.min(waitNanos, remaining);
+                    if (!recheckPending || at - recheckAt < 0) {
+                        recheckPending = true;
+                        recheckAt = at;
+                        scheduledGeneration = ++recheckGeneration;
+                        recheckIn = at - now;
+                    }
+                    break;
+                }
+                asyncWaiters.poll();
+                admitted.add(new Admission(head.admitted(), admit(head.estimatedTokens())));
+            }
+            if (asyncWaiters.isEmpty() && (!admitted.isEmpty() || !expired.isEmpty())) {
+                // Synchronous callers step aside while the queue is non-empty.
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (recheckIn > 0) {
+            long recheck = scheduledGeneration;
+            CompletableFuture.delayedExecutor(recheckIn, TimeUnit.NANOSECONDS).execute(() -> drainAsyncWaiters(recheck));
+        }
+        for (CompletableFuture<Permit> waiter : expired) {
+            waiter.complete(null);
+        }
+        for (Admission admission : admitted) {
+            if (!admission.waiter().complete(admission.permit())) {
+                // Cancelled while queued: hand the permit back.
+                release(admission.permit(), Outcome.NEUTRAL, null);
+            }
+        }
+    }
+
+    private long admissionDelay(long now, int estimatedTokens) {
+        if (inFlight >= (int) Math.floor(limit)) {
+            return WINDOW_NANOS;
+        }
+        long windowWait = windowStart + WINDOW_NANOS - now;
+        if (requestsPerMinute > 0 && windowRequests + 1 > requestsPerMinute) {
+            return Math.max(1, windowWait);
+        }
+        if (tokensPerMinute > 0 && windowRequests > 0 && windowTokens + estimatedTokens > tokensPerMinute) {
+            return Math.max(1, windowWait);
+        }
+        if (remainingRequests == 0 && now - requestsResetAt < 0) {
+            return requestsResetAt - now;
+        }
+        if (remainingTokens >= 0 && remainingTokens < estimatedTokens && now - tokensResetAt < 0) {
+            return tokensResetAt - now;
+        }
+        return 0;
+    }
+
+    private Permit admit(int estimatedTokens) {
+        inFlight++;
+        windowRequests++;
+        windowTokens += estimatedTokens;
+        if (remainingRequests > 0) {
+            remainingRequests--;
+        }
+        if (remainingTokens > 0) {
+            remainingTokens = Math.max(0, remainingTokens - estimatedTokens);
+        }
+        return new Permit(decreases);
+    }
+
+    private void rollWindow(long now) {
+        if (now - windowStart >= WINDOW_NANOS) {
+            windowStart = now;
+            windowRequests = 0;
+            windowTokens = 0;
+        }
+        if (remainingRequests >= 0 && now - requestsResetAt >= 0) {
+            remainingRequests = -1;
+        }
+        if (remainingTokens >= 0 && now - tokensResetAt >= 0) {
+            remainingTokens = -1;
+        }
+    }
+
+    private void updateFromHeaders(HttpHeaders headers, long now) {
+        long requests = parseLong(headers.getFirst(HEADER_REMAINING_REQUESTS));
+        long tokens = parseLong(headers.getFirst(HEADER_REMAINING_TOKENS));
+        Duration requestsReset = parseReset(headers.getFirst(HEADER_RESET_REQUESTS));
+        Duration tokensReset = parseReset(headers.getFirst(HEADER_RESET_TOKENS));
+
+        if (requests >= 0 && requestsReset != null) {
+            remainingRequests = requests;
+            requestsResetAt = now + requestsReset.toNanos();
+        }
+        if (tokens >= 0 && tokensReset != null) {
+            remainingTokens = tokens;
+            tokensResetAt = now + tokensReset.toNanos();
+        }
+    }
+
+    private long parseLong(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static Duration parseReset(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Matcher matcher = RESET_PART.matcher(value.trim());
+        double millis = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "ms" -> amount;
+                case "s" -> amount * 1_000;
+                case "m" -> amount * 60_000;
+                default -> amount * 3_600_000;
+            };
+        }
+        return matched ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+    }
+
+    /**
+     * An admitted call. Remembers how many times the limit had been lowered
+     * when it was admitted.
+     */
+    public record Permit(long decreases) {
+    }
+
+    private record AsyncWaiter(int estimatedTokens, long deadline, CompletableFuture<Permit> admitted) {
+    }
+
+    private record Admission(CompletableFuture<Permit> waiter, Permit permit) {
+    }
+
+    public record LimiterStats(double limit, int inFlight, long remainingRequests, long remainingTokens) {
+    }
+}
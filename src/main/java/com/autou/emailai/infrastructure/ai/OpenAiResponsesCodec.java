@@ -0,0 +1,593 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.support.ContentHash;
+import com.autou.emailai.support.TokenEstimator;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Requests are laid out for provider-side prompt caching: everything that
+ * does not depend on the email (instructions, few-shot examples, output
+ * schema) comes first and is serialized once, in a fixed key order, so the
+ * prefix is byte-identical across requests, restarts and replicas. Only the
+ * last user message varies.
+ */
+public class OpenAiResponsesCodec {
+
+    public static final String PROMPT_CACHE_KEY_AUTO = "auto";
+
+    private static final String INSTRUCTIONS_RESOURCE = "prompts/email-analysis-instructions.txt";
+    private static final String EXAMPLES_RESOURCE = "prompts/email-analysis-examples.json";
+    private static final String OUTPUT_SINGLE = """
+
+            Formato de saida: um objeto JSON com category, confidence (0 a 1), reason e suggestedReply.
+            """;
+    private static final String OUTPUT_PACKED = """
+
+            Formato de saida: voce recebera uma lista JSON de emails, cada um com id e text.
+            Retorne um objeto JSON com items: um objeto por email, com o mesmo id, contendo
+            id, category, confidence (0 a 1), reason e suggestedReply.
+            """;
+    private static final String USER_TEXT_PLACEHOLDER = "__USER_TEXT_PLACEHOLDER__";
+    private static final int CACHE_KEY_HASH_CHARS = 16;
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final JsonFactory jsonFactory;
+    private final RequestTemplate singleTemplate;
+    private final RequestTemplate packedTemplate;
+    private final RequestTemplate streamingTemplate;
+    private final int promptTokens;
+    private final int packedPromptTokens;
+
+    /**
+     * @param promptCacheKey sent as prompt_cache_key: {@link #PROMPT_CACHE_KEY_AUTO}
+     *                       derives it from the prefix, blank omits it
+     */
+    public OpenAiResponsesCodec(ObjectMapper objectMapper, String model, String promptCacheKey) {
+        this.jsonFactory = objectMapper.getFactory();
+        String instructions = loadInstructions();
+        List<Example> examples = loadExamples(objectMapper);
+
+        Map<String, Object> single = buildPayload(model, instructions + OUTPUT_SINGLE,
+                singleExamples(objectMapper, examples), "email_analysis", singleSchema());
+        Map<String, Object> packed = buildPayload(model, instructions + OUTPUT_PACKED,
+                packedExamples(objectMapper, examples), "email_analysis_batch", packedSchema());
+        putCacheKey(objectMapper, single, "email-analysis", promptCacheKey);
+        putCacheKey(objectMapper, packed, "email-analysis-batch", promptCacheKey);
+
+        this.singleTemplate = RequestTemplate.of(objectMapper, single);
+        this.packedTemplate = RequestTemplate.of(objectMapper, packed);
+        // Same prefix and key as the blocking request: streamed and plain calls share the cache.
+        Map<String, Object> streaming = new LinkedHashMap<>(single);
+        streaming.put("stream", true);
+        this.streamingTemplate = RequestTemplate.of(objectMapper, streaming);
+        this.promptTokens = estimatePromptTokens(objectMapper, single);
+        this.packedPromptTokens = estimatePromptTokens(objectMapper, packed);
+    }
+
+    /**
+     * Estimated tokens of a single request without the email, for the
+     * limiter; cached tokens still count towards the provider's rate limits.
+     */
+    public int promptTokens() {
+        return promptTokens;
+    }
+
+    public int packedPromptTokens() {
+        return packedPromptTokens;
+    }
+
+    public byte[] encodeRequest(String cleanedEmailText) {
+        return singleTemplate.render(cleanedEmailText);
+    }
+
+    public byte[] encodeStreamingRequest(String cleanedEmailText) {
+        return streamingTemplate.render(cleanedEmailText);
+    }
+
+    public byte[] encodePackedRequest(List<String> pack) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * pack.size());
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartArray();
+            for (int i = 0; i < pack.size(); i++) {
+                generator.writeStartObject();
+                generator.writeStringField("id", String.valueOf(i));
+                generator.writeStringField("text", pack.get(i));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        return packedTemplate.render(out.toString(StandardCharsets.UTF_8));
+    }
+
+    public DecodedResponse decodeResponse(byte[] responseBody) throws IOException {
+        if (responseBody == null || responseBody.length == 0) {
+            return new DecodedResponse(null, null);
+        }
+
+        String outputText = null;
+        String firstContentText = null;
+        OpenAiUsage usage = null;
+        String model = null;
+        try (JsonParser parser = jsonFactory.createParser(responseBody)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new DecodedResponse(null, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("output_text".equals(field)) {
+                    outputText = readOutputText(parser, value);
+                } else if ("output".equals(field) && value == JsonToken.START_ARRAY) {
+                    String text = readFirstContentText(parser);
+                    if (firstContentText == null) {
+                        firstContentText = text;
+                    }
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    usage = readUsage(parser);
+                } else if ("model".equals(field) && value == JsonToken.VALUE_STRING) {
+                    model = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new DecodedResponse((outputText != null) ? outputText : firstContentText, withModel(usage, model));
+    }
+
+    public AiAnalysisResponse decodeAnalysis(String outputText) throws IOException {
+        String category = null;
+        double confidence = 0;
+        String reason = null;
+        String suggestedReply = null;
+
+        try (JsonParser parser = jsonFactory.createParser(outputText)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Resposta da IA nao e um objeto JSON.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "category" -> category = textOrNull(parser, value);
+                    case "confidence" -> confidence = readNumber(parser, value);
+                    case "reason" -> reason = textOrNull(parser, value);
+                    case "suggestedReply" -> suggestedReply = textOrNull(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new AiAnalysisResponse(category, confidence, reason, suggestedReply, null);
+    }
+
+    public StreamEvent decodeStreamEvent(String data) throws IOException {
+        String type = null;
+        String delta = null;
+        String errorMessage = null;
+        OpenAiUsage usage = null;
+        String model = null;
+
+        try (JsonParser parser = jsonFactory.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Evento de streaming invalido.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(field)) {
+                    type = textOrNull(parser, value);
+                } else if ("delta".equals(field) && value == JsonToken.VALUE_STRING) {
+                    delta = parser.getText();
+                } else if ("message".equals(field) && value == JsonToken.VALUE_STRING) {
+                    errorMessage = parser.getText();
+                } else if ("error".equals(field) && value == JsonToken.START_OBJECT) {
+                    errorMessage = readErrorMessage(parser);
+                } else if ("response".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String responseField = parser.currentName();
+                        JsonToken responseValue = parser.nextToken();
+                        if ("usage".equals(responseField) && responseValue == JsonToken.START_OBJECT) {
+                            usage = readUsage(parser);
+                        } else if ("model".equals(responseField) && responseValue == JsonToken.VALUE_STRING) {
+                            model = parser.getText();
+                        } else if ("error".equals(responseField) && responseValue == JsonToken.START_OBJECT) {
+                            errorMessage = readErrorMessage(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new StreamEvent(type, delta, withModel(usage, model), errorMessage);
+    }
+
+    private static OpenAiUsage withModel(OpenAiUsage usage, String model) {
+        return (usage == null || model == null) ? usage
+                : new OpenAiUsage(model, usage.inputTokens(), usage.outputTokens(), usage.cachedInputTokens());
+    }
+
+    private String readErrorMessage(JsonParser parser) throws IOException {
+        String message = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("message".equals(field) && value == JsonToken.VALUE_STRING) {
+                message = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return message;
+    }
+
+    private String readOutputText(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (value == JsonToken.START_ARRAY) {
+            String first = null;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (first == null && parser.currentToken().isScalarValue()) {
+                    first = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return first;
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private OpenAiUsage readUsage(JsonParser parser) throws IOException {
+        long inputTokens = 0;
+        long outputTokens = 0;
+        long cachedTokens = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("input_tokens".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                inputTokens = parser.getLongValue();
+            } else if ("output_tokens".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                outputTokens = parser.getLongValue();
+            } else if ("input_tokens_details".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String detail = parser.currentName();
+                    JsonToken detailValue = parser.nextToken();
+                    if ("cached_tokens".equals(detail) && detailValue == JsonToken.VALUE_NUMBER_INT) {
+                        cachedTokens = parser.getLongValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new OpenAiUsage(null, inputTokens, outputTokens, cachedTokens);
+    }
+
+    private String readFirstContentText(JsonParser parser) throws IOException {
+        String found = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("content".equals(field) && value == JsonToken.START_ARRAY) {
+                    String text = readContentText(parser);
+                    if (found == null) {
+                        found = text;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return found;
+    }
+
+    private String readContentText(JsonParser parser) throws IOException {
+        String found = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (found == null && "text".equals(field) && value == JsonToken.VALUE_STRING) {
+                    found = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return found;
+    }
+
+    private String textOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        throw new JsonParseException(parser, "Campo textual invalido na resposta da IA.");
+    }
+
+    private double readNumber(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException ex) {
+                throw new JsonParseException(parser, "Confianca invalida na resposta da IA.");
+            }
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+        throw new JsonParseException(parser, "Confianca invalida na resposta da IA.");
+    }
+
+    private static Map<String, Object> singleSchema() {
+        return ordered(
+                "type", "object",
+                "additionalProperties", false,
+                "properties", analysisProperties(),
+                "required", List.of("category", "confidence", "reason", "suggestedReply")
+        );
+    }
+
+    /**
+     * Insertion-ordered on purpose: strict structured output follows this
+     * order, so category and confidence are complete before suggestedReply
+     * starts streaming.
+     */
+    private static Map<String, Object> analysisProperties() {
+        return ordered(
+                "category", ordered("type", "string", "enum", List.of("PRODUTIVO", "IMPRODUTIVO")),
+                "confidence", ordered("type", "number", "minimum", 0, "maximum", 1),
+                "reason", ordered("type", "string"),
+                "suggestedReply", ordered("type", "string")
+        );
+    }
+
+    private static Map<String, Object> packedSchema() {
+        Map<String, Object> itemProperties = ordered("id", ordered("type", "string"));
+        itemProperties.putAll(analysisProperties());
+        Map<String, Object> itemSchema = ordered(
+                "type", "object",
+                "additionalProperties", false,
+                "properties", itemProperties,
+                "required", List.of("id", "category", "confidence", "reason", "suggestedReply")
+        );
+
+        return ordered(
+                "type", "object",
+                "additionalProperties", false,
+                "properties", ordered("items", ordered("type", "array", "items", itemSchema)),
+                "required", List.of("items")
+        );
+    }
+
+    private static Map<String, Object> buildPayload(String model, String systemPrompt, List<Map<String, Object>> examples,
+                                                    String schemaName, Map<String, Object> schema) {
+        Map<String, Object> textFormat = ordered(
+                "format", ordered(
+                        "type", "json_schema",
+                        "strict", true,
+                        "name", schemaName,
+                        "schema", schema
+                )
+        );
+
+        List<Map<String, Object>> input = new ArrayList<>(examples.size() + 2);
+        input.add(message("system", "input_text", systemPrompt));
+        input.addAll(examples);
+        input.add(message("user", "input_text", USER_TEXT_PLACEHOLDER));
+
+        return ordered(
+                "model", model,
+                "input", input,
+                "text", textFormat,
+                "temperature", 0.2
+        );
+    }
+
+    private static List<Map<String, Object>> singleExamples(ObjectMapper objectMapper, List<Example> examples) {
+        List<Map<String, Object>> messages = new ArrayList<>(examples.size() * 2);
+        for (Example example : examples) {
+            messages.add(message("user", "input_text", example.text()));
+            messages.add(message("assistant", "output_text", toJson(objectMapper, example.answer(null))));
+        }
+        return messages;
+    }
+
+    private static List<Map<String, Object>> packedExamples(ObjectMapper objectMapper, List<Example> examples) {
+        List<Map<String, Object>> emails = new ArrayList<>(examples.size());
+        List<Map<String, Object>> items = new ArrayList<>(examples.size());
+        for (int i = 0; i < examples.size(); i++) {
+            emails.add(ordered("id", String.valueOf(i), "text", examples.get(i).text()));
+            items.add(examples.get(i).answer(String.valueOf(i)));
+        }
+        return List.of(
+                message("user", "input_text", toJson(objectMapper, emails)),
+                message("assistant", "output_text", toJson(objectMapper, ordered("items", items)))
+        );
+    }
+
+    private static Map<String, Object> message(String role, String contentType, String text) {
+        return ordered(
+                "role", role,
+                "content", List.of(ordered("type", contentType, "text", text))
+        );
+    }
+
+    /**
+     * The key routes requests with the same prefix to the same cache, so it
+     * is derived from the prefix itself (model, prompt, examples, schema)
+     * rather than from the request: a new prompt gets a new key.
+     */
+    private static void putCacheKey(ObjectMapper objectMapper, Map<String, Object> payload, String name, String promptCacheKey) {
+        if (promptCacheKey == null || promptCacheKey.isBlank()) {
+            return;
+        }
+        if (!PROMPT_CACHE_KEY_AUTO.equals(promptCacheKey)) {
+            payload.put("prompt_cache_key", promptCacheKey);
+            return;
+        }
+        String prefixHash = ContentHash.sha256(toJson(objectMapper, payload));
+        payload.put("prompt_cache_key", name + "-" + prefixHash.substring(0, CACHE_KEY_HASH_CHARS));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int estimatePromptTokens(ObjectMapper objectMapper, Map<String, Object> payload) {
+        int tokens = 0;
+        for (Map<String, Object> message : (List<Map<String, Object>>) payload.get("input")) {
+            tokens += MESSAGE_OVERHEAD_TOKENS;
+            for (Map<String, Object> content : (List<Map<String, Object>>) message.get("content")) {
+                String text = (String) content.get("text");
+                if (!USER_TEXT_PLACEHOLDER.equals(text)) {
+                    tokens += TokenEstimator.estimate(text);
+                }
+            }
+        }
+        return tokens + TokenEstimator.estimate(toJson(objectMapper, payload.get("text")));
+    }
+
+    private static Map<String, Object> ordered(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static String toJson(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Falha ao serializar template da requisicao.", ex);
+        }
+    }
+
+    private static String loadInstructions() {
+        try (InputStream in = new ClassPathResource(INSTRUCTIONS_RESOURCE).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).strip();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Falha ao carregar " + INSTRUCTIONS_RESOURCE, ex);
+        }
+    }
+
+    private static List<Example> loadExamples(ObjectMapper objectMapper) {
+        JsonNode root;
+        try (InputStream in = new ClassPathResource(EXAMPLES_RESOURCE).getInputStream()) {
+            root = objectMapper.readTree(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Falha ao carregar " + EXAMPLES_RESOURCE, ex);
+        }
+        List<Example> examples = new ArrayList<>(root.size());
+        for (JsonNode node : root) {
+            examples.add(new Example(
+                    node.path("text").asText(),
+                    node.path("category").asText(),
+                    node.path("confidence").asDouble(),
+                    node.path("reason").asText(),
+                    node.path("suggestedReply").asText()
+            ));
+        }
+        return examples;
+    }
+
+    private record Example(String text, String category, double confidence, String reason, String suggestedReply) {
+
+        Map<String, Object> answer(String id) {
+            Map<String, Object> answer = (id != null) ? ordered("id", id) : new LinkedHashMap<>();
+            answer.put("category", category);
+            answer.put("confidence", confidence);
+            answer.put("reason", reason);
+            answer.put("suggestedReply", suggestedReply);
+            return answer;
+        }
+    }
+
+    public record DecodedResponse(String outputText, OpenAiUsage usage) {
+    }
+
+    public record StreamEvent(String type, String delta, OpenAiUsage usage, String errorMessage) {
+    }
+
+    private record RequestTemplate(byte[] prefix, byte[] suffix) {
+
+        static RequestTemplate of(ObjectMapper objectMapper, Map<String, Object> payload) {
+            byte[] serialized;
+            try {
+                serialized = objectMapper.writeValueAsBytes(payload);
+            } catch (JsonProcessingException ex) {
+                throw new IllegalStateException("Falha ao serializar template da requisicao.", ex);
+            }
+            byte[] marker = USER_TEXT_PLACEHOLDER.getBytes(StandardCharsets.UTF_8);
+            int at = indexOf(serialized, marker);
+            if (at < 0) {
+                throw new IllegalStateException("Template da requisicao sem marcador de texto.");
+            }
+            return new RequestTemplate(
+                    Arrays.copyOfRange(serialized, 0, at),
+                    Arrays.copyOfRange(serialized, at + marker.length, serialized.length)
+            );
+        }
+
+        byte[] render(String userText) {
+            byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(userText);
+            byte[] body = new byte[prefix.length + escaped.length + suffix.length];
+            System.arraycopy(prefix, 0, body, 0, prefix.length);
+            System.arraycopy(escaped, 0, body, prefix.length, escaped.length);
+            System.arraycopy(suffix, 0, body, prefix.length + escaped.length, suffix.length);
+            return body;
+        }
+
+        private static int indexOf(byte[] haystack, byte[] needle) {
+            outer:
+            for (int i = 0; i <= haystack.length - needle.length; i++) {
+                for (int j = 0; j < needle.length; j++) {
+                    if (haystack[i + j] != needle[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+}
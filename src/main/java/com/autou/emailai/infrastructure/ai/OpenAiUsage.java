@@ -0,0 +1,8 @@
+package com.autou.emailai.infrastructure.ai;
+
+/**
+ * The usage block of a response; model is the snapshot that answered, when
+ * the provider reports it.
+ */
+public record OpenAiUsage(String model, long inputTokens, long outputTokens, long cachedInputTokens) {
+}
@@ -0,0 +1,484 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.exception.AiBusyException;
+import com.autou.emailai.application.exception.AiNotConfiguredException;
+import com.autou.emailai.application.exception.AiQuotaException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.AiStreamListener;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Routes calls across several AiClient backends. Each call picks a backend by
+ * weight; failed calls fail over to the others. Single analyses are also
+ * hedged: if the chosen backend has not answered within its own latency
+ * percentile, the request goes to the next backend too and the first valid
+ * answer wins, cancelling the other.
+ */
+public class RoutingAiClient implements AiClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoutingAiClient.class);
+    private static final String MSG_AI_FAILURE = "Falha ao consultar a IA. Tente novamente.";
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final List<Route> routes;
+    private final Settings settings;
+    private final ExecutorService executor;
+
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+
+    public RoutingAiClient(List<Backend> backends, Settings settings, ExecutorService executor) {
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um backend de IA.");
+        }
+        this.routes = backends.stream().map(Route::new).toList();
+        this.settings = settings;
+        this.executor = executor;
+    }
+
+    @Override
+    public AiAnalysisResponse analyze(String cleanedEmailText) {
+        List<Route> order = order();
+        if (order.size() == 1 || settings.maxHedges() <= 0) {
+            return failover(order, client -> client.analyze(cleanedEmailText));
+        }
+        return race(order, cleanedEmailText);
+    }
+
+    @Override
+    public CompletableFuture<AiAnalysisResponse> analyzeAsync(String cleanedEmailText) {
+        List<Route> order = order();
+        AsyncRace race = new AsyncRace(order, cleanedEmailText, (order.size() == 1) ? 0 : settings.maxHedges());
+        race.start();
+        return race.result;
+    }
+
+    @Override
+    public List<AiAnalysisResponse> analyzeAll(List<String> cleanedEmailTexts) {
+        return failover(order(), client -> client.analyzeAll(cleanedEmailTexts));
+    }
+
+    @Override
+    public AiAnalysisResponse analyzeStreaming(String cleanedEmailText, AiStreamListener listener) {
+        StartedListener started = new StartedListener(listener);
+        // Once the user has seen part of a reply, another backend would start over.
+        return failover(order(), client -> client.analyzeStreaming(cleanedEmailText, started), () -> started.emitted);
+    }
+
+    /**
+     * Every backend and model this router may answer with, in configuration
+     * order. Any of them can serve a given call, so a cache above the router
+     * keys on the whole set.
+     */
+    public List<String> backendModels() {
+        return routes.stream().map(route -> route.backend.name() + "=" + route.backend.model()).toList();
+    }
+
+    public RouterStats stats() {
+        Map<String, BackendStats> backends = new LinkedHashMap<>();
+        for (Route route : routes) {
+            backends.put(route.backend.name(), new BackendStats(route.answers.get(), route.latency.percentileMillis(0.5),
+                    route.latency.percentileMillis(settings.hedgePercentile())));
+        }
+        return new RouterStats(hedges.get(), failovers.get(), backends);
+    }
+
+    private List<Route> order() {
+        if (routes.size() == 1) {
+            return routes;
+        }
+        // Weighted shuffle (Efraimidis-Spirakis); weight 0 keeps a backend for failover only.
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double[] keys = new double[routes.size()];
+        Integer[] indexes = new Integer[routes.size()];
+        for (int i = 0; i < keys.length; i++) {
+            int weight = routes.get(i).backend.weight();
+            keys[i] = (weight > 0) ? -Math.log(1.0 - random.nextDouble()) / weight : Double.POSITIVE_INFINITY;
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, Comparator.comparingDouble(i -> keys[i]));
+        List<Route> order = new ArrayList<>(keys.length);
+        for (Integer index : indexes) {
+            order.add(routes.get(index));
+        }
+        return order;
+    }
+
+    private <T> T failover(List<Route> order, Function<AiClient, T> call) {
+        return failover(order, call, () -> false);
+    }
+
+    private <T> T failover(List<Route> order, Function<AiClient, T> call, BooleanSupplier committed) {
+        RuntimeException last = null;
+        for (int i = 0; i < order.size(); i++) {
+            Route route = order.get(i);
+            if (i > 0) {
+                failovers.incrementAndGet();
+                LOGGER.warn("AI backend failed, failing over to {}", route.backend.name());
+            }
+            long start = System.nanoTime();
+            try {
+                T result = call.apply(route.backend.client());
+                route.answered(System.nanoTime() - start);
+                return result;
+            } catch (AiRequestFailedException | InvalidAiResponseException | AiQuotaException | AiNotConfiguredException ex) {
+                if (committed.getAsBoolean()) {
+                    throw ex;
+                }
+                last = worse(last, ex);
+            }
+        }
+        throw last;
+    }
+
+    private AiAnalysisResponse race(List<Route> order, String cleanedEmailText) {
+        CompletionService<AiAnalysisResponse> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<AiAnalysisResponse>, UpstreamClock> launched = new LinkedHashMap<>();
+        long hedgeDelay = order.get(0).hedgeDelayNanos();
+        int hedgesLeft = settings.maxHedges();
+        int next = 0;
+        int pending = 0;
+        RuntimeException last = null;
+
+        UpstreamClock clock = UpstreamClock.current();
+        launch(completion, launched, order.get(next++), cleanedEmailText, clock);
+        pending++;
+        try {
+            while (pending > 0) {
+                boolean mayHedge = hedgesLeft > 0 && next < order.size();
+                Future<AiAnalysisResponse> done = mayHedge ? completion.poll(hedgeDelay, TimeUnit.NANOSECONDS) : completion.take();
+                if (done == null) {
+                    hedgesLeft--;
+                    hedges.incrementAndGet();
+                    LOGGER.debug("AI backend slower than {} ms, hedging to {}", TimeUnit.NANOSECONDS.toMillis(hedgeDelay),
+                            order.get(next).backend.name());
+                    launch(completion, launched, order.get(next++), cleanedEmailText, clock);
+                    pending++;
+                    continue;
+                }
+                pending--;
+                try {
+                    AiAnalysisResponse response = done.get();
+                    UpstreamClock.addFrom(clock, launched.get(done));
+                    return response;
+                } catch (ExecutionException ex) {
+                    last = worse(last, failoverCause(ex));
+                    if (next < order.size()) {
+                        failovers.incrementAndGet();
+                        LOGGER.warn("AI backend failed, failing over to {}", order.get(next).backend.name());
+                        launch(completion, launched, order.get(next++), cleanedEmailText, clock);
+                        pending++;
+                    }
+                }
+            }
+            UpstreamClock.addSlowest(clock, launched.values());
+            throw last;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AiRequestFailedException(MSG_AI_FAILURE, ex);
+        } finally {
+            for (Future<AiAnalysisResponse> future : launched.keySet()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Starts one racing call on a clock of its own, so a hedge that loses
+     * does not add its time to the caller's.
+     */
+    private static void launch(CompletionService<AiAnalysisResponse> completion,
+                               Map<Future<AiAnalysisResponse>, UpstreamClock> launched,
+                               Route route, String cleanedEmailText, UpstreamClock parent) {
+        UpstreamClock clock = UpstreamClock.fork(parent);
+        launched.put(completion.submit(() -> {
+            long start = System.nanoTime();
+            AiAnalysisResponse response = UpstreamClock.runWith(clock, () -> route.backend.client().analyze(cleanedEmailText));
+            route.answered(System.nanoTime() - start);
+            return response;
+        }), clock);
+    }
+
+    /**
+     * The error to report once every backend failed. A backend that never got
+     * the request because its local limiter was full says less than one that
+     * actually failed, and would hide that failure from the circuit breaker.
+     */
+    private static RuntimeException worse(RuntimeException last, RuntimeException next) {
+        return (last != null && next instanceof AiBusyException) ? last : next;
+    }
+
+    private static RuntimeException failoverCause(ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof AiRequestFailedException || cause instanceof InvalidAiResponseException
+                || cause instanceof AiQuotaException || cause instanceof AiNotConfiguredException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        throw new AiRequestFailedException(MSG_AI_FAILURE, cause);
+    }
+
+    /**
+     * Same rules as {@link #race}, driven by completions instead of a waiting
+     * thread: the hedge fires from a timer and failovers start from the
+     * callback of the failed call.
+     */
+    private final class AsyncRace {
+
+        private final List<Route> order;
+        private final String text;
+        private final long hedgeDelay;
+        private final UpstreamClock clock = UpstreamClock.current();
+        private final CompletableFuture<AiAnalysisResponse> result = new CompletableFuture<>();
+        private final List<CompletableFuture<AiAnalysisResponse>> launched;
+        private final List<UpstreamClock> clocks;
+        private final AtomicBoolean won = new AtomicBoolean();
+        private final ReentrantLock lock = new ReentrantLock();
+        private int hedgesLeft;
+        private int next;
+        private int pending;
+        private RuntimeException last;
+
+        private AsyncRace(List<Route> order, String text, int maxHedges) {
+            this.order = order;
+            this.text = text;
+            this.hedgeDelay = order.get(0).hedgeDelayNanos();
+            this.launched = new ArrayList<>(order.size());
+            this.clocks = new ArrayList<>(order.size());
+            this.hedgesLeft = maxHedges;
+        }
+
+        private void start() {
+            lock.lock();
+            try {
+                launch();
+            } finally {
+                lock.unlock();
+            }
+            result.whenComplete((response, error) -> cancelAll());
+            scheduleHedge();
+        }
+
+        private void launch() {
+            Route route = order.get(next++);
+            pending++;
+            long start = System.nanoTime();
+            UpstreamClock callClock = UpstreamClock.fork(clock);
+            clocks.add(callClock);
+            CompletableFuture<AiAnalysisResponse> call;
+            try {
+                call = UpstreamClock.runWith(callClock, () -> route.backend.client().analyzeAsync(text));
+            } catch (RuntimeException ex) {
+                call = CompletableFuture.failedFuture(ex);
+            }
+            launched.add(call);
+            call.whenComplete((response, error) -> completed(route, start, callClock, response, error));
+        }
+
+        private void scheduleHedge() {
+            if (hedgesLeft > 0 && next < order.size() && !result.isDone()) {
+                CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS, executor).execute(this::hedge);
+            }
+        }
+
+        private void hedge() {
+            lock.lock();
+            try {
+                if (result.isDone() || hedgesLeft <= 0 || next >= order.size()) {
+                    return;
+                }
+                hedgesLeft--;
+                hedges.incrementAndGet();
+                LOGGER.debug("AI backend slower than {} ms, hedging to {}", TimeUnit.NANOSECONDS.toMillis(hedgeDelay),
+                        order.get(next).backend.name());
+                launch();
+            } finally {
+                lock.unlock();
+            }
+            scheduleHedge();
+        }
+
+        private void completed(Route route, long start, UpstreamClock callClock, AiAnalysisResponse response, Throwable error) {
+            if (error == null) {
+                route.answered(System.nanoTime() - start);
+                if (won.compareAndSet(false, true)) {
+                    UpstreamClock.addFrom(clock, callClock);
+                    result.complete(response);
+                }
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+            if (!(cause instanceof AiRequestFailedException || cause instanceof InvalidAiResponseException
+                    || cause instanceof AiQuotaException || cause instanceof AiNotConfiguredException)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            RuntimeException exhausted = null;
+            lock.lock();
+            try {
+                pending--;
+                last = worse(last, (RuntimeException) cause);
+                if (next < order.size()) {
+                    failovers.incrementAndGet();
+                    LOGGER.warn("AI backend failed, failing over to {}", order.get(next).backend.name());
+                    launch();
+                } else if (pending == 0) {
+                    exhausted = last;
+                    UpstreamClock.addSlowest(clock, clocks);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (exhausted != null) {
+                result.completeExceptionally(exhausted);
+            }
+        }
+
+        private void cancelAll() {
+            List<CompletableFuture<AiAnalysisResponse>> calls;
+            lock.lock();
+            try {
+                calls = List.copyOf(launched);
+            } finally {
+                lock.unlock();
+            }
+            for (CompletableFuture<AiAnalysisResponse> call : calls) {
+                call.cancel(true);
+            }
+        }
+    }
+
+    private final class Route {
+
+        private final Backend backend;
+        private final LatencyTracker latency = new LatencyTracker();
+        private final AtomicLong answers = new AtomicLong();
+
+        private Route(Backend backend) {
+            this.backend = backend;
+        }
+
+        private void answered(long elapsedNanos) {
+            latency.record(elapsedNanos);
+            answers.incrementAndGet();
+        }
+
+        private long hedgeDelayNanos() {
+            long percentile = latency.percentileNanos(settings.hedgePercentile(), MIN_LATENCY_SAMPLES);
+            if (percentile < 0) {
+                return settings.hedgeInitialDelay().toNanos();
+            }
+            return Math.max(settings.hedgeMinDelay().toNanos(), percentile);
+        }
+    }
+
+    private static final class StartedListener implements AiStreamListener {
+
+        private final AiStreamListener delegate;
+        private volatile boolean emitted;
+
+        private StartedListener(AiStreamListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onClassification(String category, double confidence) {
+            emitted = true;
+            delegate.onClassification(category, confidence);
+        }
+
+        @Override
+        public void onReplyDelta(String delta) {
+            emitted = true;
+            delegate.onReplyDelta(delta);
+        }
+    }
+
+    private static final class LatencyTracker {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private int next;
+        private int count;
+
+        private void record(long nanos) {
+            lock.lock();
+            try {
+                samples[next] = nanos;
+                next = (next + 1) % samples.length;
+                count = Math.min(count + 1, samples.length);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long percentileNanos(double percentile, int minSamples) {
+            long[] sorted;
+            lock.lock();
+            try {
+                if (count < Math.max(1, minSamples)) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, count);
+            } finally {
+                lock.unlock();
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+        }
+
+        private double percentileMillis(double percentile) {
+            long nanos = percentileNanos(percentile, 1);
+            return (nanos < 0) ? 0 : nanos / 1_000_000.0;
+        }
+    }
+
+    public record Backend(String name, String model, AiClient client, int weight) {
+    }
+
+    public record Settings(int maxHedges, double hedgePercentile, Duration hedgeMinDelay, Duration hedgeInitialDelay) {
+    }
+
+    public record BackendStats(long answers, double latencyP50Millis, double latencyHedgeMillis) {
+    }
+
+    public record RouterStats(long hedges, long failovers, Map<String, BackendStats> backends) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.ports.out.AiStreamListener;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.fasterxml.jackson.core.JsonParseException;
+
+/**
+ * Incremental reader for the analysis object while the model is still writing
+ * it. Fed with output_text deltas, it reports category/confidence as soon as
+ * both values are complete and forwards suggestedReply as it is decoded; once
+ * the closing brace arrives, {@link #result()} returns the full response.
+ */
+final class StreamingAnalysisParser {
+
+    private static final String FIELD_CATEGORY = "category";
+    private static final String FIELD_CONFIDENCE = "confidence";
+    private static final String FIELD_REASON = "reason";
+    private static final String FIELD_REPLY = "suggestedReply";
+
+    private enum State { START, KEY_OR_END, KEY, COLON, VALUE, STRING, SCALAR, NESTED, AFTER_VALUE, DONE }
+
+    private final AiStreamListener listener;
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder value = new StringBuilder();
+    private final StringBuilder reply = new StringBuilder();
+
+    private State state = State.START;
+    private boolean inReply;
+    private int replyEmitted;
+    private boolean escape;
+    private int unicodeRemaining;
+    private int unicodeValue;
+    private int nestedDepth;
+    private boolean nestedInString;
+    private boolean nestedEscape;
+
+    private String category;
+    private Double confidence;
+    private String reason;
+    private boolean classified;
+
+    StreamingAnalysisParser(AiStreamListener listener) {
+        this.listener = listener;
+    }
+
+    void feed(CharSequence delta) throws JsonParseException {
+        for (int i = 0; i < delta.length(); i++) {
+            accept(delta.charAt(i));
+        }
+        flushReply();
+    }
+
+    AiAnalysisResponse result() throws JsonParseException {
+        if (state != State.DONE) {
+            throw error("Resposta da IA incompleta.");
+        }
+        return new AiAnalysisResponse(category, (confidence != null) ? confidence : 0, reason, reply.toString(), null);
+    }
+
+    private void accept(char c) throws JsonParseException {
+        switch (state) {
+            case START -> {
+                if (c == '{') {
+                    state = State.KEY_OR_END;
+                } else if (!isWhitespace(c)) {
+                    throw error("Resposta da IA nao e um objeto JSON.");
+                }
+            }
+            case KEY_OR_END -> {
+                if (c == '"') {
+                    key.setLength(0);
+                    state = State.KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                } else if (!isWhitespace(c)) {
+                    throw error("Campo esperado na resposta da IA.");
+                }
+            }
+            case KEY -> {
+                if (readStringChar(c, key)) {
+                    state = State.COLON;
+                }
+            }
+            case COLON -> {
+                if (c == ':') {
+                    state = State.VALUE;
+                } else if (!isWhitespace(c)) {
+                    throw error("Separador esperado na resposta da IA.");
+                }
+            }
+            case VALUE -> startValue(c);
+            case STRING -> {
+                if (readStringChar(c, inReply ? reply : value)) {
+                    completeValue(true);
+                }
+            }
+            case SCALAR -> {
+                if (c == ',' || c == '}' || isWhitespace(c)) {
+                    completeValue(false);
+                    accept(c);
+                } else {
+                    value.append(c);
+                }
+            }
+            case NESTED -> skipNested(c);
+            case AFTER_VALUE -> {
+                if (c == ',') {
+                    state = State.KEY_OR_END;
+                } else if (c == '}') {
+                    state = State.DONE;
+                } else if (!isWhitespace(c)) {
+                    throw error("Separador esperado na resposta da IA.");
+                }
+            }
+            case DONE -> {
+                if (!isWhitespace(c)) {
+                    throw error("Conteudo apos o fim da resposta da IA.");
+                }
+            }
+        }
+    }
+
+    private void startValue(char c) {
+        if (isWhitespace(c)) {
+            return;
+        }
+        value.setLength(0);
+        if (c == '"') {
+            inReply = FIELD_REPLY.contentEquals(key);
+            state = State.STRING;
+        } else if (c == '{' || c == '[') {
+            nestedDepth = 1;
+            nestedInString = false;
+            nestedEscape = false;
+            state = State.NESTED;
+        } else {
+            value.append(c);
+            state = State.SCALAR;
+        }
+    }
+
+    private void skipNested(char c) {
+        if (nestedInString) {
+            if (nestedEscape) {
+                nestedEscape = false;
+            } else if (c == '\\') {
+                nestedEscape = true;
+            } else if (c == '"') {
+                nestedInString = false;
+            }
+        } else if (c == '"') {
+            nestedInString = true;
+        } else if (c == '{' || c == '[') {
+            nestedDepth++;
+        } else if ((c == '}' || c == ']') && --nestedDepth == 0) {
+            state = State.AFTER_VALUE;
+        }
+    }
+
+    private boolean readStringChar(char c, StringBuilder target) throws JsonParseException {
+        if (unicodeRemaining > 0) {
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                throw error("Escape unicode invalido na resposta da IA.");
+            }
+            unicodeValue = (unicodeValue << 4) | digit;
+            if (--unicodeRemaining == 0) {
+                target.append((char) unicodeValue);
+            }
+            return false;
+        }
+        if (escape) {
+            escape = false;
+            switch (c) {
+                case 'n' -> target.append('\n');
+                case 't' -> target.append('\t');
+                case 'r' -> target.append('\r');
+                case 'b' -> target.append('\b');
+                case 'f' -> target.append('\f');
+                case '"', '\\', '/' -> target.append(c);
+                case 'u' -> {
+                    unicodeRemaining = 4;
+                    unicodeValue = 0;
+                }
+                default -> throw error("Escape invalido na resposta da IA.");
+            }
+            return false;
+        }
+        if (c == '\\') {
+            escape = true;
+            return false;
+        }
+        if (c == '"') {
+            return true;
+        }
+        target.append(c);
+        return false;
+    }
+
+    private void completeValue(boolean string) throws JsonParseException {
+        state = State.AFTER_VALUE;
+        String raw = value.toString();
+        boolean isNull = !string && "null".equals(raw);
+        switch (key.toString()) {
+            case FIELD_CATEGORY -> category = isNull ? null : raw;
+            case FIELD_CONFIDENCE -> confidence = isNull ? 0 : parseConfidence(raw);
+            case FIELD_REASON -> reason = isNull ? null : raw;
+            case FIELD_REPLY -> flushReply();
+            default -> {
+            }
+        }
+        inReply = false;
+
+        if (!classified && category != null && confidence != null) {
+            classified = true;
+            listener.onClassification(category, confidence);
+        }
+    }
+
+    private double parseConfidence(String raw) throws JsonParseException {
+        try {
+            return Double.parseDouble(raw.trim());
+        } catch (NumberFormatException ex) {
+            throw error("Confianca invalida na resposta da IA.");
+        }
+    }
+
+    private void flushReply() {
+        int end = reply.length();
+        // Never split a surrogate pair between two deltas.
+        if (end > replyEmitted && Character.isHighSurrogate(reply.charAt(end - 1))) {
+            end--;
+        }
+        if (end > replyEmitted) {
+            listener.onReplyDelta(reply.substring(replyEmitted, end));
+            replyEmitted = end;
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static JsonParseException error(String message) {
+        return new JsonParseException(null, message);
+    }
+}
@@ -0,0 +1,82 @@
+package com.autou.emailai.infrastructure.ai;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Time one logical AI call spent in upstream exchanges, as reported by the
+ * clients that made them. Waiting in the local rate limiter and backoff
+ * sleeps are left out, so the circuit breaker judges the backend rather than
+ * this instance's own queue. Clients pick up the current clock when the call
+ * starts; whoever hands a call to another thread passes the clock along.
+ */
+final class UpstreamClock {
+
+    private static final ThreadLocal<UpstreamClock> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLong nanos = new AtomicLong();
+    private volatile boolean reported;
+
+    static UpstreamClock current() {
+        return CURRENT.get();
+    }
+
+    static <T> T runWith(UpstreamClock clock, Supplier<T> call) {
+        if (clock == null) {
+            return call.get();
+        }
+        UpstreamClock previous = CURRENT.get();
+        CURRENT.set(clock);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    static void add(UpstreamClock clock, long elapsedNanos) {
+        if (clock != null) {
+            clock.nanos.addAndGet(elapsedNanos);
+            clock.reported = true;
+        }
+    }
+
+    /**
+     * A clock of its own for one of several calls racing for the same answer,
+     * or null when nobody is timing the outer call. Only the time the outer
+     * call actually waited is then carried over, with {@link #addFrom} or
+     * {@link #addSlowest}.
+     */
+    static UpstreamClock fork(UpstreamClock parent) {
+        return (parent == null) ? null : new UpstreamClock();
+    }
+
+    static void addFrom(UpstreamClock target, UpstreamClock source) {
+        if (source != null && source.reported) {
+            add(target, source.nanos.get());
+        }
+    }
+
+    static void addSlowest(UpstreamClock target, Collection<UpstreamClock> sources) {
+        UpstreamClock slowest = null;
+        for (UpstreamClock source : sources) {
+            if (source != null && source.reported && (slowest == null || source.nanos.get() > slowest.nanos.get())) {
+                slowest = source;
+            }
+        }
+        addFrom(target, slowest);
+    }
+
+    /**
+     * Upstream time so far, or the wall time since {@code startNanos} when
+     * the client does not report it.
+     */
+    long elapsedNanos(long startNanos) {
+        return reported ? nanos.get() : System.nanoTime() - startNanos;
+    }
+}
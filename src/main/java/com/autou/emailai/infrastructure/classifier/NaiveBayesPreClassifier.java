@@ -0,0 +1,203 @@
+package com.autou.emailai.infrastructure.classifier;
+
+import com.autou.emailai.application.ports.out.PreClassifier;
+import com.autou.emailai.application.ports.out.dto.PreClassification;
+import com.autou.emailai.domain.EmailCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Component
+@ConditionalOnProperty(name = "analysis.pre-classifier.enabled", havingValue = "true")
+public class NaiveBayesPreClassifier implements PreClassifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NaiveBayesPreClassifier.class);
+    private static final String REASON = "Classificacao local por palavras-chave.";
+    private static final String SEED_PATTERN = "classifier/%s.txt";
+
+    private final int maxChars;
+    private final int minKnownTokens;
+    private final double minCoverage;
+    private final Map<EmailCategory, String> replies = new EnumMap<>(EmailCategory.class);
+    private final Map<EmailCategory, Map<String, Integer>> tokenCounts = new EnumMap<>(EmailCategory.class);
+    private final Map<EmailCategory, Integer> totalTokens = new EnumMap<>(EmailCategory.class);
+    private final Map<EmailCategory, Integer> documentCounts = new EnumMap<>(EmailCategory.class);
+    private final Set<String> vocabulary = new HashSet<>();
+
+    public NaiveBayesPreClassifier(
+            @Value("${analysis.pre-classifier.training-dir:}") String trainingDir,
+            @Value("${analysis.pre-classifier.max-chars:1000}") int maxChars,
+            @Value("${analysis.pre-classifier.min-known-tokens:3}") int minKnownTokens,
+            @Value("${analysis.pre-classifier.min-coverage:0.6}") double minCoverage,
+            @Value("${analysis.pre-classifier.reply.produtivo:Recebemos sua solicitacao e retornaremos em breve.}") String produtivoReply,
+            @Value("${analysis.pre-classifier.reply.improdutivo:Obrigado pela mensagem! Ficamos a disposicao.}") String improdutivoReply
+    ) {
+        this.maxChars = maxChars;
+        this.minKnownTokens = Math.max(1, minKnownTokens);
+        this.minCoverage = minCoverage;
+        this.replies.put(EmailCategory.PRODUTIVO, produtivoReply);
+        this.replies.put(EmailCategory.IMPRODUTIVO, improdutivoReply);
+        for (EmailCategory category : EmailCategory.values()) {
+            tokenCounts.put(category, new HashMap<>());
+            totalTokens.put(category, 0);
+            documentCounts.put(category, 0);
+        }
+
+        loadSeedCorpus();
+        if (trainingDir != null && !trainingDir.isBlank()) {
+            loadTrainingDir(Path.of(trainingDir));
+        }
+        LOGGER.info("Pre-classifier trained documents={} vocabulary={}", documentCounts, vocabulary.size());
+    }
+
+    /**
+     * Scores only the tokens the model has seen: an unseen token says nothing
+     * about the category, but Laplace smoothing would still charge it a
+     * different penalty per class. The email is left to the AI when too few
+     * of its tokens are known. Confidence is the posterior of the margin
+     * between the two classes scaled down by the square root of the known
+     * tokens, since unigrams and bigrams of the same words are far from
+     * independent and the raw posterior is almost always near 1.
+     */
+    @Override
+    public Optional<PreClassification> classify(String cleanedEmailText) {
+        if (cleanedEmailText == null || cleanedEmailText.length() > maxChars) {
+            return Optional.empty();
+        }
+
+        List<String> tokens = tokenize(cleanedEmailText);
+        List<String> known = tokens.stream().filter(vocabulary::contains).toList();
+        if (known.size() < minKnownTokens || known.size() < minCoverage * tokens.size()) {
+            return Optional.empty();
+        }
+
+        int totalDocuments = documentCounts.values().stream().mapToInt(Integer::intValue).sum();
+        Map<EmailCategory, Double> logScores = new EnumMap<>(EmailCategory.class);
+        for (EmailCategory category : EmailCategory.values()) {
+            Map<String, Integer> counts = tokenCounts.get(category);
+            double denominator = totalTokens.get(category) + vocabulary.size();
+            double score = Math.log((documentCounts.get(category) + 1.0) / (totalDocuments + EmailCategory.values().length));
+            for (String token : known) {
+                score += Math.log((counts.getOrDefault(token, 0) + 1.0) / denominator);
+            }
+            logScores.put(category, score);
+        }
+
+        EmailCategory best = EmailCategory.PRODUTIVO;
+        for (EmailCategory category : EmailCategory.values()) {
+            if (logScores.get(category) > logScores.get(best)) {
+                best = category;
+            }
+        }
+        double runnerUp = Double.NEGATIVE_INFINITY;
+        for (EmailCategory category : EmailCategory.values()) {
+            if (category != best) {
+                runnerUp = Math.max(runnerUp, logScores.get(category));
+            }
+        }
+
+        double margin = (logScores.get(best) - runnerUp) / Math.sqrt(known.size());
+        double confidence = 1.0 / (1.0 + Math.exp(-margin));
+
+        return Optional.of(new PreClassification(best, confidence, REASON, replies.get(best)));
+    }
+
+    private void loadSeedCorpus() {
+        for (EmailCategory category : EmailCategory.values()) {
+            ClassPathResource resource = new ClassPathResource(SEED_PATTERN.formatted(category.name().toLowerCase(Locale.ROOT)));
+            if (!resource.exists()) {
+                continue;
+            }
+            try (InputStream input = resource.getInputStream()) {
+                String content = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+                content.lines()
+                        .filter(line -> !line.isBlank())
+                        .forEach(line -> train(category, line));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao carregar corpus do pre-classificador.", e);
+            }
+        }
+    }
+
+    private void loadTrainingDir(Path root) {
+        for (EmailCategory category : EmailCategory.values()) {
+            Path dir = root.resolve(category.name());
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    train(category, Files.readString(file, StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao carregar exemplos de " + dir, e);
+            }
+        }
+    }
+
+    private void train(EmailCategory category, String text) {
+        List<String> tokens = tokenize(text);
+        Map<String, Integer> counts = tokenCounts.get(category);
+        for (String token : tokens) {
+            counts.merge(token, 1, Integer::sum);
+            vocabulary.add(token);
+        }
+        totalTokens.merge(category, tokens.size(), Integer::sum);
+        documentCounts.merge(category, 1, Integer::sum);
+    }
+
+    private List<String> tokenize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> words = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (!current.isEmpty()) {
+                addWord(words, current);
+            }
+        }
+        if (!current.isEmpty()) {
+            addWord(words, current);
+        }
+
+        List<String> tokens = new ArrayList<>(words.size() * 2);
+        tokens.addAll(words);
+        for (int i = 1; i < words.size(); i++) {
+            tokens.add(words.get(i - 1) + '_' + words.get(i));
+        }
+        return tokens;
+    }
+
+    private void addWord(List<String> words, StringBuilder current) {
+        if (current.length() >= 2) {
+            words.add(current.toString());
+        }
+        current.setLength(0);
+    }
+}
@@ -0,0 +1,113 @@
+package com.autou.emailai.infrastructure.config;
+
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.PreClassifier;
+import com.autou.emailai.infrastructure.ai.CachingAiClient;
+import com.autou.emailai.infrastructure.ai.CircuitBreakerAiClient;
+import com.autou.emailai.infrastructure.ai.OpenAiClient;
+import com.autou.emailai.infrastructure.ai.RoutingAiClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@Configuration
+public class AiClientConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AiClientConfig.class);
+    private static final String FALLBACK_PRE_CLASSIFIER = "pre-classifier";
+
+    @Bean
+    public CircuitBreakerAiClient.Settings aiCircuitBreakerSettings(
+            @Value("${openai.circuit.window-size:20}") int windowSize,
+            @Value("${openai.circuit.minimum-calls:10}") int minimumCalls,
+            @Value("${openai.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${openai.circuit.slow-call-duration:PT10S}") Duration slowCallDuration,
+            @Value("${openai.circuit.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+            @Value("${openai.circuit.open-duration:PT30S}") Duration openDuration,
+            @Value("${openai.circuit.half-open-probes:3}") int halfOpenProbes,
+            @Value("${openai.bulkhead.max-concurrent:32}") int bulkheadMaxConcurrent,
+            @Value("${openai.bulkhead.max-wait:PT0S}") Duration bulkheadMaxWait
+    ) {
+        return new CircuitBreakerAiClient.Settings(windowSize, minimumCalls, failureRateThreshold, slowCallDuration,
+                slowCallRateThreshold, openDuration, Math.max(1, halfOpenProbes), bulkheadMaxConcurrent, bulkheadMaxWait);
+    }
+
+    @Bean
+    @Primary
+    public AiClient aiClient(
+            OpenAiClient openAiClient,
+            ObjectProvider<RoutingAiClient> routerProvider,
+            MeterRegistry meterRegistry,
+            ObjectProvider<PreClassifier> preClassifierProvider,
+            CircuitBreakerAiClient.Settings circuitSettings,
+            @Value("${openai.model}") String model,
+            @Value("${openai.circuit.enabled:true}") boolean circuitEnabled,
+            @Value("${openai.circuit.fallback:none}") String circuitFallback,
+            @Value("${openai.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${openai.cache.max-entries:10000}") int cacheMaxEntries,
+            @Value("${openai.cache.ttl:PT6H}") Duration cacheTtl
+    ) {
+        RoutingAiClient router = routerProvider.getIfAvailable();
+        AiClient client = (router != null) ? router : openAiClient;
+        if (circuitEnabled) {
+            PreClassifier fallback = null;
+            if (FALLBACK_PRE_CLASSIFIER.equals(circuitFallback)) {
+                fallback = preClassifierProvider.getIfAvailable();
+                if (fallback == null) {
+                    LOGGER.warn("openai.circuit.fallback=pre-classifier, but no PreClassifier is enabled; failing fast instead");
+                }
+            }
+            CircuitBreakerAiClient breaker = new CircuitBreakerAiClient(client, fallback, circuitSettings);
+            bindCircuitMetrics(breaker, meterRegistry);
+            client = breaker;
+        }
+        if (!cacheEnabled) {
+            return client;
+        }
+        String modelScope = (router != null) ? String.join(",", router.backendModels()) : model;
+        CachingAiClient cachingClient = new CachingAiClient(client, modelScope, cacheMaxEntries, cacheTtl);
+        bindCacheMetrics(cachingClient, meterRegistry);
+        return cachingClient;
+    }
+
+    private void bindCircuitMetrics(CircuitBreakerAiClient breaker, MeterRegistry meterRegistry) {
+        for (CircuitBreakerAiClient.State state : CircuitBreakerAiClient.State.values()) {
+            Gauge.builder("openai.circuit.state", breaker, b -> b.stats().state() == state ? 1 : 0)
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("openai.circuit.rejected", breaker, b -> b.stats().rejectedOpen())
+                .tag("reason", "open")
+                .register(meterRegistry);
+        FunctionCounter.builder("openai.circuit.rejected", breaker, b -> b.stats().rejectedBulkhead())
+                .tag("reason", "bulkhead")
+                .register(meterRegistry);
+        FunctionCounter.builder("openai.circuit.fallbacks", breaker, b -> b.stats().fallbacks())
+                .register(meterRegistry);
+        Gauge.builder("openai.bulkhead.inflight", breaker, b -> b.stats().bulkheadInFlight())
+                .register(meterRegistry);
+    }
+
+    private void bindCacheMetrics(CachingAiClient cache, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("openai.cache.requests", cache, c -> c.stats().hits())
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("openai.cache.requests", cache, c -> c.stats().misses())
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("openai.cache.evictions", cache, c -> c.stats().evictions())
+                .register(meterRegistry);
+        Gauge.builder("openai.cache.size", cache, c -> c.stats().size())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,120 @@
+package com.autou.emailai.infrastructure.config;
+
+import com.autou.emailai.infrastructure.ai.OpenAiClient;
+import com.autou.emailai.infrastructure.ai.OpenAiRateLimiter;
+import com.autou.emailai.infrastructure.ai.RoutingAiClient;
+import com.autou.emailai.infrastructure.http.AsyncHttpEndpoint;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+@ConditionalOnProperty(name = "openai.router.enabled", havingValue = "true")
+public class AiRouterConfig {
+
+    private static final String BACKENDS_PROPERTY = "openai.router.backends";
+
+    @Bean
+    public RoutingAiClient routingAiClient(
+            OpenAiClient openAiClient,
+            HttpClient openAiHttpClient,
+            ExecutorService openAiHttpExecutor,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${openai.router.primary-weight:1}") int primaryWeight,
+            @Value("${openai.router.hedge.max-hedges:1}") int maxHedges,
+            @Value("${openai.router.hedge.percentile:0.9}") double hedgePercentile,
+            @Value("${openai.router.hedge.min-delay:PT0.2S}") Duration hedgeMinDelay,
+            @Value("${openai.router.hedge.initial-delay:PT3S}") Duration hedgeInitialDelay,
+            @Value("${openai.http.read-timeout:PT60S}") Duration readTimeout,
+            @Value("${openai.http.total-timeout:PT90S}") Duration totalTimeout,
+            @Value("${openai.http.max-response-size:1MB}") DataSize maxResponseSize,
+            @Value("${openai.limiter.max-queue-wait:PT30S}") Duration maxQueueWait
+    ) {
+        List<RoutingAiClient.Backend> backends = new ArrayList<>();
+        backends.add(new RoutingAiClient.Backend(openAiClient.name(), openAiClient.model(), openAiClient, primaryWeight));
+
+        Set<String> names = new HashSet<>();
+        names.add(openAiClient.name());
+        List<BackendProperties> extra = Binder.get(environment)
+                .bind(BACKENDS_PROPERTY, Bindable.listOf(BackendProperties.class))
+                .orElse(List.of());
+        for (BackendProperties properties : extra) {
+            if (properties.name() == null || properties.baseUrl() == null || properties.model() == null) {
+                throw new IllegalStateException("Backend de IA sem name, base-url ou model em " + BACKENDS_PROPERTY + ".");
+            }
+            if (!names.add(properties.name())) {
+                throw new IllegalStateException("Backend de IA duplicado: " + properties.name() + ".");
+            }
+            String apiKey = (properties.apiKey() != null) ? properties.apiKey() : "";
+            int maxConcurrency = (properties.maxConcurrency() != null) ? properties.maxConcurrency() : 16;
+            OpenAiClient client = openAiClient.forBackend(
+                    properties.name(),
+                    OpenAiConfig.buildRestClient(openAiHttpClient, openAiHttpExecutor, properties.baseUrl(), apiKey,
+                            readTimeout, totalTimeout, maxResponseSize),
+                    new AsyncHttpEndpoint(openAiHttpClient, openAiHttpExecutor, properties.baseUrl(), apiKey,
+                            totalTimeout, maxResponseSize.toBytes()),
+                    new OpenAiRateLimiter(Math.min(8, maxConcurrency), 1, maxConcurrency, 0, 0, maxQueueWait),
+                    properties.model(),
+                    apiKey
+            );
+            backends.add(new RoutingAiClient.Backend(properties.name(), properties.model(), client,
+                    (properties.weight() != null) ? properties.weight() : 1));
+        }
+
+        RoutingAiClient router = new RoutingAiClient(backends,
+                new RoutingAiClient.Settings(maxHedges, hedgePercentile, hedgeMinDelay, hedgeInitialDelay),
+                openAiHttpExecutor);
+        bindRouterMetrics(router, backends, meterRegistry);
+        return router;
+    }
+
+    private void bindRouterMetrics(RoutingAiClient router, List<RoutingAiClient.Backend> backends, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("openai.router.hedges", router, r -> r.stats().hedges())
+                .register(meterRegistry);
+        FunctionCounter.builder("openai.router.failovers", router, r -> r.stats().failovers())
+                .register(meterRegistry);
+        for (RoutingAiClient.Backend backend : backends) {
+            String name = backend.name();
+            FunctionCounter.builder("openai.router.answers", router, r -> r.stats().backends().get(name).answers())
+                    .tag("backend", name)
+                    .register(meterRegistry);
+            Gauge.builder("openai.router.latency", router, r -> r.stats().backends().get(name).latencyP50Millis())
+                    .tag("backend", name)
+                    .tag("quantile", "0.5")
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("openai.router.latency", router, r -> r.stats().backends().get(name).latencyHedgeMillis())
+                    .tag("backend", name)
+                    .tag("quantile", "hedge")
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    public record BackendProperties(
+            String name,
+            String baseUrl,
+            String apiKey,
+            String model,
+            Integer weight,
+            Integer maxConcurrency
+    ) {
+    }
+}
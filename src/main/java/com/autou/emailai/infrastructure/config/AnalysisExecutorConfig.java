@@ -0,0 +1,46 @@
+package com.autou.emailai.infrastructure.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class AnalysisExecutorConfig {
+
+    /**
+     * Runs preprocessing, extraction and lookups for the async API; the AI
+     * wait holds no thread. A full queue rejects, and the API answers 503.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor analysisCpuExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${analysis.async.cpu-threads:0}") int cpuThreads,
+            @Value("${analysis.async.queue-capacity:1000}") int queueCapacity
+    ) {
+        int threads = (cpuThreads > 0) ? cpuThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-cpu-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        Gauge.builder("email.analysis.async.queued", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("email.analysis.async.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        return executor;
+    }
+}
@@ -1,20 +1,83 @@
 package com.autou.emailai.infrastructure.config;
 
+import com.autou.emailai.infrastructure.http.AsyncHttpEndpoint;
+import com.autou.emailai.infrastructure.http.ResponseLimitInterceptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
 public class OpenAiConfig {
 
+    @Bean(destroyMethod = "close")
+    public ExecutorService openAiHttpExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean(destroyMethod = "close")
+    public HttpClient openAiHttpClient(
+            ExecutorService openAiHttpExecutor,
+            @Value("${openai.http.version:HTTP_2}") HttpClient.Version version,
+            @Value("${openai.http.connect-timeout:PT5S}") Duration connectTimeout
+    ) {
+        // Pool size and idle timeout are JVM-wide (jdk.httpclient.* flags, see Dockerfile).
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(connectTimeout)
+                .executor(openAiHttpExecutor)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
     @Bean
     public RestClient openAiRestClient(
+            HttpClient openAiHttpClient,
+            ExecutorService openAiHttpExecutor,
+            @Value("${openai.base-url:https://api.openai.com/v1}") String baseUrl,
+            @Value("${openai.api-key:}") String apiKey,
+            @Value("${openai.http.read-timeout:PT60S}") Duration readTimeout,
+            @Value("${openai.http.total-timeout:PT90S}") Duration totalTimeout,
+            @Value("${openai.http.max-response-size:1MB}") DataSize maxResponseSize
+    ) {
+        return buildRestClient(openAiHttpClient, openAiHttpExecutor, baseUrl, apiKey, readTimeout, totalTimeout, maxResponseSize);
+    }
+
+    @Bean
+    public AsyncHttpEndpoint openAiAsyncEndpoint(
+            HttpClient openAiHttpClient,
+            ExecutorService openAiHttpExecutor,
             @Value("${openai.base-url:https://api.openai.com/v1}") String baseUrl,
-            @Value("${openai.api-key:}") String apiKey
+            @Value("${openai.api-key:}") String apiKey,
+            @Value("${openai.http.total-timeout:PT90S}") Duration totalTimeout,
+            @Value("${openai.http.max-response-size:1MB}") DataSize maxResponseSize
     ) {
+        return new AsyncHttpEndpoint(openAiHttpClient, openAiHttpExecutor, baseUrl, apiKey, totalTimeout, maxResponseSize.toBytes());
+    }
+
+    static RestClient buildRestClient(
+            HttpClient httpClient,
+            ExecutorService executor,
+            String baseUrl,
+            String apiKey,
+            Duration readTimeout,
+            Duration totalTimeout,
+            DataSize maxResponseSize
+    ) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient, executor);
+        requestFactory.setReadTimeout(readTimeout);
+
         return RestClient.builder()
                 .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .requestInterceptor(new ResponseLimitInterceptor(maxResponseSize.toBytes(), totalTimeout))
                 .defaultHeader("Authorization", "Bearer " + apiKey)
                 .build();
     }
@@ -0,0 +1,46 @@
+package com.autou.emailai.infrastructure.config;
+
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.infrastructure.ai.OpenAiClient;
+import com.autou.emailai.infrastructure.history.FileAnalysisHistoryStore;
+import com.autou.emailai.web.dto.MailboxImportItemResponse;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Hints for the native image that Spring AOT cannot infer: types bound by
+ * our own ObjectMapper/Binder calls (request and response bodies of
+ * controllers are already covered) and classpath resources loaded by name.
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.ApplicationRuntimeHints.class)
+public class RuntimeHintsConfig {
+
+    static class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+            binding.registerReflectionHints(hints.reflection(),
+                    AiAnalysisResponse.class,
+                    MailboxImportItemResponse.class,
+                    AiRouterConfig.BackendProperties.class,
+                    ClassUtils.resolveClassName(OpenAiClient.class.getName() + "$PackedItem", classLoader),
+                    ClassUtils.resolveClassName(FileAnalysisHistoryStore.class.getName() + "$StoredLine", classLoader));
+
+            hints.resources()
+                    .registerPattern("templates/*.html")
+                    .registerPattern("static/*")
+                    .registerPattern("classifier/*.txt")
+                    .registerPattern("prompts/*")
+                    // Standard 14 font metrics, glyph lists and CMaps used by PDFTextStripper.
+                    .registerPattern("org/apache/pdfbox/resources/**")
+                    .registerPattern("org/apache/fontbox/cmap/*")
+                    .registerPattern("org/apache/fontbox/unicode/*");
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.autou.emailai.infrastructure.file;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Guesses a media type from the first bytes of a file: magic numbers for PDF
+ * and ZIP containers, BOMs, HTML markers and RFC 822 headers. Looks at a
+ * bounded prefix only, so the cost does not depend on the file size.
+ */
+final class ContentSniffer {
+
+    static final String PDF = "application/pdf";
+    static final String ZIP = "application/zip";
+    static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    static final String TEXT = "text/plain";
+    static final String HTML = "text/html";
+    static final String MESSAGE = "message/rfc822";
+    static final String BINARY = "application/octet-stream";
+
+    private static final int MAX_HEAD = 512;
+    private static final byte[] PDF_MAGIC = ascii("%PDF-");
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+    private static final byte[] OOXML_CONTENT_TYPES = ascii("[Content_Types].xml");
+    private static final byte[] WORD_PART = ascii("word/");
+    private static final String[] HTML_MARKERS = {"<!doctype html", "<html", "<head", "<body"};
+    private static final Set<String> MESSAGE_HEADERS = Set.of(
+            "from", "to", "cc", "subject", "date", "received", "return-path", "delivered-to",
+            "reply-to", "message-id", "mime-version", "content-type"
+    );
+
+    private ContentSniffer() {
+    }
+
+    static String sniff(byte[] head) {
+        int length = Math.min(head.length, MAX_HEAD);
+        if (startsWith(head, length, 0, PDF_MAGIC)) {
+            return PDF;
+        }
+        if (startsWith(head, length, 0, ZIP_MAGIC)) {
+            return (indexOf(head, length, WORD_PART) >= 0 || indexOf(head, length, OOXML_CONTENT_TYPES) >= 0) ? DOCX : ZIP;
+        }
+        int bom = TextDecoder.bomLength(head);
+        if (bom == 2) {
+            // UTF-16 text; the ASCII checks below do not apply.
+            return TEXT;
+        }
+        if (bom == 0 && looksBinary(head, length)) {
+            return BINARY;
+        }
+        int start = skipWhitespace(head, length, bom);
+        String prefix = new String(head, start, Math.min(length - start, 64), StandardCharsets.ISO_8859_1)
+                .toLowerCase(Locale.ROOT);
+        for (String marker : HTML_MARKERS) {
+            if (prefix.startsWith(marker)) {
+                return HTML;
+            }
+        }
+        if (prefix.startsWith("from ") || looksLikeHeaders(head, length, start)) {
+            return MESSAGE;
+        }
+        return TEXT;
+    }
+
+    /**
+     * Whether content sniffed as {@code sniffed} may be handed to the
+     * extractor declared for {@code declared}. Text formats are accepted
+     * for one another; binary signatures must match.
+     */
+    static boolean compatible(String declared, String sniffed) {
+        if (declared.equals(sniffed)) {
+            return true;
+        }
+        if (isText(declared)) {
+            return isText(sniffed);
+        }
+        if (declared.equals(DOCX)) {
+            // Not every docx lists its parts within the sniffed prefix.
+            return sniffed.equals(ZIP);
+        }
+        if (declared.equals(PDF)) {
+            return false;
+        }
+        // Formats this sniffer knows nothing about: only reject what is clearly another format.
+        return !sniffed.equals(PDF) && !sniffed.equals(DOCX) && !sniffed.equals(ZIP);
+    }
+
+    private static boolean isText(String mediaType) {
+        return mediaType.startsWith("text/") || mediaType.equals(MESSAGE);
+    }
+
+    private static boolean looksBinary(byte[] head, int length) {
+        int control = 0;
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xFF;
+            if (b == 0) {
+                return true;
+            }
+            if (b < 0x20 && b != '\n' && b != '\r' && b != '\t' && b != '\f' && b != 0x1B) {
+                control++;
+            }
+        }
+        return control * 10 > length;
+    }
+
+    private static boolean looksLikeHeaders(byte[] head, int length, int start) {
+        int known = 0;
+        int i = start;
+        while (i < length) {
+            int lineEnd = i;
+            while (lineEnd < length && head[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == i || (lineEnd == i + 1 && head[i] == '\r')) {
+                break;
+            }
+            if (head[i] == ' ' || head[i] == '\t') {
+                if (i == start) {
+                    return false;
+                }
+            } else {
+                int colon = headerNameEnd(head, i, lineEnd);
+                if (colon < 0) {
+                    return false;
+                }
+                String name = new String(head, i, colon - i, StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT);
+                if (MESSAGE_HEADERS.contains(name)) {
+                    known++;
+                }
+            }
+            i = lineEnd + 1;
+        }
+        return known >= 2;
+    }
+
+    private static int headerNameEnd(byte[] head, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int b = head[i] & 0xFF;
+            if (b == ':') {
+                return (i > from) ? i : -1;
+            }
+            if (b <= ' ' || b >= 0x7F) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] head, int length, int from) {
+        int i = from;
+        while (i < length && (head[i] == ' ' || head[i] == '\t' || head[i] == '\r' || head[i] == '\n')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, byte[] prefix) {
+        if (length - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (head[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] head, int length, byte[] needle) {
+        for (int i = 0; i + needle.length <= length; i++) {
+            if (startsWith(head, length, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,173 @@
+package com.autou.emailai.infrastructure.file;
+
+import com.autou.emailai.application.ports.out.FileTextExtractor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the text runs of word/document.xml with StAX, stopping at
+ * {@code max-chars}. The uncompressed document is capped so a zip bomb
+ * fails fast, and DTDs/external entities are disabled.
+ */
+@Component
+public class DocxTextExtractor implements FileTextExtractor {
+
+    private static final String DOCUMENT_PART = "word/document.xml";
+
+    private final int maxChars;
+    private final long maxDocumentBytes;
+    private final XMLInputFactory xmlInputFactory;
+
+    public DocxTextExtractor(
+            @Value("${extraction.docx.max-chars:20000}") int maxChars,
+            @Value("${extraction.docx.max-document-size:32MB}") DataSize maxDocumentSize
+    ) {
+        this.maxChars = maxChars;
+        this.maxDocumentBytes = maxDocumentSize.toBytes();
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public List<String> mediaTypes() {
+        return List.of(ContentSniffer.DOCX);
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("docx");
+    }
+
+    @Override
+    public String extract(byte[] bytes) {
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (DOCUMENT_PART.equals(entry.getName())) {
+                    return readDocument(zip);
+                }
+            }
+            throw new IllegalArgumentException("Arquivo .docx sem " + DOCUMENT_PART + ".");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String extract(Path file) {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry entry = zip.getEntry(DOCUMENT_PART);
+            if (entry == null) {
+                throw new IllegalArgumentException("Arquivo .docx sem " + DOCUMENT_PART + ".");
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                return readDocument(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String readDocument(InputStream document) throws IOException {
+        StringBuilder text = new StringBuilder();
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(new LimitedInputStream(document, maxDocumentBytes));
+            boolean inText = false;
+            while (reader.hasNext() && text.length() < maxChars) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        switch (reader.getLocalName()) {
+                            case "t" -> inText = true;
+                            case "tab" -> text.append('\t');
+                            case "br", "cr" -> text.append('\n');
+                            default -> {
+                            }
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        switch (reader.getLocalName()) {
+                            case "t" -> inText = false;
+                            case "p" -> text.append('\n');
+                            default -> {
+                            }
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                        if (inText) {
+                            text.append(reader.getText());
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("XML invalido em " + DOCUMENT_PART + ".", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Nothing left to release.
+                }
+            }
+        }
+        if (text.length() > maxChars) {
+            text.setLength(maxChars);
+        }
+        return text.toString();
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                consumed(read);
+            }
+            return read;
+        }
+
+        private void consumed(long bytes) throws IOException {
+            remaining -= bytes;
+            if (remaining < 0) {
+                throw new IOException("Documento .docx excede o tamanho maximo descompactado.");
+            }
+        }
+    }
+}
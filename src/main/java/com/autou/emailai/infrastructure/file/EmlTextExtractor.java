@@ -0,0 +1,385 @@
+package com.autou.emailai.infrastructure.file;
+
+import com.autou.emailai.application.ports.out.FileTextExtractor;
+import com.autou.emailai.application.ports.out.FileTextExtractorResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Extracts an RFC 822 / MIME message: the subject, the readable body (plain
+ * text preferred over HTML in multipart/alternative) and nested messages.
+ * Attachments are handed back to the extractor registry, so any registered
+ * format is read recursively; unsupported ones are skipped. Attached
+ * messages stay in the same extraction, so every multipart level, nested
+ * message and attached .eml counts against one {@code max-depth} and one
+ * {@code max-attachments}.
+ */
+@Component
+public class EmlTextExtractor implements FileTextExtractor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmlTextExtractor.class);
+
+    private final ObjectProvider<FileTextExtractorResolver> resolver;
+    private final int maxChars;
+    private final int maxAttachments;
+    private final int maxDepth;
+
+    public EmlTextExtractor(
+            ObjectProvider<FileTextExtractorResolver> resolver,
+            @Value("${extraction.eml.max-chars:20000}") int maxChars,
+            @Value("${extraction.eml.max-attachments:5}") int maxAttachments,
+            @Value("${extraction.eml.max-depth:8}") int maxDepth
+    ) {
+        this.resolver = resolver;
+        this.maxChars = maxChars;
+        this.maxAttachments = maxAttachments;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public List<String> mediaTypes() {
+        return List.of(ContentSniffer.MESSAGE);
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("eml");
+    }
+
+    @Override
+    public String extract(byte[] bytes) {
+        Extraction extraction = new Extraction();
+        int start = 0;
+        if (startsWithIgnoreCase(bytes, 0, "From ")) {
+            // mbox envelope line of a single exported message.
+            start = MimeHeaders.lineEnd(bytes, 0, bytes.length) + 1;
+        }
+        appendMessage(bytes, Math.min(start, bytes.length), bytes.length, 0, extraction);
+        String text = extraction.text.toString().strip();
+        return (text.length() > maxChars) ? text.substring(0, maxChars) : text;
+    }
+
+    private void appendMessage(byte[] bytes, int start, int end, int depth, Extraction extraction) {
+        Part message = Part.parse(bytes, start, end);
+        String subject = message.headers().decoded("subject");
+        if (subject != null && !subject.isBlank()) {
+            extraction.paragraph("Assunto: " + subject);
+        }
+        appendPart(bytes, message, depth, extraction);
+    }
+
+    private void appendPart(byte[] bytes, Part part, int depth, Extraction extraction) {
+        if (extraction.full()) {
+            return;
+        }
+        String type = part.mediaType();
+        if (part.isAttachment()) {
+            appendAttachment(part, type, bytes, depth, extraction);
+        } else if (type.startsWith("multipart/")) {
+            if (depth >= maxDepth) {
+                return;
+            }
+            List<Part> children = part.children(bytes);
+            if (type.equals("multipart/alternative")) {
+                Part preferred = preferredAlternative(children);
+                if (preferred != null) {
+                    appendPart(bytes, preferred, depth + 1, extraction);
+                }
+            } else {
+                for (Part child : children) {
+                    appendPart(bytes, child, depth + 1, extraction);
+                }
+            }
+        } else if (type.equals(ContentSniffer.MESSAGE)) {
+            if (depth < maxDepth) {
+                byte[] nested = part.decodedBody(bytes);
+                appendMessage(nested, 0, nested.length, depth + 1, extraction);
+            }
+        } else if (type.equals(ContentSniffer.TEXT)) {
+            extraction.paragraph(TextDecoder.decode(part.decodedBody(bytes), part.charset(), extraction.remaining()));
+        } else if (type.equals(ContentSniffer.HTML)) {
+            String html = TextDecoder.decode(part.decodedBody(bytes), part.charset(), extraction.remaining() * 8);
+            extraction.paragraph(HtmlTextExtractor.toText(html, extraction.remaining()));
+        } else if (part.filename() != null) {
+            appendAttachment(part, type, bytes, depth, extraction);
+        }
+    }
+
+    private void appendAttachment(Part part, String type, byte[] bytes, int depth, Extraction extraction) {
+        String filename = part.filename();
+        FileTextExtractorResolver registry = resolver.getIfAvailable();
+        if (registry == null || extraction.attachments >= maxAttachments) {
+            return;
+        }
+        // Counted before decoding, so attachments that fail still use up the limit.
+        extraction.attachments++;
+        byte[] content = part.decodedBody(bytes);
+        if (content.length == 0) {
+            return;
+        }
+        String label = "[Anexo: " + ((filename != null) ? filename : type) + "]";
+        try {
+            FileTextExtractor extractor = registry.resolve(filename, type,
+                    Arrays.copyOf(content, Math.min(content.length, FileTextExtractorResolver.SNIFF_BYTES)));
+            if (extractor == this) {
+                // An attached message continues this extraction instead of starting a fresh one.
+                if (depth < maxDepth) {
+                    extraction.paragraph(label);
+                    appendMessage(content, 0, content.length, depth + 1, extraction);
+                }
+                return;
+            }
+            String text = extractor.extract(content);
+            if (text != null && !text.isBlank()) {
+                extraction.paragraph(label + "\n" + text.strip());
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Skipping attachment {} ({}): {}", filename, type, e.getMessage());
+        }
+    }
+
+    private static Part preferredAlternative(List<Part> alternatives) {
+        Part html = null;
+        for (Part alternative : alternatives) {
+            String type = alternative.mediaType();
+            if (type.equals(ContentSniffer.TEXT)) {
+                return alternative;
+            }
+            if (html == null && (type.equals(ContentSniffer.HTML) || type.startsWith("multipart/"))) {
+                html = alternative;
+            }
+        }
+        return (html != null) ? html : (alternatives.isEmpty() ? null : alternatives.get(0));
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] bytes, int from, String prefix) {
+        if (bytes.length - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase((char) bytes[from + i]) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class Extraction {
+
+        private final StringBuilder text = new StringBuilder();
+        private int attachments;
+
+        private boolean full() {
+            return text.length() >= maxChars;
+        }
+
+        private int remaining() {
+            return Math.max(0, maxChars - text.length());
+        }
+
+        private void paragraph(String value) {
+            if (value == null || value.isBlank() || full()) {
+                return;
+            }
+            if (!text.isEmpty()) {
+                text.append("\n\n");
+            }
+            text.append(value.strip());
+        }
+    }
+
+    /**
+     * One MIME entity: its parsed headers and where its body sits in the
+     * enclosing byte array. Bodies are only copied when decoded.
+     */
+    private record Part(MimeHeaders headers, int bodyStart, int bodyEnd) {
+
+        static Part parse(byte[] bytes, int start, int end) {
+            MimeHeaders headers = MimeHeaders.parse(bytes, start, end);
+            return new Part(headers, headers.bodyStart(), end);
+        }
+
+        String header(String name) {
+            return headers.get(name);
+        }
+
+        String mediaType() {
+            String contentType = header("content-type");
+            if (contentType == null) {
+                return ContentSniffer.TEXT;
+            }
+            int semicolon = contentType.indexOf(';');
+            String type = ((semicolon >= 0) ? contentType.substring(0, semicolon) : contentType).strip().toLowerCase(Locale.ROOT);
+            return type.isEmpty() ? ContentSniffer.TEXT : type;
+        }
+
+        Charset charset() {
+            return MimeHeaders.charset(parameter(header("content-type"), "charset"));
+        }
+
+        String filename() {
+            String filename = parameter(header("content-disposition"), "filename");
+            if (filename == null) {
+                filename = parameter(header("content-type"), "name");
+            }
+            return (filename != null) ? MimeHeaders.decodeWords(filename) : null;
+        }
+
+        boolean isAttachment() {
+            String disposition = header("content-disposition");
+            return disposition != null && disposition.strip().toLowerCase(Locale.ROOT).startsWith("attachment");
+        }
+
+        byte[] decodedBody(byte[] bytes) {
+            byte[] body = Arrays.copyOfRange(bytes, bodyStart, Math.max(bodyStart, bodyEnd));
+            String encoding = header("content-transfer-encoding");
+            if (encoding == null) {
+                return body;
+            }
+            try {
+                return switch (encoding.strip().toLowerCase(Locale.ROOT)) {
+                    case "base64" -> Base64.getMimeDecoder().decode(body);
+                    case "quoted-printable" -> MimeHeaders.decodeQuotedPrintable(body, false);
+                    default -> body;
+                };
+            } catch (IllegalArgumentException e) {
+                return body;
+            }
+        }
+
+        List<Part> children(byte[] bytes) {
+            String boundary = parameter(header("content-type"), "boundary");
+            List<Part> children = new ArrayList<>();
+            if (boundary == null || boundary.isEmpty()) {
+                return children;
+            }
+            byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+            int partStart = -1;
+            int i = bodyStart;
+            while (i < bodyEnd) {
+                int lineEnd = MimeHeaders.lineEnd(bytes, i, bodyEnd);
+                if (isDelimiter(bytes, i, lineEnd, delimiter)) {
+                    if (partStart >= 0) {
+                        children.add(parse(bytes, partStart, trimLineBreak(bytes, partStart, i)));
+                    }
+                    int after = i + delimiter.length;
+                    if (after + 1 < lineEnd && bytes[after] == '-' && bytes[after + 1] == '-') {
+                        return children;
+                    }
+                    partStart = Math.min(bodyEnd, lineEnd + 1);
+                }
+                i = lineEnd + 1;
+            }
+            if (partStart >= 0 && partStart < bodyEnd) {
+                children.add(parse(bytes, partStart, bodyEnd));
+            }
+            return children;
+        }
+
+        private static boolean isDelimiter(byte[] bytes, int start, int lineEnd, byte[] delimiter) {
+            if (lineEnd - start < delimiter.length) {
+                return false;
+            }
+            for (int k = 0; k < delimiter.length; k++) {
+                if (bytes[start + k] != delimiter[k]) {
+                    return false;
+                }
+            }
+            for (int k = start + delimiter.length; k < lineEnd; k++) {
+                byte b = bytes[k];
+                if (b != '-' && b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int trimLineBreak(byte[] bytes, int start, int end) {
+            int trimmed = end;
+            if (trimmed > start && bytes[trimmed - 1] == '\n') {
+                trimmed--;
+            }
+            if (trimmed > start && bytes[trimmed - 1] == '\r') {
+                trimmed--;
+            }
+            return trimmed;
+        }
+
+        private static String parameter(String header, String name) {
+            if (header == null) {
+                return null;
+            }
+            String extended = null;
+            for (String segment : splitParameters(header)) {
+                int equals = segment.indexOf('=');
+                if (equals <= 0) {
+                    continue;
+                }
+                String key = segment.substring(0, equals).strip().toLowerCase(Locale.ROOT);
+                String value = unquote(segment.substring(equals + 1).strip());
+                if (key.equals(name)) {
+                    return value;
+                }
+                if (key.equals(name + "*")) {
+                    extended = decodeExtended(value);
+                }
+            }
+            return extended;
+        }
+
+        private static List<String> splitParameters(String header) {
+            List<String> segments = new ArrayList<>();
+            boolean quoted = false;
+            int start = header.indexOf(';') + 1;
+            if (start == 0) {
+                return segments;
+            }
+            for (int i = start; i < header.length(); i++) {
+                char c = header.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == ';' && !quoted) {
+                    segments.add(header.substring(start, i));
+                    start = i + 1;
+                }
+            }
+            segments.add(header.substring(start));
+            return segments;
+        }
+
+        private static String unquote(String value) {
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                return value.substring(1, value.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+            }
+            return value;
+        }
+
+        // RFC 2231: charset'language'percent-encoded-value
+        private static String decodeExtended(String value) {
+            int first = value.indexOf('\'');
+            int second = (first >= 0) ? value.indexOf('\'', first + 1) : -1;
+            if (second < 0) {
+                return value;
+            }
+            Charset charset = MimeHeaders.charset(value.substring(0, first));
+            try {
+                return URLDecoder.decode(value.substring(second + 1).replace("+", "%2B"),
+                        (charset != null) ? charset : StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                return value.substring(second + 1);
+            }
+        }
+    }
+}
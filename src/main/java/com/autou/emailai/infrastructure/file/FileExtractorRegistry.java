@@ -0,0 +1,110 @@
+package com.autou.emailai.infrastructure.file;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.out.FileTextExtractor;
+import com.autou.emailai.application.ports.out.FileTextExtractorResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Indexes the extractors by extension and media type. The format declared
+ * by the file name (or, failing that, the content type) is checked against
+ * what the first bytes look like, so mismatched or unsupported files are
+ * rejected before any parsing. New formats only need a FileTextExtractor
+ * bean.
+ */
+@Component
+public class FileExtractorRegistry implements FileTextExtractorResolver {
+
+    private static final String MSG_UNSUPPORTED_FILE = "Formato nao suportado. Use .txt, .pdf, .eml, .html ou .docx.";
+    private static final String MSG_MISMATCHED_FILE = "Conteudo do arquivo nao corresponde ao formato informado.";
+
+    private final Map<String, FileTextExtractor> byExtension = new HashMap<>();
+    private final Map<String, FileTextExtractor> byMediaType = new HashMap<>();
+    private final Map<String, String> mediaTypeByExtension = new HashMap<>();
+
+    public FileExtractorRegistry(List<FileTextExtractor> extractors) {
+        for (FileTextExtractor extractor : extractors) {
+            String canonical = extractor.mediaTypes().get(0);
+            for (String mediaType : extractor.mediaTypes()) {
+                register(byMediaType, mediaType, extractor);
+            }
+            for (String extension : extractor.extensions()) {
+                register(byExtension, extension, extractor);
+                mediaTypeByExtension.put(extension, canonical);
+            }
+        }
+    }
+
+    @Override
+    public FileTextExtractor resolve(String filename, String contentType, byte[] head) {
+        String sniffed = ContentSniffer.sniff(head);
+        String declared = declaredMediaType(filename, contentType);
+        if (declared == null) {
+            FileTextExtractor extractor = byMediaType.get(sniffed);
+            if (extractor == null) {
+                throw new InvalidFileException(MSG_UNSUPPORTED_FILE);
+            }
+            return extractor;
+        }
+        FileTextExtractor extractor = byMediaType.get(declared);
+        if (extractor == null) {
+            throw new InvalidFileException(MSG_UNSUPPORTED_FILE);
+        }
+        // Aliases such as application/x-pdf are checked as the extractor's canonical type.
+        if (!ContentSniffer.compatible(extractor.mediaTypes().get(0), sniffed)) {
+            throw new InvalidFileException(MSG_MISMATCHED_FILE);
+        }
+        return extractor;
+    }
+
+    private String declaredMediaType(String filename, String contentType) {
+        String extension = extension(filename);
+        if (extension != null && mediaTypeByExtension.containsKey(extension)) {
+            return mediaTypeByExtension.get(extension);
+        }
+        String mediaType = mediaType(contentType);
+        if (mediaType != null) {
+            return mediaType;
+        }
+        if (extension != null) {
+            throw new InvalidFileException(MSG_UNSUPPORTED_FILE);
+        }
+        return null;
+    }
+
+    private static String extension(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || dot == filename.length() - 1 || filename.indexOf('/', dot) >= 0 || filename.indexOf('\\', dot) >= 0) {
+            return null;
+        }
+        return filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String mediaType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int semicolon = contentType.indexOf(';');
+        String mediaType = ((semicolon >= 0) ? contentType.substring(0, semicolon) : contentType).trim().toLowerCase(Locale.ROOT);
+        if (mediaType.isEmpty() || mediaType.equals(ContentSniffer.BINARY)) {
+            return null;
+        }
+        return mediaType;
+    }
+
+    private static void register(Map<String, FileTextExtractor> index, String key, FileTextExtractor extractor) {
+        FileTextExtractor previous = index.putIfAbsent(key.toLowerCase(Locale.ROOT), extractor);
+        if (previous != null && previous != extractor) {
+            throw new IllegalStateException("Mais de um extrator para " + key + ": "
+                    + previous.getClass().getSimpleName() + " e " + extractor.getClass().getSimpleName() + ".");
+        }
+    }
+}
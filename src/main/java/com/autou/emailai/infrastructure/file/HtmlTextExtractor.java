@@ -0,0 +1,215 @@
+package com.autou.emailai.infrastructure.file;
+
+import com.autou.emailai.application.ports.out.FileTextExtractor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass tag stripper: drops scripts, styles and comments, turns block
+ * elements into line breaks and decodes character references. Enough for
+ * e-mail bodies saved as HTML; it does not try to render layout.
+ */
+@Component
+public class HtmlTextExtractor implements FileTextExtractor {
+
+    // Markup usually outweighs text; decode this many raw chars per output char.
+    private static final int RAW_CHARS_PER_CHAR = 8;
+    private static final int MAX_ENTITY_CHARS = 12;
+    private static final Set<String> SKIPPED_ELEMENTS = Set.of("script", "style", "template", "noscript");
+    private static final Set<String> BLOCK_ELEMENTS = Set.of(
+            "p", "div", "br", "hr", "li", "ul", "ol", "tr", "table", "h1", "h2", "h3", "h4", "h5", "h6",
+            "blockquote", "pre", "section", "article", "header", "footer", "title", "address"
+    );
+    private static final Map<String, String> NAMED_ENTITIES = Map.ofEntries(
+            Map.entry("nbsp", " "), Map.entry("amp", "&"), Map.entry("lt", "<"), Map.entry("gt", ">"),
+            Map.entry("quot", "\""), Map.entry("apos", "'"), Map.entry("copy", "©"), Map.entry("reg", "®"),
+            Map.entry("ndash", "–"), Map.entry("mdash", "—"), Map.entry("hellip", "…"),
+            Map.entry("laquo", "«"), Map.entry("raquo", "»"), Map.entry("ldquo", "“"),
+            Map.entry("rdquo", "”"), Map.entry("lsquo", "‘"), Map.entry("rsquo", "’"),
+            Map.entry("euro", "€"), Map.entry("ordm", "º"), Map.entry("ordf", "ª"),
+            Map.entry("deg", "°"), Map.entry("szlig", "ß")
+    );
+    // Accented letters ("ccedil", "atilde", ...) are composed instead of listed.
+    private static final Map<String, Character> COMBINING_MARKS = Map.of(
+            "acute", '\u0301', "grave", '\u0300', "circ", '\u0302', "tilde", '\u0303', "uml", '\u0308', "cedil", '\u0327'
+    );
+
+    private final int maxChars;
+
+    public HtmlTextExtractor(@Value("${extraction.html.max-chars:20000}") int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public List<String> mediaTypes() {
+        return List.of("text/html", "application/xhtml+xml");
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("html", "htm", "xhtml");
+    }
+
+    @Override
+    public String extract(byte[] bytes) {
+        return toText(TextDecoder.decode(bytes, null, rawChars()), maxChars);
+    }
+
+    @Override
+    public String extract(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return toText(TextDecoder.decode(in, null, rawChars()), maxChars);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int rawChars() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) maxChars * RAW_CHARS_PER_CHAR);
+    }
+
+    static String toText(String html, int maxChars) {
+        StringBuilder out = new StringBuilder(Math.min(html.length(), maxChars));
+        int length = html.length();
+        int i = 0;
+        while (i < length && out.length() < maxChars) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                if (html.startsWith("<!--", i)) {
+                    int end = html.indexOf("-->", i + 4);
+                    i = (end < 0) ? length : end + 3;
+                    continue;
+                }
+                int end = html.indexOf('>', i + 1);
+                if (end < 0) {
+                    break;
+                }
+                boolean closing = i + 1 < end && html.charAt(i + 1) == '/';
+                String tag = tagName(html, closing ? i + 2 : i + 1, end);
+                if (!closing && SKIPPED_ELEMENTS.contains(tag)) {
+                    int close = indexOfIgnoreCase(html, "</" + tag, end + 1);
+                    int closeEnd = (close < 0) ? -1 : html.indexOf('>', close);
+                    i = (closeEnd < 0) ? length : closeEnd + 1;
+                    continue;
+                }
+                if (BLOCK_ELEMENTS.contains(tag)) {
+                    lineBreak(out);
+                }
+                i = end + 1;
+            } else if (c == '&') {
+                int semicolon = entityEnd(html, i);
+                String decoded = (semicolon > i) ? entity(html.substring(i + 1, semicolon)) : null;
+                if (decoded != null) {
+                    appendText(out, decoded);
+                    i = semicolon + 1;
+                } else {
+                    out.append('&');
+                    i++;
+                }
+            } else if (Character.isWhitespace(c)) {
+                space(out);
+                i++;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        if (out.length() > maxChars) {
+            out.setLength(maxChars);
+        }
+        return out.toString().strip();
+    }
+
+    /**
+     * The ';' closing a character reference starting at {@code ampersand},
+     * looked up only within the longest reference name so a run of bare
+     * ampersands stays linear.
+     */
+    private static int entityEnd(String html, int ampersand) {
+        int limit = Math.min(html.length(), ampersand + MAX_ENTITY_CHARS + 1);
+        for (int i = ampersand + 1; i < limit; i++) {
+            if (html.charAt(i) == ';') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String tagName(String html, int from, int end) {
+        int i = from;
+        while (i < end && (Character.isLetterOrDigit(html.charAt(i)) || html.charAt(i) == '-')) {
+            i++;
+        }
+        return html.substring(from, i).toLowerCase(Locale.ROOT);
+    }
+
+    private static int indexOfIgnoreCase(String html, String needle, int from) {
+        for (int i = from; i + needle.length() <= html.length(); i++) {
+            if (html.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String entity(String name) {
+        if (name.startsWith("#")) {
+            try {
+                boolean hex = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X');
+                int codePoint = Integer.parseInt(name.substring(hex ? 2 : 1), hex ? 16 : 10);
+                return Character.isValidCodePoint(codePoint) ? Character.toString(codePoint) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        String named = NAMED_ENTITIES.get(name);
+        if (named != null || name.length() < 2) {
+            return named;
+        }
+        Character mark = COMBINING_MARKS.get(name.substring(1));
+        if (mark == null || !Character.isLetter(name.charAt(0))) {
+            return null;
+        }
+        String composed = Normalizer.normalize(name.charAt(0) + mark.toString(), Normalizer.Form.NFC);
+        return (composed.length() == 1) ? composed : null;
+    }
+
+    private static void appendText(StringBuilder out, String text) {
+        for (int k = 0; k < text.length(); k++) {
+            char c = text.charAt(k);
+            if (Character.isWhitespace(c)) {
+                space(out);
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    private static void space(StringBuilder out) {
+        int last = out.length() - 1;
+        if (last >= 0 && out.charAt(last) != ' ' && out.charAt(last) != '\n') {
+            out.append(' ');
+        }
+    }
+
+    private static void lineBreak(StringBuilder out) {
+        int last = out.length() - 1;
+        while (last >= 0 && out.charAt(last) == ' ') {
+            out.setLength(last--);
+        }
+        if (last >= 0 && out.charAt(last) != '\n') {
+            out.append('\n');
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.autou.emailai.infrastructure.file;
+
+import com.autou.emailai.application.ports.out.MailboxReader;
+import com.autou.emailai.application.ports.out.dto.MailboxMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits an mbox archive on "From " envelope lines at the start of the file
+ * or after a blank line, undoing the ">From " escaping of mboxrd. Reads in
+ * fixed chunks and keeps one message at a time, so memory depends on
+ * {@code max-message-size} and not on the archive. Larger messages are
+ * truncated. Input without envelope lines is read as a single message.
+ */
+@Component
+public class MboxMailboxReader implements MailboxReader {
+
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final byte[] ENVELOPE = {'F', 'r', 'o', 'm', ' '};
+
+    private final int maxMessageBytes;
+
+    public MboxMailboxReader(@Value("${analysis.import.max-message-size:25MB}") DataSize maxMessageSize) {
+        this.maxMessageBytes = (int) Math.min(Integer.MAX_VALUE - 8, maxMessageSize.toBytes());
+    }
+
+    @Override
+    public void read(InputStream mailbox, Consumer<MailboxMessage> consumer) {
+        Splitter splitter = new Splitter(consumer);
+        byte[] chunk = new byte[CHUNK_BYTES];
+        try {
+            int read;
+            while ((read = mailbox.read(chunk)) != -1) {
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] == '\n') {
+                        splitter.append(chunk, lineStart, i + 1 - lineStart);
+                        splitter.endLine();
+                        lineStart = i + 1;
+                    }
+                }
+                splitter.append(chunk, lineStart, read - lineStart);
+            }
+            splitter.endLine();
+            splitter.emit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final class Splitter {
+
+        private final Consumer<MailboxMessage> consumer;
+        private final LineBuffer line = new LineBuffer();
+        private final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        private int index;
+        private boolean atStart = true;
+        private boolean previousBlank;
+
+        private Splitter(Consumer<MailboxMessage> consumer) {
+            this.consumer = consumer;
+        }
+
+        private void append(byte[] bytes, int offset, int length) {
+            int room = maxMessageBytes - line.size();
+            if (room > 0) {
+                line.write(bytes, offset, Math.min(length, room));
+            }
+        }
+
+        private void endLine() {
+            if (line.size() == 0) {
+                return;
+            }
+            byte[] bytes = line.buffer();
+            int length = line.size();
+            line.reset();
+            boolean blank = (length == 1 && bytes[0] == '\n') || (length == 2 && bytes[0] == '\r' && bytes[1] == '\n');
+
+            if (startsWith(bytes, 0, length, ENVELOPE) && (atStart || previousBlank)) {
+                emit();
+                atStart = false;
+                previousBlank = false;
+                return;
+            }
+            atStart = false;
+            int offset = 0;
+            if (bytes[0] == '>') {
+                int quotes = 0;
+                while (quotes < length && bytes[quotes] == '>') {
+                    quotes++;
+                }
+                if (startsWith(bytes, quotes, length, ENVELOPE)) {
+                    offset = 1;
+                }
+            }
+            int room = maxMessageBytes - message.size();
+            if (room > 0) {
+                message.write(bytes, offset, Math.min(length - offset, room));
+            }
+            previousBlank = blank;
+        }
+
+        private void emit() {
+            byte[] content = message.toByteArray();
+            message.reset();
+            int end = content.length;
+            // The blank line before the next envelope belongs to the mbox, not the message.
+            if (end > 0 && content[end - 1] == '\n') {
+                end--;
+                if (end > 0 && content[end - 1] == '\r') {
+                    end--;
+                }
+            }
+            if (isBlank(content, end)) {
+                return;
+            }
+            if (end < content.length) {
+                content = Arrays.copyOf(content, end);
+            }
+            MimeHeaders headers = MimeHeaders.parse(content, 0, content.length);
+            consumer.accept(new MailboxMessage(index++, headers.decoded("message-id"), headers.decoded("from"),
+                    headers.decoded("subject"), content));
+        }
+
+        private static boolean isBlank(byte[] content, int end) {
+            for (int i = 0; i < end; i++) {
+                if (content[i] != ' ' && content[i] != '\t' && content[i] != '\r' && content[i] != '\n') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean startsWith(byte[] bytes, int offset, int length, byte[] prefix) {
+            if (length - offset < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (bytes[offset + i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reused line buffer whose bytes are read in place instead of copied.
+     */
+    private static final class LineBuffer extends ByteArrayOutputStream {
+
+        private byte[] buffer() {
+            return buf;
+        }
+    }
+}
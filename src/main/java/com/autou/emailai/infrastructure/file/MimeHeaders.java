@@ -0,0 +1,157 @@
+package com.autou.emailai.infrastructure.file;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The header block of an RFC 822 / MIME entity, unfolded and keyed by
+ * lowercase name (first occurrence wins), plus where the body starts.
+ */
+record MimeHeaders(Map<String, String> values, int bodyStart) {
+
+    private static final Pattern ENCODED_WORD = Pattern.compile("=\\?([^?\\s]+)\\?([BbQq])\\?([^?\\s]*)\\?=");
+    private static final Pattern BETWEEN_ENCODED_WORDS = Pattern.compile("(\\?=)\\s+(=\\?)");
+    private static final int MAX_HEADER_CHARS = 64 * 1024;
+
+    static MimeHeaders parse(byte[] bytes, int start, int end) {
+        int headerEnd = start;
+        int bodyStart = end;
+        int i = start;
+        while (i < end) {
+            int lineEnd = lineEnd(bytes, i, end);
+            int contentEnd = (lineEnd > i && bytes[lineEnd - 1] == '\r') ? lineEnd - 1 : lineEnd;
+            if (contentEnd == i) {
+                headerEnd = i;
+                bodyStart = Math.min(end, lineEnd + 1);
+                break;
+            }
+            i = lineEnd + 1;
+            headerEnd = Math.min(i, end);
+        }
+        String block = TextDecoder.decode(Arrays.copyOfRange(bytes, start, headerEnd), null, MAX_HEADER_CHARS);
+        return new MimeHeaders(unfold(block), bodyStart);
+    }
+
+    String get(String name) {
+        return values.get(name);
+    }
+
+    /**
+     * The header value with RFC 2047 encoded words decoded, or null.
+     */
+    String decoded(String name) {
+        String value = values.get(name);
+        return (value != null) ? decodeWords(value).strip() : null;
+    }
+
+    static String decodeWords(String value) {
+        if (value.indexOf("=?") < 0) {
+            return value;
+        }
+        String joined = BETWEEN_ENCODED_WORDS.matcher(value).replaceAll("$1$2");
+        Matcher matcher = ENCODED_WORD.matcher(joined);
+        StringBuilder decoded = new StringBuilder(joined.length());
+        while (matcher.find()) {
+            Charset charset = charset(matcher.group(1));
+            String text = matcher.group(3);
+            byte[] raw;
+            try {
+                raw = matcher.group(2).equalsIgnoreCase("B")
+                        ? Base64.getMimeDecoder().decode(text)
+                        : decodeQuotedPrintable(text.replace('_', ' ').getBytes(StandardCharsets.US_ASCII), true);
+            } catch (IllegalArgumentException e) {
+                matcher.appendReplacement(decoded, Matcher.quoteReplacement(matcher.group()));
+                continue;
+            }
+            String word = new String(raw, (charset != null) ? charset : StandardCharsets.UTF_8);
+            matcher.appendReplacement(decoded, Matcher.quoteReplacement(word));
+        }
+        matcher.appendTail(decoded);
+        return decoded.toString();
+    }
+
+    static byte[] decodeQuotedPrintable(byte[] encoded, boolean header) {
+        byte[] out = new byte[encoded.length];
+        int written = 0;
+        int i = 0;
+        while (i < encoded.length) {
+            byte b = encoded[i];
+            if (b != '=') {
+                out[written++] = b;
+                i++;
+                continue;
+            }
+            if (!header && i + 1 < encoded.length && (encoded[i + 1] == '\n' || encoded[i + 1] == '\r')) {
+                // Soft line break.
+                i += (encoded[i + 1] == '\r' && i + 2 < encoded.length && encoded[i + 2] == '\n') ? 3 : 2;
+                continue;
+            }
+            int high = (i + 2 < encoded.length) ? Character.digit(encoded[i + 1], 16) : -1;
+            int low = (high >= 0) ? Character.digit(encoded[i + 2], 16) : -1;
+            if (low < 0) {
+                out[written++] = b;
+                i++;
+                continue;
+            }
+            out[written++] = (byte) ((high << 4) | low);
+            i += 3;
+        }
+        return Arrays.copyOf(out, written);
+    }
+
+    static Charset charset(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        try {
+            return Charset.forName(name.strip());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static int lineEnd(byte[] bytes, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static Map<String, String> unfold(String block) {
+        Map<String, String> headers = new HashMap<>();
+        String name = null;
+        StringBuilder value = new StringBuilder();
+        for (String line : block.split("\r?\n")) {
+            if (!line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+                if (name != null) {
+                    value.append(' ').append(line.strip());
+                }
+                continue;
+            }
+            if (name != null) {
+                headers.putIfAbsent(name, value.toString());
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                name = null;
+                continue;
+            }
+            name = line.substring(0, colon).strip().toLowerCase(Locale.ROOT);
+            value.setLength(0);
+            value.append(line.substring(colon + 1).strip());
+        }
+        if (name != null) {
+            headers.putIfAbsent(name, value.toString());
+        }
+        return headers;
+    }
+}
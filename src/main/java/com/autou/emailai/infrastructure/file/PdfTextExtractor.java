@@ -1,31 +1,179 @@
 package com.autou.emailai.infrastructure.file;
 
 import com.autou.emailai.application.ports.out.FileTextExtractor;
+import jakarta.annotation.PreDestroy;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 @Component
 public class PdfTextExtractor implements FileTextExtractor {
 
-    @Override
-    public boolean supports(String filename, String contentType) {
-        if (filename != null && filename.toLowerCase().endsWith(".pdf")) {
-            return true;
+    private static final String MSG_EXTRACTION_FAILED = "Não foi possível extrair texto do PDF.";
+
+    private final int maxPages;
+    private final int maxChars;
+    private final StreamCacheCreateFunction streamCache;
+    private final int parallelThreads;
+    private final int parallelMinPages;
+    private final ForkJoinPool pool;
+
+    public PdfTextExtractor(
+            @Value("${extraction.pdf.max-pages:50}") int maxPages,
+            @Value("${extraction.pdf.max-chars:20000}") int maxChars,
+            @Value("${extraction.pdf.max-main-memory:8MB}") DataSize maxMainMemory,
+            @Value("${extraction.pdf.parallel.threads:1}") int parallelThreads,
+            @Value("${extraction.pdf.parallel.min-pages:16}") int parallelMinPages
+    ) {
+        this.maxPages = maxPages;
+        this.maxChars = maxChars;
+        this.streamCache = MemoryUsageSetting.setupMixed(maxMainMemory.toBytes()).streamCache;
+        this.parallelThreads = parallelThreads;
+        this.parallelMinPages = Math.max(2, parallelMinPages);
+        this.pool = (parallelThreads > 1) ? new ForkJoinPool(parallelThreads) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
         }
-        return contentType != null && contentType.equalsIgnoreCase("application/pdf");
+    }
+
+    @Override
+    public List<String> mediaTypes() {
+        return List.of("application/pdf");
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("pdf");
     }
 
     @Override
     public String extract(byte[] bytes) {
-        try (PDDocument document = Loader.loadPDF(bytes)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+        return extract(() -> new RandomAccessReadBuffer(bytes));
+    }
+
+    @Override
+    public String extract(Path file) {
+        // Reads pages straight from the (spooled) file; only PDFBox's small page buffers hit the heap.
+        return extract(() -> new RandomAccessReadBufferedFile(file));
+    }
+
+    private String extract(Source source) {
+        try (PDDocument document = Loader.loadPDF(source.open(), streamCache)) {
+            int lastPage = Math.min(document.getNumberOfPages(), maxPages);
+            if (pool == null || lastPage < parallelMinPages) {
+                return extractPages(document, 1, lastPage, maxChars, () -> false);
+            }
+            return extractParallel(source, document, lastPage);
         } catch (IOException e) {
-            throw new IllegalArgumentException("Não foi possível extrair texto do PDF.", e);
+            throw new IllegalArgumentException(MSG_EXTRACTION_FAILED, e);
         }
     }
+
+    /**
+     * Splits the pages into one contiguous range per thread. The caller reads
+     * the first range from the document it already parsed; every other range
+     * is a single pool task that parses the file once. Once the ranges read
+     * so far fill {@code max-chars}, the others stop at their next page.
+     */
+    private String extractParallel(Source source, PDDocument document, int lastPage) throws IOException {
+        int ranges = Math.min(parallelThreads, lastPage);
+        List<ForkJoinTask<String>> tasks = new ArrayList<>(ranges - 1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try {
+            for (int range = 1; range < ranges; range++) {
+                int firstPage = rangeStart(range, ranges, lastPage);
+                int rangeLastPage = rangeStart(range + 1, ranges, lastPage) - 1;
+                tasks.add(pool.submit(() -> {
+                    if (cancelled.get()) {
+                        return "";
+                    }
+                    try (PDDocument part = Loader.loadPDF(source.open(), streamCache)) {
+                        return extractPages(part, firstPage, rangeLastPage, maxChars, cancelled::get);
+                    }
+                }));
+            }
+
+            StringBuilder text = new StringBuilder(
+                    extractPages(document, 1, rangeStart(1, ranges, lastPage) - 1, maxChars, () -> false));
+            for (ForkJoinTask<String> task : tasks) {
+                if (text.length() >= maxChars) {
+                    break;
+                }
+                text.append(join(task));
+            }
+            return truncate(text.toString());
+        } finally {
+            cancelled.set(true);
+            for (ForkJoinTask<String> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private static int rangeStart(int range, int ranges, int lastPage) {
+        return 1 + (int) ((long) range * lastPage / ranges);
+    }
+
+    private static String join(ForkJoinTask<String> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Extracao do PDF interrompida.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private String extractPages(PDDocument document, int firstPage, int lastPage, int charLimit,
+                                BooleanSupplier cancelled) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        StringBuilder text = new StringBuilder(Math.min(charLimit, 4096));
+
+        for (int page = firstPage; page <= lastPage && text.length() < charLimit && !cancelled.getAsBoolean(); page++) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            String pageText = stripper.getText(document);
+            int remaining = charLimit - text.length();
+            text.append(pageText, 0, Math.min(pageText.length(), remaining));
+        }
+        return text.toString();
+    }
+
+    private String truncate(String text) {
+        return (text.length() <= maxChars) ? text : text.substring(0, maxChars);
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        RandomAccessRead open() throws IOException;
+    }
 }
@@ -0,0 +1,120 @@
+package com.autou.emailai.infrastructure.file;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming text decode with a character cap. Without a declared charset it
+ * comes from a BOM or, failing that, from whether the first bytes are valid
+ * UTF-8 (otherwise windows-1252).
+ */
+final class TextDecoder {
+
+    private static final int SNIFF_BYTES = 8192;
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    private TextDecoder() {
+    }
+
+    static String decode(byte[] bytes, Charset declared, int maxChars) {
+        try {
+            return decode(new ByteArrayInputStream(bytes), declared, maxChars);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String decode(InputStream source, Charset declared, int maxChars) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(source, SNIFF_BYTES);
+        in.mark(SNIFF_BYTES);
+        byte[] head = in.readNBytes(SNIFF_BYTES);
+        in.reset();
+
+        Charset charset = declared;
+        int bom = bomLength(head);
+        if (bom > 0) {
+            charset = bomCharset(head);
+            in.skipNBytes(bom);
+        } else if (charset == null) {
+            charset = isUtf8(head) ? StandardCharsets.UTF_8 : WINDOWS_1252;
+        }
+
+        Reader reader = new InputStreamReader(in, charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        char[] buffer = new char[Math.max(1, Math.min(maxChars, SNIFF_BYTES))];
+        StringBuilder text = new StringBuilder(Math.min(maxChars, Math.max(16, head.length)));
+        int read;
+        while (text.length() < maxChars && (read = reader.read(buffer, 0, Math.min(buffer.length, maxChars - text.length()))) != -1) {
+            text.append(buffer, 0, read);
+        }
+        return text.toString();
+    }
+
+    static int bomLength(byte[] head) {
+        if (startsWith(head, 0xEF, 0xBB, 0xBF)) {
+            return 3;
+        }
+        if (startsWith(head, 0xFF, 0xFE) || startsWith(head, 0xFE, 0xFF)) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private static Charset bomCharset(byte[] head) {
+        if (startsWith(head, 0xEF, 0xBB, 0xBF)) {
+            return StandardCharsets.UTF_8;
+        }
+        return startsWith(head, 0xFF, 0xFE) ? StandardCharsets.UTF_16LE : StandardCharsets.UTF_16BE;
+    }
+
+    private static boolean startsWith(byte[] head, int... prefix) {
+        if (head.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((head[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUtf8(byte[] head) {
+        int i = 0;
+        while (i < head.length) {
+            int b = head[i] & 0xFF;
+            int continuation;
+            if (b < 0x80) {
+                i++;
+                continue;
+            } else if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                return false;
+            }
+            if (i + continuation >= head.length) {
+                // Sequence cut by the sniff window; judge by what came before.
+                return true;
+            }
+            for (int k = 1; k <= continuation; k++) {
+                if ((head[i + k] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+}
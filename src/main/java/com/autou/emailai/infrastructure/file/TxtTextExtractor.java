@@ -1,23 +1,50 @@
 package com.autou.emailai.infrastructure.file;
 
 import com.autou.emailai.application.ports.out.FileTextExtractor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
+/**
+ * Decodes plain text without holding the raw bytes, stopping at
+ * {@code max-chars}; see {@link TextDecoder} for charset detection.
+ */
 @Component
 public class TxtTextExtractor implements FileTextExtractor {
 
+    private final int maxChars;
+
+    public TxtTextExtractor(@Value("${extraction.txt.max-chars:20000}") int maxChars) {
+        this.maxChars = maxChars;
+    }
+
     @Override
-    public boolean supports(String filename, String contentType) {
-        if (filename != null && filename.toLowerCase().endsWith(".txt")) {
-            return true;
-        }
-        return contentType != null && contentType.equalsIgnoreCase("text/plain");
+    public List<String> mediaTypes() {
+        return List.of("text/plain");
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("txt");
     }
 
     @Override
     public String extract(byte[] bytes) {
-        return new String(bytes, StandardCharsets.UTF_8);
+        return TextDecoder.decode(bytes, null, maxChars);
+    }
+
+    @Override
+    public String extract(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return TextDecoder.decode(in, null, maxChars);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
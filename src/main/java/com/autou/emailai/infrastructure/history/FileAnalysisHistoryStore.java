@@ -0,0 +1,579 @@
+package com.autou.emailai.infrastructure.history;
+
+import com.autou.emailai.application.ports.out.AnalysisHistoryStore;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.domain.AnalysisHistoryPage;
+import com.autou.emailai.domain.AnalysisRecord;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only JSON-lines log with one line per distinct content hash. The file
+ * is the source of truth; the hash and timeline indexes in memory only hold
+ * line offsets, so lookups and pages read just the lines they return.
+ * Appends are queued and written in batches by a background thread under an
+ * exclusive file lock. Nodes sharing the file index each other's lines
+ * before writing and on a lookup miss.
+ *
+ * <p>Only the newest {@code max-entries} records younger than
+ * {@code retention} are kept: older ones drop out of the index, and once
+ * dropped lines outnumber the live ones the file is rewritten without them
+ * and atomically swapped in. Other nodes notice the new file and reindex it.
+ * Local stand-in answers (model "local") are never stored.
+ */
+@Component
+@ConditionalOnProperty(name = "analysis.history.enabled", havingValue = "true")
+public class FileAnalysisHistoryStore implements AnalysisHistoryStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileAnalysisHistoryStore.class);
+    private static final int READ_CHUNK_BYTES = 64 * 1024;
+    private static final byte NEWLINE = '\n';
+    private static final int COMPACT_MIN_STALE_LINES = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    private volatile FileChannel channel;
+    private Object channelKey;
+    private final int batchSize;
+    private final int maxEntries;
+    private final long retentionMillis;
+    private final BlockingQueue<AnalysisRecord> queue;
+    private final Map<String, AnalysisRecord> pending = new ConcurrentHashMap<>();
+    private final Map<String, IndexEntry> byHash = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private final ArrayDeque<IndexEntry> timeline = new ArrayDeque<>();
+    private volatile long indexedUpTo;
+    private long staleLines;
+    private final ScheduledExecutorService flusher;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter writes;
+    private final Counter dropped;
+    private final Timer flushTimer;
+
+    public FileAnalysisHistoryStore(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${analysis.history.path:data/analysis-history.jsonl}") Path path,
+            @Value("${analysis.history.batch-size:500}") int batchSize,
+            @Value("${analysis.history.max-pending:10000}") int maxPending,
+            @Value("${analysis.history.flush-interval:PT1S}") Duration flushInterval,
+            @Value("${analysis.history.max-entries:100000}") int maxEntries,
+            @Value("${analysis.history.retention:P30D}") Duration retention
+    ) {
+        this.objectMapper = objectMapper;
+        this.path = path;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxEntries = Math.max(1, maxEntries);
+        this.retentionMillis = retention.isNegative() ? 0 : retention.toMillis();
+        this.queue = new ArrayBlockingQueue<>(Math.max(this.batchSize, maxPending));
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = open(path);
+            this.channelKey = fileKey();
+            indexLock.writeLock().lock();
+            try {
+                catchUp();
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Nao foi possivel abrir o historico de analises: " + path, ex);
+        }
+        LOGGER.info("Analysis history loaded path={} entries={}", path, byHash.size());
+
+        this.hits = meterRegistry.counter("analysis.history.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("analysis.history.lookups", "result", "miss");
+        this.writes = meterRegistry.counter("analysis.history.writes");
+        this.dropped = meterRegistry.counter("analysis.history.dropped");
+        this.flushTimer = meterRegistry.timer("analysis.history.flush");
+        Gauge.builder("analysis.history.size", byHash, Map::size).register(meterRegistry);
+        Gauge.builder("analysis.history.pending", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                runnable -> Thread.ofPlatform().name("analysis-history-flush").daemon().unstarted(runnable));
+        long intervalMillis = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void append(AnalysisRecord record) {
+        if (AiAnalysisResponse.LOCAL_MODEL.equals(record.result().model())) {
+            return;
+        }
+        String hash = record.contentHash();
+        if (byHash.containsKey(hash) || pending.putIfAbsent(hash, record) != null) {
+            return;
+        }
+        if (!queue.offer(record)) {
+            pending.remove(hash);
+            dropped.increment();
+            return;
+        }
+        if (queue.size() >= batchSize) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException ex) {
+                LOGGER.debug("History flusher stopped, record stays queued");
+            }
+        }
+    }
+
+    @Override
+    public Optional<AnalysisRecord> findByContentHash(String contentHash) {
+        AnalysisRecord queued = pending.get(contentHash);
+        if (queued != null) {
+            hits.increment();
+            return Optional.of(queued);
+        }
+        IndexEntry entry = byHash.get(contentHash);
+        if (entry == null && refresh(false)) {
+            entry = byHash.get(contentHash);
+        }
+        if (entry != null && isExpired(entry, System.currentTimeMillis())) {
+            entry = null;
+        }
+        Optional<AnalysisRecord> found = Optional.ofNullable(entry).map(this::read);
+        (found.isPresent() ? hits : misses).increment();
+        return found;
+    }
+
+    @Override
+    public AnalysisHistoryPage query(EmailCategory category, Instant from, Instant to, int page, int size) {
+        refresh(true);
+        long fromMillis = (from != null) ? from.toEpochMilli() : Long.MIN_VALUE;
+        long toMillis = (to != null) ? to.toEpochMilli() : Long.MAX_VALUE;
+        long now = System.currentTimeMillis();
+        long skip = (long) page * size;
+        long total = 0;
+        List<IndexEntry> selected = new ArrayList<>(size);
+        indexLock.readLock().lock();
+        try {
+            for (Iterator<IndexEntry> it = timeline.descendingIterator(); it.hasNext(); ) {
+                IndexEntry entry = it.next();
+                if (isExpired(entry, now) || (category != null && entry.category() != category)
+                        || entry.analyzedAtMillis() < fromMillis || entry.analyzedAtMillis() >= toMillis) {
+                    continue;
+                }
+                if (total++ >= skip && selected.size() < size) {
+                    selected.add(entry);
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+
+        List<AnalysisRecord> items = new ArrayList<>(selected.size());
+        for (IndexEntry entry : selected) {
+            AnalysisRecord record = read(entry);
+            if (record != null) {
+                items.add(record);
+            }
+        }
+        return new AnalysisHistoryPage(items, page, size, total);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        channel.close();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+            expire();
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Analysis history flush failed path={} pending={}", path, queue.size(), ex);
+        }
+    }
+
+    private void flush() throws IOException {
+        List<AnalysisRecord> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        while (queue.drainTo(batch, batchSize) > 0) {
+            Timer.Sample sample = Timer.start();
+            try {
+                writeBatch(batch);
+            } finally {
+                for (AnalysisRecord record : batch) {
+                    pending.remove(record.contentHash());
+                }
+                sample.stop(flushTimer);
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<AnalysisRecord> batch) throws IOException {
+        indexLock.writeLock().lock();
+        FileLock lock = null;
+        try {
+            lock = lockCurrentFile();
+            catchUp();
+            if (channel.size() > indexedUpTo) {
+                // A writer died mid-line; terminate it so it is skipped, not merged with ours.
+                channel.write(ByteBuffer.wrap(new byte[]{NEWLINE}), channel.size());
+                catchUp();
+            }
+
+            ByteArrayOutputStream lines = new ByteArrayOutputStream(batch.size() * 512);
+            List<String> hashes = new ArrayList<>(batch.size());
+            List<IndexEntry> entries = new ArrayList<>(batch.size());
+            long position = indexedUpTo;
+            for (AnalysisRecord record : batch) {
+                if (byHash.containsKey(record.contentHash())) {
+                    continue;
+                }
+                byte[] line = objectMapper.writeValueAsBytes(StoredLine.of(record));
+                entries.add(new IndexEntry(record.contentHash(), position, line.length, record.result().category(),
+                        record.analyzedAt().toEpochMilli()));
+                hashes.add(record.contentHash());
+                lines.write(line);
+                lines.write(NEWLINE);
+                position += line.length + 1;
+            }
+            if (entries.isEmpty()) {
+                return;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            long offset = indexedUpTo;
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer, offset);
+            }
+            channel.force(false);
+
+            for (int i = 0; i < entries.size(); i++) {
+                if (byHash.putIfAbsent(hashes.get(i), entries.get(i)) == null) {
+                    timeline.add(entries.get(i));
+                } else {
+                    staleLines++;
+                }
+            }
+            indexedUpTo = position;
+            writes.increment(entries.size());
+            prune(System.currentTimeMillis());
+        } finally {
+            if (lock != null) {
+                lock.release();
+            }
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops records past their retention even when nothing is written, and
+     * compacts the file once most of its lines are no longer indexed.
+     */
+    private void expire() throws IOException {
+        indexLock.writeLock().lock();
+        try {
+            prune(System.currentTimeMillis());
+            if (shouldCompact()) {
+                compact();
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private boolean shouldCompact() {
+        return channelKey != null && staleLines >= COMPACT_MIN_STALE_LINES && staleLines >= byHash.size();
+    }
+
+    /**
+     * Rewrites the live lines into a new file and moves it over the old one.
+     * Caller holds the index write lock.
+     */
+    private void compact() throws IOException {
+        FileLock lock = lockCurrentFile();
+        try {
+            catchUp();
+            if (!shouldCompact()) {
+                return;
+            }
+            Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+            List<IndexEntry> kept = new ArrayList<>(timeline.size());
+            long position = 0;
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (IndexEntry entry : timeline) {
+                    ByteBuffer line = ByteBuffer.allocate(entry.length() + 1);
+                    readFully(channel, line, entry.offset());
+                    line.put(entry.length(), NEWLINE).rewind();
+                    while (line.hasRemaining()) {
+                        out.write(line, position + line.position());
+                    }
+                    kept.add(new IndexEntry(entry.hash(), position, entry.length(), entry.category(), entry.analyzedAtMillis()));
+                    position += entry.length() + 1;
+                }
+                out.force(false);
+            }
+            Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            long dropped = staleLines;
+            // Closing the old channel also releases its lock; nodes waiting on it see the new file.
+            reopen();
+            lock = null;
+            for (IndexEntry entry : kept) {
+                byHash.put(entry.hash(), entry);
+                timeline.add(entry);
+            }
+            indexedUpTo = position;
+            LOGGER.info("Analysis history compacted path={} kept={} dropped={}", path, kept.size(), dropped);
+        } finally {
+            if (lock != null) {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Locks the file currently at {@link #path}, switching to it first if
+     * another node compacted and replaced the one this store had open.
+     */
+    private FileLock lockCurrentFile() throws IOException {
+        while (true) {
+            FileLock lock = channel.lock();
+            if (!isReplaced()) {
+                return lock;
+            }
+            lock.release();
+            reopen();
+        }
+    }
+
+    private boolean isReplaced() throws IOException {
+        return channelKey != null && !channelKey.equals(fileKey());
+    }
+
+    /**
+     * Opens the file now at {@link #path} and clears the index for a full
+     * catch-up. Caller holds the index write lock.
+     */
+    private void reopen() throws IOException {
+        FileChannel previous = channel;
+        channel = open(path);
+        channelKey = fileKey();
+        previous.close();
+        byHash.clear();
+        timeline.clear();
+        indexedUpTo = 0;
+        staleLines = 0;
+    }
+
+    private Object fileKey() throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Drops the oldest records beyond {@code max-entries} or past their
+     * retention. Caller holds the index write lock.
+     */
+    private void prune(long nowMillis) {
+        while (!timeline.isEmpty() && (timeline.size() > maxEntries || isExpired(timeline.peekFirst(), nowMillis))) {
+            IndexEntry oldest = timeline.pollFirst();
+            byHash.remove(oldest.hash(), oldest);
+            staleLines++;
+        }
+    }
+
+    private boolean isExpired(IndexEntry entry, long nowMillis) {
+        return retentionMillis > 0 && nowMillis - entry.analyzedAtMillis() > retentionMillis;
+    }
+
+    /**
+     * Picks up lines other nodes appended. Lookups pass {@code wait=false} so
+     * they never queue behind a local flush.
+     */
+    private boolean refresh(boolean wait) {
+        try {
+            if (channel.size() <= indexedUpTo && !isReplaced()) {
+                return false;
+            }
+            if (wait) {
+                indexLock.writeLock().lock();
+            } else if (!indexLock.writeLock().tryLock()) {
+                return false;
+            }
+            try {
+                if (isReplaced()) {
+                    reopen();
+                }
+                catchUp();
+                return true;
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Analysis history refresh failed path={}", path, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Indexes complete lines past {@link #indexedUpTo}; a trailing partial line
+     * is left for the next call; records already past their retention are
+     * skipped. Caller holds the index write lock.
+     */
+    private void catchUp() throws IOException {
+        long end = channel.size();
+        if (end <= indexedUpTo) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK_BYTES);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long position = indexedUpTo;
+        long lineStart = position;
+        while (position < end) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            byte[] chunk = buffer.array();
+            int segmentStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (chunk[i] == NEWLINE) {
+                    line.write(chunk, segmentStart, i - segmentStart);
+                    index(lineStart, line.toByteArray());
+                    line.reset();
+                    segmentStart = i + 1;
+                    lineStart = position + i + 1;
+                }
+            }
+            line.write(chunk, segmentStart, read - segmentStart);
+            position += read;
+        }
+        indexedUpTo = lineStart;
+        prune(System.currentTimeMillis());
+    }
+
+    private void index(long offset, byte[] line) {
+        staleLines++;
+        if (line.length == 0) {
+            return;
+        }
+        try {
+            StoredLine stored = objectMapper.readValue(line, StoredLine.class);
+            IndexEntry entry = new IndexEntry(stored.hash(), offset, line.length, EmailCategory.valueOf(stored.category()),
+                    stored.analyzedAt());
+            if (!isExpired(entry, System.currentTimeMillis()) && byHash.putIfAbsent(stored.hash(), entry) == null) {
+                timeline.add(entry);
+                staleLines--;
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Skipping unreadable analysis history line path={} offset={}", path, offset);
+        }
+    }
+
+    private AnalysisRecord read(IndexEntry entry) {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+        try {
+            readFully(channel, buffer, entry.offset());
+            StoredLine stored = objectMapper.readValue(buffer.array(), StoredLine.class);
+            // The file may have been swapped by a compaction since the entry was looked up.
+            return entry.hash().equals(stored.hash()) ? stored.toRecord() : null;
+        } catch (ClosedChannelException ex) {
+            return null;
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Analysis history read failed path={} offset={}", path, entry.offset(), ex);
+            return null;
+        }
+    }
+
+    private static void readFully(FileChannel from, ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.position() < buffer.limit()) {
+            int read = from.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of history file");
+            }
+            position += read;
+        }
+    }
+
+    private record IndexEntry(String hash, long offset, int length, EmailCategory category, long analyzedAtMillis) {
+    }
+
+    private record StoredLine(
+            String hash,
+            long analyzedAt,
+            String category,
+            double confidence,
+            String reason,
+            String suggestedReply,
+            String model
+    ) {
+        static StoredLine of(AnalysisRecord record) {
+            EmailAnalysisResult result = record.result();
+            return new StoredLine(record.contentHash(), record.analyzedAt().toEpochMilli(), result.category().name(),
+                    result.confidence(), result.reason(), result.suggestedReply(), result.model());
+        }
+
+        AnalysisRecord toRecord() {
+            EmailAnalysisResult result = new EmailAnalysisResult(EmailCategory.valueOf(category), confidence, reason,
+                    suggestedReply, model);
+            return new AnalysisRecord(hash, result, Instant.ofEpochMilli(analyzedAt));
+        }
+    }
+}
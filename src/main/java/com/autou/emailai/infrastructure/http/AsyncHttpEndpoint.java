@@ -0,0 +1,183 @@
+package com.autou.emailai.infrastructure.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking JSON POSTs over the shared JDK HttpClient, with the same
+ * limits as {@link ResponseLimitInterceptor}. Failures surface as the
+ * exceptions RestClient would throw (RestClientResponseException for error
+ * statuses, ResourceAccessException for I/O), so callers can share their
+ * retry handling. Cancelling the returned future aborts the exchange.
+ */
+public class AsyncHttpEndpoint {
+
+    private final HttpClient httpClient;
+    private final Executor executor;
+    private final String baseUrl;
+    private final String authorization;
+    private final long totalTimeoutNanos;
+    private final long maxResponseBytes;
+
+    public AsyncHttpEndpoint(HttpClient httpClient, Executor executor, String baseUrl, String apiKey,
+                             Duration totalTimeout, long maxResponseBytes) {
+        this.httpClient = httpClient;
+        this.executor = executor;
+        this.baseUrl = baseUrl;
+        this.authorization = "Bearer " + apiKey;
+        this.totalTimeoutNanos = totalTimeout.toNanos();
+        this.maxResponseBytes = maxResponseBytes;
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    public CompletableFuture<ResponseEntity<byte[]>> postJson(String path, byte[] body) {
+        URI uri = URI.create(baseUrl + path);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofNanos(totalTimeoutNanos))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        CompletableFuture<HttpResponse<byte[]>> exchange = httpClient.sendAsync(request,
+                info -> new LimitedBodySubscriber(info.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1)));
+        // Cleared on completion so the pending timeout does not keep the response reachable.
+        AtomicReference<CompletableFuture<HttpResponse<byte[]>>> pending = new AtomicReference<>(exchange);
+        CompletableFuture<ResponseEntity<byte[]>> result = new CompletableFuture<>();
+        exchange.whenComplete((response, error) -> {
+            pending.set(null);
+            try {
+                result.complete(toEntity(uri, response, error));
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        // HttpRequest.timeout only covers the wait for the headers; this one also bounds the body.
+        CompletableFuture.delayedExecutor(totalTimeoutNanos, TimeUnit.NANOSECONDS, executor)
+                .execute(() -> cancel(pending));
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                cancel(pending);
+            }
+        });
+        return result;
+    }
+
+    private static void cancel(AtomicReference<CompletableFuture<HttpResponse<byte[]>>> pending) {
+        CompletableFuture<HttpResponse<byte[]>> exchange = pending.getAndSet(null);
+        if (exchange != null) {
+            exchange.cancel(true);
+        }
+    }
+
+    private static ResponseEntity<byte[]> toEntity(URI uri, HttpResponse<byte[]> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                throw new ResourceAccessException("Tempo total da requisicao excedido.");
+            }
+            if (cause instanceof IOException io) {
+                throw new ResourceAccessException("I/O error on POST request for \"" + uri + "\": " + io.getMessage(), io);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ResourceAccessException("I/O error on POST request for \"" + uri + "\"", new IOException(cause));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (status.isError()) {
+            HttpStatus known = HttpStatus.resolve(status.value());
+            throw new RestClientResponseException(status.value() + " on POST request for \"" + uri + "\"", status,
+                    (known != null) ? known.getReasonPhrase() : "", headers, response.body(), StandardCharsets.UTF_8);
+        }
+        return new ResponseEntity<>(response.body(), headers, status);
+    }
+
+    private final class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+        private final long declaredLength;
+        private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private Flow.Subscription subscription;
+
+        private LimitedBodySubscriber(long declaredLength) {
+            this.declaredLength = declaredLength;
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (declaredLength > maxResponseBytes) {
+                tooLarge();
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (body.isDone()) {
+                return;
+            }
+            for (ByteBuffer item : items) {
+                if (buffer.size() + (long) item.remaining() > maxResponseBytes) {
+                    tooLarge();
+                    return;
+                }
+                byte[] chunk = new byte[item.remaining()];
+                item.get(chunk);
+                buffer.writeBytes(chunk);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(buffer.toByteArray());
+        }
+
+        private void tooLarge() {
+            subscription.cancel();
+            body.completeExceptionally(new IOException("Resposta excede o limite de " + maxResponseBytes + " bytes."));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.autou.emailai.infrastructure.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+public class ResponseLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private final long maxResponseBytes;
+    private final long totalTimeoutNanos;
+
+    public ResponseLimitInterceptor(long maxResponseBytes, Duration totalTimeout) {
+        this.maxResponseBytes = maxResponseBytes;
+        this.totalTimeoutNanos = totalTimeout.toNanos();
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        long deadline = System.nanoTime() + totalTimeoutNanos;
+        ClientHttpResponse response = execution.execute(request, body);
+
+        long contentLength = response.getHeaders().getContentLength();
+        if (contentLength > maxResponseBytes) {
+            response.close();
+            throw new IOException("Resposta excede o limite de " + maxResponseBytes + " bytes.");
+        }
+        return new LimitedResponse(response, deadline);
+    }
+
+    private final class LimitedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final long deadline;
+        private InputStream body;
+
+        private LimitedResponse(ClientHttpResponse delegate, long deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new LimitedInputStream(delegate.getBody(), deadline);
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    private final class LimitedInputStream extends FilterInputStream {
+
+        private final long deadline;
+        private long bytesRead;
+
+        private LimitedInputStream(InputStream in, long deadline) {
+            super(in);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkDeadline();
+            int value = super.read();
+            if (value >= 0) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkDeadline();
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(long n) throws IOException {
+            bytesRead += n;
+            if (bytesRead > maxResponseBytes) {
+                throw new IOException("Resposta excede o limite de " + maxResponseBytes + " bytes.");
+            }
+        }
+
+        private void checkDeadline() throws IOException {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IOException("Tempo total da requisicao excedido.");
+            }
+        }
+    }
+}
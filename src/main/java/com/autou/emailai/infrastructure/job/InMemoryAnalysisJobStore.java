@@ -0,0 +1,83 @@
+package com.autou.emailai.infrastructure.job;
+
+import com.autou.emailai.application.ports.out.AnalysisJobStore;
+import com.autou.emailai.domain.AnalysisJob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+public class InMemoryAnalysisJobStore implements AnalysisJobStore {
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Map<String, AnalysisJob> jobs = new LinkedHashMap<>();
+
+    public InMemoryAnalysisJobStore(
+            @Value("${analysis.jobs.store.max-entries:10000}") int maxEntries,
+            @Value("${analysis.jobs.store.ttl:PT1H}") Duration ttl
+    ) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public boolean add(AnalysisJob job) {
+        synchronized (jobs) {
+            evict(Instant.now(), 1);
+            if (jobs.size() >= maxEntries) {
+                return false;
+            }
+            jobs.put(job.id(), job);
+            return true;
+        }
+    }
+
+    @Override
+    public void save(AnalysisJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id(), job);
+            evict(Instant.now(), 0);
+        }
+    }
+
+    @Override
+    public void remove(String jobId) {
+        synchronized (jobs) {
+            jobs.remove(jobId);
+        }
+    }
+
+    @Override
+    public Optional<AnalysisJob> find(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId));
+        }
+    }
+
+    /**
+     * Drops finished jobs, oldest first, once they expire or while the store
+     * lacks room. Jobs still queued or running stay: clients are polling them.
+     */
+    private void evict(Instant now, int room) {
+        Instant expiredBefore = now.minus(ttl);
+        Iterator<AnalysisJob> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            AnalysisJob eldest = it.next();
+            boolean overCapacity = jobs.size() + room > maxEntries;
+            boolean expired = eldest.updatedAt().isBefore(expiredBefore);
+            if (!overCapacity && !expired) {
+                return;
+            }
+            if (eldest.status().isFinished()) {
+                it.remove();
+            }
+        }
+    }
+}
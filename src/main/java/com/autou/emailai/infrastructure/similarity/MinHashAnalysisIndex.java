@@ -0,0 +1,379 @@
+package com.autou.emailai.infrastructure.similarity;
+
+import com.autou.emailai.application.ports.out.SimilarAnalysisIndex;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Near-duplicate index: MinHash signatures over word 3-shingles with banded
+ * LSH. Numbers are folded into one token so ticket ids and dates do not
+ * count as differences. Candidates sharing a band are confirmed by the
+ * fraction of equal signature values (an estimate of the Jaccard
+ * similarity).
+ * <p>
+ * Only the category and confidence of a match are reused. Its reason and
+ * reply were written for the other email and, with numbers folded, may
+ * quote the wrong invoice, date or amount, so they are not even stored: hits
+ * carry a generic reason, a generic reply per category and the model
+ * {@value SimilarAnalysisIndex#SIMILAR_MODEL}.
+ * <p>
+ * Everything except the results lives in preallocated primitive arrays
+ * indexed by slot; the per-band buckets are singly linked chains through
+ * {@code next}. Slots are reclaimed with CLOCK (second chance), both when
+ * all {@code max-entries} are taken and when the results would exceed what
+ * {@code max-memory} leaves after the arrays.
+ */
+@Component
+@ConditionalOnProperty(name = "analysis.near-duplicate.enabled", havingValue = "true")
+public class MinHashAnalysisIndex implements SimilarAnalysisIndex, MeterBinder {
+
+    private static final int SHINGLE_TOKENS = 3;
+    private static final int MIN_TOKENS = 8;
+    private static final long NUMBER_TOKEN = 0x5bd1e9955bd1e995L;
+    private static final long RESULT_OVERHEAD_BYTES = 160;
+    private static final int EMPTY = -1;
+    private static final String SIMILAR_REASON = "Texto semelhante a um e-mail ja analisado.";
+
+    private final int bands;
+    private final int rows;
+    private final int hashes;
+    private final double threshold;
+    private final int capacity;
+    private final int tableMask;
+    private final long[] seeds;
+    private final Map<EmailCategory, String> replies = new EnumMap<>(EmailCategory.class);
+
+    private final int[] signatures;
+    private final long[] bandKeys;
+    private final int[] next;
+    private final int[] heads;
+    private final byte[] referenced;
+    private final EmailAnalysisResult[] results;
+    private final int[] freeSlots;
+    private int freeCount;
+    private int hand;
+    private int size;
+    private long resultBytes;
+    private final long arrayBytes;
+    private final long resultBudget;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public MinHashAnalysisIndex(
+            MeterRegistry meterRegistry,
+            @Value("${analysis.near-duplicate.threshold:0.85}") double threshold,
+            @Value("${analysis.near-duplicate.bands:16}") int bands,
+            @Value("${analysis.near-duplicate.rows:4}") int rows,
+            @Value("${analysis.near-duplicate.max-entries:100000}") int maxEntries,
+            @Value("${analysis.near-duplicate.max-memory:256MB}") DataSize maxMemory,
+            @Value("${analysis.near-duplicate.reply.produtivo:Recebemos sua solicitacao e retornaremos em breve.}") String produtivoReply,
+            @Value("${analysis.near-duplicate.reply.improdutivo:Obrigado pela mensagem! Ficamos a disposicao.}") String improdutivoReply
+    ) {
+        if (bands <= 0 || rows <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("bands, rows e max-entries devem ser positivos.");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.hashes = bands * rows;
+        this.threshold = threshold;
+        this.capacity = maxEntries;
+        this.replies.put(EmailCategory.PRODUTIVO, produtivoReply);
+        this.replies.put(EmailCategory.IMPRODUTIVO, improdutivoReply);
+        int tableSize = Integer.highestOneBit(Math.max(1, maxEntries - 1)) << 1;
+        if ((long) maxEntries * bands * rows > Integer.MAX_VALUE - 8 || (long) tableSize * bands > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("max-entries grande demais para " + bands + "x" + rows + " hashes.");
+        }
+        this.tableMask = tableSize - 1;
+
+        this.seeds = new long[hashes];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < hashes; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            seeds[i] = seed;
+        }
+
+        this.arrayBytes = (long) capacity * hashes * Integer.BYTES
+                + (long) capacity * bands * (Long.BYTES + Integer.BYTES)
+                + (long) tableSize * bands * Integer.BYTES
+                + (long) capacity * (1 + Integer.BYTES + 8);
+        this.resultBudget = maxMemory.toBytes() - arrayBytes;
+        if (resultBudget <= 0) {
+            throw new IllegalStateException("analysis.near-duplicate.max-memory (" + maxMemory
+                    + ") nao comporta max-entries=" + maxEntries + " (" + DataSize.ofBytes(arrayBytes).toMegabytes() + "MB).");
+        }
+
+        this.signatures = new int[capacity * hashes];
+        this.bandKeys = new long[capacity * bands];
+        this.next = new int[capacity * bands];
+        this.heads = new int[tableSize * bands];
+        Arrays.fill(heads, EMPTY);
+        this.referenced = new byte[capacity];
+        this.results = new EmailAnalysisResult[capacity];
+        this.freeSlots = new int[capacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            freeSlots[slot] = capacity - 1 - slot;
+        }
+        this.freeCount = capacity;
+
+        this.hits = meterRegistry.counter("analysis.near-duplicate.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("analysis.near-duplicate.lookups", "result", "miss");
+        this.evictions = meterRegistry.counter("analysis.near-duplicate.evictions");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analysis.near-duplicate.size", this, index -> index.stats().size()).register(registry);
+        Gauge.builder("analysis.near-duplicate.memory", this, index -> index.stats().memoryBytes())
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @Override
+    public Optional<EmailAnalysisResult> findSimilar(String cleanedText) {
+        int[] signature = signature(cleanedText);
+        if (signature == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        long[] keys = bandKeys(signature);
+        lock.readLock().lock();
+        try {
+            int best = bestMatch(signature, keys);
+            if (best == EMPTY) {
+                misses.increment();
+                return Optional.empty();
+            }
+            // Racy write under the read lock; a lost update only costs CLOCK one second chance.
+            referenced[best] = 1;
+            hits.increment();
+            EmailAnalysisResult match = results[best];
+            return Optional.of(new EmailAnalysisResult(match.category(), match.confidence(), SIMILAR_REASON,
+                    replies.get(match.category()), SIMILAR_MODEL));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(String cleanedText, EmailAnalysisResult result) {
+        int[] signature = signature(cleanedText);
+        if (signature == null || result == null) {
+            return;
+        }
+        long[] keys = bandKeys(signature);
+        EmailAnalysisResult classification = new EmailAnalysisResult(result.category(), result.confidence(),
+                null, null, null);
+        long bytes = estimateBytes(classification);
+        lock.writeLock().lock();
+        try {
+            if (bytes > resultBudget || identical(signature, keys)) {
+                return;
+            }
+            while (size > 0 && resultBytes + bytes > resultBudget) {
+                release(victim());
+            }
+            if (freeCount == 0) {
+                release(victim());
+            }
+            int slot = freeSlots[--freeCount];
+            System.arraycopy(signature, 0, signatures, slot * hashes, hashes);
+            for (int band = 0; band < bands; band++) {
+                int entry = slot * bands + band;
+                int bucket = band * (tableMask + 1) + (int) (keys[band] & tableMask);
+                bandKeys[entry] = keys[band];
+                next[entry] = heads[bucket];
+                heads[bucket] = slot;
+            }
+            results[slot] = classification;
+            referenced[slot] = 0;
+            resultBytes += bytes;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public IndexStats stats() {
+        lock.readLock().lock();
+        try {
+            return new IndexStats(size, capacity, arrayBytes + resultBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int bestMatch(int[] signature, long[] keys) {
+        int best = EMPTY;
+        double bestSimilarity = threshold;
+        for (int band = 0; band < bands; band++) {
+            int slot = heads[band * (tableMask + 1) + (int) (keys[band] & tableMask)];
+            while (slot != EMPTY) {
+                int entry = slot * bands + band;
+                if (bandKeys[entry] == keys[band] && slot != best) {
+                    double similarity = similarity(signature, slot);
+                    if (similarity >= bestSimilarity) {
+                        best = slot;
+                        bestSimilarity = similarity;
+                    }
+                }
+                slot = next[entry];
+            }
+        }
+        return best;
+    }
+
+    private boolean identical(int[] signature, long[] keys) {
+        int slot = heads[(int) (keys[0] & tableMask)];
+        while (slot != EMPTY) {
+            if (bandKeys[slot * bands] == keys[0]
+                    && Arrays.equals(signature, 0, hashes, signatures, slot * hashes, slot * hashes + hashes)) {
+                return true;
+            }
+            slot = next[slot * bands];
+        }
+        return false;
+    }
+
+    private double similarity(int[] signature, int slot) {
+        int offset = slot * hashes;
+        int equal = 0;
+        for (int i = 0; i < hashes; i++) {
+            if (signatures[offset + i] == signature[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / hashes;
+    }
+
+    private int victim() {
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1) % capacity;
+            if (results[slot] == null) {
+                continue;
+            }
+            if (referenced[slot] != 0) {
+                referenced[slot] = 0;
+                continue;
+            }
+            return slot;
+        }
+    }
+
+    private void release(int slot) {
+        for (int band = 0; band < bands; band++) {
+            int entry = slot * bands + band;
+            int bucket = band * (tableMask + 1) + (int) (bandKeys[entry] & tableMask);
+            int previous = EMPTY;
+            int current = heads[bucket];
+            while (current != EMPTY && current != slot) {
+                previous = current;
+                current = next[current * bands + band];
+            }
+            if (current == slot) {
+                if (previous == EMPTY) {
+                    heads[bucket] = next[entry];
+                } else {
+                    next[previous * bands + band] = next[entry];
+                }
+            }
+        }
+        resultBytes -= estimateBytes(results[slot]);
+        results[slot] = null;
+        freeSlots[freeCount++] = slot;
+        size--;
+        evictions.increment();
+    }
+
+    /**
+     * MinHash signature of the word 3-shingles, or null when the text is too
+     * short for the estimate to mean anything.
+     */
+    int[] signature(String text) {
+        int[] signature = new int[hashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        long first = 0;
+        long second = 0;
+        int tokens = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            long token = 0xcbf29ce484222325L;
+            boolean number = false;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                char c = text.charAt(i++);
+                number |= Character.isDigit(c);
+                token = (token ^ Character.toLowerCase(c)) * 0x100000001b3L;
+            }
+            if (number) {
+                token = NUMBER_TOKEN;
+            }
+            tokens++;
+            if (tokens >= SHINGLE_TOKENS) {
+                long shingle = mix(first * 31 * 31 + second * 31 + token);
+                for (int k = 0; k < hashes; k++) {
+                    int value = (int) mix(shingle ^ seeds[k]);
+                    if (value < signature[k]) {
+                        signature[k] = value;
+                    }
+                }
+            }
+            first = second;
+            second = token;
+        }
+        return (tokens >= MIN_TOKENS) ? signature : null;
+    }
+
+    private long[] bandKeys(int[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = key * 0x100000001b3L + signature[band * rows + row];
+            }
+            keys[band] = mix(key);
+        }
+        return keys;
+    }
+
+    private static long estimateBytes(EmailAnalysisResult result) {
+        return RESULT_OVERHEAD_BYTES + 2L * (length(result.reason()) + length(result.suggestedReply()) + length(result.model()));
+    }
+
+    private static int length(String value) {
+        return (value != null) ? value.length() : 0;
+    }
+
+    // SplitMix64 finalizer.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public record IndexStats(int size, int capacity, long memoryBytes) {
+    }
+}
@@ -0,0 +1,543 @@
+package com.autou.emailai.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.CharBuffer;
+import java.text.Normalizer;
+
+@Component
+public class EmailTextPreprocessor implements TextPreprocessor {
+
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final int KEEP = 0;
+    private static final int SPACE = 1;
+    private static final int DROP = 2;
+
+    private static final int MAX_SIGNATURE_LINES = 6;
+    private static final int MAX_SIGNATURE_LINE_CHARS = 80;
+    private static final int MAX_SIGN_OFF_CHARS = 20;
+    private static final int MAX_GREETING_CHARS = 40;
+    private static final int MAX_DISCLAIMER_LINES = 8;
+    private static final int MAX_SIGNATURE_SENTENCE_WORDS = 3;
+    private static final int HEADER_LOOKAHEAD_LINES = 5;
+    private static final int SNAP_TO_LINE_CHARS = 160;
+    private static final String ELISION = "\n\n[...]\n\n";
+    private static final int ELISION_TOKENS = 3;
+
+    private static final String[] SIGN_OFFS = {
+            "atenciosamente", "att", "atte", "at.te", "cordialmente", "saudacoes", "saudações",
+            "abs", "abraco", "abraço", "abracos", "abraços", "um abraco", "um abraço",
+            "obrigado", "obrigada", "muito obrigado", "muito obrigada", "grato", "grata",
+            "regards", "best regards", "kind regards", "best", "thanks", "thank you", "cheers", "sincerely"
+    };
+    private static final String[] DISCLAIMERS = {
+            "aviso de confidencialidade", "aviso legal", "confidentiality notice", "disclaimer",
+            "esta mensagem pode conter", "esta mensagem e seus anexos", "esta mensagem, incluindo",
+            "this message and any attachments", "this e-mail and any", "this email and any",
+            "antes de imprimir"
+    };
+    private static final String[] GREETINGS = {
+            "oi", "ola", "olá", "bom dia", "boa tarde", "boa noite", "prezado", "prezada", "prezados", "prezadas",
+            "caro", "cara", "caros", "pessoal", "hi", "hello", "dear"
+    };
+    private static final String[] REPLY_HEADER_SENT = {
+            "enviado em:", "enviada em:", "enviado:", "enviada:", "data:", "sent:", "date:"
+    };
+    private static final String[] REPLY_HEADER_ADDRESSED = {"para:", "assunto:", "to:", "subject:"};
+    private static final String[] REPLY_HEADER_OTHER = {"cc:", "cco:", "bcc:", "importancia:", "importância:", "importance:"};
+
+    private final int maxChars;
+    private final boolean stripQuoted;
+    private final boolean stripSignature;
+    private final int maxTokens;
+    private final double headRatio;
+    private final ThreadLocal<Buffers> buffers = new ThreadLocal<>();
+
+    public EmailTextPreprocessor(
+            @Value("${analysis.preprocess.max-chars:20000}") int maxChars,
+            @Value("${analysis.preprocess.strip-quoted:true}") boolean stripQuoted,
+            @Value("${analysis.preprocess.strip-signature:true}") boolean stripSignature,
+            @Value("${analysis.preprocess.max-tokens:2000}") int maxTokens,
+            @Value("${analysis.preprocess.head-ratio:0.7}") double headRatio
+    ) {
+        this.maxChars = maxChars;
+        this.stripQuoted = stripQuoted;
+        this.stripSignature = stripSignature;
+        this.maxTokens = maxTokens;
+        this.headRatio = Math.min(1.0, Math.max(0.0, headRatio));
+    }
+
+    @Override
+    public String preprocess(String raw) {
+        if (raw == null || raw.isEmpty()) {
+            return "";
+        }
+        String text = needsNormalization(raw) ? Normalizer.normalize(raw, Normalizer.Form.NFKC) : raw;
+        int length = text.length();
+
+        Buffers buffers = acquireBuffers(length);
+        char[] in = buffers.in;
+        char[] out = buffers.out;
+        text.getChars(0, length, in, 0);
+
+        int written = clean(in, length, out, stripQuoted, stripSignature);
+        if (written == 0 && (stripQuoted || stripSignature)) {
+            // Nothing left but quoted text or signature: keep it rather than reject the email.
+            written = clean(in, length, out, false, false);
+        }
+        return fitToBudget(out, written);
+    }
+
+    /**
+     * Keeps the opening (request, context) and the closing (what is being
+     * asked) when the text is over budget; the middle is replaced by [...].
+     */
+    private String fitToBudget(char[] out, int written) {
+        if (maxTokens <= 0) {
+            return new String(out, 0, written);
+        }
+        CharBuffer text = CharBuffer.wrap(out, 0, written);
+        int total = TokenEstimator.estimate(text);
+        if (total <= maxTokens) {
+            return new String(out, 0, written);
+        }
+        int budget = Math.max(0, maxTokens - ELISION_TOKENS);
+        int headTokens = (int) (budget * headRatio);
+        int tailTokens = budget - headTokens;
+
+        int headEnd = snapHeadEnd(out, TokenEstimator.indexAtTokens(text, headTokens));
+        int tailStart = snapTailStart(out, written, TokenEstimator.indexAtTokens(text, total - tailTokens));
+        if (tailStart < headEnd) {
+            tailStart = headEnd;
+        }
+        StringBuilder result = new StringBuilder(headEnd + ELISION.length() + written - tailStart);
+        result.append(out, 0, headEnd);
+        if (tailStart < written || headEnd > 0) {
+            result.append(ELISION);
+        }
+        result.append(out, tailStart, written - tailStart);
+        return result.toString().strip();
+    }
+
+    private static int snapHeadEnd(char[] out, int index) {
+        for (int i = index; i > 0 && index - i <= SNAP_TO_LINE_CHARS; i--) {
+            if (out[i - 1] == '\n') {
+                return i - 1;
+            }
+        }
+        int i = index;
+        while (i > 0 && Character.isWhitespace(out[i - 1])) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int snapTailStart(char[] out, int written, int index) {
+        for (int i = index; i < written && i - index <= SNAP_TO_LINE_CHARS; i++) {
+            if (out[i] == '\n') {
+                return i + 1;
+            }
+        }
+        int i = index;
+        while (i < written && Character.isWhitespace(out[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private int clean(char[] in, int length, char[] out, boolean dropQuoted, boolean dropSignature) {
+        int limit = Math.min(maxChars, out.length);
+        int written = 0;
+        int pendingNewlines = 0;
+        boolean pendingSpace = false;
+        boolean lineStart = true;
+        boolean substantive = false;
+
+        int i = 0;
+        while (i < length && written < limit) {
+            if (lineStart) {
+                int contentStart = skipHorizontalSpace(in, length, i);
+                if (dropQuoted && contentStart < length && in[contentStart] == '>') {
+                    i = skipLine(in, length, contentStart);
+                    continue;
+                }
+                int lineEnd = lineEnd(in, length, contentStart);
+                if (dropQuoted && isReplyHeader(in, length, contentStart, lineEnd)) {
+                    break;
+                }
+                if (dropSignature && (isSignatureDelimiter(in, length, i)
+                        || (substantive && isDisclaimerBlock(in, length, contentStart, lineEnd))
+                        || (substantive && isSignOff(in, length, contentStart, lineEnd)))) {
+                    break;
+                }
+                substantive |= isSubstantive(in, contentStart, lineEnd);
+                i = contentStart;
+                lineStart = false;
+                pendingSpace = false;
+                if (i == length) {
+                    break;
+                }
+            }
+
+            char c = in[i++];
+            if (c == '\n' || c == '\r') {
+                if (c == '\r' && i < length && in[i] == '\n') {
+                    i++;
+                }
+                if (written > 0) {
+                    pendingNewlines = Math.min(2, pendingNewlines + 1);
+                }
+                lineStart = true;
+                continue;
+            }
+
+            int kind;
+            boolean pair = Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(in[i]);
+            if (pair) {
+                kind = classify(Character.toCodePoint(c, in[i]));
+            } else {
+                kind = classify(c);
+            }
+            if (kind == SPACE) {
+                pendingSpace = true;
+                continue;
+            }
+            if (kind == DROP) {
+                if (pair) {
+                    i++;
+                }
+                continue;
+            }
+
+            int needed = (pair ? 2 : 1) + (pendingNewlines > 0 ? pendingNewlines : (pendingSpace && written > 0 ? 1 : 0));
+            if (written + needed > limit) {
+                break;
+            }
+            if (pendingNewlines > 0) {
+                while (pendingNewlines > 0) {
+                    out[written++] = '\n';
+                    pendingNewlines--;
+                }
+            } else if (pendingSpace && written > 0) {
+                out[written++] = ' ';
+            }
+            pendingSpace = false;
+            out[written++] = c;
+            if (pair) {
+                out[written++] = in[i++];
+            }
+        }
+        return written;
+    }
+
+    private static boolean needsNormalization(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return !Normalizer.isNormalized(text, Normalizer.Form.NFKC);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start of quoted history: Gmail's "Em ... escreveu:" / "On ... wrote:"
+     * (possibly wrapped onto the next line), "-----Mensagem original-----" /
+     * "-----Original Message-----", or a complete Outlook header block: "De:/From:"
+     * followed by "Para:/Assunto:" and "Enviado:/Data:" lines. Forwarded-message
+     * separators are kept on purpose: there the forwarded text is usually what
+     * needs classifying.
+     */
+    private static boolean isReplyHeader(char[] in, int length, int start, int end) {
+        if (startsWith(in, start, end, "-----")) {
+            return contains(in, start, end, "original");
+        }
+        if (startsWith(in, start, end, "em ") || startsWith(in, start, end, "on ")) {
+            if (endsWithReplyVerb(in, start, end)) {
+                return true;
+            }
+            int next = skipHorizontalSpace(in, length, skipLine(in, length, end));
+            int nextEnd = lineEnd(in, length, next);
+            return nextEnd - next <= MAX_SIGNATURE_LINE_CHARS && endsWithReplyVerb(in, next, nextEnd);
+        }
+        if (startsWith(in, start, end, "de:") || startsWith(in, start, end, "from:")) {
+            boolean sent = false;
+            boolean addressed = false;
+            int line = skipLine(in, length, end);
+            for (int n = 0; n < HEADER_LOOKAHEAD_LINES && line < length && !(sent && addressed); n++) {
+                int lineStart = skipHorizontalSpace(in, length, line);
+                int lineEnd = lineEnd(in, length, lineStart);
+                if (startsWithAny(in, lineStart, lineEnd, REPLY_HEADER_SENT)) {
+                    sent = true;
+                } else if (startsWithAny(in, lineStart, lineEnd, REPLY_HEADER_ADDRESSED)) {
+                    addressed = true;
+                } else if (!startsWithAny(in, lineStart, lineEnd, REPLY_HEADER_OTHER)) {
+                    break;
+                }
+                line = skipLine(in, length, lineEnd);
+            }
+            return sent && addressed;
+        }
+        return false;
+    }
+
+    private static boolean startsWithAny(char[] in, int start, int end, String[] lowerPrefixes) {
+        for (String prefix : lowerPrefixes) {
+            if (startsWith(in, start, end, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean endsWithReplyVerb(char[] in, int start, int end) {
+        return endsWith(in, start, end, "escreveu:") || endsWith(in, start, end, "wrote:");
+    }
+
+    private static boolean isDisclaimer(char[] in, int start, int end) {
+        return startsWithAny(in, start, end, DISCLAIMERS);
+    }
+
+    /**
+     * A disclaimer line that opens the tail of the email: the rest is a few
+     * lines of notice with no question in them, or history. A body that
+     * merely starts with "Aviso legal:" is a request, not boilerplate.
+     */
+    private static boolean isDisclaimerBlock(char[] in, int length, int start, int end) {
+        if (!isDisclaimer(in, start, end)) {
+            return false;
+        }
+        int lines = 0;
+        int i = start;
+        while (i < length) {
+            int lineStart = skipHorizontalSpace(in, length, i);
+            int lineEnd = lineEnd(in, length, lineStart);
+            if (lineStart < lineEnd) {
+                if (lines > 0 && (in[lineStart] == '>' || isSignatureDelimiter(in, length, i)
+                        || isReplyHeader(in, length, lineStart, lineEnd))) {
+                    return true;
+                }
+                if (++lines > MAX_DISCLAIMER_LINES || contains(in, lineStart, lineEnd, "?")) {
+                    return false;
+                }
+            }
+            i = skipLine(in, length, lineEnd);
+        }
+        return true;
+    }
+
+    /**
+     * Whether a line carries content of its own, as opposed to a blank line,
+     * a bare greeting ("Bom dia,", "Prezados,") or a bare closing.
+     */
+    private static boolean isSubstantive(char[] in, int start, int end) {
+        int trimmed = trimEnd(in, start, end);
+        if (trimmed == start) {
+            return false;
+        }
+        if (trimmed - start <= MAX_GREETING_CHARS && isGreeting(in, start, trimmed)) {
+            return false;
+        }
+        return !isClosing(in, start, trimmed);
+    }
+
+    private static boolean isGreeting(char[] in, int start, int end) {
+        for (String greeting : GREETINGS) {
+            int after = start + greeting.length();
+            if (startsWith(in, start, end, greeting) && (after == end || !Character.isLetterOrDigit(in[after]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isClosing(char[] in, int start, int end) {
+        int trimmed = end;
+        while (trimmed > start && (in[trimmed - 1] == ',' || in[trimmed - 1] == '.' || in[trimmed - 1] == '!')) {
+            trimmed--;
+        }
+        if (trimmed == start || trimmed - start > MAX_SIGN_OFF_CHARS) {
+            return false;
+        }
+        for (String signOff : SIGN_OFFS) {
+            if (signOff.length() == trimmed - start && startsWith(in, start, trimmed, signOff)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A line that is only a closing ("Atenciosamente,", "Abs") and is followed
+     * by nothing but a short block (name, role, phone) or by history/disclaimer.
+     * Callers only ask once the email has said something, so a leading
+     * "Obrigado." is never mistaken for the end of the message.
+     */
+    private static boolean isSignOff(char[] in, int length, int start, int end) {
+        return isClosing(in, start, trimEnd(in, start, end))
+                && isSignatureBlock(in, length, skipLine(in, length, end));
+    }
+
+    private static boolean isSignatureBlock(char[] in, int length, int from) {
+        int lines = 0;
+        int i = from;
+        while (i < length) {
+            int start = skipHorizontalSpace(in, length, i);
+            int end = lineEnd(in, length, start);
+            if (start < end) {
+                if (in[start] == '>' || isSignatureDelimiter(in, length, i)
+                        || isReplyHeader(in, length, start, end) || isDisclaimer(in, start, end)) {
+                    return true;
+                }
+                if (++lines > MAX_SIGNATURE_LINES || end - start > MAX_SIGNATURE_LINE_CHARS
+                        || !isSignatureLine(in, start, end)) {
+                    return false;
+                }
+            }
+            i = skipLine(in, length, end);
+        }
+        return true;
+    }
+
+    /**
+     * Names, roles, companies and phone numbers; a question or a sentence
+     * ("Por favor, confirmem ate sexta.") means the message goes on.
+     */
+    private static boolean isSignatureLine(char[] in, int start, int end) {
+        int trimmed = trimEnd(in, start, end);
+        if (trimmed == start) {
+            return true;
+        }
+        int words = 0;
+        boolean inWord = false;
+        for (int i = start; i < trimmed; i++) {
+            if (in[i] == '?') {
+                return false;
+            }
+            boolean space = Character.isWhitespace(in[i]);
+            if (!space && !inWord) {
+                words++;
+            }
+            inWord = !space;
+        }
+        char last = in[trimmed - 1];
+        return words <= MAX_SIGNATURE_SENTENCE_WORDS || (last != '.' && last != '!' && last != ':');
+    }
+
+    private static boolean startsWith(char[] in, int start, int end, String lowerPrefix) {
+        int n = lowerPrefix.length();
+        if (end - start < n) {
+            return false;
+        }
+        for (int k = 0; k < n; k++) {
+            if (Character.toLowerCase(in[start + k]) != lowerPrefix.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean endsWith(char[] in, int start, int end, String lowerSuffix) {
+        int trimmed = trimEnd(in, start, end);
+        return trimmed - start >= lowerSuffix.length()
+                && startsWith(in, trimmed - lowerSuffix.length(), trimmed, lowerSuffix);
+    }
+
+    private static boolean contains(char[] in, int start, int end, String lower) {
+        for (int i = start; i + lower.length() <= end; i++) {
+            if (startsWith(in, i, end, lower)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int trimEnd(char[] in, int start, int end) {
+        int i = end;
+        while (i > start && classify(in[i - 1]) != KEEP) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int lineEnd(char[] in, int length, int from) {
+        int i = from;
+        while (i < length && in[i] != '\n' && in[i] != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isSignatureDelimiter(char[] in, int length, int lineStart) {
+        if (lineStart + 1 >= length || in[lineStart] != '-' || in[lineStart + 1] != '-') {
+            return false;
+        }
+        int i = lineStart + 2;
+        if (i < length && in[i] == ' ') {
+            i++;
+        }
+        return i == length || in[i] == '\n' || in[i] == '\r';
+    }
+
+    private static int skipHorizontalSpace(char[] in, int length, int from) {
+        int i = from;
+        while (i < length && classify(in[i]) == SPACE) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipLine(char[] in, int length, int from) {
+        int i = from;
+        while (i < length && in[i] != '\n' && in[i] != '\r') {
+            i++;
+        }
+        if (i < length && in[i] == '\r') {
+            i++;
+        }
+        if (i < length && in[i] == '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int classify(int cp) {
+        if (cp < 0x80) {
+            if (cp == ' ' || cp == '\t' || cp == '\f' || cp == 0x0B) {
+                return SPACE;
+            }
+            return (cp < 0x20 || cp == 0x7F) ? DROP : KEEP;
+        }
+        return switch (Character.getType(cp)) {
+            case Character.SPACE_SEPARATOR -> SPACE;
+            case Character.CONTROL, Character.FORMAT, Character.PRIVATE_USE, Character.SURROGATE, Character.UNASSIGNED -> DROP;
+            default -> KEEP;
+        };
+    }
+
+    private Buffers acquireBuffers(int length) {
+        // Virtual threads are not pooled, so a thread-local buffer would never be reused.
+        if (Thread.currentThread().isVirtual()) {
+            return new Buffers(length);
+        }
+        Buffers reusable = buffers.get();
+        if (reusable == null || reusable.in.length < length) {
+            reusable = new Buffers(length);
+            if (length <= MAX_RETAINED_BUFFER) {
+                buffers.set(reusable);
+            }
+        }
+        return reusable;
+    }
+
+    private static final class Buffers {
+        private final char[] in;
+        private final char[] out;
+
+        private Buffers(int length) {
+            int size = Math.max(length, 4096);
+            this.in = new char[size];
+            this.out = new char[size];
+        }
+    }
+}
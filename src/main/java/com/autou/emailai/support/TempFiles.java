@@ -0,0 +1,27 @@
+package com.autou.emailai.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public final class TempFiles {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TempFiles.class);
+
+    private TempFiles() {
+    }
+
+    public static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete temporary file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.autou.emailai.support;
+
+/**
+ * Rough BPE token count without a vocabulary: words cost about one token per
+ * four ASCII letters (three with accents), digits group by three, each line
+ * break and symbol run costs one. Close enough for budgeting, not billing.
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        return (int) scan(text, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Returns the first index at which the tokens before it would exceed
+     * {@code tokens}, always on a run boundary.
+     */
+    public static int indexAtTokens(CharSequence text, int tokens) {
+        return (int) scan(text, tokens, true);
+    }
+
+    private static long scan(CharSequence text, int maxTokens, boolean returnIndex) {
+        int length = text.length();
+        int tokens = 0;
+        int i = 0;
+        while (i < length) {
+            int end = runEnd(text, i, length);
+            int cost = runTokens(text, i, end);
+            if ((long) tokens + cost > maxTokens) {
+                return returnIndex ? i : tokens;
+            }
+            tokens += cost;
+            i = end;
+        }
+        return returnIndex ? length : tokens;
+    }
+
+    private static int runEnd(CharSequence text, int start, int length) {
+        char first = text.charAt(start);
+        if (Character.isHighSurrogate(first) && start + 1 < length) {
+            return start + 2;
+        }
+        int i = start + 1;
+        if (Character.isWhitespace(first)) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+        } else if (Character.isLetter(first)) {
+            while (i < length && (Character.isLetter(text.charAt(i)) || Character.getType(text.charAt(i)) == Character.NON_SPACING_MARK)) {
+                i++;
+            }
+        } else if (Character.isDigit(first)) {
+            while (i < length && Character.isDigit(text.charAt(i))) {
+                i++;
+            }
+        } else {
+            while (i < length && text.charAt(i) == first) {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static int runTokens(CharSequence text, int start, int end) {
+        char first = text.charAt(start);
+        int n = end - start;
+        if (Character.isHighSurrogate(first)) {
+            return 2;
+        }
+        if (Character.isWhitespace(first)) {
+            int newlines = 0;
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i) == '\n') {
+                    newlines++;
+                }
+            }
+            return (newlines > 0) ? newlines : (n > 1 ? 1 : 0);
+        }
+        if (Character.isLetter(first)) {
+            int widest = 0;
+            for (int i = start; i < end; i++) {
+                widest = Math.max(widest, text.charAt(i));
+            }
+            if (widest < 0x80) {
+                return ceilDiv(n, 4);
+            }
+            if (widest < 0x250) {
+                return ceilDiv(n, 3);
+            }
+            return (widest >= 0x2E80) ? n : ceilDiv(n, 2);
+        }
+        if (Character.isDigit(first)) {
+            return ceilDiv(n, 3);
+        }
+        return ceilDiv(n, 4);
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,55 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.ports.in.AnalysisHistoryUseCase;
+import com.autou.emailai.domain.AnalysisHistoryPage;
+import com.autou.emailai.domain.AnalysisRecord;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.web.dto.AnalysisHistoryItemResponse;
+import com.autou.emailai.web.dto.AnalysisHistoryResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analyses")
+public class AnalysisHistoryApiController {
+
+    private final AnalysisHistoryUseCase analysisHistoryUseCase;
+
+    public AnalysisHistoryApiController(AnalysisHistoryUseCase analysisHistoryUseCase) {
+        this.analysisHistoryUseCase = analysisHistoryUseCase;
+    }
+
+    @GetMapping
+    public AnalysisHistoryResponse list(
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "20") int size
+    ) {
+        AnalysisHistoryPage result = analysisHistoryUseCase.list(category, from, to, page, size);
+        List<AnalysisHistoryItemResponse> items = result.items().stream()
+                .map(this::toItem)
+                .toList();
+        return new AnalysisHistoryResponse(items, result.page(), result.size(), result.total());
+    }
+
+    private AnalysisHistoryItemResponse toItem(AnalysisRecord record) {
+        EmailAnalysisResult result = record.result();
+        return new AnalysisHistoryItemResponse(
+                record.contentHash(),
+                result.category().name(),
+                result.confidence(),
+                result.reason(),
+                result.suggestedReply(),
+                result.model(),
+                record.analyzedAt()
+        );
+    }
+}
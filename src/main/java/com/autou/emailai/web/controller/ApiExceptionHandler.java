@@ -0,0 +1,85 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.exception.AiNotConfiguredException;
+import com.autou.emailai.application.exception.AiQuotaException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.exception.AiUnavailableException;
+import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.exception.JobQueueFullException;
+import com.autou.emailai.web.dto.ApiErrorResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RestControllerAdvice(annotations = RestController.class)
+public class ApiExceptionHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApiExceptionHandler.class);
+    private static final String MSG_UNEXPECTED = "Erro inesperado. Tente novamente.";
+    private static final String MSG_BAD_REQUEST = "Requisicao invalida.";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler({InvalidFileException.class, IllegalArgumentException.class})
+    public ResponseEntity<ApiErrorResponse> handleBadRequest(RuntimeException ex) {
+        return error(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler({HttpMessageNotReadableException.class, MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<ApiErrorResponse> handleUnreadable(Exception ex) {
+        return error(HttpStatus.BAD_REQUEST, MSG_BAD_REQUEST);
+    }
+
+    @ExceptionHandler(AiNotConfiguredException.class)
+    public ResponseEntity<ApiErrorResponse> handleNotConfigured(AiNotConfiguredException ex) {
+        return error(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(AiQuotaException.class)
+    public ResponseEntity<ApiErrorResponse> handleQuota(AiQuotaException ex) {
+        return error(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+    }
+
+    @ExceptionHandler(JobQueueFullException.class)
+    public ResponseEntity<ApiErrorResponse> handleQueueFull(JobQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(new ApiErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(AiUnavailableException.class)
+    public ResponseEntity<ApiErrorResponse> handleUnavailable(AiUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler({AiRequestFailedException.class, InvalidAiResponseException.class})
+    public ResponseEntity<ApiErrorResponse> handleUpstream(RuntimeException ex) {
+        return error(HttpStatus.BAD_GATEWAY, ex.getMessage());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiErrorResponse> handleUnexpected(Exception ex) {
+        if (ex instanceof ErrorResponse errorResponse) {
+            return ResponseEntity.status(errorResponse.getStatusCode()).body(new ApiErrorResponse(MSG_BAD_REQUEST));
+        }
+        LOGGER.error("Unexpected error in API flow", ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, MSG_UNEXPECTED);
+    }
+
+    private ResponseEntity<ApiErrorResponse> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(new ApiErrorResponse(message));
+    }
+}
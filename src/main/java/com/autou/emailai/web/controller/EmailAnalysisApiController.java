@@ -0,0 +1,73 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.web.dto.AnalyzeResultViewModel;
+import com.autou.emailai.web.dto.AnalyzeTextRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Synchronous-looking analysis API served asynchronously: the request thread
+ * is released as soon as the analysis is handed off and the response is
+ * written when the AI answers.
+ */
+@RestController
+@RequestMapping("/api/analyze")
+public class EmailAnalysisApiController {
+
+    private static final String MSG_FILE_REQUIRED = "Selecione um arquivo .txt, .pdf, .eml, .html ou .docx para analise.";
+
+    private final EmailAnalysisUseCase emailAnalysisUseCase;
+    private final UploadSpooler uploadSpooler;
+
+    public EmailAnalysisApiController(EmailAnalysisUseCase emailAnalysisUseCase, UploadSpooler uploadSpooler) {
+        this.emailAnalysisUseCase = emailAnalysisUseCase;
+        this.uploadSpooler = uploadSpooler;
+    }
+
+    @PostMapping(path = "/text", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<AnalyzeResultViewModel> analyzeText(@RequestBody AnalyzeTextRequest request) {
+        String text = (request == null) ? null : request.text();
+        return emailAnalysisUseCase.analyzeTextAsync(text).thenApply(this::toViewModel);
+    }
+
+    @PostMapping(path = "/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<AnalyzeResultViewModel> analyzeFile(@RequestParam("file") MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidFileException(MSG_FILE_REQUIRED);
+        }
+
+        String filename = (file.getOriginalFilename() != null) ? file.getOriginalFilename() : "arquivo";
+        Path spooled = uploadSpooler.spool(file);
+        CompletableFuture<EmailAnalysisResult> analysis;
+        try {
+            analysis = emailAnalysisUseCase.analyzeFileAsync(spooled, filename, file.getContentType());
+        } catch (RuntimeException ex) {
+            uploadSpooler.delete(spooled);
+            throw ex;
+        }
+        // The multipart part is gone once the request thread returns; the spooled copy lives until the analysis ends.
+        return analysis
+                .whenComplete((result, error) -> uploadSpooler.delete(spooled))
+                .thenApply(this::toViewModel);
+    }
+
+    private AnalyzeResultViewModel toViewModel(EmailAnalysisResult result) {
+        return new AnalyzeResultViewModel(
+                result.category().name(),
+                result.confidence(),
+                result.reason(),
+                result.suggestedReply()
+        );
+    }
+}
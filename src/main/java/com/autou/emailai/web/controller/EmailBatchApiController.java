@@ -0,0 +1,86 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.in.BatchEmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.dto.BatchItemResult;
+import com.autou.emailai.application.ports.in.dto.FileInput;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.web.dto.AnalyzeResultViewModel;
+import com.autou.emailai.web.dto.BatchAnalyzeResponse;
+import com.autou.emailai.web.dto.BatchAnalyzeTextRequest;
+import com.autou.emailai.web.dto.BatchItemResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analyze/batch")
+public class EmailBatchApiController {
+
+    private static final String MSG_FILES_REQUIRED = "Selecione ao menos um arquivo .txt, .pdf, .eml, .html ou .docx para analise.";
+
+    private final BatchEmailAnalysisUseCase batchEmailAnalysisUseCase;
+    private final UploadSpooler uploadSpooler;
+
+    public EmailBatchApiController(BatchEmailAnalysisUseCase batchEmailAnalysisUseCase, UploadSpooler uploadSpooler) {
+        this.batchEmailAnalysisUseCase = batchEmailAnalysisUseCase;
+        this.uploadSpooler = uploadSpooler;
+    }
+
+    @PostMapping(path = "/text", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchAnalyzeResponse analyzeTexts(@RequestBody BatchAnalyzeTextRequest request) {
+        List<String> texts = (request == null) ? null : request.texts();
+        return toResponse(batchEmailAnalysisUseCase.analyzeTexts(texts));
+    }
+
+    @PostMapping(path = "/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public BatchAnalyzeResponse analyzeFiles(@RequestParam("files") List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new InvalidFileException(MSG_FILES_REQUIRED);
+        }
+
+        List<Path> spooled = uploadSpooler.spoolAll(files);
+        try {
+            List<FileInput> inputs = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                String filename = (file.getOriginalFilename() != null) ? file.getOriginalFilename() : "arquivo";
+                inputs.add(new FileInput(spooled.get(i), filename, file.getContentType()));
+            }
+            return toResponse(batchEmailAnalysisUseCase.analyzeFiles(inputs));
+        } finally {
+            uploadSpooler.deleteAll(spooled);
+        }
+    }
+
+    private BatchAnalyzeResponse toResponse(List<BatchItemResult> results) {
+        List<BatchItemResponse> items = new ArrayList<>(results.size());
+        int succeeded = 0;
+        for (BatchItemResult item : results) {
+            if (item.isSuccess()) {
+                succeeded++;
+                items.add(new BatchItemResponse(item.index(), toViewModel(item.result()), null));
+            } else {
+                items.add(new BatchItemResponse(item.index(), null, item.errorMessage()));
+            }
+        }
+        return new BatchAnalyzeResponse(results.size(), succeeded, results.size() - succeeded, items);
+    }
+
+    private AnalyzeResultViewModel toViewModel(EmailAnalysisResult result) {
+        return new AnalyzeResultViewModel(
+                result.category().name(),
+                result.confidence(),
+                result.reason(),
+                result.suggestedReply()
+        );
+    }
+}
@@ -0,0 +1,105 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.in.AnalysisJobUseCase;
+import com.autou.emailai.application.ports.in.dto.FileInput;
+import com.autou.emailai.domain.AnalysisJob;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.web.dto.AnalyzeResultViewModel;
+import com.autou.emailai.web.dto.AnalyzeTextRequest;
+import com.autou.emailai.web.dto.JobResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class EmailJobApiController {
+
+    private static final String MSG_FILE_REQUIRED = "Selecione um arquivo .txt, .pdf, .eml, .html ou .docx para analise.";
+
+    private final AnalysisJobUseCase analysisJobUseCase;
+    private final Duration maxWait;
+    private final UploadSpooler uploadSpooler;
+
+    public EmailJobApiController(
+            AnalysisJobUseCase analysisJobUseCase,
+            UploadSpooler uploadSpooler,
+            @Value("${analysis.jobs.max-wait:PT25S}") Duration maxWait
+    ) {
+        this.analysisJobUseCase = analysisJobUseCase;
+        this.maxWait = maxWait;
+        this.uploadSpooler = uploadSpooler;
+    }
+
+    @PostMapping(path = "/text", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<JobResponse> submitText(@RequestBody AnalyzeTextRequest request) {
+        String text = (request == null) ? null : request.text();
+        return accepted(analysisJobUseCase.submitText(text));
+    }
+
+    @PostMapping(path = "/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<JobResponse> submitFile(@RequestParam("file") MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidFileException(MSG_FILE_REQUIRED);
+        }
+
+        String filename = (file.getOriginalFilename() != null) ? file.getOriginalFilename() : "arquivo";
+        // The job service deletes the spooled file once the job has run or been rejected.
+        return accepted(analysisJobUseCase.submitFile(new FileInput(uploadSpooler.spool(file), filename, file.getContentType())));
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<JobResponse>> get(
+            @PathVariable("id") String id,
+            @RequestParam(name = "waitSeconds", defaultValue = "0") long waitSeconds
+    ) {
+        Duration wait = Duration.ofSeconds(Math.max(0, waitSeconds));
+        if (wait.compareTo(maxWait) > 0) {
+            wait = maxWait;
+        }
+        return analysisJobUseCase.await(id, wait)
+                .thenApply(job -> job
+                        .map(found -> ResponseEntity.ok(toResponse(found)))
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    private ResponseEntity<JobResponse> accepted(AnalysisJob job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/jobs/" + job.id()))
+                .body(toResponse(job));
+    }
+
+    private JobResponse toResponse(AnalysisJob job) {
+        return new JobResponse(
+                job.id(),
+                job.status().name(),
+                (job.result() != null) ? toViewModel(job.result()) : null,
+                job.errorMessage(),
+                job.createdAt(),
+                job.updatedAt()
+        );
+    }
+
+    private AnalyzeResultViewModel toViewModel(EmailAnalysisResult result) {
+        return new AnalyzeResultViewModel(
+                result.category().name(),
+                result.confidence(),
+                result.reason(),
+                result.suggestedReply()
+        );
+    }
+}
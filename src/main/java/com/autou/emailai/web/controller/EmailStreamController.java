@@ -0,0 +1,118 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.exception.AiNotConfiguredException;
+import com.autou.emailai.application.exception.AiQuotaException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.application.ports.in.AnalysisProgressListener;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import com.autou.emailai.web.dto.AnalyzeResultViewModel;
+import com.autou.emailai.web.dto.ApiErrorResponse;
+import com.autou.emailai.web.dto.StreamClassificationEvent;
+import com.autou.emailai.web.dto.StreamReplyEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RestController
+public class EmailStreamController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmailStreamController.class);
+    private static final String MSG_UNEXPECTED = "Erro inesperado. Tente novamente.";
+    private static final String EVENT_CLASSIFICATION = "classification";
+    private static final String EVENT_REPLY = "reply";
+    private static final String EVENT_RESULT = "result";
+    private static final String EVENT_ERROR = "error";
+
+    private final EmailAnalysisUseCase emailAnalysisUseCase;
+    private final long timeoutMillis;
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public EmailStreamController(
+            EmailAnalysisUseCase emailAnalysisUseCase,
+            @Value("${analysis.stream.timeout:PT120S}") Duration timeout
+    ) {
+        this.emailAnalysisUseCase = emailAnalysisUseCase;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamExecutor.shutdownNow();
+    }
+
+    @PostMapping(path = "/analyze-text/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter analyzeTextStream(@RequestParam("text") String text) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        streamExecutor.execute(() -> stream(text, emitter));
+        return emitter;
+    }
+
+    private void stream(String text, SseEmitter emitter) {
+        try {
+            EmailAnalysisResult result = emailAnalysisUseCase.analyzeTextStreaming(text, new AnalysisProgressListener() {
+                @Override
+                public void onClassification(EmailCategory category, double confidence) {
+                    send(emitter, EVENT_CLASSIFICATION, new StreamClassificationEvent(category.name(), confidence));
+                }
+
+                @Override
+                public void onReplyDelta(String delta) {
+                    send(emitter, EVENT_REPLY, new StreamReplyEvent(delta));
+                }
+            });
+            send(emitter, EVENT_RESULT, toViewModel(result));
+            emitter.complete();
+        } catch (UncheckedIOException ex) {
+            LOGGER.debug("SSE client disconnected", ex);
+            emitter.completeWithError(ex.getCause());
+        } catch (AiNotConfiguredException | AiQuotaException | AiRequestFailedException
+                 | InvalidAiResponseException | IllegalArgumentException ex) {
+            sendErrorAndComplete(emitter, ex.getMessage());
+        } catch (RuntimeException ex) {
+            LOGGER.error("Unexpected error in streaming flow", ex);
+            sendErrorAndComplete(emitter, MSG_UNEXPECTED);
+        }
+    }
+
+    private void sendErrorAndComplete(SseEmitter emitter, String message) {
+        try {
+            send(emitter, EVENT_ERROR, new ApiErrorResponse(message));
+            emitter.complete();
+        } catch (UncheckedIOException ex) {
+            emitter.completeWithError(ex.getCause());
+        }
+    }
+
+    private void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException ex) {
+            // Aborts the analysis, and with it the upstream stream, once the browser is gone.
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private AnalyzeResultViewModel toViewModel(EmailAnalysisResult result) {
+        return new AnalyzeResultViewModel(
+                result.category().name(),
+                result.confidence(),
+                result.reason(),
+                result.suggestedReply()
+        );
+    }
+}
@@ -11,19 +11,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.nio.file.Path;
 
 @Controller
 public class EmailUiController {
 
     private static final String INDEX_VIEW = "index";
-    private static final String MSG_FILE_REQUIRED = "Selecione um arquivo .txt ou .pdf para analise.";
-    private static final String MSG_FILE_READ_FAILED = "Nao foi possivel ler o arquivo enviado.";
+    private static final String MSG_FILE_REQUIRED = "Selecione um arquivo .txt, .pdf, .eml, .html ou .docx para analise.";
 
     private final EmailAnalysisUseCase emailAnalysisUseCase;
+    private final UploadSpooler uploadSpooler;
 
-    public EmailUiController(EmailAnalysisUseCase emailAnalysisUseCase) {
+    public EmailUiController(EmailAnalysisUseCase emailAnalysisUseCase, UploadSpooler uploadSpooler) {
         this.emailAnalysisUseCase = emailAnalysisUseCase;
+        this.uploadSpooler = uploadSpooler;
     }
 
     @GetMapping("/")
@@ -47,15 +48,14 @@ public class EmailUiController {
         String filename = (file.getOriginalFilename() != null) ? file.getOriginalFilename() : "arquivo";
         String contentType = file.getContentType();
 
-        byte[] bytes;
+        Path spooled = uploadSpooler.spool(file);
         try {
-            bytes = file.getBytes();
-        } catch (IOException e) {
-            throw new InvalidFileException(MSG_FILE_READ_FAILED, e);
+            EmailAnalysisResult result = emailAnalysisUseCase.analyzeFile(spooled, filename, contentType);
+            model.addAttribute("result", toViewModel(result));
+            return INDEX_VIEW;
+        } finally {
+            uploadSpooler.delete(spooled);
         }
-        EmailAnalysisResult result = emailAnalysisUseCase.analyzeFile(bytes, filename, contentType);
-        model.addAttribute("result", toViewModel(result));
-        return INDEX_VIEW;
     }
 
     private AnalyzeResultViewModel toViewModel(EmailAnalysisResult result) {
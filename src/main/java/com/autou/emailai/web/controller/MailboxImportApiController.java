@@ -0,0 +1,170 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.ports.in.MailboxImportUseCase;
+import com.autou.emailai.application.ports.in.dto.MailboxItemResult;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.web.dto.MailboxImportItemResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Bulk import of a mailbox sent as the raw request body (no multipart, so
+ * nothing is spooled or size-limited by the upload settings). One line is
+ * written and flushed per classified message, as JSON lines or CSV.
+ */
+@RestController
+@RequestMapping("/api/import")
+public class MailboxImportApiController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MailboxImportApiController.class);
+    private static final String MSG_INVALID_FORMAT = "Formato de saida invalido. Use jsonl ou csv.";
+    private static final String CSV_HEADER = "index,message_id,from,subject,category,confidence,reason,suggested_reply,error\n";
+
+    private enum OutputFormat {
+        JSONL("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        OutputFormat(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    private final MailboxImportUseCase mailboxImportUseCase;
+    private final ObjectMapper objectMapper;
+
+    public MailboxImportApiController(MailboxImportUseCase mailboxImportUseCase, ObjectMapper objectMapper) {
+        this.mailboxImportUseCase = mailboxImportUseCase;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(path = "/mbox", consumes = {"application/mbox", "message/rfc822",
+            MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public void importMailbox(
+            @RequestParam(name = "format", defaultValue = "jsonl") String format,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        OutputFormat output = parseFormat(format);
+        ResponseLines lines = new ResponseLines(response, output);
+        try {
+            mailboxImportUseCase.importMailbox(request.getInputStream(), item -> lines.write(toResponse(item)));
+            lines.flush();
+        } catch (UncheckedIOException e) {
+            // The client stopped sending or reading; the import was aborted and nobody is left to answer.
+            LOGGER.info("Mailbox import aborted: {}", e.getMessage());
+        }
+    }
+
+    private static OutputFormat parseFormat(String format) {
+        try {
+            return OutputFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(MSG_INVALID_FORMAT);
+        }
+    }
+
+    private MailboxImportItemResponse toResponse(MailboxItemResult item) {
+        EmailAnalysisResult result = item.result();
+        if (result == null) {
+            return new MailboxImportItemResponse(item.index(), item.messageId(), item.from(), item.subject(),
+                    null, null, null, null, item.errorMessage());
+        }
+        return new MailboxImportItemResponse(item.index(), item.messageId(), item.from(), item.subject(),
+                result.category().name(), result.confidence(), result.reason(), result.suggestedReply(), null);
+    }
+
+    private String toJsonLine(MailboxImportItemResponse item) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(item) + "\n";
+    }
+
+    private static String toCsv(MailboxImportItemResponse item) {
+        return String.join(",",
+                Integer.toString(item.index()),
+                csvField(item.messageId()),
+                csvField(item.from()),
+                csvField(item.subject()),
+                csvField(item.category()),
+                (item.confidence() != null) ? item.confidence().toString() : "",
+                csvField(item.reason()),
+                csvField(item.suggestedReply()),
+                csvField(item.error())
+        ) + "\n";
+    }
+
+    /**
+     * Quotes the value when needed, and defuses values a spreadsheet would
+     * run as a formula: the subject and sender come from the mailbox as is.
+     */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    /**
+     * Sets the response up on the first line, so that errors raised before
+     * any message (empty or unreadable mailbox) still get a JSON error body.
+     */
+    private final class ResponseLines {
+
+        private final HttpServletResponse response;
+        private final OutputFormat output;
+        private Writer writer;
+
+        private ResponseLines(HttpServletResponse response, OutputFormat output) {
+            this.response = response;
+            this.output = output;
+        }
+
+        private void write(MailboxImportItemResponse item) {
+            try {
+                if (writer == null) {
+                    response.setContentType(output.contentType);
+                    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                    writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+                    if (output == OutputFormat.CSV) {
+                        writer.write(CSV_HEADER);
+                    }
+                }
+                writer.write(output == OutputFormat.CSV ? toCsv(item) : toJsonLine(item));
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flush() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.support.TempFiles;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves multipart uploads into temporary files the controllers own, so the
+ * content never goes through {@link MultipartFile#getBytes()}.
+ */
+@Component
+public class UploadSpooler {
+
+    private static final String UPLOAD_PREFIX = "email-upload-";
+    private static final String MSG_FILE_READ_FAILED = "Nao foi possivel ler o arquivo enviado.";
+
+    private final Timer fileReadTimer;
+
+    public UploadSpooler(MeterRegistry meterRegistry) {
+        this.fileReadTimer = meterRegistry.timer("email.analysis.stage", "stage", "file_read");
+    }
+
+    public Path spool(MultipartFile file) {
+        Timer.Sample sample = Timer.start();
+        Path target = null;
+        try {
+            target = Files.createTempFile(UPLOAD_PREFIX, null);
+            // An upload Tomcat already spooled to disk is moved here, not copied through the heap.
+            file.transferTo(target.toFile());
+            return target;
+        } catch (IOException e) {
+            TempFiles.deleteQuietly(target);
+            throw new InvalidFileException(MSG_FILE_READ_FAILED, e);
+        } finally {
+            sample.stop(fileReadTimer);
+        }
+    }
+
+    /**
+     * Spools every upload, deleting the ones already written if a later one fails.
+     */
+    public List<Path> spoolAll(List<MultipartFile> files) {
+        List<Path> spooled = new ArrayList<>(files.size());
+        try {
+            for (MultipartFile file : files) {
+                spooled.add(spool(file));
+            }
+            return spooled;
+        } catch (RuntimeException ex) {
+            deleteAll(spooled);
+            throw ex;
+        }
+    }
+
+    public void delete(Path path) {
+        TempFiles.deleteQuietly(path);
+    }
+
+    public void deleteAll(List<Path> paths) {
+        for (Path path : paths) {
+            TempFiles.deleteQuietly(path);
+        }
+    }
+}
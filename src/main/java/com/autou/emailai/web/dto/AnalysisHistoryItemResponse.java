@@ -0,0 +1,14 @@
+package com.autou.emailai.web.dto;
+
+import java.time.Instant;
+
+public record AnalysisHistoryItemResponse(
+        String contentHash,
+        String category,
+        double confidence,
+        String reason,
+        String suggestedReply,
+        String model,
+        Instant analyzedAt
+) {
+}
@@ -0,0 +1,11 @@
+package com.autou.emailai.web.dto;
+
+import java.util.List;
+
+public record AnalysisHistoryResponse(
+        List<AnalysisHistoryItemResponse> items,
+        int page,
+        int size,
+        long total
+) {
+}
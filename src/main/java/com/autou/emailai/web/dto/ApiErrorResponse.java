@@ -0,0 +1,4 @@
+package com.autou.emailai.web.dto;
+
+public record ApiErrorResponse(String error) {
+}
@@ -0,0 +1,11 @@
+package com.autou.emailai.web.dto;
+
+import java.util.List;
+
+public record BatchAnalyzeResponse(
+        int total,
+        int succeeded,
+        int failed,
+        List<BatchItemResponse> items
+) {
+}
@@ -0,0 +1,6 @@
+package com.autou.emailai.web.dto;
+
+import java.util.List;
+
+public record BatchAnalyzeTextRequest(List<String> texts) {
+}
@@ -0,0 +1,8 @@
+package com.autou.emailai.web.dto;
+
+public record BatchItemResponse(
+        int index,
+        AnalyzeResultViewModel result,
+        String error
+) {
+}
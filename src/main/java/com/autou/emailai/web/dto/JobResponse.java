@@ -0,0 +1,13 @@
+package com.autou.emailai.web.dto;
+
+import java.time.Instant;
+
+public record JobResponse(
+        String id,
+        String status,
+        AnalyzeResultViewModel result,
+        String error,
+        Instant createdAt,
+        Instant updatedAt
+) {
+}
@@ -0,0 +1,14 @@
+package com.autou.emailai.web.dto;
+
+public record MailboxImportItemResponse(
+        int index,
+        String messageId,
+        String from,
+        String subject,
+        String category,
+        Double confidence,
+        String reason,
+        String suggestedReply,
+        String error
+) {
+}
@@ -0,0 +1,7 @@
+package com.autou.emailai.web.dto;
+
+public record StreamClassificationEvent(
+        String category,
+        double confidence
+) {
+}
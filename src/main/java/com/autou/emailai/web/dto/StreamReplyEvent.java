@@ -0,0 +1,4 @@
+package com.autou.emailai.web.dto;
+
+public record StreamReplyEvent(String delta) {
+}
@@ -0,0 +1,107 @@
+package com.autou.emailai.application;
+
+import com.autou.emailai.application.exception.JobQueueFullException;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.dto.FileInput;
+import com.autou.emailai.domain.AnalysisJob;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import com.autou.emailai.domain.JobStatus;
+import com.autou.emailai.infrastructure.job.InMemoryAnalysisJobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalysisJobServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void deletesTheUploadOnceTheJobHasRun() throws IOException {
+        Path upload = Files.writeString(dir.resolve("upload.txt"), "Preciso do boleto de novembro.");
+        EmailAnalysisUseCase analysis = mock(EmailAnalysisUseCase.class);
+        when(analysis.analyzeFile(any(Path.class), anyString(), anyString())).thenAnswer(invocation -> {
+            assertThat((Path) invocation.getArgument(0)).exists();
+            return new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "Pedido de boleto.", "Ok.", "openai");
+        });
+        AnalysisJobService jobs = new AnalysisJobService(analysis, new InMemoryAnalysisJobStore(10, Duration.ofHours(1)),
+                new SimpleMeterRegistry(), 1, 10);
+
+        try {
+            AnalysisJob job = jobs.submitFile(new FileInput(upload, "upload.txt", "text/plain"));
+            Optional<AnalysisJob> finished = jobs.await(job.id(), Duration.ofSeconds(5)).join();
+
+            assertThat(finished).hasValueSatisfying(found -> assertThat(found.status()).isEqualTo(JobStatus.SUCCEEDED));
+            assertThat(upload).doesNotExist();
+        } finally {
+            jobs.shutdown();
+        }
+    }
+
+    @Test
+    void deletesTheUploadWhenTheJobIsRejected() throws IOException {
+        Path upload = Files.writeString(dir.resolve("upload.txt"), "Preciso do boleto de novembro.");
+        AnalysisJobService jobs = new AnalysisJobService(mock(EmailAnalysisUseCase.class),
+                new InMemoryAnalysisJobStore(0, Duration.ofHours(1)), new SimpleMeterRegistry(), 1, 10);
+
+        try {
+            assertThatThrownBy(() -> jobs.submitFile(new FileInput(upload, "upload.txt", "text/plain")))
+                    .isInstanceOf(JobQueueFullException.class);
+            assertThat(upload).doesNotExist();
+        } finally {
+            jobs.shutdown();
+        }
+    }
+
+    @Test
+    void aJobRejectedByTheWorkersLeavesNothingBehindInTheStore() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EmailAnalysisUseCase analysis = mock(EmailAnalysisUseCase.class);
+        when(analysis.analyzeText(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "Pedido.", "Ok.", "openai");
+        });
+        List<String> added = new ArrayList<>();
+        InMemoryAnalysisJobStore store = new InMemoryAnalysisJobStore(10, Duration.ofHours(1)) {
+            @Override
+            public boolean add(AnalysisJob job) {
+                added.add(job.id());
+                return super.add(job);
+            }
+        };
+        AnalysisJobService jobs = new AnalysisJobService(analysis, store, new SimpleMeterRegistry(), 1, 1);
+
+        try {
+            jobs.submitText("Primeiro pedido.");
+            started.await();
+            jobs.submitText("Segundo pedido.");
+
+            assertThatThrownBy(() -> jobs.submitText("Terceiro pedido."))
+                    .isInstanceOf(JobQueueFullException.class);
+            assertThat(added).hasSize(3);
+            assertThat(store.find(added.get(2))).isEmpty();
+        } finally {
+            release.countDown();
+            jobs.shutdown();
+        }
+    }
+}
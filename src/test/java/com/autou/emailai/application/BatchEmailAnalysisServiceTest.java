@@ -0,0 +1,93 @@
+package com.autou.emailai.application;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.dto.BatchItemResult;
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchEmailAnalysisServiceTest {
+
+    @Test
+    void packedGroupsReportEachItemAtItsOwnIndex() {
+        List<List<String>> packs = Collections.synchronizedList(new ArrayList<>());
+        AiClient ai = new AiClient() {
+            @Override
+            public AiAnalysisResponse analyze(String cleanedEmailText) {
+                return new AiAnalysisResponse("PRODUTIVO", 0.9, cleanedEmailText, "Ok.", "openai");
+            }
+
+            @Override
+            public List<AiAnalysisResponse> analyzeAll(List<String> cleanedEmailTexts) {
+                packs.add(List.copyOf(cleanedEmailTexts));
+                return AiClient.super.analyzeAll(cleanedEmailTexts);
+            }
+        };
+        EmailAnalysisService analysis = EmailAnalysisServiceTest.newService(ai);
+        BatchEmailAnalysisService batch = new BatchEmailAnalysisService(analysis, new SimpleMeterRegistry(), 4, 10, 2);
+
+        List<BatchItemResult> results = batch.analyzeTexts(List.of("Primeiro pedido.", "   ", "Segundo pedido.", "Terceiro pedido."));
+
+        assertThat(results).extracting(BatchItemResult::index).containsExactly(0, 1, 2, 3);
+        assertThat(results).extracting(BatchItemResult::isSuccess).containsExactly(true, false, true, true);
+        assertThat(results.get(3).result().reason()).isEqualTo("Terceiro pedido.");
+        assertThat(packs).containsExactlyInAnyOrder(List.of("Primeiro pedido."), List.of("Segundo pedido.", "Terceiro pedido."));
+    }
+
+    @Test
+    void neverRunsMoreItemsThanTheConcurrencyLimit() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        EmailAnalysisUseCase analysis = mock(EmailAnalysisUseCase.class);
+        when(analysis.analyzeText(anyString())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+            } finally {
+                running.decrementAndGet();
+            }
+            if (invocation.<String>getArgument(0).contains("falha")) {
+                throw new InvalidFileException("Texto invalido.");
+            }
+            return new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "Pedido.", "Ok.", "openai");
+        });
+        BatchEmailAnalysisService batch = new BatchEmailAnalysisService(analysis, new SimpleMeterRegistry(), 3, 50, 1);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            texts.add((i == 7) ? "falha" : "Pedido " + i);
+        }
+
+        List<BatchItemResult> results = batch.analyzeTexts(texts);
+
+        assertThat(maxRunning.get()).isBetween(1, 3);
+        assertThat(results).extracting(BatchItemResult::index).containsExactlyElementsOf(IntStream.range(0, 30).boxed().toList());
+        assertThat(results).filteredOn(item -> !item.isSuccess()).extracting(BatchItemResult::index).containsExactly(7);
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedBatches() {
+        BatchEmailAnalysisService batch =
+                new BatchEmailAnalysisService(mock(EmailAnalysisUseCase.class), new SimpleMeterRegistry(), 3, 2, 1);
+
+        assertThatThrownBy(() -> batch.analyzeTexts(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> batch.analyzeTexts(List.of("a", "b", "c")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Lote excede o limite de 2 itens.");
+    }
+}
@@ -0,0 +1,269 @@
+package com.autou.emailai.application;
+
+import com.autou.emailai.application.exception.InvalidAiResponseException;
+import com.autou.emailai.application.exception.JobQueueFullException;
+import com.autou.emailai.application.ports.in.AnalysisProgressListener;
+import com.autou.emailai.application.ports.in.dto.BatchItemResult;
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.AnalysisHistoryStore;
+import com.autou.emailai.application.ports.out.SimilarAnalysisIndex;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.domain.AnalysisHistoryPage;
+import com.autou.emailai.domain.AnalysisRecord;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import com.autou.emailai.support.EmailTextPreprocessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class EmailAnalysisServiceTest {
+
+    private EmailAnalysisService service;
+
+    @Test
+    void emptyItemFailsAloneAndTheRestIsPackedTogether() {
+        PackingClient ai = new PackingClient(Set.of());
+        service = newService(ai);
+
+        List<BatchItemResult> results = service.analyzeTexts(List.of("Preciso do boleto de novembro.", " \n\t ", "Segue o contrato assinado."));
+
+        assertThat(results).extracting(BatchItemResult::isSuccess).containsExactly(true, false, true);
+        assertThat(results.get(1).errorMessage()).isEqualTo("Cole um texto de e-mail para analise.");
+        assertThat(results.get(0).result().reason()).isEqualTo("Preciso do boleto de novembro.");
+        assertThat(results.get(2).result().reason()).isEqualTo("Segue o contrato assinado.");
+        assertThat(ai.packs).containsExactly(List.of("Preciso do boleto de novembro.", "Segue o contrato assinado."));
+        assertThat(ai.singles).isEmpty();
+    }
+
+    @Test
+    void retriesOnlyTheItemsThePackLeftUnanswered() {
+        PackingClient ai = new PackingClient(Set.of("Segue o contrato assinado."));
+        service = newService(ai);
+
+        List<BatchItemResult> results = service.analyzeTexts(List.of("Preciso do boleto de novembro.", "Segue o contrato assinado.", "Feliz natal!"));
+
+        assertThat(results).extracting(BatchItemResult::isSuccess).containsExactly(true, false, true);
+        assertThat(results.get(1).errorMessage()).isEqualTo("Resposta da IA invalida. Tente novamente.");
+        assertThat(ai.packs).hasSize(1);
+        assertThat(ai.singles).containsExactly("Segue o contrato assinado.");
+    }
+
+    @Test
+    void neverRemembersLocalStandInsFromADegradedClient() {
+        List<AnalysisRecord> history = new ArrayList<>();
+        List<String> indexed = new ArrayList<>();
+        AnalysisHistoryStore store = historyIn(history);
+        SimilarAnalysisIndex index = new SimilarAnalysisIndex() {
+            @Override
+            public Optional<EmailAnalysisResult> findSimilar(String cleanedText) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void add(String cleanedText, EmailAnalysisResult result) {
+                indexed.add(cleanedText);
+            }
+        };
+        String[] model = {AiAnalysisResponse.LOCAL_MODEL};
+        service = newService(text -> new AiAnalysisResponse("PRODUTIVO", 0.8, "Motivo.", "Ok.", model[0]), store, index);
+
+        assertThat(service.analyzeText("Preciso do boleto de novembro.").model()).isEqualTo("local");
+        assertThat(service.analyzeTexts(List.of("Preciso do boleto de novembro.")).get(0).result().model()).isEqualTo("local");
+        assertThat(history).isEmpty();
+        assertThat(indexed).isEmpty();
+
+        model[0] = "openai";
+        assertThat(service.analyzeText("Preciso do boleto de novembro.").model()).isEqualTo("openai");
+        assertThat(history).hasSize(1);
+        assertThat(indexed).hasSize(1);
+    }
+
+    @Test
+    void returnsANearDuplicateWithoutStoringItUnderTheNewText() {
+        List<AnalysisRecord> history = new ArrayList<>();
+        EmailAnalysisResult similar = new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9,
+                "Texto semelhante a um e-mail ja analisado.", "Recebemos sua solicitacao.", SimilarAnalysisIndex.SIMILAR_MODEL);
+        SimilarAnalysisIndex index = new SimilarAnalysisIndex() {
+            @Override
+            public Optional<EmailAnalysisResult> findSimilar(String cleanedText) {
+                return Optional.of(similar);
+            }
+
+            @Override
+            public void add(String cleanedText, EmailAnalysisResult result) {
+            }
+        };
+        service = newService(text -> {
+            throw new AssertionError("near-duplicate should not reach the AI");
+        }, historyIn(history), index);
+
+        assertThat(service.analyzeText("Preciso do boleto de novembro.")).isEqualTo(similar);
+        assertThat(history).isEmpty();
+    }
+
+    @Test
+    void aClientThatWentAwayIsNotReportedAsAnAiFailure() {
+        service = newService(text -> new AiAnalysisResponse("PRODUTIVO", 0.9, "Motivo.", "Ok.", "openai"));
+        UncheckedIOException gone = new UncheckedIOException(new IOException("Broken pipe"));
+
+        assertThatThrownBy(() -> service.analyzeTextStreaming("Preciso do boleto de novembro.", new AnalysisProgressListener() {
+            @Override
+            public void onClassification(EmailCategory category, double confidence) {
+                throw gone;
+            }
+
+            @Override
+            public void onReplyDelta(String delta) {
+            }
+        })).isSameAs(gone);
+    }
+
+    @Test
+    void recordsStagesInputSizeAndErrorsUnderStableNamesAndTags() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = newService(text -> new AiAnalysisResponse(text.contains("estranho") ? "OUTRO" : "PRODUTIVO",
+                0.9, "Pedido.", "Ok.", "openai"), null, null, registry);
+
+        service.analyzeText("Preciso do boleto de novembro.");
+        assertThatThrownBy(() -> service.analyzeText("Um pedido estranho.")).isInstanceOf(InvalidAiResponseException.class);
+        assertThatThrownBy(() -> service.analyzeText("   ")).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(registry.get("email.analysis.stage").tag("stage", "preprocess").timer().count()).isEqualTo(3);
+        assertThat(registry.get("email.analysis.input.size").tag("source", "text").summary().count()).isEqualTo(2);
+        assertThat(registry.get("email.analysis.errors").tag("exception", "InvalidAiResponseException").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("email.analysis.errors").tag("exception", "IllegalArgumentException").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("email.analysis.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    void aFullCpuQueueFailsTheAsyncAnalysisWithoutCallingTheAi() {
+        AiClient ai = mock(AiClient.class);
+        service = newService(ai, null, null, new SimpleMeterRegistry(), command -> {
+            throw new RejectedExecutionException();
+        });
+
+        CompletableFuture<EmailAnalysisResult> analysis = service.analyzeTextAsync("Preciso do boleto.");
+
+        assertThat(analysis).failsWithin(Duration.ofSeconds(1))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(JobQueueFullException.class);
+        verifyNoInteractions(ai);
+    }
+
+    static EmailAnalysisService newService(AiClient ai) {
+        return newService(ai, null, null);
+    }
+
+    static EmailAnalysisService newService(AiClient ai, AnalysisHistoryStore history, SimilarAnalysisIndex similar) {
+        return newService(ai, history, similar, new SimpleMeterRegistry());
+    }
+
+    static EmailAnalysisService newService(AiClient ai, AnalysisHistoryStore history, SimilarAnalysisIndex similar,
+                                           MeterRegistry meterRegistry) {
+        return newService(ai, history, similar, meterRegistry, Runnable::run);
+    }
+
+    static EmailAnalysisService newService(AiClient ai, AnalysisHistoryStore history, SimilarAnalysisIndex similar,
+                                           MeterRegistry meterRegistry, Executor cpuExecutor) {
+        return new EmailAnalysisService(
+                (filename, contentType, head) -> {
+                    throw new UnsupportedOperationException();
+                },
+                provider(ai),
+                provider(null),
+                new EmailTextPreprocessor(20000, true, true, 2000, 0.7),
+                provider(history),
+                provider(similar),
+                meterRegistry,
+                0.95,
+                cpuExecutor
+        );
+    }
+
+    private static AnalysisHistoryStore historyIn(List<AnalysisRecord> history) {
+        return new AnalysisHistoryStore() {
+            @Override
+            public void append(AnalysisRecord record) {
+                history.add(record);
+            }
+
+            @Override
+            public Optional<AnalysisRecord> findByContentHash(String contentHash) {
+                return history.stream().filter(r -> r.contentHash().equals(contentHash)).findFirst();
+            }
+
+            @Override
+            public AnalysisHistoryPage query(EmailCategory category, Instant from, Instant to, int page, int size) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ObjectProvider<T> provider(T value) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(value);
+        return provider;
+    }
+
+    /**
+     * Answers every text in one packed call, except those in {@code invalid},
+     * which it leaves unanswered and rejects when asked on their own.
+     */
+    private static final class PackingClient implements AiClient {
+
+        private final Set<String> invalid;
+        private final List<List<String>> packs = new ArrayList<>();
+        private final List<String> singles = new ArrayList<>();
+
+        private PackingClient(Set<String> invalid) {
+            this.invalid = invalid;
+        }
+
+        @Override
+        public AiAnalysisResponse analyze(String cleanedEmailText) {
+            singles.add(cleanedEmailText);
+            if (invalid.contains(cleanedEmailText)) {
+                throw new InvalidAiResponseException("Resposta da IA invalida. Tente novamente.");
+            }
+            return answer(cleanedEmailText);
+        }
+
+        @Override
+        public List<AiAnalysisResponse> analyzeAll(List<String> cleanedEmailTexts) {
+            packs.add(List.copyOf(cleanedEmailTexts));
+            List<AiAnalysisResponse> responses = new ArrayList<>();
+            for (String text : cleanedEmailTexts) {
+                responses.add(invalid.contains(text) ? null : answer(text));
+            }
+            return responses;
+        }
+
+        private static AiAnalysisResponse answer(String text) {
+            return new AiAnalysisResponse("PRODUTIVO", 0.9, text, "Ok.", "openai");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.autou.emailai.application;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.application.ports.in.dto.MailboxImportSummary;
+import com.autou.emailai.application.ports.in.dto.MailboxItemResult;
+import com.autou.emailai.application.ports.out.MailboxReader;
+import com.autou.emailai.application.ports.out.dto.MailboxMessage;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MailboxImportServiceTest {
+
+    private static final InputStream NO_BODY = new ByteArrayInputStream(new byte[0]);
+    private static final EmailAnalysisResult RESULT =
+            new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "Pedido.", "Ok.", "openai");
+
+    private final AtomicInteger analyzing = new AtomicInteger();
+    private final AtomicInteger maxAnalyzing = new AtomicInteger();
+    private final AtomicInteger analyzed = new AtomicInteger();
+
+    @Test
+    void reportsEveryMessageAndCountsFailures() {
+        EmailAnalysisUseCase analysis = mock(EmailAnalysisUseCase.class);
+        when(analysis.analyzeFile(any(byte[].class), anyString(), anyString())).thenAnswer(invocation -> {
+            String body = new String(invocation.<byte[]>getArgument(0), StandardCharsets.UTF_8);
+            if (body.contains("vazio")) {
+                throw new InvalidFileException("Arquivo sem texto.");
+            }
+            return RESULT;
+        });
+        List<MailboxItemResult> items = new ArrayList<>();
+        MailboxImportService service = service(analysis, mailbox(List.of("Pedido 1", "vazio", "Pedido 3")), 4, DataSize.ofMegabytes(1));
+
+        MailboxImportSummary summary = service.importMailbox(NO_BODY, items::add);
+
+        assertThat(summary).isEqualTo(new MailboxImportSummary(3, 2, 1));
+        assertThat(items).extracting(MailboxItemResult::index).containsExactlyInAnyOrder(0, 1, 2);
+        assertThat(items).filteredOn(item -> !item.isSuccess()).extracting(MailboxItemResult::errorMessage)
+                .containsExactly("Arquivo sem texto.");
+    }
+
+    @Test
+    void rejectsAMailboxWithoutMessages() {
+        MailboxImportService service = service(mock(EmailAnalysisUseCase.class), mailbox(List.of()), 4, DataSize.ofMegabytes(1));
+
+        assertThatThrownBy(() -> service.importMailbox(NO_BODY, item -> { }))
+                .isInstanceOf(InvalidFileException.class);
+    }
+
+    @Test
+    void stopsReadingOnceTheClientGoesAway() {
+        MailboxImportService service = service(slowAnalysis(), mailbox(messages(1000, 10)), 2, DataSize.ofMegabytes(1));
+
+        assertThatThrownBy(() -> service.importMailbox(NO_BODY, item -> {
+            throw new UncheckedIOException(new IOException("Broken pipe"));
+        })).isInstanceOf(UncheckedIOException.class);
+        assertThat(analyzed.get()).isLessThan(10);
+    }
+
+    @Test
+    void boundsTheBytesInFlightAsWellAsTheMessages() {
+        MailboxImportService service = service(slowAnalysis(), mailbox(messages(12, 1024)), 16, DataSize.ofKilobytes(3));
+
+        MailboxImportSummary summary = service.importMailbox(NO_BODY, item -> { });
+
+        assertThat(summary.succeeded()).isEqualTo(12);
+        assertThat(maxAnalyzing.get()).isBetween(1, 3);
+    }
+
+    private EmailAnalysisUseCase slowAnalysis() {
+        EmailAnalysisUseCase analysis = mock(EmailAnalysisUseCase.class);
+        when(analysis.analyzeFile(any(byte[].class), anyString(), anyString())).thenAnswer(invocation -> {
+            maxAnalyzing.accumulateAndGet(analyzing.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } finally {
+                analyzing.decrementAndGet();
+                analyzed.incrementAndGet();
+            }
+            return RESULT;
+        });
+        return analysis;
+    }
+
+    private static MailboxImportService service(EmailAnalysisUseCase analysis, MailboxReader reader,
+                                                int maxConcurrency, DataSize maxInFlight) {
+        return new MailboxImportService(analysis, reader, new SimpleMeterRegistry(), maxConcurrency, maxInFlight);
+    }
+
+    private static MailboxReader mailbox(List<String> bodies) {
+        return (mailbox, consumer) -> {
+            for (int i = 0; i < bodies.size(); i++) {
+                consumer.accept(new MailboxMessage(i, "<" + i + "@exemplo>", "cliente@exemplo.com", "Assunto " + i,
+                        bodies.get(i).getBytes(StandardCharsets.UTF_8)));
+            }
+        };
+    }
+
+    private static List<String> messages(int count, int size) {
+        List<String> bodies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            bodies.add("x".repeat(size));
+        }
+        return bodies;
+    }
+}
@@ -0,0 +1,117 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingAiClientTest {
+
+    @Test
+    void servesRepeatedTextFromCacheIgnoringWhitespace() {
+        CountingClient delegate = new CountingClient();
+        CachingAiClient cache = new CachingAiClient(delegate, "gpt-4o-mini", 10, Duration.ofHours(1));
+
+        AiAnalysisResponse first = cache.analyze("Preciso  do boleto\nde novembro");
+        AiAnalysisResponse second = cache.analyze("Preciso do boleto de novembro  ");
+
+        assertThat(second).isSameAs(first);
+        assertThat(delegate.calls.get()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void keysDependOnModelScope() {
+        CountingClient delegate = new CountingClient();
+        CachingAiClient single = new CachingAiClient(delegate, "gpt-4o-mini", 10, Duration.ofHours(1));
+        CachingAiClient routed = new CachingAiClient(delegate, "openai=gpt-4o-mini,azure=gpt-4o", 10, Duration.ofHours(1));
+
+        single.analyze("Preciso do boleto");
+        routed.analyze("Preciso do boleto");
+        routed.analyze("Preciso do boleto");
+
+        assertThat(delegate.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredEntriesAreFetchedAgain() {
+        CountingClient delegate = new CountingClient();
+        CachingAiClient cache = new CachingAiClient(delegate, "gpt-4o-mini", 10, Duration.ZERO);
+
+        cache.analyze("Preciso do boleto");
+        cache.analyze("Preciso do boleto");
+
+        assertThat(delegate.calls.get()).isEqualTo(2);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        CountingClient delegate = new CountingClient();
+        CachingAiClient cache = new CachingAiClient(delegate, "gpt-4o-mini", 2, Duration.ofHours(1));
+
+        cache.analyze("a");
+        cache.analyze("b");
+        cache.analyze("a");
+        cache.analyze("c");
+        cache.analyze("a");
+        cache.analyze("b");
+
+        assertThat(delegate.calls.get()).isEqualTo(4);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void analyzeAllOnlyFetchesMissingItemsInOrder() {
+        CountingClient delegate = new CountingClient();
+        CachingAiClient cache = new CachingAiClient(delegate, "gpt-4o-mini", 10, Duration.ofHours(1));
+        cache.analyze("b");
+
+        List<AiAnalysisResponse> responses = cache.analyzeAll(List.of("a", "b", "c"));
+
+        assertThat(responses).extracting(AiAnalysisResponse::reason).containsExactly("a", "b", "c");
+        assertThat(delegate.batches).containsExactly(List.of("a", "c"));
+    }
+
+    @Test
+    void neverCachesLocalStandIns() {
+        CountingClient delegate = new CountingClient();
+        CachingAiClient cache = new CachingAiClient(delegate, "gpt-4o-mini", 10, Duration.ofHours(1));
+        delegate.model = AiAnalysisResponse.LOCAL_MODEL;
+
+        cache.analyze("Preciso do boleto");
+        cache.analyzeAll(List.of("Preciso do boleto"));
+        delegate.model = "openai";
+        AiAnalysisResponse recovered = cache.analyze("Preciso do boleto");
+
+        assertThat(recovered.model()).isEqualTo("openai");
+        assertThat(delegate.calls.get()).isEqualTo(3);
+        assertThat(cache.stats().hits()).isZero();
+    }
+
+    private static final class CountingClient implements AiClient {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<List<String>> batches = new ArrayList<>();
+        private String model = "openai";
+
+        @Override
+        public AiAnalysisResponse analyze(String cleanedEmailText) {
+            calls.incrementAndGet();
+            return new AiAnalysisResponse("PRODUTIVO", 0.9, cleanedEmailText.trim(), "Ok.", model);
+        }
+
+        @Override
+        public List<AiAnalysisResponse> analyzeAll(List<String> cleanedEmailTexts) {
+            batches.add(List.copyOf(cleanedEmailTexts));
+            return AiClient.super.analyzeAll(cleanedEmailTexts);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.exception.AiBusyException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.exception.AiUnavailableException;
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerAiClientTest {
+
+    private static final CircuitBreakerAiClient.Settings SETTINGS = new CircuitBreakerAiClient.Settings(
+            4, 4, 0.5, Duration.ofMillis(100), 0.5, Duration.ofMinutes(1), 1, 8, Duration.ZERO);
+
+    @Test
+    void opensAfterUpstreamFailures() {
+        CircuitBreakerAiClient breaker = new CircuitBreakerAiClient(text -> {
+            throw new AiRequestFailedException("Falha.", null);
+        }, null, SETTINGS);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.analyze("Preciso do boleto")).isInstanceOf(AiRequestFailedException.class);
+        }
+
+        assertThat(breaker.stats().state()).isEqualTo(CircuitBreakerAiClient.State.OPEN);
+        assertThatThrownBy(() -> breaker.analyze("Preciso do boleto")).isInstanceOf(AiUnavailableException.class);
+    }
+
+    @Test
+    void localLimiterRejectionsDoNotCountAsFailures() {
+        CircuitBreakerAiClient breaker = new CircuitBreakerAiClient(text -> {
+            throw new AiBusyException("Ocupado.");
+        }, null, SETTINGS);
+
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> breaker.analyze("Preciso do boleto")).isInstanceOf(AiBusyException.class);
+            assertThatThrownBy(() -> breaker.analyzeAsync("Preciso do boleto").join())
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(AiBusyException.class);
+        }
+
+        assertThat(breaker.stats().state()).isEqualTo(CircuitBreakerAiClient.State.CLOSED);
+    }
+
+    @Test
+    void timeQueuedBeforeTheUpstreamCallIsNotSlowness() {
+        CircuitBreakerAiClient breaker = new CircuitBreakerAiClient(text -> {
+            sleep(150);
+            UpstreamClock.add(UpstreamClock.current(), Duration.ofMillis(5).toNanos());
+            return answer();
+        }, null, SETTINGS);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.analyze("Preciso do boleto");
+        }
+
+        assertThat(breaker.stats().state()).isEqualTo(CircuitBreakerAiClient.State.CLOSED);
+    }
+
+    @Test
+    void slowUpstreamCallsOpenTheCircuit() {
+        CircuitBreakerAiClient breaker = new CircuitBreakerAiClient(text -> {
+            UpstreamClock.add(UpstreamClock.current(), Duration.ofMillis(150).toNanos());
+            return answer();
+        }, null, SETTINGS);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.analyze("Preciso do boleto");
+        }
+
+        assertThat(breaker.stats().state()).isEqualTo(CircuitBreakerAiClient.State.OPEN);
+    }
+
+    @Test
+    void fallsBackToWallTimeWhenTheClientDoesNotReport() {
+        AiClient slow = text -> {
+            sleep(150);
+            return answer();
+        };
+        CircuitBreakerAiClient breaker = new CircuitBreakerAiClient(slow, null, SETTINGS);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.analyze("Preciso do boleto");
+        }
+
+        assertThat(breaker.stats().state()).isEqualTo(CircuitBreakerAiClient.State.OPEN);
+    }
+
+    private static AiAnalysisResponse answer() {
+        return new AiAnalysisResponse("PRODUTIVO", 0.9, "Pedido de boleto.", "Ok.", "openai");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
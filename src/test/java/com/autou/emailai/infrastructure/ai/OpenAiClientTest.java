@@ -0,0 +1,215 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenAiClientTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<List<String>> packs = new CopyOnWriteArrayList<>();
+    private final Set<String> skippedOnFirstCall = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch received = new CountDownLatch(1);
+    private HttpServer server;
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/slow/responses", exchange -> {
+            requests.incrementAndGet();
+            received.countDown();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.createContext("/failing/responses", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.createContext("/packed/responses", exchange -> {
+            int call = requests.incrementAndGet();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            List<String> texts = new ArrayList<>();
+            Matcher matcher = Pattern.compile("MSG\\d").matcher(body);
+            while (matcher.find()) {
+                texts.add(matcher.group());
+            }
+            packs.add(texts);
+            StringBuilder items = new StringBuilder();
+            for (int i = 0; i < texts.size(); i++) {
+                String text = texts.get(i);
+                if (call == 1 && skippedOnFirstCall.contains(text)) {
+                    continue;
+                }
+                String reason = text.equals("MSG2") ? "" : "Motivo " + text;
+                items.append(items.isEmpty() ? "" : ",").append("""
+                        {"id":"%d","category":"PRODUTIVO","confidence":0.9,"reason":"%s","suggestedReply":"Ok."}"""
+                        .formatted(i, reason));
+            }
+            String output = "{\"items\":[" + items + "]}";
+            byte[] response = objectMapper.writeValueAsBytes(Map.of("output_text", output));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.createContext("/single/responses", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            String output = "{\"category\":\"PRODUTIVO\",\"confidence\":0.9,\"reason\":\"Pedido.\",\"suggestedReply\":\"Ok.\"}";
+            byte[] response = objectMapper.writeValueAsBytes(Map.of(
+                    "model", "gpt-4o-mini-2024-07-18",
+                    "output_text", output,
+                    "usage", Map.of("input_tokens", 120, "output_tokens", 30,
+                            "input_tokens_details", Map.of("cached_tokens", 64))));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        httpClient.close();
+    }
+
+    @Test
+    void interruptedCallIsNeitherRetriedNorHeldAgainstTheBackend() throws InterruptedException {
+        OpenAiRateLimiter limiter = limiter();
+        OpenAiClient client = client("/slow", limiter);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                client.analyze("Preciso do boleto de novembro.");
+            } catch (RuntimeException ex) {
+                failure.set(ex);
+            }
+        });
+
+        caller.start();
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        caller.interrupt();
+        caller.join(5000);
+
+        assertThat(caller.isAlive()).isFalse();
+        assertThat(failure.get()).isInstanceOf(AiRequestFailedException.class);
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(limiter.stats().limit()).isEqualTo(8.0);
+        assertThat(limiter.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void serverErrorsLowerTheLimit() {
+        OpenAiRateLimiter limiter = limiter();
+        OpenAiClient client = client("/failing", limiter);
+
+        try {
+            client.analyze("Preciso do boleto de novembro.");
+        } catch (AiRequestFailedException ex) {
+            // expected
+        }
+
+        assertThat(limiter.stats().limit()).isEqualTo(4.0);
+        assertThat(limiter.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void packKeepsValidItemsAndLeavesTheInvalidOneToTheCaller() {
+        OpenAiClient client = client("/packed", limiter());
+
+        List<AiAnalysisResponse> responses = client.analyzeAll(List.of("MSG0", "MSG1", "MSG2", "MSG3"));
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(responses).hasSize(4);
+        assertThat(responses.get(2)).isNull();
+        assertThat(responses).element(0).extracting(AiAnalysisResponse::reason).isEqualTo("Motivo MSG0");
+        assertThat(responses).element(3).extracting(AiAnalysisResponse::reason).isEqualTo("Motivo MSG3");
+    }
+
+    @Test
+    void onlyTheMissingItemsArePackedAgain() {
+        skippedOnFirstCall.addAll(List.of("MSG1", "MSG3"));
+        OpenAiClient client = client("/packed", limiter());
+
+        List<AiAnalysisResponse> responses = client.analyzeAll(List.of("MSG0", "MSG1", "MSG3", "MSG4"));
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(packs).containsExactly(List.of("MSG0", "MSG1", "MSG3", "MSG4"), List.of("MSG1", "MSG3"));
+        assertThat(responses).extracting(AiAnalysisResponse::reason)
+                .containsExactly("Motivo MSG0", "Motivo MSG1", "Motivo MSG3", "Motivo MSG4");
+    }
+
+    @Test
+    void recordsStageTimersAndTokenUsageTaggedByBackendAndModel() {
+        client("/single", limiter()).analyze("Preciso do boleto.");
+
+        for (String stage : List.of("serialize", "roundtrip", "parse_response", "parse_analysis", "validate")) {
+            assertThat(meterRegistry.get("openai.stage").tags("stage", stage, "backend", "openai").timer().count())
+                    .as(stage)
+                    .isEqualTo(1);
+        }
+        assertThat(usage("input").totalAmount()).isEqualTo(120);
+        assertThat(usage("output").totalAmount()).isEqualTo(30);
+        assertThat(usage("cached_input").totalAmount()).isEqualTo(64);
+    }
+
+    private DistributionSummary usage(String type) {
+        return meterRegistry.get("openai.usage.tokens")
+                .tags("type", type, "backend", "openai", "model", "gpt-4o-mini-2024-07-18")
+                .summary();
+    }
+
+    private static OpenAiRateLimiter limiter() {
+        return new OpenAiRateLimiter(8, 1, 64, 0, 0, Duration.ofSeconds(1));
+    }
+
+    private OpenAiClient client(String path, OpenAiRateLimiter limiter) {
+        RestClient restClient = RestClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + path)
+                .requestFactory(new JdkClientHttpRequestFactory(httpClient))
+                .build();
+        return new OpenAiClient(restClient, null, new ObjectMapper(), limiter, meterRegistry, "openai",
+                "gpt-4o-mini", "sk-test", 20, 6000, 1, Duration.ofMillis(10), Duration.ofMillis(10), "auto");
+    }
+}
@@ -0,0 +1,146 @@
+package com.autou.emailai.infrastructure.ai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenAiRateLimiterTest {
+
+    @Test
+    void growsAdditivelyAndShrinksByHalf() throws InterruptedException {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter(4, 1, 64, 0, 0, Duration.ofMillis(50));
+
+        limiter.release(limiter.acquire(100), OpenAiRateLimiter.Outcome.SUCCESS, null);
+        assertThat(limiter.stats().limit()).isEqualTo(4.25);
+
+        limiter.release(limiter.acquire(100), OpenAiRateLimiter.Outcome.THROTTLED, null);
+        assertThat(limiter.stats().limit()).isEqualTo(2.125);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.release(limiter.acquire(100), OpenAiRateLimiter.Outcome.FAILED, null);
+        }
+        assertThat(limiter.stats().limit()).isEqualTo(1.0);
+
+        limiter.release(limiter.acquire(100), OpenAiRateLimiter.Outcome.NEUTRAL, null);
+        assertThat(limiter.stats().limit()).isEqualTo(1.0);
+        assertThat(limiter.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void aBurstOfFailuresInFlightTogetherHalvesTheLimitOnce() throws InterruptedException {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter(8, 1, 64, 0, 0, Duration.ofMillis(50));
+        List<OpenAiRateLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            permits.add(limiter.acquire(100));
+        }
+
+        for (OpenAiRateLimiter.Permit permit : permits) {
+            limiter.release(permit, OpenAiRateLimiter.Outcome.THROTTLED, null);
+        }
+        assertThat(limiter.stats().limit()).isEqualTo(4.0);
+
+        limiter.release(limiter.acquire(100), OpenAiRateLimiter.Outcome.FAILED, null);
+        assertThat(limiter.stats().limit()).isEqualTo(2.0);
+    }
+
+    @Test
+    void givesUpAfterTheQueueWaitWhenEveryPermitIsTaken() throws InterruptedException {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter(1, 1, 1, 0, 0, Duration.ofMillis(50));
+        assertThat(limiter.acquire(100)).isNotNull();
+
+        assertThat(limiter.acquire(100)).isNull();
+        assertThat(limiter.acquireAsync(100).join()).isNull();
+        assertThat(limiter.stats().inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void admitsAsyncWaitersInArrivalOrderAsPermitsFree() throws InterruptedException {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter(1, 1, 1, 0, 0, Duration.ofSeconds(5));
+        OpenAiRateLimiter.Permit held = limiter.acquire(100);
+        CompletableFuture<OpenAiRateLimiter.Permit> first = limiter.acquireAsync(100);
+        CompletableFuture<OpenAiRateLimiter.Permit> second = limiter.acquireAsync(100);
+        assertThat(first).isNotDone();
+
+        limiter.release(held, OpenAiRateLimiter.Outcome.SUCCESS, null);
+        assertThat(first.getNow(null)).isNotNull();
+        assertThat(second).isNotDone();
+
+        limiter.release(first.join(), OpenAiRateLimiter.Outcome.SUCCESS, null);
+        assertThat(second.getNow(null)).isNotNull();
+        assertThat(limiter.stats().inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void synchronousCallersDoNotBargeAheadOfQueuedAsyncWaiters() throws InterruptedException {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter(1, 1, 1, 0, 0, Duration.ofSeconds(5));
+        OpenAiRateLimiter.Permit held = limiter.acquire(100);
+        CompletableFuture<OpenAiRateLimiter.Permit> queued = limiter.acquireAsync(100);
+        AtomicReference<OpenAiRateLimiter.Permit> syncPermit = new AtomicReference<>();
+        Thread sync = new Thread(() -> {
+            try {
+                syncPermit.set(limiter.acquire(100));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        sync.start();
+        sync.join(100);
+        assertThat(sync.isAlive()).isTrue();
+
+        limiter.release(held, OpenAiRateLimiter.Outcome.SUCCESS, null);
+        assertThat(queued.getNow(null)).isNotNull();
+        assertThat(sync.isAlive()).isTrue();
+
+        limiter.release(queued.join(), OpenAiRateLimiter.Outcome.SUCCESS, null);
+        sync.join(5000);
+        assertThat(syncPermit.get()).isNotNull();
+    }
+
+    @Test
+    void aCancelledWaiterHandsItsPermitBack() throws InterruptedException {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter(1, 1, 1, 0, 0, Duration.ofSeconds(5));
+        OpenAiRateLimiter.Permit held = limiter.acquire(100);
+        CompletableFuture<OpenAiRateLimiter.Permit> cancelled = limiter.acquireAsync(100);
+        cancelled.cancel(false);
+
+        limiter.release(held, OpenAiRateLimiter.Outcome.SUCCESS, null);
+
+        assertThat(limiter.stats().inFlight()).isZero();
+        assertThat(limiter.acquire(100)).isNotNull();
+    }
+
+    @Test
+    void respectsTheLocalRequestsPerMinuteBudget() throws InterruptedException {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter(8, 1, 8, 2, 0, Duration.ofMillis(50));
+
+        assertThat(limiter.acquire(100)).isNotNull();
+        limiter.release(limiter.acquire(100), OpenAiRateLimiter.Outcome.SUCCESS, null);
+
+        assertThat(limiter.acquire(100)).isNull();
+    }
+
+    @Test
+    void waitsForTheResetAdvertisedByTheServer() throws InterruptedException {
+        OpenAiRateLimiter limiter = new OpenAiRateLimiter(8, 1, 8, 0, 0, Duration.ofSeconds(5));
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("x-ratelimit-remaining-requests", "0");
+        headers.add("x-ratelimit-reset-requests", "200ms");
+        headers.add("x-ratelimit-remaining-tokens", "5000");
+        headers.add("x-ratelimit-reset-tokens", "1m30s");
+        limiter.release(limiter.acquire(100), OpenAiRateLimiter.Outcome.SUCCESS, headers);
+        assertThat(limiter.stats().remainingRequests()).isZero();
+        assertThat(limiter.stats().remainingTokens()).isEqualTo(5000);
+
+        long start = System.nanoTime();
+        assertThat(limiter.acquire(100)).isNotNull();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(150);
+    }
+}
@@ -0,0 +1,138 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OpenAiResponsesCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OpenAiResponsesCodec codec = new OpenAiResponsesCodec(objectMapper, "gpt-4o-mini", "auto");
+
+    @Test
+    void rendersTheEmailAsTheLastUserMessageWithJsonEscaping() throws IOException {
+        String email = "Linha 1 \"citada\"\nLinha 2 \\ acentuacao: café \u0001";
+
+        JsonNode request = objectMapper.readTree(codec.encodeRequest(email));
+
+        JsonNode last = request.path("input").get(request.path("input").size() - 1);
+        assertThat(request.path("model").asText()).isEqualTo("gpt-4o-mini");
+        assertThat(last.path("role").asText()).isEqualTo("user");
+        assertThat(last.path("content").get(0).path("text").asText()).isEqualTo(email);
+        assertThat(request.path("text").path("format").path("strict").asBoolean()).isTrue();
+    }
+
+    @Test
+    void packsEmailsAsAJsonListWithIds() throws IOException {
+        JsonNode request = objectMapper.readTree(codec.encodePackedRequest(List.of("Primeiro \"pedido\".", "Segundo.")));
+
+        JsonNode last = request.path("input").get(request.path("input").size() - 1);
+        JsonNode emails = objectMapper.readTree(last.path("content").get(0).path("text").asText());
+        assertThat(emails).hasSize(2);
+        assertThat(emails.get(0).path("id").asText()).isEqualTo("0");
+        assertThat(emails.get(0).path("text").asText()).isEqualTo("Primeiro \"pedido\".");
+        assertThat(emails.get(1).path("id").asText()).isEqualTo("1");
+        assertThat(request.path("text").path("format").path("name").asText()).isEqualTo("email_analysis_batch");
+    }
+
+    @Test
+    void prefersOutputTextAndFallsBackToTheFirstContentText() throws IOException {
+        String withOutputText = """
+                {"id":"resp_1","output":[{"content":[{"type":"output_text","text":"do output"}]}],"output_text":"direto"}""";
+        String withoutOutputText = """
+                {"id":"resp_2","metadata":{"a":[1,2]},"output":[{"type":"reasoning","summary":[]},
+                {"content":[{"type":"output_text","text":"primeiro"},{"type":"output_text","text":"segundo"}]}]}""";
+
+        assertThat(codec.decodeResponse(bytes(withOutputText)).outputText()).isEqualTo("direto");
+        assertThat(codec.decodeResponse(bytes(withoutOutputText)).outputText()).isEqualTo("primeiro");
+        assertThat(codec.decodeResponse(new byte[0]).outputText()).isNull();
+        assertThat(codec.decodeResponse(bytes("[1,2]")).outputText()).isNull();
+    }
+
+    @Test
+    void decodesTheAnalysisIgnoringUnknownFields() throws IOException {
+        AiAnalysisResponse response = codec.decodeAnalysis("""
+                {"category":"PRODUTIVO","extra":{"x":[1]},"confidence":"0.87","reason":"Pedido de boleto.","suggestedReply":"Segue o boleto."}""");
+
+        assertThat(response.category()).isEqualTo("PRODUTIVO");
+        assertThat(response.confidence()).isEqualTo(0.87);
+        assertThat(response.reason()).isEqualTo("Pedido de boleto.");
+        assertThat(response.suggestedReply()).isEqualTo("Segue o boleto.");
+    }
+
+    @Test
+    void rejectsAnalysisThatIsNotAJsonObjectOrHasABadConfidence() {
+        assertThatThrownBy(() -> codec.decodeAnalysis("[\"PRODUTIVO\"]")).isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> codec.decodeAnalysis("{\"confidence\":\"alta\"}")).isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> codec.decodeAnalysis("{\"reason\":{\"texto\":\"x\"}}")).isInstanceOf(JsonParseException.class);
+    }
+
+    @Test
+    void keepsTheCacheablePrefixByteIdenticalAcrossEmailsAndInstances() throws IOException {
+        OpenAiResponsesCodec other = new OpenAiResponsesCodec(new ObjectMapper(), "gpt-4o-mini", "auto");
+        String first = new String(codec.encodeRequest("Preciso do boleto."), StandardCharsets.UTF_8);
+        String second = new String(other.encodeRequest("Qual o prazo do reembolso?"), StandardCharsets.UTF_8);
+
+        String prefix = first.substring(0, first.indexOf("Preciso do boleto."));
+        assertThat(second).startsWith(prefix);
+        assertThat(prefix).doesNotContain("prompt_cache_key");
+        assertThat(objectMapper.readTree(first).path("prompt_cache_key").asText())
+                .startsWith("email-analysis-")
+                .isEqualTo(objectMapper.readTree(second).path("prompt_cache_key").asText());
+
+        JsonNode streaming = objectMapper.readTree(codec.encodeStreamingRequest("Preciso do boleto."));
+        assertThat(streaming.path("stream").asBoolean()).isTrue();
+        assertThat(new String(codec.encodeStreamingRequest("Preciso do boleto."), StandardCharsets.UTF_8)).startsWith(prefix);
+        assertThat(streaming.path("prompt_cache_key").asText()).isEqualTo(objectMapper.readTree(first).path("prompt_cache_key").asText());
+    }
+
+    @Test
+    void derivesANewCacheKeyForAnotherModelAndHonoursExplicitOrBlankKeys() throws IOException {
+        String auto = objectMapper.readTree(codec.encodeRequest("x")).path("prompt_cache_key").asText();
+        String otherModel = objectMapper.readTree(new OpenAiResponsesCodec(objectMapper, "gpt-4.1", "auto").encodeRequest("x"))
+                .path("prompt_cache_key").asText();
+        JsonNode explicit = objectMapper.readTree(new OpenAiResponsesCodec(objectMapper, "gpt-4o-mini", "emails-v2").encodeRequest("x"));
+        JsonNode blank = objectMapper.readTree(new OpenAiResponsesCodec(objectMapper, "gpt-4o-mini", "").encodeRequest("x"));
+
+        assertThat(otherModel).isNotEqualTo(auto);
+        assertThat(explicit.path("prompt_cache_key").asText()).isEqualTo("emails-v2");
+        assertThat(blank.has("prompt_cache_key")).isFalse();
+        assertThat(codec.promptTokens()).isPositive();
+    }
+
+    @Test
+    void readsUsageWithCachedTokensAndTheAnsweringModel() throws IOException {
+        OpenAiResponsesCodec.DecodedResponse response = codec.decodeResponse(bytes("""
+                {"model":"gpt-4o-mini-2024-07-18","output_text":"{}","usage":{"input_tokens":1800,
+                "input_tokens_details":{"cached_tokens":1536},"output_tokens":90,"total_tokens":1890}}"""));
+
+        assertThat(response.usage()).isEqualTo(new OpenAiUsage("gpt-4o-mini-2024-07-18", 1800, 90, 1536));
+    }
+
+    @Test
+    void readsUsageFromTheCompletedStreamEvent() throws IOException {
+        OpenAiResponsesCodec.StreamEvent delta = codec.decodeStreamEvent("""
+                {"type":"response.output_text.delta","delta":"Ola"}""");
+        OpenAiResponsesCodec.StreamEvent completed = codec.decodeStreamEvent("""
+                {"type":"response.completed","response":{"id":"resp_1","model":"gpt-4o-mini","output":[],
+                "usage":{"input_tokens":1200,"input_tokens_details":{"cached_tokens":1024},"output_tokens":40}}}""");
+
+        assertThat(delta.delta()).isEqualTo("Ola");
+        assertThat(delta.usage()).isNull();
+        assertThat(completed.type()).isEqualTo("response.completed");
+        assertThat(completed.usage()).isEqualTo(new OpenAiUsage("gpt-4o-mini", 1200, 40, 1024));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
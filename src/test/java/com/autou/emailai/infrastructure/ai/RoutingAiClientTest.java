@@ -0,0 +1,121 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.exception.AiBusyException;
+import com.autou.emailai.application.exception.AiRequestFailedException;
+import com.autou.emailai.application.ports.out.AiClient;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoutingAiClientTest {
+
+    private static final RoutingAiClient.Settings HEDGING =
+            new RoutingAiClient.Settings(1, 0.95, Duration.ofMillis(10), Duration.ofMillis(50));
+    private static final RoutingAiClient.Settings NO_HEDGING =
+            new RoutingAiClient.Settings(0, 0.95, Duration.ofMillis(10), Duration.ofMillis(50));
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void hedgesToTheNextBackendAndInterruptsTheLoser() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AiClient slow = text -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+                throw new AiRequestFailedException("Cancelada.", ex);
+            }
+            return answer("slow");
+        };
+        RoutingAiClient router = new RoutingAiClient(List.of(
+                new RoutingAiClient.Backend("slow", "gpt-4o-mini", slow, 1),
+                new RoutingAiClient.Backend("fast", "gpt-4o-mini", text -> answer("fast"), 0)
+        ), HEDGING, executor);
+
+        AiAnalysisResponse response = router.analyze("Preciso do boleto");
+
+        assertThat(response.model()).isEqualTo("fast");
+        assertThat(router.stats().hedges()).isEqualTo(1);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void failsOverToTheNextBackend() {
+        RoutingAiClient router = new RoutingAiClient(List.of(
+                new RoutingAiClient.Backend("down", "gpt-4o-mini", text -> {
+                    throw new AiRequestFailedException("Falha.", null);
+                }, 1),
+                new RoutingAiClient.Backend("up", "gpt-4o-mini", text -> answer("up"), 0)
+        ), NO_HEDGING, executor);
+
+        assertThat(router.analyze("Preciso do boleto").model()).isEqualTo("up");
+        assertThat(router.analyzeAsync("Preciso do boleto").join().model()).isEqualTo("up");
+        assertThat(router.stats().failovers()).isEqualTo(2);
+    }
+
+    @Test
+    void reportsARealFailureOverALocalRejection() {
+        RoutingAiClient router = new RoutingAiClient(List.of(
+                new RoutingAiClient.Backend("down", "gpt-4o-mini", text -> {
+                    throw new AiRequestFailedException("Falha.", null);
+                }, 1),
+                new RoutingAiClient.Backend("busy", "gpt-4o-mini", text -> {
+                    throw new AiBusyException("Ocupado.");
+                }, 0)
+        ), NO_HEDGING, executor);
+
+        assertThatThrownBy(() -> router.analyze("Preciso do boleto"))
+                .isInstanceOf(AiRequestFailedException.class)
+                .isNotInstanceOf(AiBusyException.class);
+    }
+
+    @Test
+    void chargesTheCallerOnlyTheWinnersUpstreamTime() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AiClient slow = text -> {
+            UpstreamClock clock = UpstreamClock.current();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException ex) {
+                UpstreamClock.add(clock, Duration.ofSeconds(5).toNanos());
+                interrupted.countDown();
+                throw new AiRequestFailedException("Cancelada.", ex);
+            }
+            return answer("slow");
+        };
+        AiClient fast = text -> {
+            UpstreamClock.add(UpstreamClock.current(), Duration.ofMillis(5).toNanos());
+            return answer("fast");
+        };
+        RoutingAiClient router = new RoutingAiClient(List.of(
+                new RoutingAiClient.Backend("slow", "gpt-4o-mini", slow, 1),
+                new RoutingAiClient.Backend("fast", "gpt-4o-mini", fast, 0)
+        ), HEDGING, executor);
+
+        UpstreamClock clock = new UpstreamClock();
+        UpstreamClock.runWith(clock, () -> router.analyze("Preciso do boleto"));
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(clock.elapsedNanos(0)).isEqualTo(Duration.ofMillis(5).toNanos());
+    }
+
+    private static AiAnalysisResponse answer(String backend) {
+        return new AiAnalysisResponse("PRODUTIVO", 0.9, "Pedido de boleto.", "Ok.", backend);
+    }
+}
@@ -0,0 +1,95 @@
+package com.autou.emailai.infrastructure.ai;
+
+import com.autou.emailai.application.ports.out.AiStreamListener;
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingAnalysisParserTest {
+
+    private final List<String> classifications = new ArrayList<>();
+    private final List<String> deltas = new ArrayList<>();
+    private final AiStreamListener listener = new AiStreamListener() {
+        @Override
+        public void onClassification(String category, double confidence) {
+            classifications.add(category + "=" + confidence);
+        }
+
+        @Override
+        public void onReplyDelta(String delta) {
+            deltas.add(delta);
+        }
+    };
+
+    @Test
+    void decodesEscapesSplitAcrossDeltas() throws JsonParseException {
+        String json = """
+                {"category":"PRODUTIVO","confidence":0.92,"reason":"Pedido \\"urgente\\"","suggestedReply":"Ola,\\nSegue o boleto \\u00e9 \\\\ ok\\/"}""";
+
+        AiAnalysisResponse response = feedOneCharAtATime(json);
+
+        assertThat(response.reason()).isEqualTo("Pedido \"urgente\"");
+        assertThat(response.suggestedReply()).isEqualTo("Ola,\nSegue o boleto é \\ ok/");
+        assertThat(String.join("", deltas)).isEqualTo(response.suggestedReply());
+        assertThat(classifications).containsExactly("PRODUTIVO=0.92");
+    }
+
+    @Test
+    void neverSplitsASurrogatePairBetweenDeltas() throws JsonParseException {
+        String json = "{\"category\":\"IMPRODUTIVO\",\"confidence\":1,\"reason\":\"Agradecimento.\","
+                + "\"suggestedReply\":\"Obrigado \\ud83d\\ude00 e \uD83C\uDF89!\"}";
+
+        AiAnalysisResponse response = feedOneCharAtATime(json);
+
+        assertThat(response.suggestedReply()).isEqualTo("Obrigado \uD83D\uDE00 e \uD83C\uDF89!");
+        assertThat(deltas).noneMatch(delta -> Character.isHighSurrogate(delta.charAt(delta.length() - 1)));
+        assertThat(deltas).noneMatch(delta -> Character.isLowSurrogate(delta.charAt(0)));
+        assertThat(String.join("", deltas)).isEqualTo(response.suggestedReply());
+    }
+
+    @Test
+    void acceptsKeysInAnyOrderAndSkipsUnknownOnes() throws JsonParseException {
+        StreamingAnalysisParser parser = new StreamingAnalysisParser(listener);
+        parser.feed("{\"suggestedReply\":\"Ok.\",\"extra\":{\"a\":[1,\"}]\\\"\"],\"b\":null},");
+        assertThat(classifications).isEmpty();
+        assertThat(deltas).containsExactly("Ok.");
+
+        parser.feed("\"confidence\": 0.5 , \"flag\" : true, \"category\":\"PRODUTIVO\",\"reason\":null}");
+
+        AiAnalysisResponse response = parser.result();
+        assertThat(response.category()).isEqualTo("PRODUTIVO");
+        assertThat(response.confidence()).isEqualTo(0.5);
+        assertThat(response.reason()).isNull();
+        assertThat(classifications).containsExactly("PRODUTIVO=0.5");
+    }
+
+    @Test
+    void rejectsMalformedOrIncompleteOutput() throws JsonParseException {
+        StreamingAnalysisParser incomplete = new StreamingAnalysisParser(listener);
+        incomplete.feed("{\"category\":\"PRODUTIVO\"");
+        assertThatThrownBy(incomplete::result).isInstanceOf(JsonParseException.class);
+
+        assertThatThrownBy(() -> new StreamingAnalysisParser(listener).feed("{\"reason\":\"\\x\"}"))
+                .isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> new StreamingAnalysisParser(listener).feed("{\"reason\":\"\\u00zz\"}"))
+                .isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> new StreamingAnalysisParser(listener).feed("{\"confidence\":alta}"))
+                .isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> new StreamingAnalysisParser(listener).feed("{} {"))
+                .isInstanceOf(JsonParseException.class);
+    }
+
+    private AiAnalysisResponse feedOneCharAtATime(String json) throws JsonParseException {
+        StreamingAnalysisParser parser = new StreamingAnalysisParser(listener);
+        for (int i = 0; i < json.length(); i++) {
+            parser.feed(json.substring(i, i + 1));
+        }
+        return parser.result();
+    }
+}
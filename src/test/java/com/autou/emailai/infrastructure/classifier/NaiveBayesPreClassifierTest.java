@@ -0,0 +1,76 @@
+package com.autou.emailai.infrastructure.classifier;
+
+import com.autou.emailai.application.ports.out.dto.PreClassification;
+import com.autou.emailai.domain.EmailCategory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NaiveBayesPreClassifierTest {
+
+    private static final double MIN_CONFIDENCE = 0.95;
+
+    private final NaiveBayesPreClassifier classifier =
+            new NaiveBayesPreClassifier("", 1000, 3, 0.6, "Retornaremos em breve.", "Obrigado pela mensagem!");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Muito obrigado pela ajuda.",
+            "Ok, obrigado pelo retorno, tenha um otimo dia.",
+            "Bom dia a todos, tenham uma otima semana!",
+            "Resposta automatica: estou de ferias e retorno no dia 10."
+    })
+    void confidentlyRecognizesUnproductiveEmails(String text) {
+        PreClassification result = classifier.classify(text).orElseThrow();
+
+        assertThat(result.category()).isEqualTo(EmailCategory.IMPRODUTIVO);
+        assertThat(result.confidence()).isGreaterThanOrEqualTo(MIN_CONFIDENCE);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Preciso da segunda via do boleto com vencimento atualizado.",
+            "Preciso de acesso ao sistema financeiro para o novo colaborador, por favor."
+    })
+    void confidentlyRecognizesProductiveEmails(String text) {
+        PreClassification result = classifier.classify(text).orElseThrow();
+
+        assertThat(result.category()).isEqualTo(EmailCategory.PRODUTIVO);
+        assertThat(result.confidence()).isGreaterThanOrEqualTo(MIN_CONFIDENCE);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Bom dia, tudo bem? Conforme conversamos, o auditor externo pediu as notas fiscais emitidas em outubro "
+                    + "e o extrato conciliado da conta corrente. Voces conseguem enviar ate quinta-feira? Tambem precisamos "
+                    + "da fatura 8841 corrigida com o CNPJ novo. Qualquer duvida estou a disposicao. Obrigado, abracos",
+            "Podem verificar o pagamento da fatura em aberto? Obrigado.",
+            "Voces podem enviar o boleto de novembro? Vence sexta.",
+            "Oi pessoal, segue a planilha de custos revisada para aprovacao da diretoria ate amanha."
+    })
+    void neverAnswersBusinessRequestsLocallyAsUnproductive(String text) {
+        Optional<PreClassification> result = classifier.classify(text);
+
+        assertThat(result.filter(pre -> pre.category() == EmailCategory.IMPRODUTIVO && pre.confidence() >= MIN_CONFIDENCE)).isEmpty();
+    }
+
+    @Test
+    void unknownTokensDoNotChangeTheScore() {
+        PreClassification plain = classifier.classify("Muito obrigado pela ajuda.").orElseThrow();
+        PreClassification withUnknown = classifier.classify("Muito obrigado pela ajuda xyzzy.").orElseThrow();
+
+        assertThat(withUnknown.category()).isEqualTo(plain.category());
+        assertThat(withUnknown.confidence()).isEqualTo(plain.confidence());
+    }
+
+    @Test
+    void abstainsWhenTooLittleOfTheEmailIsKnown() {
+        assertThat(classifier.classify("Obrigado!")).isEmpty();
+        assertThat(classifier.classify("Xyzzy plugh quux corge grault garply waldo obrigado.")).isEmpty();
+        assertThat(classifier.classify("")).isEmpty();
+    }
+}
@@ -0,0 +1,45 @@
+package com.autou.emailai.infrastructure.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnalysisExecutorConfigTest {
+
+    @Test
+    void rejectsOnceTheThreadsAndTheQueueAreFull() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ThreadPoolExecutor executor = new AnalysisExecutorConfig().analysisCpuExecutor(registry, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            started.await();
+            executor.execute(() -> { });
+
+            assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(RejectedExecutionException.class);
+            assertThat(registry.get("email.analysis.async.active").gauge().value()).isEqualTo(1.0);
+            assertThat(registry.get("email.analysis.async.queued").gauge().value()).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.autou.emailai.infrastructure.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OpenAiConfigTest {
+
+    private final OpenAiConfig config = new OpenAiConfig();
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private ExecutorService executor;
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/small", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/large", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[4096]);
+            }
+        });
+        server.createContext("/moved", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/small");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.start();
+        executor = config.openAiHttpExecutor();
+        httpClient = config.openAiHttpClient(executor, HttpClient.Version.HTTP_1_1, Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        httpClient.close();
+        executor.close();
+    }
+
+    @Test
+    void sendsTheApiKeyAndReadsTheBody() {
+        String body = restClient().post().uri("/small").body(new byte[0]).retrieve().body(String.class);
+
+        assertThat(body).isEqualTo("{\"ok\":true}");
+        assertThat(authorization.get()).isEqualTo("Bearer sk-test");
+    }
+
+    @Test
+    void rejectsBodiesOverTheLimitWithoutContentLength() {
+        assertThatThrownBy(() -> restClient().post().uri("/large").body(new byte[0]).retrieve().body(byte[].class))
+                .isInstanceOf(RestClientException.class)
+                .rootCause()
+                .hasMessageContaining("1024 bytes");
+    }
+
+    @Test
+    void reusesOneConnectionAcrossSequentialCalls() {
+        RestClient client = restClient();
+        for (int i = 0; i < 3; i++) {
+            client.post().uri("/small").body(new byte[0]).retrieve().body(String.class);
+        }
+
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void doesNotFollowRedirectsWithTheApiKey() {
+        ResponseEntity<Void> response = restClient().post().uri("/moved").body(new byte[0]).retrieve().toBodilessEntity();
+
+        assertThat(response.getStatusCode().value()).isEqualTo(302);
+        assertThat(authorization.get()).isNull();
+        assertThat(httpClient.followRedirects()).isEqualTo(HttpClient.Redirect.NEVER);
+        assertThat(httpClient.connectTimeout()).contains(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void leavesJvmWideHttpClientPropertiesAlone() {
+        assertThat(System.getProperty("jdk.httpclient.connectionPoolSize")).isNull();
+        assertThat(System.getProperty("jdk.httpclient.keepalive.timeout")).isNull();
+    }
+
+    private RestClient restClient() {
+        return OpenAiConfig.buildRestClient(httpClient, executor, "http://127.0.0.1:" + server.getAddress().getPort(), "sk-test",
+                Duration.ofSeconds(5), Duration.ofSeconds(5), DataSize.ofBytes(1024));
+    }
+}
@@ -0,0 +1,66 @@
+package com.autou.emailai.infrastructure.config;
+
+import com.autou.emailai.application.ports.out.dto.AiAnalysisResponse;
+import com.autou.emailai.infrastructure.ai.OpenAiClient;
+import com.autou.emailai.infrastructure.history.FileAnalysisHistoryStore;
+import com.autou.emailai.web.dto.MailboxImportItemResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuntimeHintsConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+    private final ClassLoader classLoader = getClass().getClassLoader();
+
+    RuntimeHintsConfigTest() {
+        new RuntimeHintsConfig.ApplicationRuntimeHints().registerHints(hints, classLoader);
+    }
+
+    @Test
+    void coversTheTypesBoundByOurOwnObjectMapperCalls() {
+        List<Class<?>> types = List.of(
+                AiAnalysisResponse.class,
+                MailboxImportItemResponse.class,
+                AiRouterConfig.BackendProperties.class,
+                ClassUtils.resolveClassName(OpenAiClient.class.getName() + "$PackedItem", classLoader),
+                ClassUtils.resolveClassName(FileAnalysisHistoryStore.class.getName() + "$StoredLine", classLoader));
+
+        for (Class<?> type : types) {
+            assertThat(RuntimeHintsPredicates.reflection().onType(type)).as(type.getName()).accepts(hints);
+        }
+    }
+
+    @Test
+    void coversEveryResourceTheApplicationLoadsByName() throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        for (String directory : List.of("templates", "static", "classifier", "prompts")) {
+            Resource[] resources = resolver.getResources("classpath:" + directory + "/*");
+            assertThat(resources).as(directory).isNotEmpty();
+            for (Resource resource : resources) {
+                String path = directory + "/" + resource.getFilename();
+                assertThat(RuntimeHintsPredicates.resource().forResource(path)).as(path).accepts(hints);
+            }
+        }
+    }
+
+    @Test
+    void coversThePdfBoxDataUsedByTextExtraction() {
+        for (String path : List.of(
+                "org/apache/pdfbox/resources/afm/Helvetica.afm",
+                "org/apache/pdfbox/resources/glyphlist/glyphlist.txt",
+                "org/apache/fontbox/cmap/Identity-H",
+                "org/apache/fontbox/unicode/Scripts.txt")) {
+            assertThat(classLoader.getResource(path)).as(path).isNotNull();
+            assertThat(RuntimeHintsPredicates.resource().forResource(path)).as(path).accepts(hints);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.autou.emailai.infrastructure.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentSnifferTest {
+
+    @Test
+    void recognisesBinarySignatures() {
+        assertThat(ContentSniffer.sniff(ascii("%PDF-1.7\n%âã"))).isEqualTo(ContentSniffer.PDF);
+        assertThat(ContentSniffer.sniff(zip("[Content_Types].xml"))).isEqualTo(ContentSniffer.DOCX);
+        assertThat(ContentSniffer.sniff(zip("word/document.xml"))).isEqualTo(ContentSniffer.DOCX);
+        assertThat(ContentSniffer.sniff(zip("fotos/praia.jpg"))).isEqualTo(ContentSniffer.ZIP);
+        assertThat(ContentSniffer.sniff(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13}))
+                .isEqualTo(ContentSniffer.BINARY);
+    }
+
+    @Test
+    void recognisesTextFormats() {
+        assertThat(ContentSniffer.sniff(ascii("\n  <!DOCTYPE html><html><body>Oi</body></html>"))).isEqualTo(ContentSniffer.HTML);
+        assertThat(ContentSniffer.sniff(ascii("From: Financeiro <f@example.com>\r\nSubject: Fatura\r\n\r\nSegue.")))
+                .isEqualTo(ContentSniffer.MESSAGE);
+        assertThat(ContentSniffer.sniff(ascii("From f@example.com Mon Nov  3 10:00:00 2025\nSubject: Fatura\n")))
+                .isEqualTo(ContentSniffer.MESSAGE);
+        assertThat(ContentSniffer.sniff(ascii("Assunto: fatura\nPreciso da segunda via."))).isEqualTo(ContentSniffer.TEXT);
+        assertThat(ContentSniffer.sniff("Olá, preciso do boleto.".getBytes(StandardCharsets.UTF_8))).isEqualTo(ContentSniffer.TEXT);
+        assertThat(ContentSniffer.sniff(new byte[]{(byte) 0xFF, (byte) 0xFE, 'O', 0, 'i', 0})).isEqualTo(ContentSniffer.TEXT);
+        assertThat(ContentSniffer.sniff(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '<', 'h', 't', 'm', 'l', '>'}))
+                .isEqualTo(ContentSniffer.HTML);
+    }
+
+    @Test
+    void acceptsTextFormatsForOneAnotherButNotMismatchedBinaries() {
+        assertThat(ContentSniffer.compatible(ContentSniffer.TEXT, ContentSniffer.HTML)).isTrue();
+        assertThat(ContentSniffer.compatible(ContentSniffer.MESSAGE, ContentSniffer.TEXT)).isTrue();
+        assertThat(ContentSniffer.compatible(ContentSniffer.DOCX, ContentSniffer.ZIP)).isTrue();
+        assertThat(ContentSniffer.compatible(ContentSniffer.TEXT, ContentSniffer.PDF)).isFalse();
+        assertThat(ContentSniffer.compatible(ContentSniffer.PDF, ContentSniffer.TEXT)).isFalse();
+        assertThat(ContentSniffer.compatible(ContentSniffer.DOCX, ContentSniffer.PDF)).isFalse();
+        assertThat(ContentSniffer.compatible("application/rtf", ContentSniffer.TEXT)).isTrue();
+        assertThat(ContentSniffer.compatible("application/rtf", ContentSniffer.PDF)).isFalse();
+    }
+
+    private static byte[] zip(String firstEntry) {
+        byte[] name = ascii(firstEntry);
+        byte[] head = new byte[30 + name.length];
+        head[0] = 'P';
+        head[1] = 'K';
+        head[2] = 3;
+        head[3] = 4;
+        head[26] = (byte) name.length;
+        System.arraycopy(name, 0, head, 30, name.length);
+        return head;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
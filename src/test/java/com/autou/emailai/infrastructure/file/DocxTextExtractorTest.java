@@ -0,0 +1,86 @@
+package com.autou.emailai.infrastructure.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocxTextExtractorTest {
+
+    private static final String DOCUMENT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <w:document xmlns:w="http://schemas.openxmlformats.org/wordprocessingml/2006/main"><w:body>
+            <w:p><w:r><w:t>Preciso da </w:t></w:r><w:r><w:t>segunda via</w:t></w:r></w:p>
+            <w:p><w:r><w:t>Fatura</w:t><w:tab/><w:t>8841</w:t><w:br/><w:t>Obrigado</w:t></w:r></w:p>
+            <w:p><w:r><w:instrText>NAO APARECE</w:instrText></w:r></w:p>
+            </w:body></w:document>""";
+
+    private final DocxTextExtractor extractor = new DocxTextExtractor(20000, DataSize.ofMegabytes(1));
+
+    @Test
+    void readsTextRunsParagraphsTabsAndBreaks(@TempDir Path dir) throws IOException {
+        byte[] docx = docx(DOCUMENT);
+
+        String text = extractor.extract(docx);
+
+        assertThat(text).isEqualTo("Preciso da segunda via\nFatura\t8841\nObrigado\n\n");
+        assertThat(extractor.extract(Files.write(dir.resolve("pedido.docx"), docx))).isEqualTo(text);
+    }
+
+    @Test
+    void stopsAtTheCharacterLimit() throws IOException {
+        assertThat(new DocxTextExtractor(10, DataSize.ofMegabytes(1)).extract(docx(DOCUMENT))).hasSize(10);
+    }
+
+    @Test
+    void rejectsArchivesWithoutADocumentOrWithInvalidXml() throws IOException {
+        assertThatThrownBy(() -> extractor.extract(zip("word/outro.xml", "<x/>")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> extractor.extract(docx("<w:document><w:p>")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void refusesExternalEntitiesAndDoctypes() throws IOException {
+        String xxe = """
+                <?xml version="1.0"?>
+                <!DOCTYPE d [<!ENTITY segredo SYSTEM "file:///etc/passwd">]>
+                <w:document xmlns:w="w"><w:p><w:t>&segredo;</w:t></w:p></w:document>""";
+
+        assertThatThrownBy(() -> extractor.extract(docx(xxe))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void stopsReadingADocumentThatInflatesPastTheLimit() throws IOException {
+        String bomb = "<w:document xmlns:w=\"w\"><w:p>" + " ".repeat(4 * 1024 * 1024) + "</w:p></w:document>";
+        byte[] docx = docx(bomb);
+        assertThat(docx.length).isLessThan(64 * 1024);
+
+        assertThatThrownBy(() -> extractor.extract(docx)).hasStackTraceContaining("excede o tamanho maximo");
+    }
+
+    private static byte[] docx(String document) throws IOException {
+        return zip("word/document.xml", document);
+    }
+
+    private static byte[] zip(String entry, String content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("[Content_Types].xml"));
+            zip.write("<Types/>".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry(entry));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
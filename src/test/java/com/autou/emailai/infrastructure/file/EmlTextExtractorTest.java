@@ -0,0 +1,169 @@
+package com.autou.emailai.infrastructure.file;
+
+import com.autou.emailai.application.ports.out.FileTextExtractorResolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmlTextExtractorTest {
+
+    private static final String CRLF = "\r\n";
+
+    @Test
+    void readsSubjectAndPrefersPlainTextAlternative() {
+        String eml = String.join(CRLF,
+                "From: Financeiro <f@example.com>",
+                "Subject: =?UTF-8?B?U2VndW5kYSB2aWEgZG8gYm9sZXRv?=",
+                "Content-Type: multipart/alternative; boundary=\"alt\"",
+                "",
+                "--alt",
+                "Content-Type: text/plain; charset=ISO-8859-1",
+                "Content-Transfer-Encoding: quoted-printable",
+                "",
+                "Preciso do boleto de novembro, n=E3o recebi.=",
+                " Obrigado.",
+                "--alt",
+                "Content-Type: text/html",
+                "",
+                "<p>Versao HTML</p>",
+                "--alt--",
+                "");
+
+        String text = extractor(20000, 5, 8).extract(bytes(eml));
+
+        assertThat(text).isEqualTo("Assunto: Segunda via do boleto\n\nPreciso do boleto de novembro, não recebi. Obrigado.");
+    }
+
+    @Test
+    void readsHtmlBodiesAndAttachmentsThroughTheRegistry() {
+        String eml = String.join(CRLF,
+                "Subject: Contrato",
+                "Content-Type: multipart/mixed; boundary=mix",
+                "",
+                "--mix",
+                "Content-Type: text/html; charset=UTF-8",
+                "",
+                "<html><body><p>Segue o contrato.</p><script>alert(1)</script></body></html>",
+                "--mix",
+                "Content-Type: text/plain",
+                "Content-Disposition: attachment; filename*=UTF-8''observa%C3%A7%C3%B5es.txt",
+                "Content-Transfer-Encoding: base64",
+                "",
+                Base64.getMimeEncoder().encodeToString(bytes("Clausula 4 revisada.")),
+                "--mix",
+                "Content-Type: application/octet-stream",
+                "Content-Disposition: attachment; filename=\"foto.png\"",
+                "",
+                "\u0000\u0001\u0002",
+                "--mix--");
+
+        String text = extractor(20000, 5, 8).extract(bytes(eml));
+
+        assertThat(text)
+                .contains("Assunto: Contrato")
+                .contains("Segue o contrato.")
+                .contains("[Anexo: observações.txt]\nClausula 4 revisada.")
+                .doesNotContain("alert")
+                .doesNotContain("foto.png");
+    }
+
+    @Test
+    void deepMultipartNestingStopsAtMaxDepthInsteadOfOverflowingTheStack() {
+        int levels = 20000;
+        StringBuilder eml = new StringBuilder("Subject: Aninhado").append(CRLF);
+        for (int i = 0; i < levels; i++) {
+            eml.append("Content-Type: multipart/mixed; boundary=b").append(i).append(CRLF).append(CRLF)
+                    .append("--b").append(i).append(CRLF);
+        }
+        eml.append("Content-Type: text/plain").append(CRLF).append(CRLF).append("Fundo do poco.").append(CRLF);
+
+        String text = extractor(20000, 5, 8).extract(bytes(eml.toString()));
+
+        assertThat(text).isEqualTo("Assunto: Aninhado");
+    }
+
+    @Test
+    void attachedMessagesShareTheDepthAndAttachmentLimits() {
+        String innermost = message("Nivel 3", "Texto do nivel 3.", null);
+        String middle = message("Nivel 2", "Texto do nivel 2.", innermost);
+        String outer = message("Nivel 1", "Texto do nivel 1.", middle);
+
+        assertThat(extractor(20000, 5, 8).extract(bytes(outer)))
+                .contains("Texto do nivel 1.", "Texto do nivel 2.", "Texto do nivel 3.");
+        // Each attached message is one multipart level plus one message level.
+        assertThat(extractor(20000, 5, 3).extract(bytes(outer)))
+                .contains("Texto do nivel 2.")
+                .doesNotContain("Texto do nivel 3.");
+        assertThat(extractor(20000, 1, 8).extract(bytes(outer)))
+                .contains("Texto do nivel 2.")
+                .doesNotContain("Texto do nivel 3.");
+    }
+
+    @Test
+    void toleratesMalformedMessages() {
+        EmlTextExtractor extractor = extractor(20000, 5, 8);
+
+        assertThat(extractor.extract(new byte[0])).isEmpty();
+        assertThat(extractor.extract(bytes("Subject: Sem corpo"))).isEqualTo("Assunto: Sem corpo");
+        assertThat(extractor.extract(bytes("Content-Type: multipart/mixed\r\n\r\nsem boundary"))).isEmpty();
+        assertThat(extractor.extract(bytes(String.join(CRLF,
+                "Content-Type: multipart/mixed; boundary=x",
+                "",
+                "--x",
+                "Content-Transfer-Encoding: base64",
+                "",
+                "@@@ nao e base64 @@@",
+                "--x",
+                "Content-Type: text/plain; charset=nao-existe",
+                "Content-Transfer-Encoding: quoted-printable",
+                "",
+                "Quebrado =ZZ e =4",
+                "")))).contains("Quebrado =ZZ e =4");
+    }
+
+    @Test
+    void stopsAtTheCharacterLimit() {
+        String eml = "Subject: Longo\r\n\r\n" + "texto ".repeat(1000);
+
+        assertThat(extractor(50, 5, 8).extract(bytes(eml))).hasSize(50);
+    }
+
+    private static String message(String subject, String body, String attached) {
+        StringBuilder eml = new StringBuilder()
+                .append("Subject: ").append(subject).append(CRLF)
+                .append("Content-Type: multipart/mixed; boundary=\"").append(subject.replace(' ', '-')).append('"').append(CRLF)
+                .append(CRLF)
+                .append("--").append(subject.replace(' ', '-')).append(CRLF)
+                .append("Content-Type: text/plain").append(CRLF).append(CRLF)
+                .append(body).append(CRLF);
+        if (attached != null) {
+            eml.append("--").append(subject.replace(' ', '-')).append(CRLF)
+                    .append("Content-Type: application/octet-stream").append(CRLF)
+                    .append("Content-Disposition: attachment; filename=anterior.eml").append(CRLF)
+                    .append("Content-Transfer-Encoding: base64").append(CRLF).append(CRLF)
+                    .append(Base64.getMimeEncoder().encodeToString(bytes(attached))).append(CRLF);
+        }
+        return eml.append("--").append(subject.replace(' ', '-')).append("--").append(CRLF).toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EmlTextExtractor extractor(int maxChars, int maxAttachments, int maxDepth) {
+        ObjectProvider<FileTextExtractorResolver> provider = mock(ObjectProvider.class);
+        EmlTextExtractor eml = new EmlTextExtractor(provider, maxChars, maxAttachments, maxDepth);
+        FileExtractorRegistry registry = new FileExtractorRegistry(List.of(eml, new TxtTextExtractor(20000),
+                new HtmlTextExtractor(20000)));
+        when(provider.getIfAvailable()).thenReturn(registry);
+        return eml;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,67 @@
+package com.autou.emailai.infrastructure.file;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import com.autou.emailai.application.ports.out.FileTextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileExtractorRegistryTest {
+
+    private static final byte[] PDF = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TEXT = "Preciso da segunda via do boleto.".getBytes(StandardCharsets.UTF_8);
+
+    private final StubExtractor txt = new StubExtractor(List.of("text/plain"), List.of("txt"));
+    private final StubExtractor pdf = new StubExtractor(List.of("application/pdf", "application/x-pdf"), List.of("pdf"));
+    private final FileExtractorRegistry registry = new FileExtractorRegistry(List.of(txt, pdf));
+
+    @Test
+    void resolvesByExtensionThenByContentType() {
+        assertThat(registry.resolve("fatura.PDF", "application/octet-stream", PDF)).isSameAs(pdf);
+        assertThat(registry.resolve("upload", "application/x-pdf; name=fatura", PDF)).isSameAs(pdf);
+        assertThat(registry.resolve("mensagem.txt", null, TEXT)).isSameAs(txt);
+    }
+
+    @Test
+    void fallsBackToTheSniffedTypeWhenNothingIsDeclared() {
+        assertThat(registry.resolve(null, null, PDF)).isSameAs(pdf);
+        assertThat(registry.resolve("upload", "application/octet-stream", TEXT)).isSameAs(txt);
+    }
+
+    @Test
+    void rejectsUnsupportedAndMismatchedFiles() {
+        assertThatThrownBy(() -> registry.resolve("planilha.xlsx", null, TEXT))
+                .isInstanceOf(InvalidFileException.class)
+                .hasMessageContaining("Formato nao suportado");
+        assertThatThrownBy(() -> registry.resolve("fatura.pdf", "application/pdf", TEXT))
+                .isInstanceOf(InvalidFileException.class)
+                .hasMessageContaining("nao corresponde");
+        assertThatThrownBy(() -> registry.resolve("mensagem.txt", "text/plain", PDF))
+                .isInstanceOf(InvalidFileException.class)
+                .hasMessageContaining("nao corresponde");
+        assertThatThrownBy(() -> registry.resolve(null, null, new byte[]{0, 1, 2, 3}))
+                .isInstanceOf(InvalidFileException.class)
+                .hasMessageContaining("Formato nao suportado");
+    }
+
+    @Test
+    void refusesTwoExtractorsForTheSameFormat() {
+        StubExtractor other = new StubExtractor(List.of("text/markdown"), List.of("txt"));
+
+        assertThatThrownBy(() -> new FileExtractorRegistry(List.of(txt, other)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("txt");
+    }
+
+    private record StubExtractor(List<String> mediaTypes, List<String> extensions) implements FileTextExtractor {
+
+        @Override
+        public String extract(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.autou.emailai.infrastructure.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class HtmlTextExtractorTest {
+
+    private final HtmlTextExtractor extractor = new HtmlTextExtractor(20000);
+
+    @Test
+    void keepsTextAndBlockBreaksDroppingScriptsStylesAndComments() {
+        String html = "<!DOCTYPE html><html><head><title>Pedido</title><style>p{color:red}</style></head>"
+                + "<body><!-- rastreio --><p>Bom dia,</p><div>Preciso   do <b>boleto</b>.</div>"
+                + "<SCRIPT type=\"x\">var a = '<p>';</script><br>Obrigado</body></html>";
+
+        assertThat(extractor.extract(html.getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo("Pedido\nBom dia,\nPreciso do boleto.\nObrigado");
+    }
+
+    @Test
+    void decodesCharacterReferences() {
+        assertThat(HtmlTextExtractor.toText("Fatura n&ordm; 12 &ndash; R&#36; 10&#x2C;00 &atilde;o &ccedil; &amp;&nbsp;fim", 100))
+                .isEqualTo("Fatura nº 12 – R$ 10,00 ão ç & fim");
+        assertThat(HtmlTextExtractor.toText("&desconhecido; &#xZZ; &#1114112; & solto", 100))
+                .isEqualTo("&desconhecido; &#xZZ; &#1114112; & solto");
+    }
+
+    @Test
+    void toleratesUnclosedMarkup() {
+        assertThat(HtmlTextExtractor.toText("Texto <!-- comentario sem fim", 100)).isEqualTo("Texto");
+        assertThat(HtmlTextExtractor.toText("Texto <script>nunca fecha", 100)).isEqualTo("Texto");
+        assertThat(HtmlTextExtractor.toText("Texto <b sem fechar", 100)).isEqualTo("Texto");
+    }
+
+    @Test
+    void stopsAtTheCharacterLimit() {
+        assertThat(HtmlTextExtractor.toText("<p>" + "abc ".repeat(1000) + "</p>", 10)).hasSizeLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void staysLinearOnRunsOfBareAmpersandsAndTags() {
+        String ampersands = "&".repeat(200_000);
+        String tags = "<a>".repeat(100_000);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertThat(HtmlTextExtractor.toText(ampersands, 1_000_000)).hasSize(200_000);
+            assertThat(HtmlTextExtractor.toText(tags, 1_000_000)).isEmpty();
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package com.autou.emailai.infrastructure.file;
+
+import com.autou.emailai.application.ports.out.dto.MailboxMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MboxMailboxReaderTest {
+
+    private static final String MBOX = """
+            From financeiro@example.com Mon Nov  3 10:00:00 2025
+            Message-ID: <1@example.com>
+            From: Financeiro <financeiro@example.com>
+            Subject: =?UTF-8?Q?Cobran=C3=A7a_8841?=
+
+            Segue a fatura 8841.
+            From the team, obrigado.
+
+            >From o arquivo anterior.
+            >>From citado duas vezes.
+
+            From suporte@example.com Mon Nov  3 11:00:00 2025
+            Message-ID: <2@example.com>
+            Subject: Acesso
+
+            Nao consigo acessar o sistema.
+
+            From vazio@example.com Mon Nov  3 12:00:00 2025
+
+            """;
+
+    private final MboxMailboxReader reader = new MboxMailboxReader(DataSize.ofMegabytes(1));
+
+    @Test
+    void splitsOnEnvelopeLinesAndUnescapesFromLines() {
+        List<MailboxMessage> messages = read(reader, new ByteArrayInputStream(bytes(MBOX)));
+
+        assertThat(messages).extracting(MailboxMessage::index).containsExactly(0, 1);
+        assertThat(messages.get(0).messageId()).isEqualTo("<1@example.com>");
+        assertThat(messages.get(0).from()).isEqualTo("Financeiro <financeiro@example.com>");
+        assertThat(messages.get(0).subject()).isEqualTo("Cobrança 8841");
+        assertThat(text(messages.get(0))).endsWith("""
+                Segue a fatura 8841.
+                From the team, obrigado.
+
+                From o arquivo anterior.
+                >From citado duas vezes.
+                """);
+        assertThat(text(messages.get(1))).isEqualTo("""
+                Message-ID: <2@example.com>
+                Subject: Acesso
+
+                Nao consigo acessar o sistema.
+                """);
+    }
+
+    @Test
+    void readsTheSameMessagesWhateverTheReadSizes() {
+        String crlf = MBOX.replace("\n", "\r\n");
+
+        List<MailboxMessage> whole = read(reader, new ByteArrayInputStream(bytes(crlf)));
+        List<MailboxMessage> trickled = read(reader, new TrickleInputStream(bytes(crlf)));
+
+        assertThat(trickled).hasSameSizeAs(whole).hasSize(2);
+        for (int i = 0; i < whole.size(); i++) {
+            assertThat(trickled.get(i).content()).isEqualTo(whole.get(i).content());
+        }
+        assertThat(text(whole.get(1))).endsWith("Nao consigo acessar o sistema.\r\n");
+    }
+
+    @Test
+    void readsInputWithoutEnvelopeLinesAsOneMessage() {
+        String eml = "Subject: Reembolso\n\nQual o prazo do reembolso?\n";
+
+        List<MailboxMessage> messages = read(reader, new ByteArrayInputStream(bytes(eml)));
+
+        assertThat(messages).hasSize(1);
+        assertThat(messages.get(0).subject()).isEqualTo("Reembolso");
+        assertThat(text(messages.get(0))).isEqualTo("Subject: Reembolso\n\nQual o prazo do reembolso?");
+    }
+
+    @Test
+    void truncatesMessagesOverTheMaximumSize() {
+        MboxMailboxReader small = new MboxMailboxReader(DataSize.ofBytes(64));
+        String mbox = "From a@example.com\nSubject: Grande\n\n" + "x".repeat(500) + "\n\nFrom b@example.com\nSubject: Pequeno\n\nOk.\n";
+
+        List<MailboxMessage> messages = read(small, new ByteArrayInputStream(bytes(mbox)));
+
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0).content()).hasSizeLessThanOrEqualTo(64);
+        assertThat(messages.get(1).subject()).isEqualTo("Pequeno");
+    }
+
+    private static List<MailboxMessage> read(MboxMailboxReader reader, InputStream in) {
+        List<MailboxMessage> messages = new ArrayList<>();
+        reader.read(in, messages::add);
+        return messages;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(MailboxMessage message) {
+        return new String(message.content(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hands out a few bytes per read so lines straddle reads.
+     */
+    private static final class TrickleInputStream extends ByteArrayInputStream {
+
+        private TrickleInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 3));
+        }
+    }
+}
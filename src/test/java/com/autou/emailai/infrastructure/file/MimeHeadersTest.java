@@ -0,0 +1,68 @@
+package com.autou.emailai.infrastructure.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MimeHeadersTest {
+
+    @Test
+    void unfoldsHeadersKeepingTheFirstOccurrence() {
+        byte[] message = bytes("Subject: Pedido\r\n de reembolso\r\nReceived: a\r\nReceived: b\r\nX-Vazio:\r\n\r\nCorpo");
+
+        MimeHeaders headers = MimeHeaders.parse(message, 0, message.length);
+
+        assertThat(headers.get("subject")).isEqualTo("Pedido de reembolso");
+        assertThat(headers.get("received")).isEqualTo("a");
+        assertThat(headers.get("x-vazio")).isEmpty();
+        assertThat(new String(message, headers.bodyStart(), message.length - headers.bodyStart(), StandardCharsets.UTF_8))
+                .isEqualTo("Corpo");
+    }
+
+    @Test
+    void treatsInputWithoutABlankLineAsHeadersOnly() {
+        byte[] message = bytes("Subject: So cabecalho\nlinha sem dois pontos");
+
+        MimeHeaders headers = MimeHeaders.parse(message, 0, message.length);
+
+        assertThat(headers.get("subject")).isEqualTo("So cabecalho");
+        assertThat(headers.bodyStart()).isEqualTo(message.length);
+    }
+
+    @Test
+    void decodesEncodedWordsAndJoinsAdjacentOnes() {
+        assertThat(MimeHeaders.decodeWords("=?UTF-8?Q?Cobran=C3=A7a_8841?=")).isEqualTo("Cobrança 8841");
+        assertThat(MimeHeaders.decodeWords("=?ISO-8859-1?B?U2VndW5kYQ==?= =?ISO-8859-1?Q?_via?=")).isEqualTo("Segunda via");
+        assertThat(MimeHeaders.decodeWords("Re: =?utf-8?q?Reuni=C3=A3o?= amanha")).isEqualTo("Re: Reunião amanha");
+    }
+
+    @Test
+    void leavesMalformedEncodedWordsAsTheyAre() {
+        assertThat(MimeHeaders.decodeWords("=?UTF-8?B?@@@?=")).isNotNull();
+        assertThat(MimeHeaders.decodeWords("=?charset-inexistente?Q?ol=C3=A1?=")).isEqualTo("olá");
+        assertThat(MimeHeaders.decodeWords("=?UTF-8?X?abc?=")).isEqualTo("=?UTF-8?X?abc?=");
+        assertThat(MimeHeaders.decodeWords("texto =? sem fim")).isEqualTo("texto =? sem fim");
+    }
+
+    @Test
+    void decodesQuotedPrintableWithSoftBreaksAndBadEscapes() {
+        assertThat(new String(MimeHeaders.decodeQuotedPrintable(bytes("linha =\r\ncontinua =C3=A9 =ZZ fim="), false),
+                StandardCharsets.UTF_8)).isEqualTo("linha continua é =ZZ fim=");
+        assertThat(new String(MimeHeaders.decodeQuotedPrintable(bytes("a=\nb"), true), StandardCharsets.UTF_8))
+                .isEqualTo("a=\nb");
+    }
+
+    @Test
+    void ignoresUnknownCharsets() {
+        assertThat(MimeHeaders.charset("utf-8")).isEqualTo(StandardCharsets.UTF_8);
+        assertThat(MimeHeaders.charset("nao-existe")).isNull();
+        assertThat(MimeHeaders.charset("inv@lido!")).isNull();
+        assertThat(MimeHeaders.charset(" ")).isNull();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
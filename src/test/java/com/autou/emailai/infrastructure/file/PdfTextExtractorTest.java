@@ -0,0 +1,111 @@
+package com.autou.emailai.infrastructure.file;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfTextExtractorTest {
+
+    @Test
+    void parallelExtractionKeepsPageOrder() throws IOException {
+        byte[] pdf = pdf(7);
+        PdfTextExtractor sequential = new PdfTextExtractor(50, 20000, DataSize.ofMegabytes(8), 1, 2);
+        PdfTextExtractor parallel = new PdfTextExtractor(50, 20000, DataSize.ofMegabytes(8), 3, 2);
+        try {
+            String expected = sequential.extract(pdf);
+
+            assertThat(parallel.extract(pdf)).isEqualTo(expected);
+            assertThat(expected).containsSubsequence("Pagina 1", "Pagina 2", "Pagina 3", "Pagina 4", "Pagina 5", "Pagina 6", "Pagina 7");
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void moreThreadsThanPagesReadsEachPageOnce(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("email.pdf"), pdf(3));
+        PdfTextExtractor parallel = new PdfTextExtractor(50, 20000, DataSize.ofMegabytes(8), 8, 2);
+        try {
+            String text = parallel.extract(file);
+
+            assertThat(text).containsSubsequence("Pagina 1", "Pagina 2", "Pagina 3");
+            assertThat(text.split("Pagina 2", -1)).hasSize(2);
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void respectsPageAndCharacterLimits() throws IOException {
+        byte[] pdf = pdf(6);
+        PdfTextExtractor parallel = new PdfTextExtractor(4, 30, DataSize.ofMegabytes(8), 2, 2);
+        try {
+            String text = parallel.extract(pdf);
+
+            assertThat(text).hasSizeLessThanOrEqualTo(30).startsWith("Pagina 1");
+            assertThat(new PdfTextExtractor(4, 20000, DataSize.ofMegabytes(8), 1, 2).extract(pdf))
+                    .contains("Pagina 4")
+                    .doesNotContain("Pagina 5");
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void sequentialExtractionStopsAtTheCharacterLimit() throws IOException {
+        String text = new PdfTextExtractor(50, 40, DataSize.ofMegabytes(8), 1, 2).extract(pdf(20));
+
+        assertThat(text).hasSize(40).startsWith("Pagina 1").doesNotContain("Pagina 4");
+    }
+
+    @Test
+    void aSmallMemoryBudgetSpillsToDiskInsteadOfFailing(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("email.pdf"), pdf(30));
+        PdfTextExtractor extractor = new PdfTextExtractor(50, 20000, DataSize.ofBytes(1024), 1, 2);
+
+        assertThat(extractor.extract(file)).containsSubsequence("Pagina 1", "Pagina 15", "Pagina 30");
+    }
+
+    @Test
+    void rejectsAFileThatIsNotAPdf() {
+        PdfTextExtractor extractor = new PdfTextExtractor(50, 20000, DataSize.ofMegabytes(8), 1, 2);
+
+        assertThatThrownBy(() -> extractor.extract("nao e um pdf".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Não foi possível extrair texto do PDF.");
+    }
+
+    private static byte[] pdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Pagina " + i + " do contrato");
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.autou.emailai.infrastructure.history;
+
+import com.autou.emailai.domain.AnalysisRecord;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileAnalysisHistoryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsRecordsAfterARestart() throws IOException {
+        Path file = dir.resolve("history.jsonl");
+        FileAnalysisHistoryStore store = store(file, 100, Duration.ofDays(30));
+        store.append(record("a", "openai", Instant.now()));
+        assertThat(store.findByContentHash("a")).isPresent();
+        store.close();
+
+        FileAnalysisHistoryStore reopened = store(file, 100, Duration.ofDays(30));
+        try {
+            assertThat(reopened.findByContentHash("a")).hasValueSatisfying(found -> assertThat(found.result().model()).isEqualTo("openai"));
+            assertThat(reopened.findByContentHash("b")).isEmpty();
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void picksUpLinesWrittenByAnotherNode() throws IOException {
+        Path file = dir.resolve("history.jsonl");
+        FileAnalysisHistoryStore reader = store(file, 100, Duration.ofDays(30));
+        FileAnalysisHistoryStore writer = store(file, 100, Duration.ofDays(30));
+        try {
+            assertThat(reader.findByContentHash("a")).isEmpty();
+
+            writer.append(record("a", "openai", Instant.now()));
+            writer.close();
+
+            assertThat(reader.findByContentHash("a")).isPresent();
+            assertThat(reader.query(null, null, null, 0, 10).total()).isEqualTo(1);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    void skipsAPartialLineLeftByACrashedWriter() throws IOException {
+        Path file = dir.resolve("history.jsonl");
+        FileAnalysisHistoryStore first = store(file, 100, Duration.ofDays(30));
+        first.append(record("a", "openai", Instant.now()));
+        first.close();
+        Files.writeString(file, "{\"hash\":\"broken\",\"analyzedAt\":1", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileAnalysisHistoryStore second = store(file, 100, Duration.ofDays(30));
+        second.append(record("b", "openai", Instant.now()));
+        second.close();
+
+        FileAnalysisHistoryStore third = store(file, 100, Duration.ofDays(30));
+        try {
+            assertThat(third.findByContentHash("a")).isPresent();
+            assertThat(third.findByContentHash("b")).isPresent();
+            assertThat(third.findByContentHash("broken")).isEmpty();
+            assertThat(third.query(null, null, null, 0, 10).total()).isEqualTo(2);
+        } finally {
+            third.close();
+        }
+    }
+
+    @Test
+    void neverStoresLocalAnswers() throws IOException {
+        FileAnalysisHistoryStore store = store(dir.resolve("history.jsonl"), 100, Duration.ofDays(30));
+        try {
+            store.append(record("a", "local", Instant.now()));
+
+            assertThat(store.findByContentHash("a")).isEmpty();
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void forgetsRecordsPastTheirRetention() throws IOException {
+        Path file = dir.resolve("history.jsonl");
+        FileAnalysisHistoryStore store = store(file, 100, Duration.ofDays(1));
+        store.append(record("old", "openai", Instant.now().minus(Duration.ofDays(2))));
+        store.append(record("new", "openai", Instant.now()));
+        store.close();
+
+        FileAnalysisHistoryStore reopened = store(file, 100, Duration.ofDays(1));
+        try {
+            assertThat(reopened.findByContentHash("old")).isEmpty();
+            assertThat(reopened.findByContentHash("new")).isPresent();
+            assertThat(reopened.query(null, null, null, 0, 10).total()).isEqualTo(1);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void keepsOnlyTheNewestEntriesAndCompactsTheFile() throws IOException {
+        Path file = dir.resolve("history.jsonl");
+        FileAnalysisHistoryStore otherNode = store(file, 10, Duration.ofDays(30));
+        FileAnalysisHistoryStore store = store(file, 10, Duration.ofDays(30));
+        Instant start = Instant.now().minusSeconds(3600);
+        for (int i = 0; i < 1200; i++) {
+            store.append(record("h" + i, "openai", start.plusSeconds(i)));
+        }
+        store.close();
+
+        assertThat(Files.readAllLines(file)).hasSize(10);
+        try {
+            assertThat(otherNode.findByContentHash("h1199")).isPresent();
+            otherNode.append(record("late", "openai", Instant.now()));
+        } finally {
+            otherNode.close();
+        }
+        assertThat(Files.readAllLines(file)).hasSize(11);
+
+        FileAnalysisHistoryStore reopened = store(file, 10, Duration.ofDays(30));
+        try {
+            assertThat(reopened.findByContentHash("h0")).isEmpty();
+            assertThat(reopened.findByContentHash("h1199")).isPresent();
+            assertThat(reopened.query(null, null, null, 0, 100).items())
+                    .extracting(AnalysisRecord::contentHash)
+                    .startsWith("late", "h1199")
+                    .hasSize(10);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static FileAnalysisHistoryStore store(Path file, int maxEntries, Duration retention) {
+        return new FileAnalysisHistoryStore(new ObjectMapper(), new SimpleMeterRegistry(), file, 500, 10000,
+                Duration.ofMinutes(1), maxEntries, retention);
+    }
+
+    private static AnalysisRecord record(String hash, String model, Instant analyzedAt) {
+        return new AnalysisRecord(hash, new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "Motivo.", "Resposta.", model), analyzedAt);
+    }
+}
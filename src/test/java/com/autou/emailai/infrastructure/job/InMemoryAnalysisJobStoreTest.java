@@ -0,0 +1,76 @@
+package com.autou.emailai.infrastructure.job;
+
+import com.autou.emailai.domain.AnalysisJob;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryAnalysisJobStoreTest {
+
+    private static final EmailAnalysisResult RESULT =
+            new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "Pedido de boleto.", "Enviaremos o boleto.", "openai");
+
+    @Test
+    void rejectsNewJobsWhenFullOfUnfinishedOnes() {
+        InMemoryAnalysisJobStore store = new InMemoryAnalysisJobStore(2, Duration.ofHours(1));
+        Instant now = Instant.now();
+        AnalysisJob running = AnalysisJob.pending("a", now).running(now);
+        AnalysisJob queued = AnalysisJob.pending("b", now);
+
+        assertThat(store.add(running)).isTrue();
+        assertThat(store.add(queued)).isTrue();
+        assertThat(store.add(AnalysisJob.pending("c", now))).isFalse();
+
+        assertThat(store.find("a")).isPresent();
+        assertThat(store.find("b")).isPresent();
+        assertThat(store.find("c")).isEmpty();
+    }
+
+    @Test
+    void evictsOnlyFinishedJobsToMakeRoom() {
+        InMemoryAnalysisJobStore store = new InMemoryAnalysisJobStore(2, Duration.ofHours(1));
+        Instant now = Instant.now();
+        store.add(AnalysisJob.pending("running", now));
+        store.add(AnalysisJob.pending("done", now));
+        store.save(AnalysisJob.pending("done", now).succeeded(RESULT, now));
+
+        assertThat(store.add(AnalysisJob.pending("new", now))).isTrue();
+
+        assertThat(store.find("running")).isPresent();
+        assertThat(store.find("done")).isEmpty();
+        assertThat(store.find("new")).isPresent();
+    }
+
+    @Test
+    void expiresFinishedJobsButKeepsOldRunningOnes() {
+        InMemoryAnalysisJobStore store = new InMemoryAnalysisJobStore(10, Duration.ofMinutes(5));
+        Instant old = Instant.now().minus(Duration.ofHours(1));
+        store.add(AnalysisJob.pending("slow", old).running(old));
+        store.add(AnalysisJob.pending("stale", old).failed("Falha.", old));
+
+        store.add(AnalysisJob.pending("fresh", Instant.now()));
+
+        assertThat(store.find("slow")).isPresent();
+        assertThat(store.find("stale")).isEmpty();
+        assertThat(store.find("fresh")).isPresent();
+    }
+
+    @Test
+    void updatesKeepJobsAvailableUntilTheyFinish() {
+        InMemoryAnalysisJobStore store = new InMemoryAnalysisJobStore(1, Duration.ofHours(1));
+        Instant now = Instant.now();
+        AnalysisJob job = AnalysisJob.pending("a", now);
+        store.add(job);
+
+        store.save(job.running(now));
+        assertThat(store.find("a")).hasValueSatisfying(found -> assertThat(found.status().isFinished()).isFalse());
+
+        store.save(job.running(now).succeeded(RESULT, now));
+        assertThat(store.find("a")).hasValueSatisfying(found -> assertThat(found.result()).isEqualTo(RESULT));
+    }
+}
@@ -0,0 +1,98 @@
+package com.autou.emailai.infrastructure.similarity;
+
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinHashAnalysisIndexTest {
+
+    private static final String GENERIC_REPLY = "Recebemos sua solicitacao e retornaremos em breve.";
+    private static final String INVOICE = "Ola equipe, a fatura %s no valor de R$ %s venceu em %s e ainda nao consta como paga "
+            + "no portal do cliente. Podem verificar o pagamento e enviar o comprovante atualizado para o financeiro?";
+    private static final String ACCESS = "Bom dia, nao consigo acessar o sistema de chamados desde a atualizacao de ontem "
+            + "e a tela de login mostra erro de senha invalida mesmo depois de redefinir pelo link enviado.";
+    private static final String MEETING = "Pessoal, a reuniao de planejamento trimestral foi remarcada para a sala grande "
+            + "do terceiro andar e todos os gerentes devem levar os numeros consolidados de vendas.";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void reusesTheClassificationButNeverTheReasonOrReplyOfASimilarEmail() {
+        MinHashAnalysisIndex index = index(0.85, 16, 4, 100);
+        index.add(INVOICE.formatted("8841", "1.250,00", "03/11/2025"), new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.93,
+                "Cobranca de fatura em aberto.", "Confirmamos o pagamento da fatura 8841 de R$ 1.250,00.", "openai"));
+
+        assertThat(index.findSimilar(INVOICE.formatted("9120", "870,40", "10/12/2025"))).hasValueSatisfying(found -> {
+            assertThat(found.category()).isEqualTo(EmailCategory.PRODUTIVO);
+            assertThat(found.confidence()).isEqualTo(0.93);
+            assertThat(found.reason()).isEqualTo("Texto semelhante a um e-mail ja analisado.");
+            assertThat(found.suggestedReply()).isEqualTo(GENERIC_REPLY);
+            assertThat(found.model()).isEqualTo("similar");
+        });
+        assertThat(index.findSimilar(ACCESS)).isEmpty();
+    }
+
+    @Test
+    void acceptsOnlyMatchesAtOrAboveTheThreshold() {
+        String original = INVOICE.formatted("8841", "1.250,00", "03/11/2025");
+        String reworded = original.replace("ainda nao consta como paga no portal do cliente", "foi paga mas segue em aberto no extrato");
+        MinHashAnalysisIndex lenient = index(0.3, 64, 1, 100);
+        MinHashAnalysisIndex strict = index(0.85, 64, 1, 100);
+        lenient.add(original, result());
+        strict.add(original, result());
+
+        assertThat(lenient.findSimilar(reworded)).isPresent();
+        assertThat(strict.findSimilar(reworded)).isEmpty();
+        assertThat(strict.findSimilar(original)).isPresent();
+    }
+
+    @Test
+    void ignoresTextsTooShortToCompare() {
+        MinHashAnalysisIndex index = index(0.85, 16, 4, 100);
+        index.add("Obrigado pela ajuda", result());
+
+        assertThat(index.findSimilar("Obrigado pela ajuda")).isEmpty();
+        assertThat(index.stats().size()).isZero();
+    }
+
+    @Test
+    void clockEvictionGivesRecentlyUsedEntriesASecondChance() {
+        MinHashAnalysisIndex index = index(0.85, 16, 4, 2);
+        index.add(INVOICE.formatted("1", "1,00", "01/01/2025"), result());
+        index.add(ACCESS, result());
+        assertThat(index.findSimilar(INVOICE.formatted("2", "2,00", "02/02/2025"))).isPresent();
+
+        index.add(MEETING, result());
+
+        assertThat(index.stats().size()).isEqualTo(2);
+        assertThat(meterRegistry.get("analysis.near-duplicate.evictions").counter().count()).isEqualTo(1);
+        assertThat(index.findSimilar(ACCESS)).isEmpty();
+        assertThat(index.findSimilar(MEETING)).isPresent();
+        assertThat(index.findSimilar(INVOICE.formatted("3", "3,00", "03/03/2025"))).isPresent();
+    }
+
+    @Test
+    void registersGaugesOnlyWhenBound() {
+        MinHashAnalysisIndex index = index(0.85, 16, 4, 100);
+        index.add(ACCESS, result());
+        assertThat(meterRegistry.find("analysis.near-duplicate.size").gauge()).isNull();
+
+        index.bindTo(meterRegistry);
+
+        assertThat(meterRegistry.get("analysis.near-duplicate.size").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("analysis.near-duplicate.memory").gauge().value()).isPositive();
+    }
+
+    private MinHashAnalysisIndex index(double threshold, int bands, int rows, int maxEntries) {
+        return new MinHashAnalysisIndex(meterRegistry, threshold, bands, rows, maxEntries, DataSize.ofMegabytes(16),
+                GENERIC_REPLY, "Obrigado pela mensagem! Ficamos a disposicao.");
+    }
+
+    private static EmailAnalysisResult result() {
+        return new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "Motivo.", "Resposta.", "openai");
+    }
+}
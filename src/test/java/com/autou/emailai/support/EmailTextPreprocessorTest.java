@@ -0,0 +1,143 @@
+package com.autou.emailai.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTextPreprocessorTest {
+
+    private final EmailTextPreprocessor preprocessor = new EmailTextPreprocessor(20000, true, true, 2000, 0.7);
+
+    @Test
+    void keepsRequestThatFollowsAnOpeningThankYou() {
+        String text = "Bom dia,\nObrigado.\nVoces podem enviar o boleto de novembro? Vence sexta.\nJoao";
+
+        assertThat(preprocessor.preprocess(text))
+                .contains("Voces podem enviar o boleto de novembro? Vence sexta.")
+                .contains("Joao");
+    }
+
+    @Test
+    void keepsTextAfterASignOffWhenItIsNotASignature() {
+        String text = "Segue o relatorio de outubro.\nObrigado.\nPor favor, confirmem o recebimento ate sexta-feira.";
+
+        assertThat(preprocessor.preprocess(text)).contains("confirmem o recebimento");
+    }
+
+    @Test
+    void dropsSignatureAfterTheRequest() {
+        String text = "Bom dia,\nPreciso da segunda via do boleto de novembro.\n\nAtenciosamente,\nMaria Souza\n"
+                + "Analista Financeira\n(11) 98765-4321";
+
+        assertThat(preprocessor.preprocess(text))
+                .isEqualTo("Bom dia,\nPreciso da segunda via do boleto de novembro.");
+    }
+
+    @Test
+    void keepsLinesThatOnlyLookLikeTheStartOfAReplyHeader() {
+        String text = "Oi,\nDe: financeiro\nEnviado: ontem\nO pagamento nao caiu, podem checar?";
+
+        assertThat(preprocessor.preprocess(text)).contains("O pagamento nao caiu, podem checar?");
+    }
+
+    @Test
+    void dropsQuotedHistoryAfterACompleteOutlookHeader() {
+        String text = "Podem confirmar o pagamento da fatura 8841?\n\nDe: Financeiro <financeiro@example.com>\n"
+                + "Enviado: segunda-feira, 3 de novembro de 2025 10:00\nPara: Suporte\nAssunto: Fatura 8841\n\n"
+                + "Segue a fatura em anexo.";
+
+        assertThat(preprocessor.preprocess(text)).isEqualTo("Podem confirmar o pagamento da fatura 8841?");
+    }
+
+    @Test
+    void dropsGmailQuoteAndQuotedLines() {
+        String text = "Ainda nao recebi o acesso.\n\nEm seg., 3 de nov. de 2025 as 10:00, Suporte <suporte@example.com> escreveu:\n"
+                + "> Liberamos o acesso hoje.";
+
+        assertThat(preprocessor.preprocess(text)).isEqualTo("Ainda nao recebi o acesso.");
+    }
+
+    @Test
+    void keepsQuotedTextWhenNothingElseIsLeft() {
+        assertThat(preprocessor.preprocess("> Preciso do contrato assinado.")).isEqualTo("> Preciso do contrato assinado.");
+    }
+
+    @Test
+    void collapsesWhitespaceAndDropsControlCharacters() {
+        assertThat(preprocessor.preprocess("Preciso   do\tboleto\u0007.\r\n\r\n\r\n\r\nObrigado pela ajuda com isso"))
+                .isEqualTo("Preciso do boleto.\n\nObrigado pela ajuda com isso");
+    }
+
+    @Test
+    void normalizesCompatibilityCharacters() {
+        assertThat(preprocessor.preprocess("Fatura\u00A0Ｎº\u00A08841 ﬁnal")).isEqualTo("Fatura No 8841 final");
+    }
+
+    @Test
+    void returnsEmptyForNullOrEmptyText() {
+        assertThat(preprocessor.preprocess(null)).isEmpty();
+        assertThat(preprocessor.preprocess("")).isEmpty();
+        assertThat(preprocessor.preprocess(" \n\t ")).isEmpty();
+    }
+
+    @Test
+    void stopsAtTheCharacterLimit() {
+        EmailTextPreprocessor short20 = new EmailTextPreprocessor(20, true, true, 2000, 0.7);
+
+        assertThat(short20.preprocess("Preciso do boleto de novembro com urgencia.")).hasSizeLessThanOrEqualTo(20)
+                .startsWith("Preciso do boleto");
+    }
+
+    @Test
+    void dropsDisclaimers() {
+        String text = "Podem reenviar o contrato?\n\nAviso de confidencialidade: esta mensagem pode conter informacoes sigilosas.";
+
+        assertThat(preprocessor.preprocess(text)).isEqualTo("Podem reenviar o contrato?");
+    }
+
+    @Test
+    void keepsABodyThatOpensWithADisclaimerPhrase() {
+        String text = "Aviso legal: precisamos revisar o contrato antes de assinar.\nPodem enviar a minuta ate sexta?";
+
+        assertThat(preprocessor.preprocess(text)).isEqualTo(text);
+    }
+
+    @Test
+    void keepsADisclaimerPhraseFollowedByMoreRequest() {
+        String text = "Segue o contrato revisado.\nDisclaimer: a clausula 5 mudou.\nPodem confirmar ate sexta?";
+
+        assertThat(preprocessor.preprocess(text)).isEqualTo(text);
+    }
+
+    @Test
+    void keepsQuotedTextAndSignaturesWhenStrippingIsOff() {
+        EmailTextPreprocessor keepAll = new EmailTextPreprocessor(20000, false, false, 2000, 0.7);
+        String text = "Segue o pedido.\n> Mensagem anterior.\n\nAtenciosamente,\nMaria";
+
+        assertThat(keepAll.preprocess(text))
+                .contains("> Mensagem anterior.")
+                .endsWith("Atenciosamente,\nMaria");
+    }
+
+    @Test
+    void reusedBuffersDoNotLeakTextBetweenCalls() {
+        preprocessor.preprocess("Texto longo ".repeat(500));
+
+        assertThat(preprocessor.preprocess("Curto.")).isEqualTo("Curto.");
+    }
+
+    @Test
+    void elidesTheMiddleOfTextsOverTheTokenBudget() {
+        EmailTextPreprocessor small = new EmailTextPreprocessor(20000, true, true, 60, 0.5);
+        StringBuilder text = new StringBuilder("Inicio do pedido de reembolso.\n");
+        for (int i = 0; i < 100; i++) {
+            text.append("Linha de contexto numero ").append(i).append(".\n");
+        }
+        text.append("Final: qual o prazo do reembolso?");
+
+        assertThat(small.preprocess(text.toString()))
+                .startsWith("Inicio do pedido de reembolso.")
+                .contains("[...]")
+                .endsWith("Final: qual o prazo do reembolso?");
+    }
+}
@@ -0,0 +1,96 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.exception.JobQueueFullException;
+import com.autou.emailai.application.ports.in.EmailAnalysisUseCase;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EmailAnalysisApiControllerTest {
+
+    private static final EmailAnalysisResult RESULT =
+            new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "Pedido de boleto.", "Ok.", "openai");
+
+    private final EmailAnalysisUseCase analysis = mock(EmailAnalysisUseCase.class);
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new EmailAnalysisApiController(analysis, new UploadSpooler(new SimpleMeterRegistry())))
+            .setControllerAdvice(new ApiExceptionHandler())
+            .build();
+
+    @Test
+    void releasesTheRequestBeforeTheAiAnswers() throws Exception {
+        CompletableFuture<EmailAnalysisResult> pending = new CompletableFuture<>();
+        when(analysis.analyzeTextAsync("Preciso do boleto.")).thenReturn(pending);
+
+        MvcResult started = mvc.perform(post("/api/analyze/text")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"Preciso do boleto.\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        pending.complete(RESULT);
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.category").value("PRODUTIVO"))
+                .andExpect(jsonPath("$.suggestedReply").value("Ok."));
+    }
+
+    @Test
+    void keepsTheSpooledUploadUntilTheAnalysisEnds() throws Exception {
+        CompletableFuture<EmailAnalysisResult> pending = new CompletableFuture<>();
+        AtomicReference<Path> spooled = new AtomicReference<>();
+        when(analysis.analyzeFileAsync(any(Path.class), anyString(), anyString())).thenAnswer(invocation -> {
+            spooled.set(invocation.getArgument(0));
+            return pending;
+        });
+
+        MvcResult started = mvc.perform(multipart("/api/analyze/file")
+                        .file(new MockMultipartFile("file", "email.txt", "text/plain", "Preciso do boleto.".getBytes())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(spooled.get()).exists();
+
+        pending.complete(RESULT);
+        mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        assertThat(spooled.get()).doesNotExist();
+    }
+
+    @Test
+    void aFullQueueAnswers503WithRetryAfter() throws Exception {
+        when(analysis.analyzeTextAsync(anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new JobQueueFullException("Fila de analises cheia.")));
+
+        MvcResult started = mvc.perform(post("/api/analyze/text")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"Preciso do boleto.\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.ports.in.MailboxImportUseCase;
+import com.autou.emailai.application.ports.in.dto.MailboxImportSummary;
+import com.autou.emailai.application.ports.in.dto.MailboxItemResult;
+import com.autou.emailai.domain.EmailAnalysisResult;
+import com.autou.emailai.domain.EmailCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailboxImportApiControllerTest {
+
+    @Test
+    void csvDefusesValuesASpreadsheetWouldRunAsFormulas() throws IOException {
+        MailboxImportUseCase useCase = (mailbox, listener) -> {
+            listener.onItem(new MailboxItemResult(0, "<1@exemplo>", "@atacante", "=HYPERLINK(\"http://x\",\"abrir\")",
+                    new EmailAnalysisResult(EmailCategory.PRODUTIVO, 0.9, "-1+1", "+55 11 9999-0000", "openai"), null));
+            return new MailboxImportSummary(1, 1, 0);
+        };
+        MailboxImportApiController controller = new MailboxImportApiController(useCase, new ObjectMapper());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.importMailbox("csv", new MockHttpServletRequest(), response);
+
+        assertThat(response.getContentAsString()).endsWith(
+                "0,<1@exemplo>,'@atacante,\"'=HYPERLINK(\"\"http://x\"\",\"\"abrir\"\")\",PRODUTIVO,0.9,'-1+1,'+55 11 9999-0000,\n");
+    }
+}
@@ -0,0 +1,69 @@
+package com.autou.emailai.web.controller;
+
+import com.autou.emailai.application.exception.InvalidFileException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadSpoolerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UploadSpooler spooler = new UploadSpooler(meterRegistry);
+
+    @Test
+    void spoolsTheUploadToATemporaryFileAndDeletesIt() throws IOException {
+        Path spooled = spooler.spool(upload("a.txt", "Preciso do boleto de novembro."));
+        try {
+            assertThat(Files.readString(spooled, StandardCharsets.UTF_8)).isEqualTo("Preciso do boleto de novembro.");
+            assertThat(meterRegistry.get("email.analysis.stage").tag("stage", "file_read").timer().count()).isEqualTo(1);
+        } finally {
+            spooler.delete(spooled);
+        }
+        assertThat(spooled).doesNotExist();
+    }
+
+    @Test
+    void removesTheFilesAlreadySpooledWhenALaterUploadFails() {
+        MultipartFile broken = new MockMultipartFile("files", "b.txt", "text/plain", new byte[0]) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("Conexao encerrada.");
+            }
+
+            @Override
+            public void transferTo(File dest) throws IOException {
+                throw new IOException("Conexao encerrada.");
+            }
+        };
+        List<Path> before = tempUploads();
+
+        assertThatThrownBy(() -> spooler.spoolAll(List.of(upload("a.txt", "Primeiro."), broken)))
+                .isInstanceOf(InvalidFileException.class);
+
+        assertThat(tempUploads()).containsExactlyInAnyOrderElementsOf(before);
+    }
+
+    private static MockMultipartFile upload(String filename, String content) {
+        return new MockMultipartFile("files", filename, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Path> tempUploads() {
+        try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("email-upload-")).toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}